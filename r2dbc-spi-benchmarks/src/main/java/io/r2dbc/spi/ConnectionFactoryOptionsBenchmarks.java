@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Option} lookup and {@link ConnectionFactoryOptions} access.  {@code valueOf} measures the constant pool lookup that drivers perform when declaring or resolving options by
+ * name, {@code getValue} and {@code hasOption} measure option access on a typical set of options, {@code build} and {@code mutate} measure creating options.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionFactoryOptionsBenchmarks {
+
+    private static final Option<String> APPLICATION_NAME = Option.valueOf("applicationName");
+
+    private static final Option<String> ABSENT = Option.valueOf("absent");
+
+    private ConnectionFactoryOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.options = ConnectionFactoryOptions.builder()
+            .option(ConnectionFactoryOptions.DRIVER, "postgresql")
+            .option(ConnectionFactoryOptions.HOST, "localhost")
+            .option(ConnectionFactoryOptions.PORT, 5432)
+            .option(ConnectionFactoryOptions.USER, "user")
+            .option(ConnectionFactoryOptions.PASSWORD, "secret")
+            .option(ConnectionFactoryOptions.DATABASE, "mydb")
+            .option(ConnectionFactoryOptions.SSL, true)
+            .option(ConnectionFactoryOptions.CONNECT_TIMEOUT, Duration.ofSeconds(5))
+            .option(ConnectionFactoryOptions.STATEMENT_TIMEOUT, Duration.ofSeconds(30))
+            .option(APPLICATION_NAME, "benchmarks")
+            .build();
+    }
+
+    @Benchmark
+    public Option<?> valueOf() {
+        return Option.valueOf("applicationName");
+    }
+
+    @Benchmark
+    public Object getValue() {
+        return this.options.getValue(ConnectionFactoryOptions.HOST);
+    }
+
+    @Benchmark
+    public Object getRequiredValue() {
+        return this.options.getRequiredValue(APPLICATION_NAME);
+    }
+
+    @Benchmark
+    public boolean hasOption() {
+        return this.options.hasOption(ABSENT);
+    }
+
+    @Benchmark
+    public ConnectionFactoryOptions build() {
+        return ConnectionFactoryOptions.builder()
+            .option(ConnectionFactoryOptions.DRIVER, "postgresql")
+            .option(ConnectionFactoryOptions.HOST, "localhost")
+            .option(ConnectionFactoryOptions.PORT, 5432)
+            .option(ConnectionFactoryOptions.DATABASE, "mydb")
+            .build();
+    }
+
+    @Benchmark
+    public ConnectionFactoryOptions mutate() {
+        return this.options.mutate().option(ConnectionFactoryOptions.DATABASE, "otherdb").build();
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import io.r2dbc.spi.test.MockConnection;
+import io.r2dbc.spi.test.MockConnectionFactory;
+import io.r2dbc.spi.test.MockResult;
+import io.r2dbc.spi.test.MockRow;
+import io.r2dbc.spi.test.MockStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link ExecutionListener} dispatch overhead.  {@code unobserved} executes a statement and consumes its rows on a plain connection, {@code observed} runs the same execution
+ * on a connection of a {@link ConnectionFactories#observe(ConnectionFactory, ExecutionListener) observed} factory with a no-op listener.  The difference between both scores is the per-execution
+ * overhead, dividing it by {@code rows} approximates the overhead per dispatched row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutionListenerBenchmarks {
+
+    private static final String SQL = "SELECT * FROM person";
+
+    @Param({"1", "100"})
+    public int rows;
+
+    private Connection unobserved;
+
+    private Connection observed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        Row[] rows = new Row[this.rows];
+
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = MockRow.empty();
+        }
+
+        MockStatement statement = MockStatement.builder().result(MockResult.builder().row(rows).build()).build();
+        MockConnectionFactory connectionFactory = MockConnectionFactory.builder().connection(MockConnection.builder().statement(statement).build()).build();
+
+        this.unobserved = Mono.from(connectionFactory.create()).block();
+        this.observed = Mono.from(ConnectionFactories.observe(connectionFactory, new ExecutionListener() {
+
+        }).create()).block();
+    }
+
+    @Benchmark
+    public Object unobserved() {
+        return execute(this.unobserved);
+    }
+
+    @Benchmark
+    public Object observed() {
+        return execute(this.observed);
+    }
+
+    private static Object execute(Connection connection) {
+        return Flux.from(connection.createStatement(SQL).execute()).flatMap(result -> result.map((row, metadata) -> row)).blockLast();
+    }
+
+}
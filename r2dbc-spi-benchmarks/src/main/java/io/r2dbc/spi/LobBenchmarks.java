@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for streaming large objects created through {@link Blob#from(org.reactivestreams.Publisher)} and {@link Clob#from(org.reactivestreams.Publisher)}.  Each invocation streams
+ * {@code chunks} chunks of {@value #CHUNK_SIZE} bytes or characters.  {@code clobFromBytes} decodes UTF-8 encoded chunks through {@link Clob#from(org.reactivestreams.Publisher,
+ * java.nio.charset.Charset)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LobBenchmarks {
+
+    static final int CHUNK_SIZE = 8192;
+
+    @Param({"1", "64"})
+    public int chunks;
+
+    private List<ByteBuffer> bytes;
+
+    private List<CharSequence> characters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        byte[] chunk = new byte[CHUNK_SIZE];
+        Arrays.fill(chunk, (byte) 'x');
+
+        ByteBuffer[] bytes = new ByteBuffer[this.chunks];
+        CharSequence[] characters = new CharSequence[this.chunks];
+
+        for (int i = 0; i < this.chunks; i++) {
+            bytes[i] = ByteBuffer.wrap(chunk).asReadOnlyBuffer();
+            characters[i] = new String(chunk, StandardCharsets.US_ASCII);
+        }
+
+        this.bytes = Arrays.asList(bytes);
+        this.characters = Arrays.asList(characters);
+    }
+
+    @Benchmark
+    public Object blob() {
+        return Flux.from(Blob.from(Flux.fromIterable(this.bytes).map(ByteBuffer::duplicate)).stream()).blockLast();
+    }
+
+    @Benchmark
+    public Object blobSlice() {
+        return Flux.from(Blob.from(Flux.fromIterable(this.bytes).map(ByteBuffer::duplicate)).stream(CHUNK_SIZE / 2, CHUNK_SIZE)).blockLast();
+    }
+
+    @Benchmark
+    public Object clob() {
+        return Flux.from(Clob.from(Flux.fromIterable(this.characters)).stream()).blockLast();
+    }
+
+    @Benchmark
+    public Object clobFromBytes() {
+        return Flux.from(Clob.from(Flux.fromIterable(this.bytes).map(ByteBuffer::duplicate), StandardCharsets.UTF_8).stream()).blockLast();
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for creating {@link Parameter}s through {@link Parameters}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParametersBenchmarks {
+
+    private String value = "Walter";
+
+    @Benchmark
+    public Parameter inValue() {
+        return Parameters.in(this.value);
+    }
+
+    @Benchmark
+    public Parameter inTypeAndValue() {
+        return Parameters.in(R2dbcType.VARCHAR, this.value);
+    }
+
+    @Benchmark
+    public Parameter inClass() {
+        return Parameters.in(String.class);
+    }
+
+    @Benchmark
+    public Parameter out() {
+        return Parameters.out(R2dbcType.INTEGER);
+    }
+
+    @Benchmark
+    public Parameter inOut() {
+        return Parameters.inOut(R2dbcType.VARCHAR, this.value);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import io.r2dbc.spi.test.MockColumnMetadata;
+import io.r2dbc.spi.test.MockRow;
+import io.r2dbc.spi.test.MockRowMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Row} access by index and by name on a {@link MockRow} with {@value #COLUMNS} columns.  {@code readAll} benchmarks read every column of the row, the remaining ones read a
+ * single column in the middle of the row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowBenchmarks {
+
+    static final int COLUMNS = 10;
+
+    private final String[] names = new String[COLUMNS];
+
+    private Row row;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        MockRow.Builder row = MockRow.builder();
+        MockRowMetadata.Builder metadata = MockRowMetadata.builder();
+
+        for (int i = 0; i < COLUMNS; i++) {
+
+            this.names[i] = "column_" + i;
+
+            row.identified(i, String.class, "value_" + i).identified(this.names[i], String.class, "value_" + i);
+            metadata.columnMetadata(MockColumnMetadata.builder().name(this.names[i]).javaType(String.class).build());
+        }
+
+        this.row = row.metadata(metadata.build()).build();
+    }
+
+    @Benchmark
+    public String getByIndex() {
+        return this.row.get(COLUMNS / 2, String.class);
+    }
+
+    @Benchmark
+    public String getByName() {
+        return this.row.get("column_5", String.class);
+    }
+
+    @Benchmark
+    public void readAllByIndex(Blackhole blackhole) {
+        for (int i = 0; i < COLUMNS; i++) {
+            blackhole.consume(this.row.get(i, String.class));
+        }
+    }
+
+    @Benchmark
+    public void readAllByName(Blackhole blackhole) {
+        for (String name : this.names) {
+            blackhole.consume(this.row.get(name, String.class));
+        }
+    }
+
+    @Benchmark
+    public ColumnMetadata getColumnMetadataByName() {
+        return this.row.getMetadata().getColumnMetadata("column_5");
+    }
+
+}
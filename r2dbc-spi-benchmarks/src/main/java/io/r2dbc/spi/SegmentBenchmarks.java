@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import io.r2dbc.spi.test.MockResult;
+import io.r2dbc.spi.test.MockRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for consuming the segments of a {@link Result} with {@code segments} row segments followed by an update count.  The {@code map} benchmarks consume rows through
+ * {@link Result#map(java.util.function.BiFunction)} and {@link Result#map(java.util.function.Function)}, {@code flatMap} maps every segment and {@code filterAndFlatMap} filters row
+ * segments before mapping them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegmentBenchmarks {
+
+    @Param({"1", "100"})
+    public int segments;
+
+    private Result result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        Result.Segment[] segments = new Result.Segment[this.segments + 1];
+
+        for (int i = 0; i < this.segments; i++) {
+            segments[i] = MockResult.row(MockRow.builder().identified(0, Integer.class, i).build());
+        }
+
+        segments[this.segments] = MockResult.updateCount(this.segments);
+
+        this.result = MockResult.builder().segment(segments).build();
+    }
+
+    @Benchmark
+    public Object mapRowAndMetadata() {
+        return Flux.from(this.result.map((row, metadata) -> row.get(0, Integer.class))).blockLast();
+    }
+
+    @Benchmark
+    public Object mapReadable() {
+        return Flux.from(this.result.map(readable -> readable.get(0, Integer.class))).blockLast();
+    }
+
+    @Benchmark
+    public Object flatMap() {
+        return Flux.from(this.result.flatMap(segment -> {
+
+            if (segment instanceof Result.RowSegment) {
+                return Mono.justOrEmpty(((Result.RowSegment) segment).row().get(0, Integer.class));
+            }
+
+            if (segment instanceof Result.UpdateCount) {
+                return Mono.just((int) ((Result.UpdateCount) segment).value());
+            }
+
+            return Mono.empty();
+        })).blockLast();
+    }
+
+    @Benchmark
+    public Object filterAndFlatMap() {
+        return Flux.from(this.result.filter(Result.RowSegment.class::isInstance).flatMap(segment -> Mono.justOrEmpty(((Result.RowSegment) segment).row().get(0, Integer.class))))
+            .blockLast();
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link SqlFingerprint}.  {@code normalize} measures the uncached single-pass normalization of typical OLTP statements and should stay below one microsecond, {@code cached}
+ * measures the cache lookup that listeners perform per execution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlFingerprintBenchmarks {
+
+    @Param({
+        "SELECT id, name, email FROM person WHERE id = $1",
+        "SELECT * FROM orders WHERE customer_id = 42 AND status IN ('OPEN', 'PENDING', 'HOLD') ORDER BY created_at DESC LIMIT 20",
+        "INSERT INTO person (id, name, email) VALUES (1, 'Walter', 'walter@example.com'), (2, 'Jesse', 'jesse@example.com')",
+        "UPDATE account SET balance = balance - 100.50, updated_at = now() WHERE id = :id AND version = :version"
+    })
+    public String sql;
+
+    @Benchmark
+    public String normalize() {
+        return SqlFingerprint.normalize(this.sql);
+    }
+
+    @Benchmark
+    public SqlFingerprint cached() {
+        return SqlFingerprint.of(this.sql);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.test.MockConnection;
+import io.r2dbc.spi.test.MockConnectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link ConnectionPool} acquire/release cycles.  {@code contended} runs 64 threads against pools that are smaller than, respectively as large as, the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionPoolBenchmarks {
+
+    @Param({"8", "64"})
+    public int maxSize;
+
+    private ConnectionPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        MockConnectionFactory connectionFactory = MockConnectionFactory.builder().connection(MockConnection.empty()).build();
+
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+            .minIdle(this.maxSize)
+            .maxSize(this.maxSize)
+            .build());
+
+        Mono.from(this.pool.warmup()).block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Mono.from(this.pool.close()).block();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Connection uncontended() {
+        return acquireRelease();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Connection contended() {
+        return acquireRelease();
+    }
+
+    private Connection acquireRelease() {
+
+        Connection connection = Mono.from(this.pool.create()).block();
+        Mono.from(connection.close()).block();
+
+        return connection;
+    }
+
+}
@@ -0,0 +1,4 @@
+package io.r2dbc.spi.jmh_generated;
+public class ConnectionFactoryOptionsBenchmarks_jmhType extends ConnectionFactoryOptionsBenchmarks_jmhType_B3 {
+}
+
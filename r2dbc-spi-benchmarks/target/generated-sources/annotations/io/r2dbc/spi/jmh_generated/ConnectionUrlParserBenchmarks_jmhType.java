@@ -0,0 +1,4 @@
+package io.r2dbc.spi.jmh_generated;
+public class ConnectionUrlParserBenchmarks_jmhType extends ConnectionUrlParserBenchmarks_jmhType_B3 {
+}
+
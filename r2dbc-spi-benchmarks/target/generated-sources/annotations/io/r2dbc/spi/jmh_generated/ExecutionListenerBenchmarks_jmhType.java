@@ -0,0 +1,4 @@
+package io.r2dbc.spi.jmh_generated;
+public class ExecutionListenerBenchmarks_jmhType extends ExecutionListenerBenchmarks_jmhType_B3 {
+}
+
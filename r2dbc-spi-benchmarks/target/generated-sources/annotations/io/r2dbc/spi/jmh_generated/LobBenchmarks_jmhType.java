@@ -0,0 +1,4 @@
+package io.r2dbc.spi.jmh_generated;
+public class LobBenchmarks_jmhType extends LobBenchmarks_jmhType_B3 {
+}
+
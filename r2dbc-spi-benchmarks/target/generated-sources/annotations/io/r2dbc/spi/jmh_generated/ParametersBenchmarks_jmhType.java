@@ -0,0 +1,4 @@
+package io.r2dbc.spi.jmh_generated;
+public class ParametersBenchmarks_jmhType extends ParametersBenchmarks_jmhType_B3 {
+}
+
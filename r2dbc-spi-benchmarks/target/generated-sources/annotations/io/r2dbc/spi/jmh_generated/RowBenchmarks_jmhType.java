@@ -0,0 +1,4 @@
+package io.r2dbc.spi.jmh_generated;
+public class RowBenchmarks_jmhType extends RowBenchmarks_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package io.r2dbc.spi.jmh_generated;
+public class SegmentBenchmarks_jmhType extends SegmentBenchmarks_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package io.r2dbc.spi.jmh_generated;
+public class SqlFingerprintBenchmarks_jmhType extends SqlFingerprintBenchmarks_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package io.r2dbc.spi.pool.jmh_generated;
+public class ConnectionPoolBenchmarks_jmhType extends ConnectionPoolBenchmarks_jmhType_B3 {
+}
+
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.jfr;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.SqlFingerprint;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Helper API to emit R2DBC events to the JDK Flight Recorder.  Drivers call these methods with {@link System#nanoTime()} timestamps taken at the start and the end of an operation.
+ * <p>
+ * Each method checks whether its event type is enabled in any recording before creating an event so that emitting events costs a single volatile read while no recording is active.  Events
+ * carry their duration in an {@code elapsedTime} field.  The Flight Recorder event duration is not populated, thresholds are therefore applied when analyzing a recording rather than through the
+ * recording settings.
+ * <p>
+ * The following events are available:
+ * <ul>
+ *     <li>{@code io.r2dbc.ConnectionCreate}: creation of a connection</li>
+ *     <li>{@code io.r2dbc.StatementExecute}: execution of a statement or batch including the consumption of its results, keyed by the {@link SqlFingerprint} of its SQL and recording its normalized SQL only</li>
+ *     <li>{@code io.r2dbc.ResultFetch}: chunk of rows fetched from the database</li>
+ *     <li>{@code io.r2dbc.LobStream}: streaming of a {@code Blob} or {@code Clob}</li>
+ *     <li>{@code io.r2dbc.TransactionCommit}: commit of a transaction</li>
+ * </ul>
+ *
+ * @see FlightRecorderListener
+ */
+public final class FlightRecorderEvents {
+
+    private static final EventType CONNECTION_CREATE = register(ConnectionCreateEvent.class);
+
+    private static final EventType STATEMENT_EXECUTE = register(StatementExecuteEvent.class);
+
+    private static final EventType RESULT_FETCH = register(ResultFetchEvent.class);
+
+    private static final EventType LOB_STREAM = register(LobStreamEvent.class);
+
+    private static final EventType TRANSACTION_COMMIT = register(TransactionCommitEvent.class);
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * Emit a {@code io.r2dbc.ConnectionCreate} event.
+     *
+     * @param connection the created {@link Connection}
+     * @param startTime  the time at which the creation was requested
+     * @param endTime    the time at which the {@link Connection} was created
+     * @throws IllegalArgumentException if {@code connection} is {@code null}
+     */
+    public static void connectionCreate(Connection connection, long startTime, long endTime) {
+        Assert.requireNonNull(connection, "connection must not be null");
+
+        if (!CONNECTION_CREATE.isEnabled()) {
+            return;
+        }
+
+        ConnectionCreateEvent event = new ConnectionCreateEvent();
+        event.database = connection.getMetadata().getDatabaseProductName();
+        event.elapsedTime = endTime - startTime;
+        event.commit();
+    }
+
+    /**
+     * Emit a {@code io.r2dbc.StatementExecute} event.
+     *
+     * <p>
+     * The event records the normalized SQL and the fingerprint only so that literals embedded in the executed SQL do not end up in a recording.
+     *
+     * @param fingerprint the {@link SqlFingerprint} of the executed SQL
+     * @param bindings    the number of parameter binding sets
+     * @param rows        the number of consumed rows
+     * @param outcome     the outcome of the execution
+     * @param startTime   the time at which the execution started
+     * @param endTime     the time at which the execution terminated
+     * @throws IllegalArgumentException if {@code fingerprint} or {@code outcome} is {@code null}
+     */
+    public static void statementExecute(SqlFingerprint fingerprint, int bindings, long rows, Outcome outcome, long startTime, long endTime) {
+        Assert.requireNonNull(fingerprint, "fingerprint must not be null");
+        Assert.requireNonNull(outcome, "outcome must not be null");
+
+        if (!STATEMENT_EXECUTE.isEnabled()) {
+            return;
+        }
+
+        StatementExecuteEvent event = new StatementExecuteEvent();
+        event.normalizedSql = fingerprint.getNormalizedSql();
+        event.fingerprint = fingerprint.toString();
+        event.bindings = bindings;
+        event.rows = rows;
+        event.outcome = outcome.name();
+        event.elapsedTime = endTime - startTime;
+        event.commit();
+    }
+
+    /**
+     * Emit a {@code io.r2dbc.ResultFetch} event.
+     *
+     * @param chunkSize  the number of rows in the fetched chunk
+     * @param demandWait the time in nanoseconds the driver waited for downstream demand before fetching the chunk
+     * @param startTime  the time at which fetching the chunk started
+     * @param endTime    the time at which the chunk was received
+     */
+    public static void resultFetch(long chunkSize, long demandWait, long startTime, long endTime) {
+
+        if (!RESULT_FETCH.isEnabled()) {
+            return;
+        }
+
+        ResultFetchEvent event = new ResultFetchEvent();
+        event.chunkSize = chunkSize;
+        event.demandWait = demandWait;
+        event.elapsedTime = endTime - startTime;
+        event.commit();
+    }
+
+    /**
+     * Emit a {@code io.r2dbc.LobStream} event for a {@code Blob}.
+     *
+     * @param bytes     the number of streamed bytes
+     * @param startTime the time at which streaming started
+     * @param endTime   the time at which streaming terminated
+     */
+    public static void blobStream(long bytes, long startTime, long endTime) {
+        lobStream("BLOB", bytes, startTime, endTime);
+    }
+
+    /**
+     * Emit a {@code io.r2dbc.LobStream} event for a {@code Clob}.
+     *
+     * @param characters the number of streamed characters
+     * @param startTime  the time at which streaming started
+     * @param endTime    the time at which streaming terminated
+     */
+    public static void clobStream(long characters, long startTime, long endTime) {
+        lobStream("CLOB", characters, startTime, endTime);
+    }
+
+    /**
+     * Emit a {@code io.r2dbc.TransactionCommit} event.
+     *
+     * @param success   whether the commit succeeded
+     * @param startTime the time at which the commit was requested
+     * @param endTime   the time at which the commit terminated
+     */
+    public static void transactionCommit(boolean success, long startTime, long endTime) {
+
+        if (!TRANSACTION_COMMIT.isEnabled()) {
+            return;
+        }
+
+        TransactionCommitEvent event = new TransactionCommitEvent();
+        event.success = success;
+        event.elapsedTime = endTime - startTime;
+        event.commit();
+    }
+
+    private static EventType register(Class<? extends Event> eventClass) {
+        FlightRecorder.register(eventClass);
+        return EventType.getEventType(eventClass);
+    }
+
+    private static void lobStream(String type, long length, long startTime, long endTime) {
+
+        if (!LOB_STREAM.isEnabled()) {
+            return;
+        }
+
+        LobStreamEvent event = new LobStreamEvent();
+        event.type = type;
+        event.length = length;
+        event.elapsedTime = endTime - startTime;
+        event.commit();
+    }
+
+    /**
+     * Outcome of a statement execution.
+     */
+    public enum Outcome {
+
+        /**
+         * The execution and the consumption of its results completed.
+         */
+        COMPLETE,
+
+        /**
+         * The execution or the consumption of one of its results was cancelled.
+         */
+        CANCEL,
+
+        /**
+         * The execution or the consumption of one of its results failed.
+         */
+        ERROR
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.jfr;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.ExecutionListener;
+
+/**
+ * {@link ExecutionListener} emitting {@code io.r2dbc.ConnectionCreate} and {@code io.r2dbc.StatementExecute} events to the JDK Flight Recorder.
+ * <p>
+ * Example usage:
+ * <pre class="code">
+ * ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+ *     .option(ConnectionFactoryOptions.EXECUTION_LISTENER, new FlightRecorderListener())
+ *     .build();
+ *
+ * ConnectionFactory factory = ConnectionFactories.get(options);
+ * </pre>
+ *
+ * @see FlightRecorderEvents
+ * @see ConnectionFactoryOptions#EXECUTION_LISTENER
+ * @see ConnectionFactories#observe(ConnectionFactory, ExecutionListener)
+ */
+public final class FlightRecorderListener implements ExecutionListener {
+
+    @Override
+    public void onConnectionCreate(Connection connection, long startTime, long endTime) {
+        FlightRecorderEvents.connectionCreate(connection, startTime, endTime);
+    }
+
+    @Override
+    public void onExecuteComplete(Execution execution, long time) {
+        emit(execution, FlightRecorderEvents.Outcome.COMPLETE, time);
+    }
+
+    @Override
+    public void onExecuteCancel(Execution execution, long time) {
+        emit(execution, FlightRecorderEvents.Outcome.CANCEL, time);
+    }
+
+    @Override
+    public void onExecuteError(Execution execution, Throwable error, long time) {
+        emit(execution, FlightRecorderEvents.Outcome.ERROR, time);
+    }
+
+    @Override
+    public String toString() {
+        return "FlightRecorderListener{}";
+    }
+
+    private static void emit(Execution execution, FlightRecorderEvents.Outcome outcome, long time) {
+        FlightRecorderEvents.statementExecute(execution.getFingerprint(), execution.getBindingCount(), execution.getRowCount(), outcome, execution.getStartTime(), time);
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a chunk of rows fetched from the database.
+ */
+@Name("io.r2dbc.ResultFetch")
+@Label("Result Fetch")
+@Category("R2DBC")
+@Description("Chunk of rows fetched by a driver")
+@StackTrace(false)
+final class ResultFetchEvent extends Event {
+
+    @Label("Chunk Size")
+    @Description("Number of rows in the fetched chunk")
+    long chunkSize;
+
+    @Label("Demand Wait")
+    @Description("Time the driver waited for downstream demand before fetching the chunk")
+    @Timespan(Timespan.NANOSECONDS)
+    long demandWait;
+
+    @Label("Elapsed Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsedTime;
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a statement execution including the consumption of its results.
+ */
+@Name("io.r2dbc.StatementExecute")
+@Label("Statement Execute")
+@Category("R2DBC")
+@Description("Execution of a R2DBC statement or batch including the consumption of its results")
+@StackTrace(false)
+final class StatementExecuteEvent extends Event {
+
+    @Label("Normalized SQL")
+    @Description("SQL with literals replaced by bind markers")
+    String normalizedSql;
+
+    @Label("Fingerprint")
+    @Description("Fingerprint of the normalized SQL")
+    String fingerprint;
+
+    @Label("Bindings")
+    @Description("Number of parameter binding sets")
+    int bindings;
+
+    @Label("Rows")
+    @Description("Number of consumed rows")
+    long rows;
+
+    @Label("Outcome")
+    @Description("COMPLETE, CANCEL or ERROR")
+    String outcome;
+
+    @Label("Elapsed Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsedTime;
+
+}
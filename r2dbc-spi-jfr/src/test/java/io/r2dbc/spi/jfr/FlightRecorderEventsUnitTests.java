@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.jfr;
+
+import io.r2dbc.spi.SqlFingerprint;
+import jdk.jfr.consumer.RecordedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link FlightRecorderEvents}.
+ */
+final class FlightRecorderEventsUnitTests {
+
+    @Test
+    void shouldEmitStatementExecuteEvent() throws IOException {
+
+        SqlFingerprint fingerprint = SqlFingerprint.of("SELECT * FROM person WHERE name = 'Walter'");
+
+        List<RecordedEvent> events = Recordings.record(() -> FlightRecorderEvents.statementExecute(fingerprint, 2, 10, FlightRecorderEvents.Outcome.COMPLETE, 100, 1_100),
+            "io.r2dbc.StatementExecute");
+
+        assertThat(events).hasSize(1);
+
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("normalizedSql")).isEqualTo("SELECT * FROM person WHERE name = ?");
+        assertThat(event.hasField("sql")).isFalse();
+        assertThat(event.getString("fingerprint")).isEqualTo(fingerprint.toString());
+        assertThat(event.getInt("bindings")).isEqualTo(2);
+        assertThat(event.getLong("rows")).isEqualTo(10L);
+        assertThat(event.getString("outcome")).isEqualTo("COMPLETE");
+        assertThat(event.getLong("elapsedTime")).isEqualTo(1_000L);
+    }
+
+    @Test
+    void shouldEmitAllEventTypes() throws IOException {
+
+        List<RecordedEvent> events = Recordings.record(() -> {
+            FlightRecorderEvents.connectionCreate(Recordings.connection("H2"), 0, 10);
+            FlightRecorderEvents.statementExecute(SqlFingerprint.of("SELECT 1"), 0, 1, FlightRecorderEvents.Outcome.ERROR, 0, 10);
+            FlightRecorderEvents.resultFetch(256, 5, 0, 10);
+            FlightRecorderEvents.blobStream(1024, 0, 10);
+            FlightRecorderEvents.clobStream(512, 0, 10);
+            FlightRecorderEvents.transactionCommit(true, 0, 10);
+        }, "io.r2dbc.ConnectionCreate", "io.r2dbc.StatementExecute", "io.r2dbc.ResultFetch", "io.r2dbc.LobStream", "io.r2dbc.TransactionCommit");
+
+        assertThat(events.stream().map(it -> it.getEventType().getName()).collect(Collectors.toList())).containsOnly("io.r2dbc.ConnectionCreate", "io.r2dbc.StatementExecute",
+            "io.r2dbc.ResultFetch", "io.r2dbc.LobStream", "io.r2dbc.TransactionCommit");
+        assertThat(events).hasSize(6);
+        assertThat(find(events, "io.r2dbc.ConnectionCreate").getString("database")).isEqualTo("H2");
+        assertThat(find(events, "io.r2dbc.ResultFetch").getLong("chunkSize")).isEqualTo(256L);
+        assertThat(find(events, "io.r2dbc.ResultFetch").getLong("demandWait")).isEqualTo(5L);
+        assertThat(find(events, "io.r2dbc.TransactionCommit").getBoolean("success")).isTrue();
+    }
+
+    @Test
+    void shouldNotEmitDisabledEvents() throws IOException {
+
+        List<RecordedEvent> events = Recordings.record(() -> {
+            FlightRecorderEvents.transactionCommit(true, 0, 10);
+            FlightRecorderEvents.blobStream(1024, 0, 10);
+        }, "io.r2dbc.ResultFetch");
+
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void shouldRejectNullArguments() {
+        assertThatThrownBy(() -> FlightRecorderEvents.connectionCreate(null, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FlightRecorderEvents.statementExecute(null, 0, 0, FlightRecorderEvents.Outcome.COMPLETE, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FlightRecorderEvents.statementExecute(SqlFingerprint.of("SELECT 1"), 0, 0, null, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream().filter(it -> it.getEventType().getName().equals(name)).findFirst().orElseThrow(AssertionError::new);
+    }
+
+}
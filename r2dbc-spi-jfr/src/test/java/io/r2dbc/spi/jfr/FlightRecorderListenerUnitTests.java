@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.jfr;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ExecutionListener;
+import jdk.jfr.consumer.RecordedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FlightRecorderListener}.
+ */
+final class FlightRecorderListenerUnitTests {
+
+    final FlightRecorderListener listener = new FlightRecorderListener();
+
+    final Connection connection = Recordings.connection("H2");
+
+    final ExecutionListener.Execution execution = new ExecutionListener.Execution() {
+
+        @Override
+        public Connection getConnection() {
+            return FlightRecorderListenerUnitTests.this.connection;
+        }
+
+        @Override
+        public String getSql() {
+            return "INSERT INTO person VALUES($1, 'Walter')";
+        }
+
+        @Override
+        public long getStartTime() {
+            return 1_000;
+        }
+
+        @Override
+        public int getBindingCount() {
+            return 3;
+        }
+
+        @Override
+        public Map<String, Object> getBindings() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public long getFirstRowTime() {
+            return 0;
+        }
+
+        @Override
+        public long getRowCount() {
+            return 0;
+        }
+    };
+
+    @Test
+    void shouldEmitConnectionCreateEvent() throws IOException {
+
+        List<RecordedEvent> events = Recordings.record(() -> this.listener.onConnectionCreate(this.connection, 0, 2_000), "io.r2dbc.ConnectionCreate");
+
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getString("database")).isEqualTo("H2");
+        assertThat(events.get(0).getLong("elapsedTime")).isEqualTo(2_000L);
+    }
+
+    @Test
+    void shouldEmitStatementExecuteEventPerOutcome() throws IOException {
+
+        List<RecordedEvent> events = Recordings.record(() -> {
+            this.listener.onExecuteStart(this.execution);
+            this.listener.onExecuteComplete(this.execution, 3_000);
+            this.listener.onExecuteCancel(this.execution, 4_000);
+            this.listener.onExecuteError(this.execution, new IllegalStateException(), 5_000);
+        }, "io.r2dbc.StatementExecute");
+
+        assertThat(events).hasSize(3);
+
+        RecordedEvent complete = events.stream().filter(it -> it.getString("outcome").equals("COMPLETE")).findFirst().orElseThrow(AssertionError::new);
+        assertThat(complete.getString("normalizedSql")).isEqualTo("INSERT INTO person VALUES(?, ?)");
+        assertThat(complete.getString("fingerprint")).isEqualTo(this.execution.getFingerprint().toString());
+        assertThat(complete.getInt("bindings")).isEqualTo(3);
+        assertThat(complete.getLong("elapsedTime")).isEqualTo(2_000L);
+
+        assertThat(events.stream().filter(it -> it.getString("outcome").equals("ERROR")).findFirst().orElseThrow(AssertionError::new).getLong("elapsedTime")).isEqualTo(4_000L);
+    }
+
+}
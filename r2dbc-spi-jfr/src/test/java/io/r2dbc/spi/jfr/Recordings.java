@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.jfr;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Test utility recording Flight Recorder events emitted by an action.
+ */
+final class Recordings {
+
+    private static final String[] EVENTS = {"io.r2dbc.ConnectionCreate", "io.r2dbc.StatementExecute", "io.r2dbc.ResultFetch", "io.r2dbc.LobStream", "io.r2dbc.TransactionCommit"};
+
+    private Recordings() {
+    }
+
+    /**
+     * Run {@code action} while recording {@code events} and return the recorded events.  Other R2DBC events are disabled.
+     */
+    static List<RecordedEvent> record(Runnable action, String... events) throws IOException {
+
+        Path file = Files.createTempFile("r2dbc", ".jfr");
+
+        try (Recording recording = new Recording()) {
+
+            for (String event : EVENTS) {
+                recording.disable(event);
+            }
+
+            for (String event : events) {
+                recording.enable(event);
+            }
+
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Returns a {@link Connection} stub reporting {@code database} as database product name.
+     */
+    static Connection connection(String database) {
+
+        ConnectionMetadata metadata = new ConnectionMetadata() {
+
+            @Override
+            public String getDatabaseProductName() {
+                return database;
+            }
+
+            @Override
+            public String getDatabaseVersion() {
+                return "1.0";
+            }
+        };
+
+        return (Connection) Proxy.newProxyInstance(Recordings.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+
+            if (method.getName().equals("getMetadata")) {
+                return metadata;
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+}
@@ -0,0 +1 @@
+memberSearchIndex = [{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents","l":"blobStream(long, long, long)","u":"blobStream(long,long,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents.Outcome","l":"CANCEL"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents","l":"clobStream(long, long, long)","u":"clobStream(long,long,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents.Outcome","l":"COMPLETE"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents","l":"connectionCreate(Connection, long, long)","u":"connectionCreate(io.r2dbc.spi.Connection,long,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents.Outcome","l":"ERROR"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderListener","l":"FlightRecorderListener()","u":"%3Cinit%3E()"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderListener","l":"onConnectionCreate(Connection, long, long)","u":"onConnectionCreate(io.r2dbc.spi.Connection,long,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderListener","l":"onExecuteCancel(ExecutionListener.Execution, long)","u":"onExecuteCancel(io.r2dbc.spi.ExecutionListener.Execution,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderListener","l":"onExecuteComplete(ExecutionListener.Execution, long)","u":"onExecuteComplete(io.r2dbc.spi.ExecutionListener.Execution,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderListener","l":"onExecuteError(ExecutionListener.Execution, Throwable, long)","u":"onExecuteError(io.r2dbc.spi.ExecutionListener.Execution,java.lang.Throwable,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents","l":"resultFetch(long, long, long, long)","u":"resultFetch(long,long,long,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents","l":"statementExecute(SqlFingerprint, int, long, FlightRecorderEvents.Outcome, long, long)","u":"statementExecute(io.r2dbc.spi.SqlFingerprint,int,long,io.r2dbc.spi.jfr.FlightRecorderEvents.Outcome,long,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderListener","l":"toString()"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents","l":"transactionCommit(boolean, long, long)","u":"transactionCommit(boolean,long,long)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents.Outcome","l":"valueOf(String)","u":"valueOf(java.lang.String)"},{"p":"io.r2dbc.spi.jfr","c":"FlightRecorderEvents.Outcome","l":"values()"}];updateSearchResults();
\ No newline at end of file
@@ -0,0 +1 @@
+typeSearchIndex = [{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"io.r2dbc.spi.jfr","l":"FlightRecorderEvents"},{"p":"io.r2dbc.spi.jfr","l":"FlightRecorderListener"},{"p":"io.r2dbc.spi.jfr","l":"FlightRecorderEvents.Outcome"}];updateSearchResults();
\ No newline at end of file
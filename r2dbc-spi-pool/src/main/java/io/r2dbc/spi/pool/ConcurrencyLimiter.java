@@ -0,0 +1,240 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Adaptive concurrency limit based on the gradient between the long-term and the most recent latency of operations.
+ * <p>
+ * Each completed operation adjusts the limit to {@code limit * gradient + log10(limit)} (smoothed) where {@code gradient} is the ratio of the long-term average latency (with some tolerance) to the
+ * sampled latency, bounded to {@code [0.5, 1]}.  The limit grows while latencies are stable and shrinks once latencies increase because of queueing in the database.  Samples taken while less than
+ * half of the limit is in use do not grow the limit.
+ * <p>
+ * Operations exceeding the limit wait in a bounded queue.  Operations exceeding the queue are rejected with {@link R2dbcTransientResourceException}.
+ */
+final class ConcurrencyLimiter implements LimiterMetrics {
+
+    private static final double TOLERANCE = 1.5;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final int LONG_WINDOW = 600;
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int maxQueueSize;
+
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+
+    // Guarded by this
+    private double longLatency;
+
+    private volatile double limit;
+
+    private volatile int inFlight;
+
+    private volatile int queued;
+
+    private volatile long rejected;
+
+    ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueueSize) {
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Returns a {@link Publisher} that subscribes to {@code source} once a permit was acquired and releases the permit once {@code source} terminates or is cancelled.
+     *
+     * @param source the operation to limit
+     * @param <T>    the value type
+     * @return the limited {@link Publisher}
+     */
+    <T> Publisher<T> limit(Publisher<? extends T> source) {
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+            subscriber.onSubscribe(new LimitedSubscription<>(this, source, subscriber));
+        };
+    }
+
+    /**
+     * Acquire a permit.  {@code waiter} is either {@link Waiter#grant() granted} immediately or once a permit becomes available, or {@link Waiter#reject(R2dbcTransientResourceException)
+     * rejected} if the queue is exhausted.
+     *
+     * @param waiter the waiter to notify
+     */
+    void acquire(Waiter waiter) {
+
+        boolean granted = false;
+        int limit;
+
+        synchronized (this) {
+
+            limit = getLimit();
+
+            if (this.inFlight < limit) {
+                this.inFlight++;
+                granted = true;
+            } else if (this.queue.size() < this.maxQueueSize) {
+                this.queue.add(waiter);
+                this.queued = this.queue.size();
+                return;
+            } else {
+                this.rejected++;
+            }
+        }
+
+        if (granted) {
+            waiter.grant();
+        } else {
+            waiter.reject(new R2dbcTransientResourceException(String.format("%s concurrency limit of %d and queue size of %d exceeded", this.name, limit, this.maxQueueSize)));
+        }
+    }
+
+    /**
+     * Remove a queued {@link Waiter}.
+     *
+     * @param waiter the waiter to remove
+     * @return {@code true} if the waiter was queued, {@code false} if it was already granted a permit
+     */
+    synchronized boolean remove(Waiter waiter) {
+
+        boolean removed = this.queue.remove(waiter);
+        this.queued = this.queue.size();
+        return removed;
+    }
+
+    /**
+     * Release a permit and grant permits to queued waiters.
+     *
+     * @param latency the latency of the operation in nanoseconds or {@code -1} if the operation did not complete
+     */
+    void release(long latency) {
+
+        List<Waiter> granted = new ArrayList<>();
+
+        synchronized (this) {
+
+            if (latency >= 0) {
+                update(latency, this.inFlight);
+            }
+
+            this.inFlight--;
+
+            while (this.inFlight < getLimit() && !this.queue.isEmpty()) {
+                this.inFlight++;
+                granted.add(this.queue.poll());
+            }
+
+            this.queued = this.queue.size();
+        }
+
+        for (Waiter waiter : granted) {
+            waiter.grant();
+        }
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) this.limit;
+    }
+
+    @Override
+    public int getInFlightSize() {
+        return this.inFlight;
+    }
+
+    @Override
+    public int getQueuedSize() {
+        return this.queued;
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return this.rejected;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter{" +
+            "name='" + this.name + '\'' +
+            ", limit=" + getLimit() +
+            ", inFlight=" + this.inFlight +
+            ", queued=" + this.queued +
+            ", rejected=" + this.rejected +
+            '}';
+    }
+
+    private void update(long latency, int inFlight) {
+
+        double sample = Math.max(latency, 1);
+
+        if (this.longLatency == 0) {
+            this.longLatency = sample;
+        } else {
+            this.longLatency += (sample - this.longLatency) * 2 / (LONG_WINDOW + 1);
+        }
+
+        // Recover quickly once latencies drop below the long-term average
+        if (this.longLatency / sample > 2) {
+            this.longLatency *= 0.95;
+        }
+
+        if (inFlight < this.limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * this.longLatency / sample));
+        double limit = this.limit * gradient + Math.max(1, Math.log10(this.limit));
+
+        limit = this.limit * (1 - SMOOTHING) + limit * SMOOTHING;
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, limit));
+    }
+
+    /**
+     * Operation waiting for a permit.
+     */
+    interface Waiter {
+
+        /**
+         * Called once a permit was granted.
+         */
+        void grant();
+
+        /**
+         * Called if the operation was rejected.
+         *
+         * @param exception the rejection
+         */
+        void reject(R2dbcTransientResourceException exception);
+
+    }
+
+}
@@ -0,0 +1,946 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.ConnectionFactoryStatistics;
+import io.r2dbc.spi.ConnectionStatistics;
+import io.r2dbc.spi.Lifecycle;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Reactive connection pool wrapping a {@link ConnectionFactory}.  {@link #create()} acquires a pooled {@link Connection} and {@link Connection#close()} releases it back into the pool.
+ * <p>
+ * Idle connections are kept in a lock-free LIFO queue so that the most recently used connections are reused first while rarely used connections expire.  Pending acquisitions are served in
+ * arrival order by a single non-blocking drain loop.  Connections implementing {@link Lifecycle} are notified via {@link Lifecycle#postAllocate()} before they are handed out and via
+ * {@link Lifecycle#preRelease()} before they are returned into the pool.
+ * <p>
+ * The pool allocates up to {@link ConnectionPoolConfiguration#getMaxSize()} connections.  Idle connections exceeding their idle time or lifetime are evicted on acquisition and by periodic
+ * background eviction runs, if configured.
+ * <p>
+ * The pool records {@link ConnectionFactoryStatistics} exposed through {@link ConnectionFactoryMetadata#getStatistics()}: acquisition times, the time connections are held between acquisition
+ * and {@link Connection#close()}, the time connections are idle within transactions started through {@link Connection#beginTransaction()} and the number of active and idle connections.
+ * {@link ConnectionPoolConfiguration#getLeakDetectionThreshold() Leak detection} reports sampled connections that are held longer than a threshold together with the stack trace of their
+ * acquisition.
+ */
+public final class ConnectionPool implements ConnectionFactory, Closeable, Wrapped<ConnectionFactory> {
+
+    private static final AtomicIntegerFieldUpdater<ConnectionPool> WIP = AtomicIntegerFieldUpdater.newUpdater(ConnectionPool.class, "wip");
+
+    private final ConnectionPoolConfiguration configuration;
+
+    private final ConnectionFactory factory;
+
+    private final ConcurrentLinkedDeque<PooledRef> idle = new ConcurrentLinkedDeque<>();
+
+    private final ConcurrentLinkedQueue<Borrower> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    private final AtomicInteger acquired = new AtomicInteger();
+
+    private final AtomicInteger idleSize = new AtomicInteger();
+
+    private final AtomicInteger pendingSize = new AtomicInteger();
+
+    private final PoolMetrics metrics = new Metrics();
+
+    private final ConnectionFactoryStatistics statistics = new ConnectionFactoryStatistics();
+
+    private final long maxIdleTime;
+
+    private final long maxLifeTime;
+
+    @Nullable
+    private final ScheduledExecutorService scheduler;
+
+    private final boolean ownsScheduler;
+
+    @Nullable
+    private final ScheduledFuture<?> eviction;
+
+    private final BooleanSupplier retain;
+
+    private volatile boolean disposed;
+
+    private volatile int wip;
+
+    /**
+     * Creates a new {@link ConnectionPool}.
+     *
+     * @param configuration the pool configuration
+     * @throws IllegalArgumentException if {@code configuration} is {@code null}
+     */
+    public ConnectionPool(ConnectionPoolConfiguration configuration) {
+        this(configuration, () -> true);
+    }
+
+    /**
+     * Create a new {@link ConnectionPool} that closes released connections instead of returning them into the pool if {@code retain} returns {@code false}.
+     *
+     * @param configuration the pool configuration
+     * @param retain        decides whether a released connection is returned into the pool
+     */
+    ConnectionPool(ConnectionPoolConfiguration configuration, BooleanSupplier retain) {
+        this.configuration = Assert.requireNonNull(configuration, "configuration must not be null");
+        this.retain = retain;
+        this.factory = configuration.getConnectionFactory();
+        this.maxIdleTime = toNanos(configuration.getMaxIdleTime());
+        this.maxLifeTime = toNanos(configuration.getMaxLifeTime());
+
+        Duration evictionInterval = configuration.getEvictionInterval();
+
+        if (configuration.getScheduler() != null) {
+            this.scheduler = configuration.getScheduler();
+            this.ownsScheduler = false;
+        } else if (configuration.getMaxAcquireTime() != null || evictionInterval != null || configuration.getLeakDetectionThreshold() != null) {
+            this.scheduler = createScheduler(configuration.getName());
+            this.ownsScheduler = true;
+        } else {
+            this.scheduler = null;
+            this.ownsScheduler = false;
+        }
+
+        if (this.scheduler != null && evictionInterval != null) {
+            long interval = evictionInterval.toNanos();
+            this.eviction = this.scheduler.scheduleWithFixedDelay(this::evict, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            this.eviction = null;
+        }
+    }
+
+    /**
+     * Acquires a {@link Connection} from the pool.  The returned {@link Publisher} emits a connection as soon as an idle connection is available or a new connection was allocated.  Closing the
+     * emitted connection releases it back into the pool.
+     *
+     * @return a {@link Publisher} emitting a pooled {@link Connection}
+     */
+    @Override
+    public Publisher<Connection> create() {
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+            subscriber.onSubscribe(new Borrower(subscriber));
+        };
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+
+        ConnectionFactoryMetadata metadata = this.factory.getMetadata();
+
+        return new ConnectionFactoryMetadata() {
+
+            @Override
+            public String getName() {
+                return metadata.getName();
+            }
+
+            @Override
+            public ConnectionFactoryStatistics getStatistics() {
+                return ConnectionPool.this.statistics;
+            }
+        };
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return this.factory;
+    }
+
+    /**
+     * Returns the pool configuration.
+     *
+     * @return the pool configuration
+     */
+    public ConnectionPoolConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    /**
+     * Returns the {@link PoolMetrics} of this pool.
+     *
+     * @return the {@link PoolMetrics} of this pool
+     */
+    public PoolMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns whether the pool is closed.
+     *
+     * @return {@code true} if the pool is closed
+     */
+    public boolean isDisposed() {
+        return this.disposed;
+    }
+
+    /**
+     * Allocates idle connections until the pool holds {@link ConnectionPoolConfiguration#getMinIdle()} connections.  Connections are requested in bulk through
+     * {@link ConnectionFactory#create(int)}.  The returned {@link Publisher} emits the number of allocated connections once all allocations have completed.  Failed allocations are not retried.
+     *
+     * @return a {@link Publisher} emitting the number of allocated connections
+     */
+    public Publisher<Integer> warmup() {
+        return subscriber -> {
+
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+
+            SingleSubscription<Integer> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+
+            int reserved = 0;
+
+            while (!this.disposed && this.allocated.get() < this.configuration.getMinIdle() && tryReserve()) {
+                reserved++;
+            }
+
+            if (reserved == 0) {
+                subscription.complete(0);
+                return;
+            }
+
+            int count = reserved;
+            AtomicInteger created = new AtomicInteger();
+            Runnable complete = () -> {
+                this.allocated.addAndGet(created.get() - count);
+                subscription.complete(created.get());
+                drain();
+            };
+
+            Subscribers.onTermination(Publishers.map(this.factory.create(count), connection -> {
+                created.incrementAndGet();
+                recycle(newRef(connection));
+                return connection;
+            }), complete, e -> complete.run());
+        };
+    }
+
+    /**
+     * Closes the pool.  Pending acquisitions fail with {@link IllegalStateException}, idle connections are closed immediately and acquired connections are closed when they are released.
+     *
+     * @return a {@link Publisher} that completes once all idle connections are closed
+     */
+    @Override
+    public Publisher<Void> close() {
+        return subscriber -> {
+
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+
+            if (this.disposed) {
+                subscription.complete();
+                return;
+            }
+
+            this.disposed = true;
+
+            if (this.eviction != null) {
+                this.eviction.cancel(false);
+            }
+
+            if (this.ownsScheduler && this.scheduler != null) {
+                this.scheduler.shutdown();
+            }
+
+            drain();
+
+            AtomicInteger remaining = new AtomicInteger(1);
+            Runnable countDown = () -> {
+                if (remaining.decrementAndGet() == 0) {
+                    subscription.complete();
+                }
+            };
+
+            PooledRef ref;
+            while ((ref = pollIdle()) != null) {
+                remaining.incrementAndGet();
+                this.allocated.decrementAndGet();
+                this.statistics.connectionClosed();
+                Subscribers.onTermination(ref.connection.close(), countDown, e -> countDown.run());
+            }
+
+            countDown.run();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+            "name='" + this.configuration.getName() + '\'' +
+            ", acquired=" + this.acquired +
+            ", allocated=" + this.allocated +
+            ", idle=" + this.idleSize +
+            ", pending=" + this.pendingSize +
+            ", disposed=" + this.disposed +
+            '}';
+    }
+
+    /**
+     * Release a connection back into the pool.  Invoked by {@link PooledConnection#close()}.
+     */
+    void release(PooledRef ref, long acquiredAt, Runnable onComplete) {
+        this.acquired.decrementAndGet();
+        this.statistics.recordHoldTime(System.nanoTime() - acquiredAt);
+        this.statistics.connectionReleased();
+        passivate(ref, onComplete);
+    }
+
+    /**
+     * Returns the {@link ConnectionFactoryStatistics} recorded by this pool.
+     */
+    ConnectionFactoryStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Schedule the report of {@code connection} as potential leak if it is not released within the leak detection threshold.
+     *
+     * @param connection the acquired connection
+     * @param trace      the exception capturing the stack trace of the acquisition
+     * @return the scheduled report.  {@code null} if leak detection is disabled.
+     */
+    @Nullable
+    ScheduledFuture<?> detectLeak(PooledConnection connection, IllegalStateException trace) {
+
+        Duration threshold = this.configuration.getLeakDetectionThreshold();
+        Consumer<? super IllegalStateException> handler = this.configuration.getLeakHandler();
+
+        if (threshold == null || handler == null || this.scheduler == null || this.disposed) {
+            return null;
+        }
+
+        return this.scheduler.schedule(() -> {
+
+            if (!connection.isReleased()) {
+                handler.accept(trace);
+            }
+        }, threshold.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Notify the connection about its release and return it into the pool.
+     */
+    private void passivate(PooledRef ref, Runnable onComplete) {
+
+        if (ref.connection instanceof Lifecycle) {
+            Subscribers.onTermination(((Lifecycle) ref.connection).preRelease(), () -> {
+                recycle(ref);
+                onComplete.run();
+            }, e -> {
+                destroy(ref);
+                onComplete.run();
+            });
+        } else {
+            recycle(ref);
+            onComplete.run();
+        }
+    }
+
+    /**
+     * Serve pending acquisitions from idle connections or by allocating new connections.  The loop is entered by a single thread at a time, concurrent invocations are picked up by the thread
+     * currently draining.
+     */
+    private void drain() {
+
+        if (WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        for (; ; ) {
+
+            for (; ; ) {
+
+                Borrower borrower = this.pending.peek();
+
+                if (borrower == null) {
+                    break;
+                }
+
+                if (this.disposed) {
+                    this.pending.poll();
+                    borrower.reject(new IllegalStateException("ConnectionPool is closed"));
+                    continue;
+                }
+
+                if (!borrower.isPending()) {
+                    this.pending.poll();
+                    continue;
+                }
+
+                PooledRef ref = pollIdle();
+
+                if (ref != null) {
+
+                    this.pending.poll();
+
+                    if (borrower.claim()) {
+                        acquire(ref, borrower);
+                    } else {
+                        offerIdle(ref);
+                    }
+
+                    continue;
+                }
+
+                if (tryReserve()) {
+
+                    this.pending.poll();
+
+                    if (borrower.claim()) {
+                        allocate(borrower);
+                    } else {
+                        this.allocated.decrementAndGet();
+                    }
+
+                    continue;
+                }
+
+                break;
+            }
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Hand out an idle connection.  Expired or invalid connections are replaced by a newly allocated connection reusing the allocation slot.
+     */
+    private void acquire(PooledRef ref, Borrower borrower) {
+
+        if (isExpired(ref, System.nanoTime())) {
+            discard(ref);
+            allocate(borrower);
+            return;
+        }
+
+        ValidationDepth validationDepth = this.configuration.getValidationDepth();
+
+        if (validationDepth == null) {
+            activate(ref, borrower);
+            return;
+        }
+
+        if (validationDepth == ValidationDepth.REMOTE && hadRecentIo(ref.connection)) {
+            validationDepth = ValidationDepth.LOCAL;
+        }
+
+        Consumer<Throwable> replace = e -> {
+            discard(ref);
+            allocate(borrower);
+        };
+
+        Subscribers.first(ref.connection.validate(validationDepth), valid -> {
+
+            if (valid) {
+                activate(ref, borrower);
+            } else {
+                replace.accept(null);
+            }
+        }, replace);
+    }
+
+    /**
+     * Check whether {@code connection} or a connection wrapped by it reports successful network I/O within the {@link ConnectionPoolConfiguration#getValidationWindow() validation window}.
+     */
+    private boolean hadRecentIo(Connection connection) {
+
+        Duration validationWindow = this.configuration.getValidationWindow();
+
+        if (validationWindow == null) {
+            return false;
+        }
+
+        Object candidate = connection;
+
+        while (!(candidate instanceof ConnectionStatistics)) {
+
+            if (!(candidate instanceof Wrapped)) {
+                return false;
+            }
+
+            candidate = ((Wrapped<?>) candidate).unwrap();
+        }
+
+        return ((ConnectionStatistics) candidate).hasSuccessfulIoWithin(validationWindow);
+    }
+
+    private PooledRef newRef(Connection connection) {
+        this.statistics.connectionCreated();
+        return new PooledRef(this.configuration.isTrackState() ? StateTrackingConnection.wrap(connection) : connection);
+    }
+
+    /**
+     * Allocate a new connection for {@code borrower}.  The allocation slot must be reserved and is released by {@link Borrower#fail(Throwable)} if the allocation fails.
+     */
+    private void allocate(Borrower borrower) {
+
+        if (!borrower.isClaimed()) {
+            return;
+        }
+
+        borrower.allocating(Subscribers.first(this.factory.create(), connection -> activate(newRef(connection), borrower), borrower::fail));
+    }
+
+    private void activate(PooledRef ref, Borrower borrower) {
+
+        if (ref.connection instanceof Lifecycle) {
+            Subscribers.onTermination(((Lifecycle) ref.connection).postAllocate(), () -> borrower.deliver(ref), e -> {
+                discard(ref);
+                borrower.fail(e);
+            });
+        } else {
+            borrower.deliver(ref);
+        }
+    }
+
+    private void recycle(PooledRef ref) {
+
+        if (this.disposed || (this.maxLifeTime != 0 && System.nanoTime() - ref.createdAt > this.maxLifeTime) || !this.retain.getAsBoolean()) {
+            destroy(ref);
+            return;
+        }
+
+        ref.releasedAt = System.nanoTime();
+        offerIdle(ref);
+
+        if (this.disposed && removeIdle(ref)) {
+            destroy(ref);
+            return;
+        }
+
+        drain();
+    }
+
+    private void destroy(PooledRef ref) {
+        this.allocated.decrementAndGet();
+        discard(ref);
+        drain();
+    }
+
+    /**
+     * Close the connection of {@code ref} without releasing its allocation slot.  Used when the slot was already released by a {@link Borrower} or is reused for a replacement connection.
+     */
+    private void discard(PooledRef ref) {
+        this.statistics.connectionClosed();
+        Subscribers.subscribe(ref.connection.close());
+    }
+
+    /**
+     * Close a single idle connection if the pool holds more than {@link ConnectionPoolConfiguration#getMinIdle()} connections.  Used to hand back capacity shared with other pools.
+     *
+     * @return {@code true} if an idle connection was closed
+     */
+    boolean evictIdle() {
+
+        if (this.allocated.get() <= this.configuration.getMinIdle()) {
+            return false;
+        }
+
+        PooledRef ref = this.idle.pollLast();
+
+        if (ref == null) {
+            return false;
+        }
+
+        this.idleSize.decrementAndGet();
+        destroy(ref);
+        return true;
+    }
+
+    private void evict() {
+
+        long now = System.nanoTime();
+
+        for (Iterator<PooledRef> iterator = this.idle.descendingIterator(); iterator.hasNext(); ) {
+
+            PooledRef ref = iterator.next();
+
+            if (this.allocated.get() > this.configuration.getMinIdle() && isExpired(ref, now) && removeIdle(ref)) {
+                destroy(ref);
+            }
+        }
+
+        if (!this.disposed && this.allocated.get() < this.configuration.getMinIdle()) {
+            Subscribers.subscribe(warmup());
+        }
+    }
+
+    private boolean isExpired(PooledRef ref, long now) {
+        return (this.maxIdleTime != 0 && now - ref.releasedAt > this.maxIdleTime) || (this.maxLifeTime != 0 && now - ref.createdAt > this.maxLifeTime);
+    }
+
+    private boolean tryReserve() {
+
+        for (; ; ) {
+
+            int current = this.allocated.get();
+
+            if (current >= this.configuration.getMaxSize()) {
+                return false;
+            }
+
+            if (this.allocated.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Nullable
+    private PooledRef pollIdle() {
+
+        PooledRef ref = this.idle.pollFirst();
+
+        if (ref != null) {
+            this.idleSize.decrementAndGet();
+        }
+
+        return ref;
+    }
+
+    private void offerIdle(PooledRef ref) {
+        this.idleSize.incrementAndGet();
+        this.idle.offerFirst(ref);
+    }
+
+    private boolean removeIdle(PooledRef ref) {
+
+        if (this.idle.removeFirstOccurrence(ref)) {
+            this.idleSize.decrementAndGet();
+            return true;
+        }
+
+        return false;
+    }
+
+    private static long toNanos(@Nullable Duration duration) {
+        return duration != null ? duration.toNanos() : 0;
+    }
+
+    static ScheduledExecutorService createScheduler(String name) {
+
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Pool entry holding an allocated connection.
+     */
+    static final class PooledRef {
+
+        final Connection connection;
+
+        final long createdAt;
+
+        volatile long releasedAt;
+
+        PooledRef(Connection connection) {
+            this.connection = connection;
+            this.createdAt = System.nanoTime();
+            this.releasedAt = this.createdAt;
+        }
+
+    }
+
+    /**
+     * Pending acquisition acting as {@link Subscription} for the acquiring {@link Subscriber}.
+     * <p>
+     * A claimed borrower holds an allocation slot until it is delivered a connection or fails.  The {@link ConnectionPoolConfiguration#getMaxAcquireTime() acquire deadline} remains armed while
+     * the borrower is claimed, even if the borrower was cancelled: on timeout the borrower releases its slot and cancels its in-flight allocation, which also withdraws a partition allocation
+     * waiting for shared overflow capacity.  Connections arriving afterwards are closed.  Connections arriving for a cancelled borrower before the deadline are returned to the pool.
+     */
+    final class Borrower implements Subscription {
+
+        private static final int NEW = 0;
+
+        private static final int PENDING = 1;
+
+        private static final int CLAIMED = 2;
+
+        private static final int DONE = 3;
+
+        private final Subscriber<? super Connection> actual;
+
+        private final AtomicInteger state = new AtomicInteger(NEW);
+
+        @Nullable
+        private volatile ScheduledFuture<?> timeout;
+
+        @Nullable
+        private volatile IllegalStateException leakTrace;
+
+        @Nullable
+        private volatile Runnable allocation;
+
+        private volatile long requestedAt;
+
+        private volatile boolean cancelled;
+
+        Borrower(Subscriber<? super Connection> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                if (this.state.compareAndSet(NEW, DONE)) {
+                    this.actual.onError(new IllegalArgumentException(String.format("Requested demand must be greater than zero, was %d", n)));
+                }
+                return;
+            }
+
+            if (!this.state.compareAndSet(NEW, PENDING)) {
+                return;
+            }
+
+            this.requestedAt = System.nanoTime();
+
+            Duration leakDetectionThreshold = ConnectionPool.this.configuration.getLeakDetectionThreshold();
+
+            if (leakDetectionThreshold != null && ThreadLocalRandom.current().nextDouble() < ConnectionPool.this.configuration.getLeakDetectionSampleRate()) {
+                this.leakTrace = new IllegalStateException(String.format("Connection acquired from pool '%s' was not released within %dms", ConnectionPool.this.configuration.getName(),
+                    leakDetectionThreshold.toMillis()));
+            }
+
+            ConnectionPool.this.pendingSize.incrementAndGet();
+            ConnectionPool.this.pending.offer(this);
+
+            Duration maxAcquireTime = ConnectionPool.this.configuration.getMaxAcquireTime();
+            ScheduledExecutorService scheduler = ConnectionPool.this.scheduler;
+
+            if (maxAcquireTime != null && scheduler != null && !ConnectionPool.this.disposed) {
+                this.timeout = scheduler.schedule(() -> {
+
+                    R2dbcTimeoutException exception = new R2dbcTimeoutException(String.format("Connection acquisition timed out after %dms", maxAcquireTime.toMillis()));
+
+                    if (leavePending(DONE)) {
+                        this.actual.onError(exception);
+                    } else {
+                        fail(exception);
+                        cancelAllocation();
+                    }
+                }, maxAcquireTime.toNanos(), TimeUnit.NANOSECONDS);
+            }
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+
+            this.cancelled = true;
+
+            // A claimed borrower keeps its acquire deadline so that a hung allocation cannot hold on to its slot
+            if (!this.state.compareAndSet(NEW, DONE)) {
+                leavePending(DONE);
+            }
+        }
+
+        boolean isPending() {
+            return this.state.get() == PENDING;
+        }
+
+        boolean isClaimed() {
+            return this.state.get() == CLAIMED;
+        }
+
+        boolean claim() {
+            return leavePending(CLAIMED);
+        }
+
+        /**
+         * Register the cancellation of the in-flight allocation for this borrower.  The allocation is cancelled right away if the borrower has already completed.
+         */
+        void allocating(Runnable allocation) {
+
+            this.allocation = allocation;
+
+            if (this.state.get() == DONE) {
+                cancelAllocation();
+            }
+        }
+
+        /**
+         * Hand out the connection of {@code ref}.  The connection is closed if the borrower has timed out in the meantime.
+         */
+        void deliver(PooledRef ref) {
+
+            if (!complete()) {
+                discard(ref);
+                return;
+            }
+
+            if (this.cancelled) {
+                passivate(ref, () -> {
+                });
+                return;
+            }
+
+            ConnectionPool.this.acquired.incrementAndGet();
+            ConnectionPool.this.statistics.recordAcquire(System.nanoTime() - this.requestedAt);
+            ConnectionPool.this.statistics.connectionAcquired();
+            this.actual.onNext(new PooledConnection(ConnectionPool.this, ref, this.leakTrace));
+            this.actual.onComplete();
+        }
+
+        /**
+         * Fail a claimed borrower and release its allocation slot.  Ignored if the borrower has already completed.
+         */
+        void fail(Throwable e) {
+
+            if (!complete()) {
+                return;
+            }
+
+            ConnectionPool.this.allocated.decrementAndGet();
+
+            if (!this.cancelled) {
+                this.actual.onError(e);
+            }
+
+            drain();
+        }
+
+        void reject(Throwable e) {
+            if (leavePending(DONE)) {
+                this.actual.onError(e);
+            }
+        }
+
+        private boolean leavePending(int target) {
+
+            if (this.state.compareAndSet(PENDING, target)) {
+
+                ConnectionPool.this.pendingSize.decrementAndGet();
+
+                if (target == DONE) {
+                    cancelTimeout();
+                }
+
+                return true;
+            }
+
+            return false;
+        }
+
+        private boolean complete() {
+
+            if (this.state.compareAndSet(CLAIMED, DONE)) {
+                cancelTimeout();
+                return true;
+            }
+
+            return false;
+        }
+
+        private void cancelAllocation() {
+
+            Runnable allocation = this.allocation;
+
+            if (allocation != null) {
+                allocation.run();
+            }
+        }
+
+        private void cancelTimeout() {
+
+            ScheduledFuture<?> timeout = this.timeout;
+
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+
+    }
+
+    final class Metrics implements PoolMetrics {
+
+        @Override
+        public int getAcquiredSize() {
+            return ConnectionPool.this.acquired.get();
+        }
+
+        @Override
+        public int getAllocatedSize() {
+            return ConnectionPool.this.allocated.get();
+        }
+
+        @Override
+        public int getIdleSize() {
+            return ConnectionPool.this.idleSize.get();
+        }
+
+        @Override
+        public int getPendingAcquireSize() {
+            return ConnectionPool.this.pendingSize.get();
+        }
+
+        @Override
+        public int getMaxAllocatedSize() {
+            return ConnectionPool.this.configuration.getMaxSize();
+        }
+
+        @Override
+        public String toString() {
+            return "PoolMetrics{" +
+                "acquired=" + getAcquiredSize() +
+                ", allocated=" + getAllocatedSize() +
+                ", idle=" + getIdleSize() +
+                ", pending=" + getPendingAcquireSize() +
+                ", maxAllocated=" + getMaxAllocatedSize() +
+                '}';
+        }
+
+    }
+
+}
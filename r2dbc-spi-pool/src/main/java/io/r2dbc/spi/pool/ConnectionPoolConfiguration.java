@@ -0,0 +1,574 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionStatistics;
+import io.r2dbc.spi.ValidationDepth;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Configuration for {@link ConnectionPool}.
+ *
+ * <p>Usage:
+ * <pre class="code">
+ * ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration.builder(connectionFactory)
+ *     .maxSize(20)
+ *     .maxAcquireTime(Duration.ofSeconds(5))
+ *     .build();
+ * </pre>
+ */
+public final class ConnectionPoolConfiguration {
+
+    /**
+     * Default maximum number of connections.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10;
+
+    /**
+     * Default maximum idle time.
+     */
+    public static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofMinutes(30);
+
+    /**
+     * Default fraction of acquisitions that capture a stack trace for leak detection.
+     */
+    public static final double DEFAULT_LEAK_DETECTION_SAMPLE_RATE = 0.01;
+
+    private final ConnectionFactory connectionFactory;
+
+    private final String name;
+
+    private final int minIdle;
+
+    private final int maxSize;
+
+    @Nullable
+    private final Duration maxAcquireTime;
+
+    @Nullable
+    private final Duration maxIdleTime;
+
+    @Nullable
+    private final Duration maxLifeTime;
+
+    @Nullable
+    private final Duration evictionInterval;
+
+    @Nullable
+    private final ValidationDepth validationDepth;
+
+    @Nullable
+    private final Duration validationWindow;
+
+    @Nullable
+    private final ScheduledExecutorService scheduler;
+
+    private final boolean trackState;
+
+    @Nullable
+    private final Duration leakDetectionThreshold;
+
+    private final double leakDetectionSampleRate;
+
+    @Nullable
+    private final Consumer<? super IllegalStateException> leakHandler;
+
+    private ConnectionPoolConfiguration(Builder builder) {
+        this.connectionFactory = builder.connectionFactory;
+        this.name = builder.name;
+        this.minIdle = builder.minIdle;
+        this.maxSize = builder.maxSize;
+        this.maxAcquireTime = builder.maxAcquireTime;
+        this.maxIdleTime = builder.maxIdleTime;
+        this.maxLifeTime = builder.maxLifeTime;
+        this.evictionInterval = builder.evictionInterval;
+        this.validationDepth = builder.validationDepth;
+        this.validationWindow = builder.validationWindow;
+        this.scheduler = builder.scheduler;
+        this.trackState = builder.trackState;
+        this.leakDetectionThreshold = builder.leakDetectionThreshold;
+        this.leakDetectionSampleRate = builder.leakDetectionSampleRate;
+        this.leakHandler = builder.leakHandler;
+    }
+
+    /**
+     * Returns a new {@link Builder} for a pool of connections created by {@code connectionFactory}.
+     *
+     * @param connectionFactory the {@link ConnectionFactory} to pool connections for
+     * @return a new {@link Builder}
+     * @throws IllegalArgumentException if {@code connectionFactory} is {@code null}
+     */
+    public static Builder builder(ConnectionFactory connectionFactory) {
+        return new Builder(Assert.requireNonNull(connectionFactory, "connectionFactory must not be null"));
+    }
+
+    /**
+     * Returns the {@link ConnectionFactory} creating pooled connections.
+     *
+     * @return the {@link ConnectionFactory} creating pooled connections
+     */
+    public ConnectionFactory getConnectionFactory() {
+        return this.connectionFactory;
+    }
+
+    /**
+     * Returns the name of the pool.
+     *
+     * @return the name of the pool
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the minimum number of connections the pool maintains.
+     *
+     * @return the minimum number of connections the pool maintains
+     */
+    public int getMinIdle() {
+        return this.minIdle;
+    }
+
+    /**
+     * Returns the maximum number of connections the pool allocates.
+     *
+     * @return the maximum number of connections the pool allocates
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the maximum time to wait for a connection.  {@code null} indicates no deadline.
+     *
+     * @return the maximum time to wait for a connection.  Can be {@code null}.
+     */
+    @Nullable
+    public Duration getMaxAcquireTime() {
+        return this.maxAcquireTime;
+    }
+
+    /**
+     * Returns the maximum time a connection may remain idle before it is evicted.  {@code null} indicates no idle limit.
+     *
+     * @return the maximum idle time.  Can be {@code null}.
+     */
+    @Nullable
+    public Duration getMaxIdleTime() {
+        return this.maxIdleTime;
+    }
+
+    /**
+     * Returns the maximum lifetime of a connection.  {@code null} indicates no lifetime limit.
+     *
+     * @return the maximum lifetime of a connection.  Can be {@code null}.
+     */
+    @Nullable
+    public Duration getMaxLifeTime() {
+        return this.maxLifeTime;
+    }
+
+    /**
+     * Returns the interval of background eviction runs.  {@code null} indicates that connections are evicted only when acquired or released.
+     *
+     * @return the interval of background eviction runs.  Can be {@code null}.
+     */
+    @Nullable
+    public Duration getEvictionInterval() {
+        return this.evictionInterval;
+    }
+
+    /**
+     * Returns the {@link ValidationDepth} used to validate idle connections before handing them out.  {@code null} indicates no validation.
+     *
+     * @return the {@link ValidationDepth} used for validation.  Can be {@code null}.
+     */
+    @Nullable
+    public ValidationDepth getValidationDepth() {
+        return this.validationDepth;
+    }
+
+    /**
+     * Returns the time window within which a {@link ValidationDepth#REMOTE remote} validation is answered by a {@link ValidationDepth#LOCAL local} one if the connection reports successful network
+     * I/O through {@link ConnectionStatistics}.  {@code null} indicates that remote validation always engages the database.
+     *
+     * @return the validation window.  Can be {@code null}.
+     */
+    @Nullable
+    public Duration getValidationWindow() {
+        return this.validationWindow;
+    }
+
+    /**
+     * Returns the {@link ScheduledExecutorService} for acquire deadlines, background eviction and leak detection.  {@code null} indicates that the pool uses its own scheduler.
+     *
+     * @return the {@link ScheduledExecutorService}.  Can be {@code null}.
+     */
+    @Nullable
+    public ScheduledExecutorService getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Returns whether pooled connections are decorated with {@link StateTrackingConnection} to skip redundant session state changes and to reset only changed attributes on release.
+     *
+     * @return {@code true} if session state tracking is enabled
+     */
+    public boolean isTrackState() {
+        return this.trackState;
+    }
+
+    /**
+     * Returns the hold time above which a sampled connection that was not released is reported as potential leak.  {@code null} indicates that leak detection is disabled.
+     *
+     * @return the leak detection threshold.  Can be {@code null}.
+     */
+    @Nullable
+    public Duration getLeakDetectionThreshold() {
+        return this.leakDetectionThreshold;
+    }
+
+    /**
+     * Returns the fraction of acquisitions that capture a stack trace for leak detection.
+     *
+     * @return the fraction of acquisitions that capture a stack trace, between {@code 0} and {@code 1}
+     */
+    public double getLeakDetectionSampleRate() {
+        return this.leakDetectionSampleRate;
+    }
+
+    /**
+     * Returns the handler notified about potential leaks.  {@code null} indicates that leak detection is disabled.
+     *
+     * @return the leak handler.  Can be {@code null}.
+     */
+    @Nullable
+    public Consumer<? super IllegalStateException> getLeakHandler() {
+        return this.leakHandler;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolConfiguration{" +
+            "connectionFactory=" + this.connectionFactory +
+            ", name='" + this.name + '\'' +
+            ", minIdle=" + this.minIdle +
+            ", maxSize=" + this.maxSize +
+            ", maxAcquireTime=" + this.maxAcquireTime +
+            ", maxIdleTime=" + this.maxIdleTime +
+            ", maxLifeTime=" + this.maxLifeTime +
+            ", evictionInterval=" + this.evictionInterval +
+            ", validationDepth=" + this.validationDepth +
+            ", validationWindow=" + this.validationWindow +
+            ", trackState=" + this.trackState +
+            ", leakDetectionThreshold=" + this.leakDetectionThreshold +
+            ", leakDetectionSampleRate=" + this.leakDetectionSampleRate +
+            '}';
+    }
+
+    /**
+     * A builder for {@link ConnectionPoolConfiguration} instances.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        private final ConnectionFactory connectionFactory;
+
+        private String name = "r2dbc-pool";
+
+        private int minIdle;
+
+        private int maxSize = DEFAULT_MAX_SIZE;
+
+        @Nullable
+        private Duration maxAcquireTime;
+
+        @Nullable
+        private Duration maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+
+        @Nullable
+        private Duration maxLifeTime;
+
+        @Nullable
+        private Duration evictionInterval;
+
+        @Nullable
+        private ValidationDepth validationDepth;
+
+        @Nullable
+        private Duration validationWindow;
+
+        @Nullable
+        private ScheduledExecutorService scheduler;
+
+        private boolean trackState;
+
+        @Nullable
+        private Duration leakDetectionThreshold;
+
+        private double leakDetectionSampleRate = DEFAULT_LEAK_DETECTION_SAMPLE_RATE;
+
+        @Nullable
+        private Consumer<? super IllegalStateException> leakHandler;
+
+        private Builder(ConnectionFactory connectionFactory) {
+            this.connectionFactory = connectionFactory;
+        }
+
+        /**
+         * Returns a configured {@link ConnectionPoolConfiguration}.
+         *
+         * @return a configured {@link ConnectionPoolConfiguration}
+         * @throws IllegalArgumentException if {@code minIdle} exceeds {@code maxSize}
+         */
+        public ConnectionPoolConfiguration build() {
+
+            if (this.minIdle > this.maxSize) {
+                throw new IllegalArgumentException("minIdle must not exceed maxSize");
+            }
+
+            return new ConnectionPoolConfiguration(this);
+        }
+
+        /**
+         * Configure the name of the pool.
+         *
+         * @param name the name of the pool
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code name} is {@code null}
+         */
+        public Builder name(String name) {
+            this.name = Assert.requireNonNull(name, "name must not be null");
+            return this;
+        }
+
+        /**
+         * Configure the minimum number of connections the pool maintains.
+         *
+         * @param minIdle the minimum number of connections
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code minIdle} is negative
+         */
+        public Builder minIdle(int minIdle) {
+
+            if (minIdle < 0) {
+                throw new IllegalArgumentException("minIdle must not be negative");
+            }
+
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        /**
+         * Configure the maximum number of connections the pool allocates.
+         *
+         * @param maxSize the maximum number of connections
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxSize} is not positive
+         */
+        public Builder maxSize(int maxSize) {
+
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be greater than zero");
+            }
+
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Configure the maximum time to wait for a connection.  Acquisitions exceeding the deadline fail with {@link io.r2dbc.spi.R2dbcTimeoutException}.
+         *
+         * @param maxAcquireTime the maximum time to wait for a connection
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxAcquireTime} is {@code null} or negative
+         */
+        public Builder maxAcquireTime(Duration maxAcquireTime) {
+            this.maxAcquireTime = requirePositive(maxAcquireTime, "maxAcquireTime");
+            return this;
+        }
+
+        /**
+         * Configure the maximum time a connection may remain idle before it is evicted.
+         *
+         * @param maxIdleTime the maximum idle time
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxIdleTime} is {@code null} or negative
+         */
+        public Builder maxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = requirePositive(maxIdleTime, "maxIdleTime");
+            return this;
+        }
+
+        /**
+         * Configure the maximum lifetime of a connection.
+         *
+         * @param maxLifeTime the maximum lifetime of a connection
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxLifeTime} is {@code null} or negative
+         */
+        public Builder maxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = requirePositive(maxLifeTime, "maxLifeTime");
+            return this;
+        }
+
+        /**
+         * Configure the interval of background eviction runs.  Each run evicts expired idle connections and replenishes the pool to {@code minIdle} connections.
+         *
+         * @param evictionInterval the interval of background eviction runs
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code evictionInterval} is {@code null} or not positive
+         */
+        public Builder evictionInterval(Duration evictionInterval) {
+
+            requirePositive(evictionInterval, "evictionInterval");
+
+            if (evictionInterval.isZero()) {
+                throw new IllegalArgumentException("evictionInterval must be greater than zero");
+            }
+
+            this.evictionInterval = evictionInterval;
+            return this;
+        }
+
+        /**
+         * Configure the {@link ValidationDepth} used to validate idle connections before handing them out.
+         *
+         * @param validationDepth the {@link ValidationDepth} used for validation
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code validationDepth} is {@code null}
+         */
+        public Builder validationDepth(ValidationDepth validationDepth) {
+            this.validationDepth = Assert.requireNonNull(validationDepth, "validationDepth must not be null");
+            return this;
+        }
+
+        /**
+         * Configure the time window within which a {@link ValidationDepth#REMOTE remote} validation is answered by a {@link ValidationDepth#LOCAL local} one.  Applies to connections that
+         * implement {@link ConnectionStatistics} and completed successful network I/O within the window.
+         *
+         * @param validationWindow the validation window
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code validationWindow} is {@code null} or negative
+         */
+        public Builder validationWindow(Duration validationWindow) {
+            this.validationWindow = requirePositive(validationWindow, "validationWindow");
+            return this;
+        }
+
+        /**
+         * Configure the {@link ScheduledExecutorService} for acquire deadlines, background eviction and leak detection.  The scheduler is not shut down when the pool is closed.
+         *
+         * @param scheduler the {@link ScheduledExecutorService}
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code scheduler} is {@code null}
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = Assert.requireNonNull(scheduler, "scheduler must not be null");
+            return this;
+        }
+
+        /**
+         * Configure whether pooled connections are decorated with {@link StateTrackingConnection}.  Session state tracking skips calls that set a value already in place and resets only
+         * attributes that have changed since allocation when a connection is released.
+         *
+         * @param trackState whether to track the session state of pooled connections
+         * @return this {@link Builder}
+         */
+        public Builder trackState(boolean trackState) {
+            this.trackState = trackState;
+            return this;
+        }
+
+        /**
+         * Configure leak detection.  A sampled acquisition captures its stack trace as {@link IllegalStateException}.  If the connection is not released within {@code threshold}, the exception
+         * is passed to {@code handler}, typically to log it.  Leak detection runs on the pool {@link #scheduler(ScheduledExecutorService) scheduler}.
+         *
+         * @param threshold the hold time above which a connection is reported as potential leak
+         * @param handler   the handler notified about potential leaks
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code threshold} is {@code null} or not positive or if {@code handler} is {@code null}
+         * @see #leakDetectionSampleRate(double)
+         */
+        public Builder leakDetection(Duration threshold, Consumer<? super IllegalStateException> handler) {
+
+            requirePositive(threshold, "threshold");
+
+            if (threshold.isZero()) {
+                throw new IllegalArgumentException("threshold must be greater than zero");
+            }
+
+            this.leakDetectionThreshold = threshold;
+            this.leakHandler = Assert.requireNonNull(handler, "handler must not be null");
+            return this;
+        }
+
+        /**
+         * Configure the fraction of acquisitions that capture a stack trace for leak detection.  Capturing stack traces is expensive, sampling keeps the overhead bounded in production.  Defaults
+         * to {@link #DEFAULT_LEAK_DETECTION_SAMPLE_RATE}.
+         *
+         * @param sampleRate the fraction of acquisitions that capture a stack trace, between {@code 0} and {@code 1}
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code sampleRate} is not between {@code 0} and {@code 1}
+         */
+        public Builder leakDetectionSampleRate(double sampleRate) {
+
+            if (!(sampleRate >= 0 && sampleRate <= 1)) {
+                throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+            }
+
+            this.leakDetectionSampleRate = sampleRate;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "connectionFactory=" + this.connectionFactory +
+                ", name='" + this.name + '\'' +
+                ", minIdle=" + this.minIdle +
+                ", maxSize=" + this.maxSize +
+                ", maxAcquireTime=" + this.maxAcquireTime +
+                ", maxIdleTime=" + this.maxIdleTime +
+                ", maxLifeTime=" + this.maxLifeTime +
+                ", evictionInterval=" + this.evictionInterval +
+                ", validationDepth=" + this.validationDepth +
+                ", validationWindow=" + this.validationWindow +
+                ", trackState=" + this.trackState +
+                ", leakDetectionThreshold=" + this.leakDetectionThreshold +
+                ", leakDetectionSampleRate=" + this.leakDetectionSampleRate +
+                '}';
+        }
+
+        private static Duration requirePositive(@Nullable Duration duration, String name) {
+            Assert.requireNonNull(duration, name + " must not be null");
+
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+
+            return duration;
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+/**
+ * {@link Batch} decorator notifying its {@link PooledConnection} about the start of {@link #execute()} and the consumption of its {@link Result results} to track the time the connection is
+ * idle within a transaction.
+ */
+final class IdleTrackingBatch implements Batch, Wrapped<Batch> {
+
+    private final Batch delegate;
+
+    private final PooledConnection connection;
+
+    IdleTrackingBatch(Batch delegate, PooledConnection connection) {
+        this.delegate = delegate;
+        this.connection = connection;
+    }
+
+    @Override
+    public Batch add(String sql) {
+        this.delegate.add(sql);
+        return this;
+    }
+
+    @Override
+    public Publisher<? extends Result> execute() {
+        return IdleTrackingResult.track(this.delegate.execute(), this.connection);
+    }
+
+    @Override
+    public Batch unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "IdleTrackingBatch{" +
+            "delegate=" + this.delegate +
+            '}';
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@link Result} decorator notifying its {@link PooledConnection} about the consumption of the result.  Activity within a transaction ends once the result was consumed through
+ * {@link #getRowsUpdated()}, {@link #map(BiFunction)} or {@link #flatMap(Function)} rather than when the {@link Result} was emitted.
+ */
+final class IdleTrackingResult implements Result, Wrapped<Result> {
+
+    private final Result delegate;
+
+    private final PooledConnection connection;
+
+    IdleTrackingResult(Result delegate, PooledConnection connection) {
+        this.delegate = delegate;
+        this.connection = connection;
+    }
+
+    /**
+     * Track the execution of {@code results}.  Emitted results are decorated to track their consumption.  An execution that terminates without emitting a result ends the activity right away.
+     *
+     * @param results    the results of an execution
+     * @param connection the connection to notify
+     * @return the decorated {@link Publisher}
+     */
+    static Publisher<Result> track(Publisher<? extends Result> results, PooledConnection connection) {
+        return subscriber -> {
+
+            AtomicBoolean emitted = new AtomicBoolean();
+
+            Publishers.doOnLifecycle(Publishers.map(results, result -> {
+                emitted.set(true);
+                return (Result) new IdleTrackingResult(result, connection);
+            }), connection::executionStarted, () -> {
+
+                if (!emitted.get()) {
+                    connection.executionTerminated();
+                }
+            }).subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public Publisher<Long> getRowsUpdated() {
+        return consume(this.delegate.getRowsUpdated());
+    }
+
+    @Override
+    public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+        return consume(this.delegate.map(mappingFunction));
+    }
+
+    @Override
+    public <T> Publisher<T> map(Function<? super Readable, ? extends T> mappingFunction) {
+        return consume(this.delegate.map(mappingFunction));
+    }
+
+    @Override
+    public Result filter(Predicate<Segment> filter) {
+        return new IdleTrackingResult(this.delegate.filter(filter), this.connection);
+    }
+
+    @Override
+    public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+        return consume(this.delegate.flatMap(mappingFunction));
+    }
+
+    @Override
+    public Result unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "IdleTrackingResult{" +
+            "delegate=" + this.delegate +
+            '}';
+    }
+
+    private <T> Publisher<T> consume(Publisher<T> source) {
+        return Publishers.doOnLifecycle(source, this.connection::executionStarted, this.connection::executionTerminated);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+/**
+ * {@link Statement} decorator notifying its {@link PooledConnection} about the start of {@link #execute()} and the consumption of its {@link Result results} to track the time the connection is
+ * idle within a transaction.
+ */
+final class IdleTrackingStatement implements Statement, Wrapped<Statement> {
+
+    private final Statement delegate;
+
+    private final PooledConnection connection;
+
+    IdleTrackingStatement(Statement delegate, PooledConnection connection) {
+        this.delegate = delegate;
+        this.connection = connection;
+    }
+
+    @Override
+    public Statement add() {
+        this.delegate.add();
+        return this;
+    }
+
+    @Override
+    public Statement bind(int index, Object value) {
+        this.delegate.bind(index, value);
+        return this;
+    }
+
+    @Override
+    public Statement bind(String name, Object value) {
+        this.delegate.bind(name, value);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(int index, Class<?> type) {
+        this.delegate.bindNull(index, type);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(String name, Class<?> type) {
+        this.delegate.bindNull(name, type);
+        return this;
+    }
+
+    @Override
+    public Publisher<? extends Result> execute() {
+        return IdleTrackingResult.track(this.delegate.execute(), this.connection);
+    }
+
+    @Override
+    public Statement returnGeneratedValues(String... columns) {
+        this.delegate.returnGeneratedValues(columns);
+        return this;
+    }
+
+    @Override
+    public Statement fetchSize(int rows) {
+        this.delegate.fetchSize(rows);
+        return this;
+    }
+
+    @Override
+    public Statement unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "IdleTrackingStatement{" +
+            "delegate=" + this.delegate +
+            '}';
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Subscription} subscribing to an operation once {@link ConcurrencyLimiter} granted a permit.  The permit is acquired upon the first {@link #request(long) request} and released once the
+ * operation terminates or is {@link #cancel() cancelled}.  Cancellation after the first emitted value, as done by operators that take a single value, records the latency up to the
+ * cancellation.
+ *
+ * @param <T> the value type
+ */
+final class LimitedSubscription<T> implements Subscription, Subscriber<T>, ConcurrencyLimiter.Waiter {
+
+    private final ConcurrencyLimiter limiter;
+
+    private final Publisher<? extends T> source;
+
+    private final Subscriber<? super T> actual;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    // Guarded by this
+    private long pending;
+
+    private boolean requested;
+
+    private boolean cancelled;
+
+    @Nullable
+    private Subscription upstream;
+
+    private volatile long startedAt;
+
+    private volatile boolean received;
+
+    private volatile boolean terminated;
+
+    LimitedSubscription(ConcurrencyLimiter limiter, Publisher<? extends T> source, Subscriber<? super T> actual) {
+        this.limiter = limiter;
+        this.source = source;
+        this.actual = actual;
+    }
+
+    @Override
+    public void request(long n) {
+
+        if (n <= 0) {
+
+            synchronized (this) {
+                if (this.cancelled || this.terminated) {
+                    return;
+                }
+            }
+
+            cancel();
+            this.actual.onError(new IllegalArgumentException(String.format("Requested demand must be greater than zero, was %d", n)));
+            return;
+        }
+
+        Subscription upstream;
+        boolean acquire = false;
+
+        synchronized (this) {
+
+            if (this.cancelled) {
+                return;
+            }
+
+            upstream = this.upstream;
+
+            if (upstream == null) {
+
+                this.pending = this.pending + n < 0 ? Long.MAX_VALUE : this.pending + n;
+
+                if (!this.requested) {
+                    this.requested = true;
+                    acquire = true;
+                }
+            }
+        }
+
+        if (upstream != null) {
+            upstream.request(n);
+        } else if (acquire) {
+            this.limiter.acquire(this);
+        }
+    }
+
+    @Override
+    public void cancel() {
+
+        Subscription upstream;
+        boolean requested;
+
+        synchronized (this) {
+
+            if (this.cancelled) {
+                return;
+            }
+
+            this.cancelled = true;
+            upstream = this.upstream;
+            requested = this.requested;
+        }
+
+        if (upstream != null) {
+            upstream.cancel();
+            release(this.received ? System.nanoTime() - this.startedAt : -1);
+        } else if (requested) {
+            this.limiter.remove(this);
+        }
+    }
+
+    @Override
+    public void grant() {
+
+        synchronized (this) {
+            if (this.cancelled) {
+                release(-1);
+                return;
+            }
+        }
+
+        this.startedAt = System.nanoTime();
+
+        try {
+            this.source.subscribe(this);
+        } catch (RuntimeException e) {
+            onError(e);
+        }
+    }
+
+    @Override
+    public void reject(R2dbcTransientResourceException exception) {
+        this.actual.onError(exception);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+
+        long pending;
+        boolean cancelled;
+
+        synchronized (this) {
+
+            cancelled = this.cancelled;
+            pending = this.pending;
+
+            if (!cancelled) {
+                this.upstream = s;
+                this.pending = 0;
+            }
+        }
+
+        if (cancelled) {
+            s.cancel();
+            release(-1);
+        } else if (pending > 0) {
+            s.request(pending);
+        }
+    }
+
+    @Override
+    public void onNext(T value) {
+        this.received = true;
+        this.actual.onNext(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        this.terminated = true;
+        release(System.nanoTime() - this.startedAt);
+        this.actual.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+        this.terminated = true;
+        release(System.nanoTime() - this.startedAt);
+        this.actual.onComplete();
+    }
+
+    private void release(long latency) {
+        if (this.released.compareAndSet(false, true)) {
+            this.limiter.release(latency);
+        }
+    }
+
+}
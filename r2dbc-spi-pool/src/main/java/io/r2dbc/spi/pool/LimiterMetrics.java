@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+/**
+ * Point-in-time view of the state of a concurrency limit applied by {@link LimitingConnectionFactory}.  Values are read without synchronization and may be slightly out of date under concurrent
+ * access.
+ */
+public interface LimiterMetrics {
+
+    /**
+     * Returns the current concurrency limit.
+     *
+     * @return the current concurrency limit
+     */
+    int getLimit();
+
+    /**
+     * Returns the number of operations currently in flight.
+     *
+     * @return the number of operations currently in flight
+     */
+    int getInFlightSize();
+
+    /**
+     * Returns the number of operations waiting for the concurrency limit.
+     *
+     * @return the number of operations waiting for the concurrency limit
+     */
+    int getQueuedSize();
+
+    /**
+     * Returns the number of operations rejected because both the concurrency limit and the queue were exhausted.
+     *
+     * @return the number of rejected operations
+     */
+    long getRejectedCount();
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.ConnectionState;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Lifecycle;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+
+/**
+ * {@link Connection} decorator limiting the concurrency of {@link Statement#execute()} through a {@link ConcurrencyLimiter}.
+ */
+final class LimitingConnection implements Connection, Lifecycle, Wrapped<Connection> {
+
+    private final Connection delegate;
+
+    private final ConcurrencyLimiter limiter;
+
+    LimitingConnection(Connection delegate, ConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Publisher<Void> postAllocate() {
+        return this.delegate instanceof Lifecycle ? ((Lifecycle) this.delegate).postAllocate() : Publishers.empty();
+    }
+
+    @Override
+    public Publisher<Void> preRelease() {
+        return this.delegate instanceof Lifecycle ? ((Lifecycle) this.delegate).preRelease() : Publishers.empty();
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction() {
+        return this.delegate.beginTransaction();
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+        return this.delegate.beginTransaction(definition);
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return this.delegate.close();
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+        return this.delegate.commitTransaction();
+    }
+
+    @Override
+    public Batch createBatch() {
+        return this.delegate.createBatch();
+    }
+
+    @Override
+    public Publisher<Void> createSavepoint(String name) {
+        return this.delegate.createSavepoint(name);
+    }
+
+    @Override
+    public Statement createStatement(String sql) {
+        return new LimitingStatement(this.delegate.createStatement(sql), this.limiter);
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return this.delegate.isAutoCommit();
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+        return this.delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionState getState() {
+        return this.delegate.getState();
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return this.delegate.getTransactionIsolationLevel();
+    }
+
+    @Override
+    public Publisher<Void> releaseSavepoint(String name) {
+        return this.delegate.releaseSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+        return this.delegate.rollbackTransaction();
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+        return this.delegate.rollbackTransactionToSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> setAutoCommit(boolean autoCommit) {
+        return this.delegate.setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+        return this.delegate.setLockWaitTimeout(timeout);
+    }
+
+    @Override
+    public Publisher<Void> setStatementTimeout(Duration timeout) {
+        return this.delegate.setStatementTimeout(timeout);
+    }
+
+    @Override
+    public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        return this.delegate.setTransactionIsolationLevel(isolationLevel);
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+        return this.delegate.validate(depth);
+    }
+
+    @Override
+    public Connection unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "LimitingConnection{" +
+            "delegate=" + this.delegate +
+            ", limiter=" + this.limiter +
+            '}';
+    }
+
+}
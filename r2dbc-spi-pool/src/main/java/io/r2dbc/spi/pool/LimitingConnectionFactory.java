@@ -0,0 +1,252 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+/**
+ * {@link ConnectionFactory} decorator applying adaptive concurrency limits to {@link #create()} and to {@link Statement#execute()} of created connections.
+ * <p>
+ * Connection creation and statement execution are limited independently.  Each limit adapts to the observed latency of operations: it grows while latencies are stable and shrinks once latencies
+ * increase, which indicates that the database is saturated.  Operations beyond the limit wait in a bounded queue and are rejected with {@link R2dbcTransientResourceException} once the queue is
+ * full, so that a slowdown of the database does not accumulate unbounded pending work.  A permit is held from subscription until the operation publisher terminates or is cancelled.
+ * <p>
+ * Example usage:
+ * <pre class="code">
+ * LimitingConnectionFactory connectionFactory = LimitingConnectionFactory.builder(connectionFactory)
+ *     .initialLimit(20)
+ *     .maxLimit(100)
+ *     .maxQueueSize(50)
+ *     .build();
+ * </pre>
+ */
+public final class LimitingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    /**
+     * Default initial concurrency limit.
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+    /**
+     * Default minimum concurrency limit.
+     */
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    /**
+     * Default maximum concurrency limit.
+     */
+    public static final int DEFAULT_MAX_LIMIT = 200;
+
+    /**
+     * Default maximum number of operations waiting for the concurrency limit.
+     */
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 16;
+
+    private final ConnectionFactory delegate;
+
+    private final ConcurrencyLimiter connectionLimiter;
+
+    private final ConcurrencyLimiter statementLimiter;
+
+    private LimitingConnectionFactory(Builder builder) {
+        this.delegate = builder.delegate;
+        this.connectionLimiter = new ConcurrencyLimiter("Connection", builder.initialLimit, builder.minLimit, builder.maxLimit, builder.maxQueueSize);
+        this.statementLimiter = new ConcurrencyLimiter("Statement", builder.initialLimit, builder.minLimit, builder.maxLimit, builder.maxQueueSize);
+    }
+
+    /**
+     * Returns a new {@link Builder} limiting {@code delegate}.
+     *
+     * @param delegate the {@link ConnectionFactory} to limit
+     * @return a new {@link Builder}
+     * @throws IllegalArgumentException if {@code delegate} is {@code null}
+     */
+    public static Builder builder(ConnectionFactory delegate) {
+        return new Builder(Assert.requireNonNull(delegate, "delegate must not be null"));
+    }
+
+    /**
+     * Creates a connection within the connection concurrency limit.
+     *
+     * @return a {@link Publisher} emitting a {@link Connection}.  Fails with {@link R2dbcTransientResourceException} if the limit and its queue are exhausted.
+     */
+    @Override
+    public Publisher<Connection> create() {
+        return this.connectionLimiter.limit(Publishers.map(this.delegate.create(), connection -> new LimitingConnection(connection, this.statementLimiter)));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.delegate.getMetadata();
+    }
+
+    /**
+     * Returns the {@link LimiterMetrics} of connection creation.
+     *
+     * @return the {@link LimiterMetrics} of connection creation
+     */
+    public LimiterMetrics getConnectionMetrics() {
+        return this.connectionLimiter;
+    }
+
+    /**
+     * Returns the {@link LimiterMetrics} of statement execution.
+     *
+     * @return the {@link LimiterMetrics} of statement execution
+     */
+    public LimiterMetrics getStatementMetrics() {
+        return this.statementLimiter;
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "LimitingConnectionFactory{" +
+            "delegate=" + this.delegate +
+            ", connectionLimiter=" + this.connectionLimiter +
+            ", statementLimiter=" + this.statementLimiter +
+            '}';
+    }
+
+    /**
+     * A builder for {@link LimitingConnectionFactory} instances.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        private final ConnectionFactory delegate;
+
+        private int initialLimit = DEFAULT_INITIAL_LIMIT;
+
+        private int minLimit = DEFAULT_MIN_LIMIT;
+
+        private int maxLimit = DEFAULT_MAX_LIMIT;
+
+        private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+
+        private Builder(ConnectionFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Returns a configured {@link LimitingConnectionFactory}.
+         *
+         * @return a configured {@link LimitingConnectionFactory}
+         * @throws IllegalArgumentException if {@code initialLimit} is not between {@code minLimit} and {@code maxLimit}
+         */
+        public LimitingConnectionFactory build() {
+
+            if (this.initialLimit < this.minLimit || this.initialLimit > this.maxLimit) {
+                throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+            }
+
+            return new LimitingConnectionFactory(this);
+        }
+
+        /**
+         * Configure the initial concurrency limit.
+         *
+         * @param initialLimit the initial concurrency limit
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code initialLimit} is not positive
+         */
+        public Builder initialLimit(int initialLimit) {
+
+            if (initialLimit <= 0) {
+                throw new IllegalArgumentException("initialLimit must be greater than zero");
+            }
+
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Configure the minimum concurrency limit.
+         *
+         * @param minLimit the minimum concurrency limit
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code minLimit} is not positive
+         */
+        public Builder minLimit(int minLimit) {
+
+            if (minLimit <= 0) {
+                throw new IllegalArgumentException("minLimit must be greater than zero");
+            }
+
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * Configure the maximum concurrency limit.
+         *
+         * @param maxLimit the maximum concurrency limit
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxLimit} is not positive
+         */
+        public Builder maxLimit(int maxLimit) {
+
+            if (maxLimit <= 0) {
+                throw new IllegalArgumentException("maxLimit must be greater than zero");
+            }
+
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Configure the maximum number of operations waiting for the concurrency limit.  {@code 0} rejects operations exceeding the limit immediately.
+         *
+         * @param maxQueueSize the maximum number of waiting operations
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxQueueSize} is negative
+         */
+        public Builder maxQueueSize(int maxQueueSize) {
+
+            if (maxQueueSize < 0) {
+                throw new IllegalArgumentException("maxQueueSize must not be negative");
+            }
+
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "delegate=" + this.delegate +
+                ", initialLimit=" + this.initialLimit +
+                ", minLimit=" + this.minLimit +
+                ", maxLimit=" + this.maxLimit +
+                ", maxQueueSize=" + this.maxQueueSize +
+                '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+
+/**
+ * {@link Statement} decorator limiting the concurrency of {@link #execute()} through a {@link ConcurrencyLimiter}.  A permit is held until the execution publisher terminates.
+ */
+final class LimitingStatement implements Statement {
+
+    private final Statement delegate;
+
+    private final ConcurrencyLimiter limiter;
+
+    LimitingStatement(Statement delegate, ConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Statement add() {
+        this.delegate.add();
+        return this;
+    }
+
+    @Override
+    public Statement bind(int index, Object value) {
+        this.delegate.bind(index, value);
+        return this;
+    }
+
+    @Override
+    public Statement bind(String name, Object value) {
+        this.delegate.bind(name, value);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(int index, Class<?> type) {
+        this.delegate.bindNull(index, type);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(String name, Class<?> type) {
+        this.delegate.bindNull(name, type);
+        return this;
+    }
+
+    @Override
+    public Publisher<? extends Result> execute() {
+        return this.limiter.limit(this.delegate.execute());
+    }
+
+    @Override
+    public Statement returnGeneratedValues(String... columns) {
+        this.delegate.returnGeneratedValues(columns);
+        return this;
+    }
+
+    @Override
+    public Statement fetchSize(int rows) {
+        this.delegate.fetchSize(rows);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "LimitingStatement{" +
+            "delegate=" + this.delegate +
+            '}';
+    }
+
+}
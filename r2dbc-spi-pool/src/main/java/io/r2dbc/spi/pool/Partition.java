@@ -0,0 +1,280 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Partition of a {@link PartitionedConnectionPool}.  Acts as the {@link ConnectionFactory} of the {@link ConnectionPool} of the partition and allocates connections within the capacity granted by
+ * {@link SharedOverflow}.
+ */
+final class Partition implements ConnectionFactory, PartitionMetrics {
+
+    final String key;
+
+    final int minSize;
+
+    final int weight;
+
+    // Guarded by SharedOverflow
+    final Deque<Allocation> waiters = new ArrayDeque<>();
+
+    double virtualTime;
+
+    volatile int owned;
+
+    private final ConnectionFactory factory;
+
+    private final SharedOverflow overflow;
+
+    private final ConnectionPool pool;
+
+    private final AtomicLong acquireCount = new AtomicLong();
+
+    private final AtomicLong totalAcquireTime = new AtomicLong();
+
+    private final AtomicLong maxAcquireTime = new AtomicLong();
+
+    Partition(String key, int minSize, int weight, ConnectionFactory factory, SharedOverflow overflow, Function<Partition, ConnectionPool> pool) {
+        this.key = key;
+        this.minSize = minSize;
+        this.weight = weight;
+        this.factory = factory;
+        this.overflow = overflow;
+        this.pool = pool.apply(this);
+    }
+
+    ConnectionPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Acquire a connection from the pool of this partition and record the acquisition wait time.
+     *
+     * @return a {@link Publisher} emitting a pooled {@link Connection}
+     */
+    Publisher<Connection> acquire() {
+        return subscriber -> {
+
+            long startedAt = System.nanoTime();
+
+            Publishers.<Connection, Connection>map(this.pool.create(), connection -> {
+                record(System.nanoTime() - startedAt);
+                return connection;
+            }).subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public Publisher<Connection> create() {
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+            subscriber.onSubscribe(new Allocation(subscriber));
+        };
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.factory.getMetadata();
+    }
+
+    @Override
+    public int getAcquiredSize() {
+        return this.pool.getMetrics().getAcquiredSize();
+    }
+
+    @Override
+    public int getAllocatedSize() {
+        return this.pool.getMetrics().getAllocatedSize();
+    }
+
+    @Override
+    public int getIdleSize() {
+        return this.pool.getMetrics().getIdleSize();
+    }
+
+    @Override
+    public int getPendingAcquireSize() {
+        return this.pool.getMetrics().getPendingAcquireSize();
+    }
+
+    @Override
+    public int getMaxAllocatedSize() {
+        return this.pool.getMetrics().getMaxAllocatedSize();
+    }
+
+    @Override
+    public int getMinSize() {
+        return this.minSize;
+    }
+
+    @Override
+    public int getOverflowSize() {
+        return Math.max(0, this.owned - this.minSize);
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return this.acquireCount.get();
+    }
+
+    @Override
+    public Duration getTotalAcquireTime() {
+        return Duration.ofNanos(this.totalAcquireTime.get());
+    }
+
+    @Override
+    public Duration getMaxAcquireTime() {
+        return Duration.ofNanos(this.maxAcquireTime.get());
+    }
+
+    @Override
+    public String toString() {
+        return "Partition{" +
+            "key='" + this.key + '\'' +
+            ", minSize=" + this.minSize +
+            ", weight=" + this.weight +
+            ", owned=" + this.owned +
+            ", pool=" + this.pool +
+            '}';
+    }
+
+    private void record(long waitTime) {
+        this.acquireCount.incrementAndGet();
+        this.totalAcquireTime.addAndGet(waitTime);
+        this.maxAcquireTime.accumulateAndGet(waitTime, Math::max);
+    }
+
+    /**
+     * Allocation of a connection waiting for capacity of the {@link SharedOverflow}.  Granted capacity is released if the connection cannot be created, that is if the creation fails, completes
+     * without emitting a connection or is cancelled.
+     */
+    final class Allocation implements Subscription {
+
+        private final SingleSubscription<Connection> subscription;
+
+        private final AtomicBoolean requested = new AtomicBoolean();
+
+        private final AtomicBoolean terminated = new AtomicBoolean();
+
+        @Nullable
+        private volatile Runnable creation;
+
+        private volatile boolean cancelled;
+
+        Allocation(Subscriber<? super Connection> actual) {
+            this.subscription = new SingleSubscription<>(actual);
+        }
+
+        @Override
+        public void request(long n) {
+
+            this.subscription.request(n);
+
+            if (n > 0 && !this.cancelled && this.requested.compareAndSet(false, true)) {
+                Partition.this.overflow.acquire(Partition.this, this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+
+            this.cancelled = true;
+            this.subscription.cancel();
+
+            if (this.requested.get()) {
+                Partition.this.overflow.remove(Partition.this, this);
+            }
+
+            cancelCreation();
+        }
+
+        boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        /**
+         * Create the connection once capacity was granted.
+         */
+        void grant() {
+
+            if (this.cancelled) {
+                Partition.this.overflow.release(Partition.this);
+                return;
+            }
+
+            // Empty completion is signalled as NoSuchElementException
+            this.creation = Subscribers.first(Partition.this.factory.create(), connection -> {
+
+                if (!this.terminated.compareAndSet(false, true)) {
+                    Subscribers.subscribe(connection.close());
+                    return;
+                }
+
+                PartitionConnection partitionConnection = new PartitionConnection(connection, Partition.this.overflow, Partition.this);
+
+                if (this.cancelled) {
+                    Subscribers.subscribe(partitionConnection.close());
+                } else {
+                    this.subscription.complete(partitionConnection);
+                }
+            }, e -> {
+
+                if (this.terminated.compareAndSet(false, true)) {
+                    Partition.this.overflow.release(Partition.this);
+                    this.subscription.error(e);
+                }
+            });
+
+            if (this.cancelled) {
+                cancelCreation();
+            }
+        }
+
+        /**
+         * Cancel the in-flight creation and release the granted capacity unless the creation has already terminated.
+         */
+        private void cancelCreation() {
+
+            Runnable creation = this.creation;
+
+            if (creation == null) {
+                return;
+            }
+
+            creation.run();
+
+            if (this.terminated.compareAndSet(false, true)) {
+                Partition.this.overflow.release(Partition.this);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time view of the state of a partition of a {@link PartitionedConnectionPool}.  Values are read without synchronization and may be slightly out of date under concurrent access.
+ */
+public interface PartitionMetrics extends PoolMetrics {
+
+    /**
+     * Returns the number of connections reserved for the partition.
+     *
+     * @return the number of connections reserved for the partition
+     */
+    int getMinSize();
+
+    /**
+     * Returns the number of connections the partition allocated from the shared overflow.
+     *
+     * @return the number of connections allocated from the shared overflow
+     */
+    int getOverflowSize();
+
+    /**
+     * Returns the number of connections acquired from the partition since the pool was created.
+     *
+     * @return the number of acquisitions
+     */
+    long getAcquireCount();
+
+    /**
+     * Returns the accumulated time acquisitions waited for a connection.
+     *
+     * @return the accumulated acquisition wait time
+     */
+    Duration getTotalAcquireTime();
+
+    /**
+     * Returns the longest time an acquisition waited for a connection.
+     *
+     * @return the longest acquisition wait time
+     */
+    Duration getMaxAcquireTime();
+
+}
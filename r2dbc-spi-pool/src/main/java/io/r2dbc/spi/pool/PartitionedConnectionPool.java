@@ -0,0 +1,484 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Lifecycle;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Connection pool partitioned by a key such as a tenant identifier.  Each partition is served by its own {@link ConnectionPool} so that one partition cannot take every pooled connection.
+ * <p>
+ * The pool allocates up to {@link Builder#maxSize(int)} connections in total.  Each configured partition has a reserved {@link Builder#partition(String, int, int) minimum size}, the remaining
+ * connections form an overflow shared by all partitions.  Once the overflow is exhausted, allocations are served by weighted fair queuing according to the partition weight.  While a partition
+ * waits, idle overflow connections of other partitions are closed and overflow connections released by partitions ahead of their fair share are not returned into their pool.  Partitions that
+ * are not configured are created on first use without a reserved minimum and with the {@link Builder#defaultWeight(int) default weight}, up to {@link Builder#maxPartitions(int)} partitions in
+ * total.  Acquisitions for further partition keys are rejected.
+ * <p>
+ * The partition is selected explicitly through {@link #create(String)}.  {@link #create()} resolves the partition through the {@link Builder#partitionResolver(Function) partition resolver}
+ * from the acquiring {@link Subscriber}, which allows reading the partition key from a context carried by the subscriber of a reactive library.  Connections implementing {@link Lifecycle} are
+ * notified by the pool of their partition.
+ * <p>
+ * Example usage:
+ * <pre class="code">
+ * PartitionedConnectionPool pool = PartitionedConnectionPool.builder(connectionFactory)
+ *     .maxSize(50)
+ *     .partition("tenant-a", 5, 2)
+ *     .partition("tenant-b", 5, 1)
+ *     .build();
+ *
+ * Publisher&lt;Connection&gt; connection = pool.create("tenant-a");
+ * </pre>
+ */
+public final class PartitionedConnectionPool implements ConnectionFactory, Closeable, Wrapped<ConnectionFactory> {
+
+    /**
+     * Key of the partition used if the partition resolver does not resolve a partition.
+     */
+    public static final String DEFAULT_PARTITION = "default";
+
+    /**
+     * Default maximum number of partitions.
+     */
+    public static final int DEFAULT_MAX_PARTITIONS = 100;
+
+    private final ConnectionFactory factory;
+
+    private final String name;
+
+    private final int maxSize;
+
+    private final int defaultWeight;
+
+    private final int maxPartitions;
+
+    private final Map<String, int[]> configured;
+
+    private final Consumer<ConnectionPoolConfiguration.Builder> customizer;
+
+    private final Function<? super Subscriber<?>, String> partitionResolver;
+
+    private final SharedOverflow overflow;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    private volatile boolean disposed;
+
+    private PartitionedConnectionPool(Builder builder) {
+
+        this.factory = builder.factory;
+        this.name = builder.name;
+        this.maxSize = builder.maxSize;
+        this.defaultWeight = builder.defaultWeight;
+        this.maxPartitions = builder.maxPartitions;
+        this.configured = new LinkedHashMap<>(builder.partitions);
+        this.customizer = builder.customizer;
+        this.partitionResolver = builder.partitionResolver;
+        this.scheduler = ConnectionPool.createScheduler(builder.name);
+
+        int reserved = 0;
+        for (int[] partition : this.configured.values()) {
+            reserved += partition[0];
+        }
+
+        this.overflow = new SharedOverflow(this.maxSize - reserved);
+
+        for (String key : this.configured.keySet()) {
+            getPartition(key);
+        }
+    }
+
+    /**
+     * Returns a new {@link Builder} for a pool of connections created by {@code connectionFactory}.
+     *
+     * @param connectionFactory the {@link ConnectionFactory} to pool connections for
+     * @return a new {@link Builder}
+     * @throws IllegalArgumentException if {@code connectionFactory} is {@code null}
+     */
+    public static Builder builder(ConnectionFactory connectionFactory) {
+        return new Builder(Assert.requireNonNull(connectionFactory, "connectionFactory must not be null"));
+    }
+
+    /**
+     * Acquires a {@link Connection} from the partition resolved from the acquiring {@link Subscriber}.  Uses {@link #DEFAULT_PARTITION} if the resolver returns {@code null}.
+     *
+     * @return a {@link Publisher} emitting a pooled {@link Connection}
+     */
+    @Override
+    public Publisher<Connection> create() {
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+
+            String partition = this.partitionResolver.apply(subscriber);
+            create(partition != null ? partition : DEFAULT_PARTITION).subscribe(subscriber);
+        };
+    }
+
+    /**
+     * Acquires a {@link Connection} from the pool of {@code partition}.  Closing the emitted connection releases it back into the pool of the partition.
+     *
+     * @param partition the partition key
+     * @return a {@link Publisher} emitting a pooled {@link Connection}.  Signals {@link IllegalStateException} if the pool is closed or if {@code partition} would exceed the
+     * {@link Builder#maxPartitions(int) maximum number of partitions}.
+     * @throws IllegalArgumentException if {@code partition} is {@code null}
+     */
+    public Publisher<Connection> create(String partition) {
+        Assert.requireNonNull(partition, "partition must not be null");
+
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+
+            Partition resolved;
+
+            try {
+                resolved = getPartition(partition);
+            } catch (IllegalStateException e) {
+                SingleSubscription<Connection> subscription = new SingleSubscription<>(subscriber);
+                subscriber.onSubscribe(subscription);
+                subscription.error(e);
+                return;
+            }
+
+            resolved.acquire().subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.factory.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return this.factory;
+    }
+
+    /**
+     * Returns the keys of all partitions created so far.
+     *
+     * @return the keys of all partitions created so far
+     */
+    public Set<String> getPartitions() {
+        return Collections.unmodifiableSet(this.partitions.keySet());
+    }
+
+    /**
+     * Returns the {@link PartitionMetrics} of {@code partition}.
+     *
+     * @param partition the partition key
+     * @return the {@link PartitionMetrics} or {@code null} if the partition was not created yet
+     * @throws IllegalArgumentException if {@code partition} is {@code null}
+     */
+    @Nullable
+    public PartitionMetrics getMetrics(String partition) {
+        return this.partitions.get(Assert.requireNonNull(partition, "partition must not be null"));
+    }
+
+    /**
+     * Returns the number of connections allocated from the shared overflow.
+     *
+     * @return the number of connections allocated from the shared overflow
+     */
+    public int getOverflowSize() {
+        return this.overflow.getUsed();
+    }
+
+    /**
+     * Closes the pools of all partitions.
+     *
+     * @return a {@link Publisher} that completes once all partition pools are closed
+     * @see ConnectionPool#close()
+     */
+    @Override
+    public Publisher<Void> close() {
+        return subscriber -> {
+
+            List<Publisher<Void>> closes = new ArrayList<>();
+
+            synchronized (this.partitions) {
+
+                this.disposed = true;
+
+                for (Partition partition : this.partitions.values()) {
+                    closes.add(partition.getPool().close());
+                }
+            }
+
+            Publishers.doOnComplete(Publishers.concat(closes), this.scheduler::shutdown).subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionedConnectionPool{" +
+            "name='" + this.name + '\'' +
+            ", maxSize=" + this.maxSize +
+            ", overflow=" + this.overflow.getUsed() + "/" + this.overflow.getCapacity() +
+            ", partitions=" + this.partitions.values() +
+            ", disposed=" + this.disposed +
+            '}';
+    }
+
+    /**
+     * Returns the partition for {@code key} and create it on first use.  Partitions are created while holding the lock on {@link #partitions} so that the partition count is bounded exactly and
+     * no partition is created once {@link #close()} has collected the partitions to close.
+     *
+     * @throws IllegalStateException if the pool is closed or the maximum number of partitions is reached
+     */
+    private Partition getPartition(String key) {
+
+        Partition partition = this.partitions.get(key);
+
+        if (partition != null && !this.disposed) {
+            return partition;
+        }
+
+        synchronized (this.partitions) {
+
+            if (this.disposed) {
+                throw new IllegalStateException("PartitionedConnectionPool is closed");
+            }
+
+            partition = this.partitions.get(key);
+
+            if (partition != null) {
+                return partition;
+            }
+
+            if (this.partitions.size() >= this.maxPartitions) {
+                throw new IllegalStateException(String.format("Cannot create partition '%s', the pool already has %d partitions", key, this.maxPartitions));
+            }
+
+            int[] configuration = this.configured.getOrDefault(key, new int[]{0, this.defaultWeight});
+            partition = new Partition(key, configuration[0], configuration[1], this.factory, this.overflow, this::createPool);
+
+            this.overflow.register(partition);
+            this.partitions.put(key, partition);
+            return partition;
+        }
+    }
+
+    private ConnectionPool createPool(Partition partition) {
+
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(partition)
+            .name(this.name + "-" + partition.key)
+            .scheduler(this.scheduler);
+
+        this.customizer.accept(builder);
+
+        return new ConnectionPool(builder
+            .minIdle(partition.minSize)
+            .maxSize(Math.max(1, partition.minSize + this.overflow.getCapacity()))
+            .build(), () -> this.overflow.retain(partition));
+    }
+
+    /**
+     * A builder for {@link PartitionedConnectionPool} instances.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        private final ConnectionFactory factory;
+
+        private final Map<String, int[]> partitions = new LinkedHashMap<>();
+
+        private String name = "r2dbc-partitioned-pool";
+
+        private int maxSize = ConnectionPoolConfiguration.DEFAULT_MAX_SIZE;
+
+        private int defaultWeight = 1;
+
+        private int maxPartitions = DEFAULT_MAX_PARTITIONS;
+
+        private Consumer<ConnectionPoolConfiguration.Builder> customizer = builder -> {
+        };
+
+        private Function<? super Subscriber<?>, String> partitionResolver = subscriber -> null;
+
+        private Builder(ConnectionFactory factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Returns a configured {@link PartitionedConnectionPool}.
+         *
+         * @return a configured {@link PartitionedConnectionPool}
+         * @throws IllegalArgumentException if the minimum sizes of all partitions exceed {@code maxSize} or more partitions are configured than {@code maxPartitions}
+         */
+        public PartitionedConnectionPool build() {
+
+            if (this.partitions.size() > this.maxPartitions) {
+                throw new IllegalArgumentException("The number of configured partitions must not exceed maxPartitions");
+            }
+
+            int reserved = 0;
+            for (int[] partition : this.partitions.values()) {
+                reserved += partition[0];
+            }
+
+            if (reserved > this.maxSize) {
+                throw new IllegalArgumentException("The sum of partition minimum sizes must not exceed maxSize");
+            }
+
+            return new PartitionedConnectionPool(this);
+        }
+
+        /**
+         * Configure the name of the pool.  Partition pools are named after the pool and their partition key.
+         *
+         * @param name the name of the pool
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code name} is {@code null}
+         */
+        public Builder name(String name) {
+            this.name = Assert.requireNonNull(name, "name must not be null");
+            return this;
+        }
+
+        /**
+         * Configure the maximum number of connections allocated across all partitions.
+         *
+         * @param maxSize the maximum number of connections
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxSize} is not positive
+         */
+        public Builder maxSize(int maxSize) {
+
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be greater than zero");
+            }
+
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Configure a partition.
+         *
+         * @param key     the partition key
+         * @param minSize the number of connections reserved for the partition
+         * @param weight  the share of the partition when competing for overflow connections
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code key} is {@code null}, {@code minSize} is negative or {@code weight} is not positive
+         */
+        public Builder partition(String key, int minSize, int weight) {
+            Assert.requireNonNull(key, "key must not be null");
+
+            if (minSize < 0) {
+                throw new IllegalArgumentException("minSize must not be negative");
+            }
+
+            if (weight <= 0) {
+                throw new IllegalArgumentException("weight must be greater than zero");
+            }
+
+            this.partitions.put(key, new int[]{minSize, weight});
+            return this;
+        }
+
+        /**
+         * Configure the weight of partitions that are not configured explicitly.
+         *
+         * @param defaultWeight the weight of partitions that are not configured explicitly
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code defaultWeight} is not positive
+         */
+        public Builder defaultWeight(int defaultWeight) {
+
+            if (defaultWeight <= 0) {
+                throw new IllegalArgumentException("defaultWeight must be greater than zero");
+            }
+
+            this.defaultWeight = defaultWeight;
+            return this;
+        }
+
+        /**
+         * Configure the maximum number of partitions including configured partitions.  Acquisitions for partitions that are not configured fail once the maximum is reached.
+         *
+         * @param maxPartitions the maximum number of partitions
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxPartitions} is not positive
+         */
+        public Builder maxPartitions(int maxPartitions) {
+
+            if (maxPartitions <= 0) {
+                throw new IllegalArgumentException("maxPartitions must be greater than zero");
+            }
+
+            this.maxPartitions = maxPartitions;
+            return this;
+        }
+
+        /**
+         * Configure the pools of all partitions, for example their validation or idle time.  Minimum idle and maximum size are derived from the partition configuration.
+         *
+         * @param customizer the callback to configure partition pools
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code customizer} is {@code null}
+         */
+        public Builder pool(Consumer<ConnectionPoolConfiguration.Builder> customizer) {
+            this.customizer = Assert.requireNonNull(customizer, "customizer must not be null");
+            return this;
+        }
+
+        /**
+         * Configure the function resolving the partition key for {@link PartitionedConnectionPool#create()} from the acquiring {@link Subscriber}.  Returning {@code null} selects
+         * {@link #DEFAULT_PARTITION}.
+         *
+         * @param partitionResolver the function resolving the partition key
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code partitionResolver} is {@code null}
+         */
+        public Builder partitionResolver(Function<? super Subscriber<?>, String> partitionResolver) {
+            this.partitionResolver = Assert.requireNonNull(partitionResolver, "partitionResolver must not be null");
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "factory=" + this.factory +
+                ", name='" + this.name + '\'' +
+                ", maxSize=" + this.maxSize +
+                ", defaultWeight=" + this.defaultWeight +
+                ", maxPartitions=" + this.maxPartitions +
+                '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+/**
+ * Point-in-time view of the state of a {@link ConnectionPool}.  Values are read without synchronization and may be slightly out of date under concurrent access.
+ */
+public interface PoolMetrics {
+
+    /**
+     * Returns the number of connections currently handed out.
+     *
+     * @return the number of connections currently handed out
+     */
+    int getAcquiredSize();
+
+    /**
+     * Returns the number of connections currently allocated, including connections that are being created.
+     *
+     * @return the number of connections currently allocated
+     */
+    int getAllocatedSize();
+
+    /**
+     * Returns the number of idle connections.
+     *
+     * @return the number of idle connections
+     */
+    int getIdleSize();
+
+    /**
+     * Returns the number of acquisitions waiting for a connection.
+     *
+     * @return the number of acquisitions waiting for a connection
+     */
+    int getPendingAcquireSize();
+
+    /**
+     * Returns the maximum number of connections the pool allocates.
+     *
+     * @return the maximum number of connections the pool allocates
+     */
+    int getMaxAllocatedSize();
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.ConnectionState;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Connection} handed out by {@link ConnectionPool}.  {@link #close()} releases the underlying connection back into the pool instead of closing it.  A released connection rejects further
+ * usage with {@link IllegalStateException}.
+ * <p>
+ * The connection tracks the time it is idle within a transaction started through {@link #beginTransaction()}: statements and batches created within a transaction are decorated to record the
+ * time between the termination of one execution and the start of the next one, the end of the transaction or the release of the connection.
+ */
+final class PooledConnection implements Connection, Wrapped<Connection> {
+
+    private final ConnectionPool pool;
+
+    private final ConnectionPool.PooledRef ref;
+
+    private final Connection delegate;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private final long acquiredAt;
+
+    @Nullable
+    private final ScheduledFuture<?> leakDetection;
+
+    private volatile boolean inTransaction;
+
+    // 0 while an execution is running
+    private volatile long lastActivity;
+
+    PooledConnection(ConnectionPool pool, ConnectionPool.PooledRef ref, @Nullable IllegalStateException leakTrace) {
+        this.pool = pool;
+        this.ref = ref;
+        this.delegate = ref.connection;
+        this.acquiredAt = System.nanoTime();
+        this.leakDetection = leakTrace != null ? pool.detectLeak(this, leakTrace) : null;
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction() {
+        return Publishers.doOnComplete(assertNotReleased().beginTransaction(), this::transactionStarted);
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+        return Publishers.doOnComplete(assertNotReleased().beginTransaction(definition), this::transactionStarted);
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return subscriber -> {
+
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+
+            if (this.released.compareAndSet(false, true)) {
+
+                if (this.leakDetection != null) {
+                    this.leakDetection.cancel(false);
+                }
+
+                transactionEnded();
+                this.pool.release(this.ref, this.acquiredAt, subscription::complete);
+            } else {
+                subscription.complete();
+            }
+        };
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+        return endTransaction(assertNotReleased().commitTransaction());
+    }
+
+    @Override
+    public Batch createBatch() {
+
+        Batch batch = assertNotReleased().createBatch();
+
+        return this.inTransaction ? new IdleTrackingBatch(batch, this) : batch;
+    }
+
+    @Override
+    public Publisher<Void> createSavepoint(String name) {
+        return assertNotReleased().createSavepoint(name);
+    }
+
+    @Override
+    public Statement createStatement(String sql) {
+
+        Statement statement = assertNotReleased().createStatement(sql);
+
+        return this.inTransaction ? new IdleTrackingStatement(statement, this) : statement;
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return assertNotReleased().isAutoCommit();
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+        return assertNotReleased().getMetadata();
+    }
+
+    @Override
+    public ConnectionState getState() {
+        return assertNotReleased().getState();
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return assertNotReleased().getTransactionIsolationLevel();
+    }
+
+    @Override
+    public Publisher<Void> releaseSavepoint(String name) {
+        return assertNotReleased().releaseSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+        return endTransaction(assertNotReleased().rollbackTransaction());
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+        return assertNotReleased().rollbackTransactionToSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> setAutoCommit(boolean autoCommit) {
+        return assertNotReleased().setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+        return assertNotReleased().setLockWaitTimeout(timeout);
+    }
+
+    @Override
+    public Publisher<Void> setStatementTimeout(Duration timeout) {
+        return assertNotReleased().setStatementTimeout(timeout);
+    }
+
+    @Override
+    public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        return assertNotReleased().setTransactionIsolationLevel(isolationLevel);
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+        return assertNotReleased().validate(depth);
+    }
+
+    @Override
+    public Connection unwrap() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns whether this connection was released back into the pool.
+     *
+     * @return {@code true} if this connection was released
+     */
+    boolean isReleased() {
+        return this.released.get();
+    }
+
+    /**
+     * Notify the start of an execution or of the consumption of a {@link io.r2dbc.spi.Result}.  Records the time since the previous activity within a transaction as idle time.
+     */
+    void executionStarted() {
+
+        long lastActivity = this.lastActivity;
+        this.lastActivity = 0;
+
+        if (this.inTransaction && lastActivity != 0) {
+            this.pool.getStatistics().recordIdleInTransaction(System.nanoTime() - lastActivity);
+        }
+    }
+
+    /**
+     * Notify the end of activity, that is the consumption of a {@link io.r2dbc.spi.Result} or an execution that terminated without emitting results.
+     */
+    void executionTerminated() {
+        this.lastActivity = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return "PooledConnection{" +
+            "delegate=" + this.delegate +
+            ", released=" + this.released +
+            '}';
+    }
+
+    private Publisher<Void> endTransaction(Publisher<Void> source) {
+        return subscriber -> {
+            transactionEnded();
+            source.subscribe(subscriber);
+        };
+    }
+
+    private void transactionStarted() {
+        this.lastActivity = System.nanoTime();
+        this.inTransaction = true;
+    }
+
+    private void transactionEnded() {
+        executionStarted();
+        this.inTransaction = false;
+    }
+
+    private Connection assertNotReleased() {
+
+        if (this.released.get()) {
+            throw new IllegalStateException("Connection is released");
+        }
+
+        return this.delegate;
+    }
+
+}
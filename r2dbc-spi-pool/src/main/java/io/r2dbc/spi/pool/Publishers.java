@@ -0,0 +1,264 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Result;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-public {@link Publisher} factories and operators.
+ */
+abstract class Publishers {
+
+    private Publishers() {
+    }
+
+    /**
+     * Returns a {@link Publisher} that completes without emitting a value.
+     *
+     * @return a {@link Publisher} that completes without emitting a value
+     */
+    static Publisher<Void> empty() {
+        return subscriber -> {
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+            subscription.complete();
+        };
+    }
+
+    /**
+     * Returns a {@link Publisher} that invokes {@code action} when {@code source} completes successfully and before propagating the completion signal.
+     *
+     * @param source the source {@link Publisher}
+     * @param action the action to invoke
+     * @return the decorated {@link Publisher}
+     */
+    static Publisher<Void> doOnComplete(Publisher<Void> source, Runnable action) {
+        return subscriber -> source.subscribe(new Subscriber<Void>() {
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscriber.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(Void value) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                subscriber.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    subscriber.onError(e);
+                    return;
+                }
+
+                subscriber.onComplete();
+            }
+        });
+    }
+
+    /**
+     * Returns a {@link Publisher} that invokes {@code onSubscribe} before subscribing to {@code source} and {@code onTerminate} once {@code source} completes, fails or is cancelled.
+     *
+     * @param source      the source {@link Publisher}
+     * @param onSubscribe the action to invoke upon subscription
+     * @param onTerminate the action to invoke upon termination
+     * @param <T>         the value type
+     * @return the decorated {@link Publisher}
+     */
+    static <T> Publisher<T> doOnLifecycle(Publisher<T> source, Runnable onSubscribe, Runnable onTerminate) {
+        return subscriber -> {
+
+            onSubscribe.run();
+
+            AtomicBoolean terminated = new AtomicBoolean();
+            Runnable terminate = () -> {
+                if (terminated.compareAndSet(false, true)) {
+                    onTerminate.run();
+                }
+            };
+
+            source.subscribe(new Subscriber<T>() {
+
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscriber.onSubscribe(new Subscription() {
+
+                        @Override
+                        public void request(long n) {
+                            s.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            terminate.run();
+                            s.cancel();
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(T value) {
+                    subscriber.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    terminate.run();
+                    subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    terminate.run();
+                    subscriber.onComplete();
+                }
+            });
+        };
+    }
+
+    /**
+     * Returns a {@link Publisher} that subscribes to {@code sources} one after another and completes once all sources have completed.  The first error terminates the sequence.
+     *
+     * @param sources the sources to subscribe to
+     * @return a {@link Publisher} completing after all sources
+     */
+    static Publisher<Void> concat(List<Publisher<Void>> sources) {
+        return subscriber -> {
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+            subscribeNext(sources.iterator(), subscription);
+        };
+    }
+
+    /**
+     * Returns a {@link Publisher} that applies {@code mapper} to each value emitted by {@code source}.
+     *
+     * @param source the source {@link Publisher}
+     * @param mapper the mapping function
+     * @param <T>    the source value type
+     * @param <R>    the mapped value type
+     * @return the mapped {@link Publisher}
+     */
+    static <T, R> Publisher<R> map(Publisher<? extends T> source, Function<? super T, ? extends R> mapper) {
+        return subscriber -> source.subscribe(new Subscriber<T>() {
+
+            private Subscription subscription;
+
+            private boolean done;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.subscription = s;
+                subscriber.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(T value) {
+
+                if (this.done) {
+                    return;
+                }
+
+                R mapped;
+
+                try {
+                    mapped = mapper.apply(value);
+                } catch (RuntimeException e) {
+                    this.subscription.cancel();
+                    onError(e);
+                    return;
+                }
+
+                subscriber.onNext(mapped);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+
+                if (!this.done) {
+                    this.done = true;
+                    subscriber.onError(t);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+
+                if (!this.done) {
+                    this.done = true;
+                    subscriber.onComplete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a {@link Publisher} that consumes all {@link Result}s emitted by {@code results} including their rows and completes once all results are consumed.  The first error terminates
+     * the sequence.
+     *
+     * @param results the results to consume
+     * @return a {@link Publisher} completing after all results are consumed
+     */
+    static Publisher<Void> drain(Publisher<? extends Result> results) {
+        return subscriber -> {
+
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            AtomicInteger outstanding = new AtomicInteger(1);
+            Runnable release = () -> {
+                if (outstanding.decrementAndGet() == 0) {
+                    subscription.complete();
+                }
+            };
+
+            subscriber.onSubscribe(subscription);
+
+            Subscribers.onTermination(map(results, result -> {
+                outstanding.incrementAndGet();
+                Subscribers.onTermination(result.map((row, metadata) -> metadata), release, subscription::error);
+                return result;
+            }), release, subscription::error);
+        };
+    }
+
+    private static void subscribeNext(Iterator<Publisher<Void>> sources, SingleSubscription<Void> subscription) {
+
+        if (!sources.hasNext()) {
+            subscription.complete();
+            return;
+        }
+
+        Subscribers.onTermination(sources.next(), () -> subscribeNext(sources, subscription), subscription::error);
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Connection capacity shared by the partitions of a {@link PartitionedConnectionPool}.
+ * <p>
+ * Each partition may allocate up to its minimum size without consuming shared capacity.  Allocations beyond the minimum draw from the shared overflow.  Once the overflow is exhausted,
+ * allocations wait and are granted by weighted fair queuing: each served allocation advances the virtual time of its partition by the inverse of the partition weight, and the waiting partition
+ * with the lowest virtual time is served next.  When an allocation has to wait, an idle overflow connection of another partition is closed to hand back its capacity.  Overflow connections released by a partition ahead of a waiting partition are closed instead of being pooled.
+ */
+final class SharedOverflow {
+
+    private final int capacity;
+
+    private final List<Partition> partitions = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private int used;
+
+    private double virtualTime;
+
+    SharedOverflow(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void register(Partition partition) {
+        this.partitions.add(partition);
+    }
+
+    int getCapacity() {
+        return this.capacity;
+    }
+
+    synchronized int getUsed() {
+        return this.used;
+    }
+
+    /**
+     * Acquire capacity for a connection of {@code partition}.  {@code allocation} is granted immediately or once capacity becomes available.
+     *
+     * @param partition  the partition allocating a connection
+     * @param allocation the allocation to grant
+     */
+    void acquire(Partition partition, Partition.Allocation allocation) {
+
+        boolean granted;
+
+        synchronized (this) {
+
+            granted = tryAcquire(partition);
+
+            if (!granted) {
+
+                if (partition.waiters.isEmpty()) {
+                    partition.virtualTime = Math.max(partition.virtualTime, this.virtualTime);
+                }
+
+                partition.waiters.add(allocation);
+            }
+        }
+
+        if (granted) {
+            allocation.grant();
+        } else {
+            reclaim(partition);
+        }
+    }
+
+    /**
+     * Release the capacity of a closed connection of {@code partition} and grant waiting allocations.
+     *
+     * @param partition the partition whose connection was closed
+     */
+    void release(Partition partition) {
+
+        List<Partition.Allocation> granted = new ArrayList<>();
+
+        synchronized (this) {
+
+            if (partition.owned-- > partition.minSize) {
+                this.used--;
+            }
+
+            for (; ; ) {
+
+                Partition next = selectWaiting();
+
+                if (next == null) {
+                    break;
+                }
+
+                Partition.Allocation allocation = next.waiters.poll();
+
+                if (allocation.isCancelled()) {
+                    continue;
+                }
+
+                tryAcquire(next);
+                granted.add(allocation);
+            }
+        }
+
+        for (Partition.Allocation allocation : granted) {
+            allocation.grant();
+        }
+    }
+
+    /**
+     * Decide whether a released connection of {@code partition} is returned into its pool.  Overflow connections are closed if another partition waits that is below its minimum size or has
+     * not received more than its fair share.
+     *
+     * @param partition the partition releasing a connection
+     * @return {@code true} to return the connection into the pool
+     */
+    synchronized boolean retain(Partition partition) {
+
+        if (partition.owned <= partition.minSize) {
+            return true;
+        }
+
+        for (Partition waiting : this.partitions) {
+            if (waiting != partition && !waiting.waiters.isEmpty() && (waiting.owned < waiting.minSize || waiting.virtualTime <= partition.virtualTime)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove a waiting allocation.
+     *
+     * @param partition  the partition of the allocation
+     * @param allocation the allocation to remove
+     */
+    synchronized void remove(Partition partition, Partition.Allocation allocation) {
+        partition.waiters.remove(allocation);
+    }
+
+    private boolean tryAcquire(Partition partition) {
+
+        if (partition.owned < partition.minSize) {
+            partition.owned++;
+            return true;
+        }
+
+        if (this.used < this.capacity) {
+
+            this.used++;
+            partition.owned++;
+
+            double start = Math.max(partition.virtualTime, this.virtualTime);
+            this.virtualTime = start;
+            partition.virtualTime = start + 1.0 / partition.weight;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Select the waiting partition to serve next.  Partitions below their minimum size are served first, otherwise the partition with the lowest virtual time is served if overflow capacity is
+     * available.
+     */
+    @Nullable
+    private Partition selectWaiting() {
+
+        Partition selected = null;
+
+        for (Partition partition : this.partitions) {
+
+            if (partition.waiters.isEmpty()) {
+                continue;
+            }
+
+            if (partition.owned < partition.minSize) {
+                return partition;
+            }
+
+            if (this.used < this.capacity && (selected == null || partition.virtualTime < selected.virtualTime)) {
+                selected = partition;
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Close an idle overflow connection of a partition other than {@code waiting}.
+     */
+    private void reclaim(Partition waiting) {
+
+        for (Partition partition : this.partitions) {
+            if (partition != waiting && partition.getOverflowSize() > 0 && partition.getPool().evictIdle()) {
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * {@link Subscription} emitting at most a single value that may become available before or after the downstream {@link Subscriber} signals demand.
+ *
+ * @param <T> the value type
+ */
+final class SingleSubscription<T> implements Subscription {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<SingleSubscription> STATE = AtomicIntegerFieldUpdater.newUpdater(SingleSubscription.class, "state");
+
+    private static final int NO_REQUEST_NO_VALUE = 0;
+
+    private static final int HAS_REQUEST = 1;
+
+    private static final int HAS_VALUE = 2;
+
+    private static final int DONE = 3;
+
+    private final Subscriber<? super T> actual;
+
+    @Nullable
+    private T value;
+
+    private volatile int state;
+
+    SingleSubscription(Subscriber<? super T> actual) {
+        this.actual = actual;
+    }
+
+    @Override
+    public void request(long n) {
+
+        if (n <= 0) {
+            error(new IllegalArgumentException(String.format("Requested demand must be greater than zero, was %d", n)));
+            return;
+        }
+
+        for (; ; ) {
+
+            int state = this.state;
+
+            if (state == HAS_REQUEST || state == DONE) {
+                return;
+            }
+
+            if (state == HAS_VALUE) {
+                if (STATE.compareAndSet(this, HAS_VALUE, DONE)) {
+                    emit(Assert.requireNonNull(this.value, "value must not be null"));
+                }
+                return;
+            }
+
+            if (STATE.compareAndSet(this, NO_REQUEST_NO_VALUE, HAS_REQUEST)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void cancel() {
+        STATE.set(this, DONE);
+        this.value = null;
+    }
+
+    /**
+     * Emit {@code value} once requested and complete.
+     *
+     * @param value the value to emit
+     */
+    void complete(T value) {
+
+        for (; ; ) {
+
+            int state = this.state;
+
+            if (state == HAS_VALUE || state == DONE) {
+                return;
+            }
+
+            if (state == HAS_REQUEST) {
+                if (STATE.compareAndSet(this, HAS_REQUEST, DONE)) {
+                    emit(value);
+                }
+                return;
+            }
+
+            this.value = value;
+
+            if (STATE.compareAndSet(this, NO_REQUEST_NO_VALUE, HAS_VALUE)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Complete without emitting a value.
+     */
+    void complete() {
+        if (STATE.getAndSet(this, DONE) != DONE) {
+            this.actual.onComplete();
+        }
+    }
+
+    /**
+     * Terminate with {@code error}.
+     *
+     * @param error the error to signal
+     */
+    void error(Throwable error) {
+        if (STATE.getAndSet(this, DONE) != DONE) {
+            this.value = null;
+            this.actual.onError(error);
+        }
+    }
+
+    private void emit(T value) {
+        this.value = null;
+        this.actual.onNext(value);
+        this.actual.onComplete();
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.ConnectionState;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Lifecycle;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * {@link Connection} decorator tracking the session state to skip redundant round trips.  Calls to {@link #setAutoCommit(boolean)}, {@link #setTransactionIsolationLevel(IsolationLevel)},
+ * {@link #setStatementTimeout(Duration)} and {@link #setLockWaitTimeout(Duration)} complete without calling the underlying connection if the requested value is already in place according to
+ * {@link Connection#getState()} or to a previous call through this decorator.
+ * <p>
+ * The decorator captures the session state as baseline on creation and on {@link #postAllocate()}.  {@link #preRelease()} resets only attributes that have changed since the baseline before
+ * notifying the underlying connection.
+ */
+public final class StateTrackingConnection implements Connection, Lifecycle, Wrapped<Connection> {
+
+    private final Connection delegate;
+
+    private volatile ConnectionState tracked;
+
+    private volatile ConnectionState baseline;
+
+    private StateTrackingConnection(Connection delegate) {
+        this.delegate = delegate;
+        this.tracked = ConnectionState.unknown();
+        this.baseline = getState();
+    }
+
+    /**
+     * Creates a new {@link StateTrackingConnection} for {@code connection}.
+     *
+     * @param connection the connection to decorate
+     * @return the decorated connection
+     * @throws IllegalArgumentException if {@code connection} is {@code null}
+     */
+    public static StateTrackingConnection wrap(Connection connection) {
+        Assert.requireNonNull(connection, "connection must not be null");
+
+        if (connection instanceof StateTrackingConnection) {
+            return (StateTrackingConnection) connection;
+        }
+
+        return new StateTrackingConnection(connection);
+    }
+
+    /**
+     * Returns the session state captured as baseline on creation or the last {@link #postAllocate()}.
+     *
+     * @return the baseline session state
+     */
+    public ConnectionState getBaseline() {
+        return this.baseline;
+    }
+
+    /**
+     * Returns whether any known attribute has changed since the {@link #getBaseline() baseline} was captured.
+     *
+     * @return {@code true} if the session state has changed
+     */
+    public boolean isDirty() {
+        return !getState().equals(this.baseline);
+    }
+
+    /**
+     * Returns the known session state.  Attributes reported by the underlying connection take precedence over values tracked by this decorator.
+     *
+     * @return the known session state
+     */
+    @Override
+    public ConnectionState getState() {
+
+        ConnectionState reported = this.delegate.getState();
+        ConnectionState tracked = this.tracked;
+
+        return ConnectionState.builder()
+            .autoCommit(reported.getAutoCommit() != null ? reported.getAutoCommit() : tracked.getAutoCommit())
+            .transactionIsolationLevel(reported.getTransactionIsolationLevel() != null ? reported.getTransactionIsolationLevel() : tracked.getTransactionIsolationLevel())
+            .statementTimeout(reported.getStatementTimeout() != null ? reported.getStatementTimeout() : tracked.getStatementTimeout())
+            .lockWaitTimeout(reported.getLockWaitTimeout() != null ? reported.getLockWaitTimeout() : tracked.getLockWaitTimeout())
+            .build();
+    }
+
+    @Override
+    public Publisher<Void> postAllocate() {
+
+        Publisher<Void> postAllocate = this.delegate instanceof Lifecycle ? ((Lifecycle) this.delegate).postAllocate() : Publishers.empty();
+
+        return Publishers.doOnComplete(postAllocate, () -> this.baseline = getState());
+    }
+
+    @Override
+    public Publisher<Void> preRelease() {
+        return subscriber -> {
+
+            ConnectionState baseline = this.baseline;
+            ConnectionState current = getState();
+            List<Publisher<Void>> resets = new ArrayList<>();
+
+            if (baseline.getAutoCommit() != null && !baseline.getAutoCommit().equals(current.getAutoCommit())) {
+                resets.add(setAutoCommit(baseline.getAutoCommit()));
+            }
+
+            if (baseline.getTransactionIsolationLevel() != null && !baseline.getTransactionIsolationLevel().equals(current.getTransactionIsolationLevel())) {
+                resets.add(setTransactionIsolationLevel(baseline.getTransactionIsolationLevel()));
+            }
+
+            if (baseline.getStatementTimeout() != null && !baseline.getStatementTimeout().equals(current.getStatementTimeout())) {
+                resets.add(setStatementTimeout(baseline.getStatementTimeout()));
+            }
+
+            if (baseline.getLockWaitTimeout() != null && !baseline.getLockWaitTimeout().equals(current.getLockWaitTimeout())) {
+                resets.add(setLockWaitTimeout(baseline.getLockWaitTimeout()));
+            }
+
+            if (this.delegate instanceof Lifecycle) {
+                resets.add(((Lifecycle) this.delegate).preRelease());
+            }
+
+            Publishers.concat(resets).subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction() {
+        return Publishers.doOnComplete(this.delegate.beginTransaction(), this::invalidateTransactionState);
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+        return Publishers.doOnComplete(this.delegate.beginTransaction(definition), this::invalidateTransactionState);
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return this.delegate.close();
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+        return Publishers.doOnComplete(this.delegate.commitTransaction(), this::invalidateTransactionState);
+    }
+
+    @Override
+    public Batch createBatch() {
+        return this.delegate.createBatch();
+    }
+
+    @Override
+    public Publisher<Void> createSavepoint(String name) {
+        return this.delegate.createSavepoint(name);
+    }
+
+    @Override
+    public Statement createStatement(String sql) {
+        return this.delegate.createStatement(sql);
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return this.delegate.isAutoCommit();
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+        return this.delegate.getMetadata();
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return this.delegate.getTransactionIsolationLevel();
+    }
+
+    @Override
+    public Publisher<Void> releaseSavepoint(String name) {
+        return this.delegate.releaseSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+        return Publishers.doOnComplete(this.delegate.rollbackTransaction(), this::invalidateTransactionState);
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+        return this.delegate.rollbackTransactionToSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> setAutoCommit(boolean autoCommit) {
+        return apply(autoCommit, ConnectionState::getAutoCommit, this.delegate::setAutoCommit, builder -> builder.autoCommit(autoCommit));
+    }
+
+    @Override
+    public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+        Assert.requireNonNull(timeout, "timeout must not be null");
+        return apply(timeout, ConnectionState::getLockWaitTimeout, this.delegate::setLockWaitTimeout, builder -> builder.lockWaitTimeout(timeout));
+    }
+
+    @Override
+    public Publisher<Void> setStatementTimeout(Duration timeout) {
+        Assert.requireNonNull(timeout, "timeout must not be null");
+        return apply(timeout, ConnectionState::getStatementTimeout, this.delegate::setStatementTimeout, builder -> builder.statementTimeout(timeout));
+    }
+
+    @Override
+    public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        Assert.requireNonNull(isolationLevel, "isolationLevel must not be null");
+        return apply(isolationLevel, ConnectionState::getTransactionIsolationLevel, this.delegate::setTransactionIsolationLevel, builder -> builder.transactionIsolationLevel(isolationLevel));
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+        return this.delegate.validate(depth);
+    }
+
+    @Override
+    public Connection unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "StateTrackingConnection{" +
+            "delegate=" + this.delegate +
+            ", tracked=" + this.tracked +
+            ", baseline=" + this.baseline +
+            '}';
+    }
+
+    /**
+     * Apply a session attribute unless the requested value is already in place.  The tracked state is updated after the underlying connection has applied the value.
+     */
+    private <T> Publisher<Void> apply(T value, Function<ConnectionState, T> getter, Function<T, Publisher<Void>> setter, Function<ConnectionState.Builder, ConnectionState.Builder> update) {
+        return subscriber -> {
+
+            if (Objects.equals(value, getter.apply(getState()))) {
+                Publishers.empty().subscribe(subscriber);
+                return;
+            }
+
+            Publishers.doOnComplete(setter.apply(value), () -> this.tracked = update.apply(this.tracked.mutate()).build()).subscribe(subscriber);
+        };
+    }
+
+    /**
+     * Transaction boundaries may change auto-commit mode and the isolation level of the session, forget the tracked values.
+     */
+    private void invalidateTransactionState() {
+        this.tracked = this.tracked.mutate().autoCommit(null).transactionIsolationLevel(null).build();
+    }
+
+}
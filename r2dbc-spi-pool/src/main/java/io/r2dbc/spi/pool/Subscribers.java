@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Callback-style {@link Subscriber} factories to compose {@link Publisher}s without depending on a reactive library.
+ */
+abstract class Subscribers {
+
+    private static final Subscription CANCELLED = new Subscription() {
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private Subscribers() {
+    }
+
+    /**
+     * Subscribe to {@code publisher} and notify {@code onComplete} or {@code onError} once the publisher terminates.  Emitted values are ignored.
+     *
+     * @param publisher  the publisher to subscribe to
+     * @param onComplete callback invoked on successful completion
+     * @param onError    callback invoked on error
+     */
+    static void onTermination(Publisher<?> publisher, Runnable onComplete, Consumer<Throwable> onError) {
+
+        AtomicBoolean terminated = new AtomicBoolean();
+
+        try {
+            publisher.subscribe(new Subscriber<Object>() {
+
+                @Override
+                public void onSubscribe(Subscription s) {
+                    s.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Object o) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    if (terminated.compareAndSet(false, true)) {
+                        onError.accept(t);
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    if (terminated.compareAndSet(false, true)) {
+                        onComplete.run();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (terminated.compareAndSet(false, true)) {
+                onError.accept(e);
+            }
+        }
+    }
+
+    /**
+     * Subscribe to {@code publisher} and notify {@code onNext} with its first value or {@code onError} if the publisher fails or completes empty.  The subscription is cancelled after receiving
+     * the first value.  Running the returned {@link Runnable} cancels the subscription without notifying either callback unless the publisher has already terminated.
+     *
+     * @param publisher the publisher to subscribe to
+     * @param onNext    callback invoked with the first value
+     * @param onError   callback invoked on error or empty completion
+     * @param <T>       the value type
+     * @return a {@link Runnable} cancelling the subscription
+     */
+    static <T> Runnable first(Publisher<? extends T> publisher, Consumer<T> onNext, Consumer<Throwable> onError) {
+
+        AtomicBoolean terminated = new AtomicBoolean();
+        AtomicReference<Subscription> upstream = new AtomicReference<>();
+
+        try {
+            publisher.subscribe(new Subscriber<T>() {
+
+                @Override
+                public void onSubscribe(Subscription s) {
+
+                    if (upstream.compareAndSet(null, s)) {
+                        s.request(1);
+                    } else {
+                        s.cancel();
+                    }
+                }
+
+                @Override
+                public void onNext(T t) {
+                    if (terminated.compareAndSet(false, true)) {
+                        upstream.get().cancel();
+                        onNext.accept(t);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    if (terminated.compareAndSet(false, true)) {
+                        onError.accept(t);
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    if (terminated.compareAndSet(false, true)) {
+                        onError.accept(new NoSuchElementException("Publisher completed without emitting a value"));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            if (terminated.compareAndSet(false, true)) {
+                onError.accept(e);
+            }
+        }
+
+        return () -> {
+
+            if (terminated.compareAndSet(false, true)) {
+
+                Subscription subscription = upstream.getAndSet(CANCELLED);
+
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        };
+    }
+
+    /**
+     * Subscribe to {@code publisher} ignoring its outcome.
+     *
+     * @param publisher the publisher to subscribe to
+     */
+    static void subscribe(Publisher<?> publisher) {
+        onTermination(publisher, () -> {
+        }, e -> {
+        });
+    }
+
+}
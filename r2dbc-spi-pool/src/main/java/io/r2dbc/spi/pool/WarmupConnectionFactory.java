@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+/**
+ * {@link ConnectionFactory} decorator applying a {@link WarmupPlan} to created connections.
+ */
+final class WarmupConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private final ConnectionFactory delegate;
+
+    private final WarmupPlan plan;
+
+    WarmupConnectionFactory(ConnectionFactory delegate, WarmupPlan plan) {
+        this.delegate = delegate;
+        this.plan = plan;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Publishers.map(this.delegate.create(), connection -> new WarmupConnection(connection, this.plan));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupConnectionFactory{" +
+            "delegate=" + this.delegate +
+            ", plan=" + this.plan +
+            '}';
+    }
+
+}
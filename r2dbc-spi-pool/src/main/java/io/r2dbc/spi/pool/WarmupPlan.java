@@ -0,0 +1,332 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Lifecycle;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A plan to bring newly created connections into a hot state before they are handed out.  A plan consists of session setup commands and warm-up statements.
+ * <ul>
+ * <li>Session setup commands are sent as a single {@link Batch} so that drivers can pipeline them in one round trip.</li>
+ * <li>Warm-up statements are executed one after another and their results are consumed including their {@link RowMetadata} so that drivers populate statement caches and type registries.
+ * Warm-up statements should be free of side effects.</li>
+ * </ul>
+ * <p>
+ * Plans are registered on a {@link ConnectionFactory} through {@link #apply(ConnectionFactory)}.  Connections created by the resulting factory implement {@link Lifecycle} and run the plan once
+ * upon their first {@link Lifecycle#postAllocate()} so that a pool hands out connections only after they are warmed up.  The cost of each run is reported as {@link Report}.
+ * <p>
+ * Example usage:
+ * <pre class="code">
+ * WarmupPlan plan = WarmupPlan.builder()
+ *     .sessionSetup("SET application_name = 'orders'")
+ *     .statement("SELECT id, name FROM customer WHERE id = $1", statement -&gt; statement.bind("$1", -1))
+ *     .onReport(report -&gt; logger.debug("Warmed up {} in {}", report.getConnection(), report.getDuration()))
+ *     .build();
+ *
+ * ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(plan.apply(connectionFactory)).build());
+ * </pre>
+ */
+public final class WarmupPlan {
+
+    private final List<String> sessionSetup;
+
+    private final List<WarmupStatement> statements;
+
+    private final Consumer<Report> reportConsumer;
+
+    private WarmupPlan(Builder builder) {
+        this.sessionSetup = Collections.unmodifiableList(new ArrayList<>(builder.sessionSetup));
+        this.statements = Collections.unmodifiableList(new ArrayList<>(builder.statements));
+        this.reportConsumer = builder.reportConsumer;
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     *
+     * @return a new {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a {@link ConnectionFactory} that applies this plan to each connection created by {@code connectionFactory} upon its first {@link Lifecycle#postAllocate()}.
+     *
+     * @param connectionFactory the connection factory to decorate
+     * @return the decorated connection factory
+     * @throws IllegalArgumentException if {@code connectionFactory} is {@code null}
+     */
+    public ConnectionFactory apply(ConnectionFactory connectionFactory) {
+        return new WarmupConnectionFactory(Assert.requireNonNull(connectionFactory, "connectionFactory must not be null"), this);
+    }
+
+    /**
+     * Executes this plan against {@code connection} and emits a {@link Report} once the plan has completed.  The report is passed to the {@link Builder#onReport(Consumer) report consumer}
+     * before it is emitted.
+     *
+     * @param connection the connection to warm up
+     * @return a {@link Publisher} emitting the {@link Report}
+     * @throws IllegalArgumentException if {@code connection} is {@code null}
+     */
+    public Publisher<Report> execute(Connection connection) {
+        Assert.requireNonNull(connection, "connection must not be null");
+
+        return subscriber -> {
+
+            long startedAt = System.nanoTime();
+            SingleSubscription<Report> subscription = new SingleSubscription<>(subscriber);
+
+            subscriber.onSubscribe(subscription);
+
+            Subscribers.onTermination(Publishers.concat(steps(connection)), () -> {
+
+                Report report = new Report(connection, Duration.ofNanos(System.nanoTime() - startedAt), this.sessionSetup.size(), this.statements.size());
+
+                try {
+                    this.reportConsumer.accept(report);
+                } catch (RuntimeException e) {
+                    subscription.error(e);
+                    return;
+                }
+
+                subscription.complete(report);
+            }, subscription::error);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupPlan{" +
+            "sessionSetup=" + this.sessionSetup +
+            ", statements=" + this.statements +
+            '}';
+    }
+
+    private List<Publisher<Void>> steps(Connection connection) {
+
+        List<Publisher<Void>> steps = new ArrayList<>(this.statements.size() + 1);
+
+        if (!this.sessionSetup.isEmpty()) {
+            steps.add(subscriber -> {
+
+                Batch batch = connection.createBatch();
+                this.sessionSetup.forEach(batch::add);
+
+                Publishers.drain(batch.execute()).subscribe(subscriber);
+            });
+        }
+
+        for (WarmupStatement warmupStatement : this.statements) {
+            steps.add(subscriber -> {
+
+                Statement statement = connection.createStatement(warmupStatement.sql);
+                warmupStatement.customizer.accept(statement);
+
+                Publishers.drain(statement.execute()).subscribe(subscriber);
+            });
+        }
+
+        return steps;
+    }
+
+    /**
+     * Outcome of executing a {@link WarmupPlan} against a single connection.
+     */
+    public static final class Report {
+
+        private final Connection connection;
+
+        private final Duration duration;
+
+        private final int sessionSetupCount;
+
+        private final int statementCount;
+
+        Report(Connection connection, Duration duration, int sessionSetupCount, int statementCount) {
+            this.connection = connection;
+            this.duration = duration;
+            this.sessionSetupCount = sessionSetupCount;
+            this.statementCount = statementCount;
+        }
+
+        /**
+         * Returns the connection that was warmed up.
+         *
+         * @return the connection that was warmed up
+         */
+        public Connection getConnection() {
+            return this.connection;
+        }
+
+        /**
+         * Returns the time it took to execute the plan.
+         *
+         * @return the time it took to execute the plan
+         */
+        public Duration getDuration() {
+            return this.duration;
+        }
+
+        /**
+         * Returns the number of session setup commands that were sent.
+         *
+         * @return the number of session setup commands
+         */
+        public int getSessionSetupCount() {
+            return this.sessionSetupCount;
+        }
+
+        /**
+         * Returns the number of warm-up statements that were executed.
+         *
+         * @return the number of warm-up statements
+         */
+        public int getStatementCount() {
+            return this.statementCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                "connection=" + this.connection +
+                ", duration=" + this.duration +
+                ", sessionSetupCount=" + this.sessionSetupCount +
+                ", statementCount=" + this.statementCount +
+                '}';
+        }
+
+    }
+
+    /**
+     * A builder for {@link WarmupPlan} instances.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        private final List<String> sessionSetup = new ArrayList<>();
+
+        private final List<WarmupStatement> statements = new ArrayList<>();
+
+        private Consumer<Report> reportConsumer = report -> {
+        };
+
+        private Builder() {
+        }
+
+        /**
+         * Returns a configured {@link WarmupPlan}.
+         *
+         * @return a configured {@link WarmupPlan}
+         */
+        public WarmupPlan build() {
+            return new WarmupPlan(this);
+        }
+
+        /**
+         * Add a session setup command.  Session setup commands are sent in the order they were added as a single {@link Batch}.
+         *
+         * @param sql the session setup command
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code sql} is {@code null}
+         */
+        public Builder sessionSetup(String sql) {
+            this.sessionSetup.add(Assert.requireNonNull(sql, "sql must not be null"));
+            return this;
+        }
+
+        /**
+         * Add a warm-up statement without bindings.
+         *
+         * @param sql the SQL of the warm-up statement
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code sql} is {@code null}
+         */
+        public Builder statement(String sql) {
+            return statement(sql, statement -> {
+            });
+        }
+
+        /**
+         * Add a warm-up statement.  {@code customizer} is invoked with the created {@link Statement} before execution, typically to bind parameters.
+         *
+         * @param sql        the SQL of the warm-up statement
+         * @param customizer callback to customize the {@link Statement}
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code sql} or {@code customizer} is {@code null}
+         */
+        public Builder statement(String sql, Consumer<Statement> customizer) {
+            Assert.requireNonNull(sql, "sql must not be null");
+            Assert.requireNonNull(customizer, "customizer must not be null");
+
+            this.statements.add(new WarmupStatement(sql, customizer));
+            return this;
+        }
+
+        /**
+         * Configure a consumer that receives the {@link Report} of each plan execution.
+         *
+         * @param reportConsumer the report consumer
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code reportConsumer} is {@code null}
+         */
+        public Builder onReport(Consumer<Report> reportConsumer) {
+            this.reportConsumer = Assert.requireNonNull(reportConsumer, "reportConsumer must not be null");
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "sessionSetup=" + this.sessionSetup +
+                ", statements=" + this.statements +
+                '}';
+        }
+
+    }
+
+    private static final class WarmupStatement {
+
+        private final String sql;
+
+        private final Consumer<Statement> customizer;
+
+        WarmupStatement(String sql, Consumer<Statement> customizer) {
+            this.sql = sql;
+            this.customizer = customizer;
+        }
+
+        @Override
+        public String toString() {
+            return this.sql;
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ConcurrencyLimiter}.
+ */
+final class ConcurrencyLimiterUnitTests {
+
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 10, 1, 100, 0);
+
+    @Test
+    void shouldGrowLimitWhileLatencyIsStable() {
+
+        run(50, TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertThat(this.limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void shouldShrinkLimitWhenLatencyIncreases() {
+
+        run(20, TimeUnit.MILLISECONDS.toNanos(1));
+        int limit = this.limiter.getLimit();
+
+        run(5, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertThat(this.limiter.getLimit()).isLessThan(limit);
+    }
+
+    @Test
+    void shouldNotGrowLimitWhileUnderutilized() {
+
+        for (int i = 0; i < 100; i++) {
+
+            Waiter waiter = new Waiter();
+            this.limiter.acquire(waiter);
+            this.limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        assertThat(this.limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldRejectWithoutQueue() {
+
+        run(0, 0);
+
+        for (int i = 0; i < 10; i++) {
+            this.limiter.acquire(new Waiter());
+        }
+
+        Waiter rejected = new Waiter();
+        this.limiter.acquire(rejected);
+
+        assertThat(rejected.rejection).isInstanceOf(R2dbcTransientResourceException.class);
+        assertThat(this.limiter.getRejectedCount()).isEqualTo(1);
+    }
+
+    /**
+     * Run {@code rounds} of saturating the current limit and releasing all permits with {@code latency}.
+     */
+    private void run(int rounds, long latency) {
+
+        for (int round = 0; round < rounds; round++) {
+
+            int limit = this.limiter.getLimit();
+
+            for (int i = 0; i < limit; i++) {
+                this.limiter.acquire(new Waiter());
+            }
+
+            for (int i = 0; i < limit; i++) {
+                this.limiter.release(latency);
+            }
+        }
+    }
+
+    static final class Waiter implements ConcurrencyLimiter.Waiter {
+
+        boolean granted;
+
+        R2dbcTransientResourceException rejection;
+
+        @Override
+        public void grant() {
+            this.granted = true;
+        }
+
+        @Override
+        public void reject(R2dbcTransientResourceException exception) {
+            this.rejection = exception;
+        }
+
+    }
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactoryStatistics;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ConnectionPool}.
+ */
+final class ConnectionPoolUnitTests {
+
+    TestConnectionFactory factory = new TestConnectionFactory();
+
+    @Test
+    void shouldReuseReleasedConnection() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).build());
+
+        Connection first = acquire(pool);
+
+        assertThat(pool.getMetrics().getAcquiredSize()).isEqualTo(1);
+        assertThat(CollectingSubscriber.subscribe(first.close()).completed).isTrue();
+        assertThat(pool.getMetrics().getAcquiredSize()).isEqualTo(0);
+        assertThat(pool.getMetrics().getIdleSize()).isEqualTo(1);
+
+        Connection second = acquire(pool);
+
+        assertThat(unwrap(second)).isSameAs(unwrap(first));
+        assertThat(this.factory.created).hasSize(1);
+        assertThatThrownBy(first::createBatch).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldInvokeLifecycleCallbacks() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).build());
+
+        CollectingSubscriber.subscribe(acquire(pool).close());
+        CollectingSubscriber.subscribe(acquire(pool).close());
+
+        TestConnection connection = this.factory.created.get(0);
+        assertThat(connection.postAllocate.get()).isEqualTo(2);
+        assertThat(connection.preRelease.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldQueueAcquisitionsBeyondMaxSize() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).maxSize(1).build());
+
+        Connection first = acquire(pool);
+        CollectingSubscriber<Connection> second = CollectingSubscriber.subscribe(pool.create());
+
+        assertThat(second.items).isEmpty();
+        assertThat(pool.getMetrics().getPendingAcquireSize()).isEqualTo(1);
+
+        CollectingSubscriber.subscribe(first.close());
+
+        assertThat(second.items).hasSize(1);
+        assertThat(pool.getMetrics().getPendingAcquireSize()).isEqualTo(0);
+        assertThat(this.factory.created).hasSize(1);
+    }
+
+    @Test
+    void shouldTimeOutPendingAcquisition() throws InterruptedException {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).maxSize(1).maxAcquireTime(Duration.ofMillis(10)).build());
+
+        Connection connection = acquire(pool);
+        CollectingSubscriber<Connection> pending = CollectingSubscriber.subscribe(pool.create());
+
+        for (int i = 0; i < 500 && pending.error == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(pending.error).isInstanceOf(R2dbcTimeoutException.class);
+        assertThat(pool.getMetrics().getPendingAcquireSize()).isEqualTo(0);
+
+        CollectingSubscriber.subscribe(connection.close());
+        CollectingSubscriber.subscribe(pool.close());
+    }
+
+    @Test
+    void shouldTimeOutPendingAllocation() throws InterruptedException {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).maxSize(1).maxAcquireTime(Duration.ofMillis(10)).build());
+
+        this.factory.defer = true;
+        CollectingSubscriber<Connection> pending = CollectingSubscriber.subscribe(pool.create());
+
+        for (int i = 0; i < 500 && pending.error == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(pending.error).isInstanceOf(R2dbcTimeoutException.class);
+        assertThat(pool.getMetrics().getAllocatedSize()).isEqualTo(0);
+
+        assertThat(this.factory.cancelled).hasValue(1);
+        assertThat(this.factory.deferred).isEmpty();
+
+        this.factory.defer = false;
+        CollectingSubscriber.subscribe(acquire(pool).close());
+        CollectingSubscriber.subscribe(pool.close());
+    }
+
+    @Test
+    void shouldTimeOutAllocationOfCancelledBorrower() throws InterruptedException {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).maxSize(1).maxAcquireTime(Duration.ofMillis(10)).build());
+
+        this.factory.defer = true;
+        CollectingSubscriber<Connection> cancelled = CollectingSubscriber.subscribe(pool.create());
+        cancelled.subscription.cancel();
+
+        for (int i = 0; i < 500 && this.factory.cancelled.get() == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(this.factory.cancelled).hasValue(1);
+        assertThat(pool.getMetrics().getAllocatedSize()).isEqualTo(0);
+        assertThat(cancelled.error).isNull();
+
+        this.factory.defer = false;
+        CollectingSubscriber.subscribe(acquire(pool).close());
+        CollectingSubscriber.subscribe(pool.close());
+    }
+
+    @Test
+    void shouldReplaceInvalidConnection() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).validationDepth(ValidationDepth.LOCAL).build());
+
+        CollectingSubscriber.subscribe(acquire(pool).close());
+        this.factory.created.get(0).valid = false;
+
+        Connection connection = acquire(pool);
+
+        assertThat(unwrap(connection)).isSameAs(this.factory.created.get(1));
+        assertThat(this.factory.created.get(0).closed).isTrue();
+        assertThat(pool.getMetrics().getAllocatedSize()).isEqualTo(1);
+        assertThat(pool.getMetadata().getStatistics().snapshot().getIdleConnections()).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldAnswerRemoteValidationLocallyAfterRecentIo() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).validationDepth(ValidationDepth.REMOTE).validationWindow(Duration.ofMinutes(1)).build());
+
+        CollectingSubscriber.subscribe(acquire(pool).close());
+        TestConnection connection = this.factory.created.get(0);
+
+        connection.lastSuccessfulIo = Instant.now();
+        CollectingSubscriber.subscribe(acquire(pool).close());
+
+        assertThat(connection.validationDepth).isEqualTo(ValidationDepth.LOCAL);
+
+        connection.lastSuccessfulIo = Instant.now().minus(Duration.ofMinutes(2));
+        CollectingSubscriber.subscribe(acquire(pool).close());
+
+        assertThat(connection.validationDepth).isEqualTo(ValidationDepth.REMOTE);
+        assertThat(connection.validate).hasValue(2);
+    }
+
+    @Test
+    void shouldWarmup() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).minIdle(3).build());
+
+        CollectingSubscriber<Integer> warmup = CollectingSubscriber.subscribe(pool.warmup());
+
+        assertThat(warmup.items).containsExactly(3);
+        assertThat(pool.getMetrics().getIdleSize()).isEqualTo(3);
+        assertThat(pool.getMetrics().getAllocatedSize()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldCloseIdleConnectionsOnClose() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).build());
+
+        Connection acquired = acquire(pool);
+        CollectingSubscriber.subscribe(acquire(pool).close());
+
+        assertThat(CollectingSubscriber.subscribe(pool.close()).completed).isTrue();
+        assertThat(this.factory.created.get(1).closed).isTrue();
+        assertThat(this.factory.created.get(0).closed).isFalse();
+
+        CollectingSubscriber.subscribe(acquired.close());
+
+        assertThat(this.factory.created.get(0).closed).isTrue();
+        assertThat(pool.getMetrics().getAllocatedSize()).isEqualTo(0);
+        assertThat(CollectingSubscriber.subscribe(pool.create()).error).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldRejectPendingAcquisitionsOnClose() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).maxSize(1).build());
+
+        acquire(pool);
+        CollectingSubscriber<Connection> pending = CollectingSubscriber.subscribe(pool.create());
+
+        CollectingSubscriber.subscribe(pool.close());
+
+        assertThat(pending.error).isInstanceOf(IllegalStateException.class);
+        assertThat(pool.getMetrics().getPendingAcquireSize()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldRecordStatistics() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).build());
+
+        Connection connection = acquire(pool);
+        ConnectionFactoryStatistics statistics = pool.getMetadata().getStatistics();
+
+        assertThat(statistics).isNotNull();
+        assertThat(statistics.snapshot().getActiveConnections()).isEqualTo(1L);
+        assertThat(statistics.snapshot().getAcquireTime().getCount()).isEqualTo(1L);
+
+        CollectingSubscriber.subscribe(connection.close());
+
+        ConnectionFactoryStatistics.Snapshot snapshot = statistics.snapshot();
+        assertThat(snapshot.getActiveConnections()).isEqualTo(0L);
+        assertThat(snapshot.getIdleConnections()).isEqualTo(1L);
+        assertThat(snapshot.getHoldTime().getCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldRecordIdleTimeWithinTransaction() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).build());
+        Connection connection = acquire(pool);
+
+        consume(connection.createStatement("SELECT 1").execute());
+        CollectingSubscriber.subscribe(connection.beginTransaction());
+        consume(connection.createStatement("UPDATE person").execute());
+        consume(connection.createBatch().add("UPDATE person").execute());
+        CollectingSubscriber.subscribe(connection.commitTransaction());
+        consume(connection.createStatement("SELECT 2").execute());
+
+        assertThat(pool.getMetadata().getStatistics().snapshot().getIdleInTransactionTime().getCount()).isEqualTo(3L);
+        assertThat(this.factory.created.get(0).executed).hasSize(4);
+    }
+
+    @Test
+    void shouldTrackActivityUntilResultIsConsumed() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).build());
+        Connection connection = acquire(pool);
+
+        CollectingSubscriber.subscribe(connection.beginTransaction());
+        List<? extends Result> results = CollectingSubscriber.subscribe(connection.createStatement("UPDATE person").execute()).items;
+        CollectingSubscriber.subscribe(connection.createStatement("UPDATE person").execute());
+
+        assertThat(pool.getMetadata().getStatistics().snapshot().getIdleInTransactionTime().getCount()).isEqualTo(1L);
+
+        consume(results);
+        consume(connection.createStatement("UPDATE person").execute());
+
+        assertThat(pool.getMetadata().getStatistics().snapshot().getIdleInTransactionTime().getCount()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldReportSampledLeaks() throws InterruptedException {
+
+        List<IllegalStateException> leaks = new CopyOnWriteArrayList<>();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).leakDetection(Duration.ofMillis(10), leaks::add).leakDetectionSampleRate(1).build());
+
+        CollectingSubscriber.subscribe(acquire(pool).close());
+        acquire(pool);
+
+        for (int i = 0; i < 500 && leaks.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(leaks).hasSize(1);
+        assertThat(leaks.get(0).getStackTrace()[0].getClassName()).isEqualTo(ConnectionPool.Borrower.class.getName());
+
+        CollectingSubscriber.subscribe(pool.close());
+    }
+
+    @Test
+    void shouldNotSampleLeaksWithZeroSampleRate() throws InterruptedException {
+
+        List<IllegalStateException> leaks = new CopyOnWriteArrayList<>();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.factory).leakDetection(Duration.ofMillis(1), leaks::add).leakDetectionSampleRate(0).build());
+
+        acquire(pool);
+        Thread.sleep(50);
+
+        assertThat(leaks).isEmpty();
+
+        CollectingSubscriber.subscribe(pool.close());
+    }
+
+    private static void consume(Publisher<? extends Result> results) {
+        consume(CollectingSubscriber.subscribe(results).items);
+    }
+
+    private static void consume(List<? extends Result> results) {
+
+        for (Result result : results) {
+            CollectingSubscriber.subscribe(result.getRowsUpdated());
+        }
+    }
+
+    private static Connection acquire(ConnectionPool pool) {
+
+        CollectingSubscriber<Connection> subscriber = CollectingSubscriber.subscribe(pool.create());
+
+        assertThat(subscriber.items).hasSize(1);
+        return subscriber.items.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Connection unwrap(Connection connection) {
+        return ((Wrapped<Connection>) connection).unwrap();
+    }
+
+}
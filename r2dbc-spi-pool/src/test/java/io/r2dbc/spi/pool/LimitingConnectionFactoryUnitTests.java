@@ -0,0 +1,179 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link LimitingConnectionFactory}.
+ */
+final class LimitingConnectionFactoryUnitTests {
+
+    PendingConnectionFactory pending = new PendingConnectionFactory();
+
+    LimitingConnectionFactory connectionFactory = LimitingConnectionFactory.builder(this.pending).initialLimit(2).maxQueueSize(1).build();
+
+    @Test
+    void shouldQueueAndRejectBeyondLimit() {
+
+        CollectingSubscriber.subscribe(this.connectionFactory.create());
+        CollectingSubscriber.subscribe(this.connectionFactory.create());
+        CollectingSubscriber<Connection> queued = CollectingSubscriber.subscribe(this.connectionFactory.create());
+        CollectingSubscriber<Connection> rejected = CollectingSubscriber.subscribe(this.connectionFactory.create());
+
+        LimiterMetrics metrics = this.connectionFactory.getConnectionMetrics();
+
+        assertThat(this.pending.subscribers).hasSize(2);
+        assertThat(rejected.error).isInstanceOf(R2dbcTransientResourceException.class);
+        assertThat(metrics.getInFlightSize()).isEqualTo(2);
+        assertThat(metrics.getQueuedSize()).isEqualTo(1);
+        assertThat(metrics.getRejectedCount()).isEqualTo(1);
+
+        this.pending.complete(0);
+
+        assertThat(this.pending.subscribers).hasSize(3);
+        assertThat(metrics.getInFlightSize()).isEqualTo(2);
+        assertThat(metrics.getQueuedSize()).isEqualTo(0);
+
+        this.pending.complete(2);
+
+        assertThat(queued.items).hasSize(1);
+        assertThat(queued.completed).isTrue();
+    }
+
+    @Test
+    void shouldReleasePermitOnCancel() {
+
+        CollectingSubscriber<Connection> inFlight = CollectingSubscriber.subscribe(this.connectionFactory.create());
+        CollectingSubscriber.subscribe(this.connectionFactory.create());
+        CollectingSubscriber<Connection> queued = CollectingSubscriber.subscribe(this.connectionFactory.create());
+
+        LimiterMetrics metrics = this.connectionFactory.getConnectionMetrics();
+
+        queued.subscription.cancel();
+
+        assertThat(metrics.getQueuedSize()).isEqualTo(0);
+
+        inFlight.subscription.cancel();
+
+        assertThat(metrics.getInFlightSize()).isEqualTo(1);
+        assertThat(this.pending.subscribers).hasSize(2);
+    }
+
+    @Test
+    void shouldLimitStatementExecution() {
+
+        TestConnectionFactory factory = new TestConnectionFactory();
+        LimitingConnectionFactory connectionFactory = LimitingConnectionFactory.builder(factory).initialLimit(1).maxQueueSize(0).build();
+
+        Connection connection = CollectingSubscriber.subscribe(connectionFactory.create()).items.get(0);
+        CollectingSubscriber<Object> execution = new CollectingSubscriber<>();
+        connection.createStatement("SELECT 1").execute().subscribe(execution);
+
+        assertThat(execution.completed).isTrue();
+        assertThat(factory.created.get(0).executed).containsExactly("SELECT 1");
+        assertThat(connectionFactory.getStatementMetrics().getInFlightSize()).isEqualTo(0);
+        assertThat(connectionFactory.getConnectionMetrics().getInFlightSize()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldAdaptLimitForSingleValueConsumers() {
+
+        TestConnectionFactory factory = new TestConnectionFactory();
+        LimitingConnectionFactory connectionFactory = LimitingConnectionFactory.builder(factory).initialLimit(1).maxQueueSize(0).build();
+
+        for (int i = 0; i < 20; i++) {
+            Mono.from(connectionFactory.create()).block();
+        }
+
+        assertThat(connectionFactory.getConnectionMetrics().getLimit()).isGreaterThan(1);
+        assertThat(connectionFactory.getConnectionMetrics().getInFlightSize()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldIgnoreInvalidDemandAfterCancel() {
+
+        CollectingSubscriber<Connection> subscriber = CollectingSubscriber.subscribe(this.connectionFactory.create());
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+
+        assertThatThrownBy(() -> LimitingConnectionFactory.builder(this.pending).maxQueueSize(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LimitingConnectionFactory.builder(this.pending).initialLimit(10).maxLimit(5).build()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * {@link ConnectionFactory} whose connections are emitted on demand of the test.
+     */
+    static final class PendingConnectionFactory implements ConnectionFactory {
+
+        final List<Subscriber<? super Connection>> subscribers = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Publisher<Connection> create() {
+            return subscriber -> {
+
+                subscriber.onSubscribe(new Subscription() {
+
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+
+                this.subscribers.add(subscriber);
+            };
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return () -> "test";
+        }
+
+        void complete(int index) {
+
+            Subscriber<? super Connection> subscriber = this.subscribers.get(index);
+            subscriber.onNext(new TestConnection());
+            subscriber.onComplete();
+        }
+
+    }
+
+}
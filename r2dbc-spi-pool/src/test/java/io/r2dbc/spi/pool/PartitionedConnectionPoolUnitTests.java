@@ -0,0 +1,266 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link PartitionedConnectionPool}.
+ */
+final class PartitionedConnectionPoolUnitTests {
+
+    TestConnectionFactory factory = new TestConnectionFactory();
+
+    @Test
+    void shouldReserveMinimumSizePerPartition() {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).maxSize(3).partition("a", 1, 1).partition("b", 1, 1).build();
+
+        acquire(pool, "a");
+        acquire(pool, "a");
+        CollectingSubscriber<Connection> pending = CollectingSubscriber.subscribe(pool.create("a"));
+
+        assertThat(pending.items).isEmpty();
+        assertThat(pool.getOverflowSize()).isEqualTo(1);
+        assertThat(pool.getMetrics("a").getOverflowSize()).isEqualTo(1);
+
+        acquire(pool, "b");
+
+        assertThat(pool.getMetrics("b").getAcquiredSize()).isEqualTo(1);
+        assertThat(pool.getMetrics("b").getOverflowSize()).isEqualTo(0);
+        assertThat(this.factory.created).hasSize(3);
+    }
+
+    @Test
+    void shouldServeOverflowByWeight() {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).maxSize(3).partition("a", 0, 2).partition("b", 0, 1).build();
+
+        List<Connection> held = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            held.add(acquire(pool, "c"));
+        }
+
+        CollectingSubscriber<Connection> a = new CollectingSubscriber<>();
+        CollectingSubscriber<Connection> b = new CollectingSubscriber<>();
+
+        for (int i = 0; i < 3; i++) {
+            pool.create("a").subscribe(a);
+            pool.create("b").subscribe(b);
+        }
+
+        assertThat(a.items).isEmpty();
+        assertThat(b.items).isEmpty();
+
+        for (Connection connection : held) {
+            CollectingSubscriber.subscribe(connection.close());
+        }
+
+        assertThat(a.items).hasSize(2);
+        assertThat(b.items).hasSize(1);
+        assertThat(pool.getMetrics("c").getAllocatedSize()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldReclaimIdleOverflowConnection() {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).maxSize(1).build();
+
+        CollectingSubscriber.subscribe(acquire(pool, "a").close());
+
+        assertThat(pool.getMetrics("a").getIdleSize()).isEqualTo(1);
+
+        acquire(pool, "b");
+
+        assertThat(this.factory.created.get(0).closed).isTrue();
+        assertThat(pool.getMetrics("a").getAllocatedSize()).isEqualTo(0);
+        assertThat(pool.getMetrics("b").getOverflowSize()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTimeOutOverflowWait() throws InterruptedException {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).maxSize(1).pool(it -> it.maxAcquireTime(Duration.ofMillis(10))).build();
+
+        Connection connection = acquire(pool, "a");
+        CollectingSubscriber<Connection> pending = CollectingSubscriber.subscribe(pool.create("b"));
+
+        for (int i = 0; i < 500 && pending.error == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(pending.error).isInstanceOf(R2dbcTimeoutException.class);
+        assertThat(pool.getMetrics("b").getAllocatedSize()).isEqualTo(0);
+
+        CollectingSubscriber.subscribe(connection.close());
+
+        assertThat(pool.getMetrics("a").getIdleSize()).isEqualTo(1);
+        assertThat(pool.getMetrics("b").getOverflowSize()).isEqualTo(0);
+        assertThat(this.factory.created).hasSize(1);
+    }
+
+    @Test
+    void shouldReleaseOverflowOfTimedOutCreation() throws InterruptedException {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).maxSize(1).pool(it -> it.maxAcquireTime(Duration.ofMillis(10))).build();
+
+        this.factory.defer = true;
+        CollectingSubscriber<Connection> pending = CollectingSubscriber.subscribe(pool.create("a"));
+
+        for (int i = 0; i < 500 && pending.error == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(pending.error).isInstanceOf(R2dbcTimeoutException.class);
+        assertThat(this.factory.cancelled).hasValue(1);
+        assertThat(pool.getOverflowSize()).isEqualTo(0);
+
+        this.factory.defer = false;
+        acquire(pool, "b");
+    }
+
+    @Test
+    void shouldReleaseOverflowIfCreationCompletesEmpty() {
+
+        ConnectionFactory empty = new ConnectionFactory() {
+
+            @Override
+            public Publisher<Connection> create() {
+                return TestConnection.empty();
+            }
+
+            @Override
+            public ConnectionFactoryMetadata getMetadata() {
+                return () -> "test";
+            }
+        };
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(empty).maxSize(1).build();
+
+        CollectingSubscriber<Connection> subscriber = CollectingSubscriber.subscribe(pool.create("a"));
+
+        assertThat(subscriber.error).isInstanceOf(NoSuchElementException.class);
+        assertThat(pool.getOverflowSize()).isEqualTo(0);
+        assertThat(pool.getMetrics("a").getAllocatedSize()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldRecordAcquireTime() throws InterruptedException {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).maxSize(1).build();
+
+        Connection connection = acquire(pool, "a");
+        CollectingSubscriber<Connection> pending = CollectingSubscriber.subscribe(pool.create("a"));
+
+        Thread.sleep(20);
+        CollectingSubscriber.subscribe(connection.close());
+
+        PartitionMetrics metrics = pool.getMetrics("a");
+
+        assertThat(pending.items).hasSize(1);
+        assertThat(metrics.getAcquireCount()).isEqualTo(2);
+        assertThat(metrics.getMaxAcquireTime().toMillis()).isGreaterThanOrEqualTo(20L);
+        assertThat(metrics.getTotalAcquireTime().toMillis()).isGreaterThanOrEqualTo(20L);
+    }
+
+    @Test
+    void shouldInvokeLifecycleCallbacks() {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).build();
+
+        CollectingSubscriber.subscribe(acquire(pool, "a").close());
+        CollectingSubscriber.subscribe(acquire(pool, "a").close());
+
+        TestConnection connection = this.factory.created.get(0);
+        assertThat(connection.postAllocate.get()).isEqualTo(2);
+        assertThat(connection.preRelease.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldResolvePartitionFromSubscriber() {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).partitionResolver(subscriber -> subscriber instanceof CollectingSubscriber ? "a" : null).build();
+
+        CollectingSubscriber.subscribe(pool.create());
+
+        assertThat(pool.getPartitions()).containsOnly("a");
+        assertThat(pool.getMetrics("a").getAcquiredSize()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldClosePartitionPools() {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).build();
+
+        CollectingSubscriber.subscribe(acquire(pool, "a").close());
+        CollectingSubscriber.subscribe(acquire(pool, "b").close());
+
+        assertThat(CollectingSubscriber.subscribe(pool.close()).completed).isTrue();
+        assertThat(this.factory.created.get(0).closed).isTrue();
+        assertThat(this.factory.created.get(1).closed).isTrue();
+        assertThat(pool.getOverflowSize()).isEqualTo(0);
+        assertThat(CollectingSubscriber.subscribe(pool.create("a")).error).isInstanceOf(IllegalStateException.class);
+        assertThat(CollectingSubscriber.subscribe(pool.create("c")).error).isInstanceOf(IllegalStateException.class);
+        assertThat(pool.getPartitions()).containsOnly("a", "b");
+    }
+
+    @Test
+    void shouldRejectPartitionsBeyondMaxPartitions() {
+
+        PartitionedConnectionPool pool = PartitionedConnectionPool.builder(this.factory).maxPartitions(2).partition("a", 0, 1).build();
+
+        acquire(pool, "b");
+        CollectingSubscriber<Connection> rejected = CollectingSubscriber.subscribe(pool.create("c"));
+
+        assertThat(rejected.error).isInstanceOf(IllegalStateException.class);
+        assertThat(pool.getPartitions()).containsOnly("a", "b");
+
+        acquire(pool, "a");
+    }
+
+    @Test
+    void shouldRejectMinimumSizesExceedingMaxSize() {
+        assertThatThrownBy(() -> PartitionedConnectionPool.builder(this.factory).maxSize(2).partition("a", 2, 1).partition("b", 1, 1).build()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectMorePartitionsThanMaxPartitions() {
+        assertThatThrownBy(() -> PartitionedConnectionPool.builder(this.factory).maxPartitions(1).partition("a", 0, 1).partition("b", 0, 1).build()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Connection acquire(PartitionedConnectionPool pool, String partition) {
+
+        CollectingSubscriber<Connection> subscriber = CollectingSubscriber.subscribe(pool.create(partition));
+
+        assertThat(subscriber.items).hasSize(1);
+        return subscriber.items.get(0);
+    }
+
+}
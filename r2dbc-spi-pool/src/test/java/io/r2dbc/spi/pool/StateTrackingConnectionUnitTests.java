@@ -0,0 +1,124 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Wrapped;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link StateTrackingConnection}.
+ */
+final class StateTrackingConnectionUnitTests {
+
+    TestConnection delegate = new TestConnection();
+
+    @Test
+    void shouldSkipChangeToValueInPlace() {
+
+        StateTrackingConnection connection = StateTrackingConnection.wrap(this.delegate);
+
+        assertThat(CollectingSubscriber.subscribe(connection.setAutoCommit(true)).completed).isTrue();
+        assertThat(CollectingSubscriber.subscribe(connection.setTransactionIsolationLevel(IsolationLevel.READ_COMMITTED)).completed).isTrue();
+
+        assertThat(this.delegate.setAutoCommit).hasValue(0);
+        assertThat(this.delegate.setTransactionIsolationLevel).hasValue(0);
+        assertThat(connection.isDirty()).isFalse();
+    }
+
+    @Test
+    void shouldApplyChangedValue() {
+
+        StateTrackingConnection connection = StateTrackingConnection.wrap(this.delegate);
+
+        CollectingSubscriber.subscribe(connection.setAutoCommit(false));
+        CollectingSubscriber.subscribe(connection.setAutoCommit(false));
+
+        assertThat(this.delegate.setAutoCommit).hasValue(1);
+        assertThat(connection.getState().getAutoCommit()).isFalse();
+        assertThat(connection.isDirty()).isTrue();
+    }
+
+    @Test
+    void shouldTrackValuesUnknownToDelegate() {
+
+        StateTrackingConnection connection = StateTrackingConnection.wrap(this.delegate);
+
+        CollectingSubscriber.subscribe(connection.setStatementTimeout(Duration.ofSeconds(1)));
+        CollectingSubscriber.subscribe(connection.setStatementTimeout(Duration.ofSeconds(1)));
+
+        assertThat(this.delegate.setStatementTimeout).hasValue(1);
+        assertThat(connection.getState().getStatementTimeout()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void shouldResetOnlyDirtyAttributesOnRelease() {
+
+        StateTrackingConnection connection = StateTrackingConnection.wrap(this.delegate);
+        CollectingSubscriber.subscribe(connection.postAllocate());
+
+        CollectingSubscriber.subscribe(connection.setTransactionIsolationLevel(IsolationLevel.SERIALIZABLE));
+
+        assertThat(CollectingSubscriber.subscribe(connection.preRelease()).completed).isTrue();
+
+        assertThat(this.delegate.isolationLevel).isEqualTo(IsolationLevel.READ_COMMITTED);
+        assertThat(this.delegate.setTransactionIsolationLevel).hasValue(2);
+        assertThat(this.delegate.setAutoCommit).hasValue(0);
+        assertThat(this.delegate.postAllocate).hasValue(1);
+        assertThat(this.delegate.preRelease).hasValue(1);
+        assertThat(connection.isDirty()).isFalse();
+    }
+
+    @Test
+    void shouldNotDoubleWrap() {
+
+        StateTrackingConnection connection = StateTrackingConnection.wrap(this.delegate);
+
+        assertThat(StateTrackingConnection.wrap(connection)).isSameAs(connection);
+        assertThat(connection.unwrap()).isSameAs(this.delegate);
+        assertThatThrownBy(() -> StateTrackingConnection.wrap(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldTrackStateOfPooledConnections() {
+
+        TestConnectionFactory factory = new TestConnectionFactory();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(factory).trackState(true).build());
+
+        CollectingSubscriber<Connection> acquired = CollectingSubscriber.subscribe(pool.create());
+        Connection connection = acquired.items.get(0);
+
+        CollectingSubscriber.subscribe(connection.setAutoCommit(true));
+        CollectingSubscriber.subscribe(connection.setAutoCommit(false));
+        CollectingSubscriber.subscribe(connection.close());
+
+        TestConnection created = factory.created.get(0);
+
+        assertThat(((Wrapped<Connection>) connection).unwrap()).isInstanceOf(StateTrackingConnection.class);
+        assertThat(created.setAutoCommit).hasValue(2);
+        assertThat(created.autoCommit).isTrue();
+        assertThat(created.preRelease).hasValue(1);
+    }
+
+}
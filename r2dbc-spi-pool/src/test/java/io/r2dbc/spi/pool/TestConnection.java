@@ -0,0 +1,224 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.ConnectionStatistics;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Lifecycle;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Connection} test fixture recording {@link Lifecycle} callbacks, session state changes, validations, executed SQL and {@link #close()} calls.
+ */
+final class TestConnection implements Connection, ConnectionStatistics, Lifecycle {
+
+    final AtomicInteger postAllocate = new AtomicInteger();
+
+    final AtomicInteger preRelease = new AtomicInteger();
+
+    final AtomicInteger validate = new AtomicInteger();
+
+    final AtomicInteger setAutoCommit = new AtomicInteger();
+
+    final AtomicInteger setTransactionIsolationLevel = new AtomicInteger();
+
+    final AtomicInteger setStatementTimeout = new AtomicInteger();
+
+    volatile boolean autoCommit = true;
+
+    volatile IsolationLevel isolationLevel = IsolationLevel.READ_COMMITTED;
+
+    final List<String> executed = new CopyOnWriteArrayList<>();
+
+    volatile boolean valid = true;
+
+    volatile ValidationDepth validationDepth;
+
+    volatile Instant lastSuccessfulIo;
+
+    volatile boolean closed;
+
+    static <T> Publisher<T> just(T value) {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+
+            boolean done;
+
+            @Override
+            public void request(long n) {
+                if (!this.done) {
+                    this.done = true;
+                    subscriber.onNext(value);
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                this.done = true;
+            }
+        });
+    }
+
+    static <T> Publisher<T> empty() {
+        return empty(() -> {
+        });
+    }
+
+    static <T> Publisher<T> empty(Runnable onSubscribe) {
+        return subscriber -> {
+            subscriber.onSubscribe(new Subscription() {
+
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            onSubscribe.run();
+            subscriber.onComplete();
+        };
+    }
+
+    @Override
+    public Publisher<Void> postAllocate() {
+        return empty(this.postAllocate::incrementAndGet);
+    }
+
+    @Override
+    public Publisher<Void> preRelease() {
+        return empty(this.preRelease::incrementAndGet);
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction() {
+        return empty();
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+        return empty();
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return empty(() -> this.closed = true);
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+        return empty();
+    }
+
+    @Override
+    public Batch createBatch() {
+        return new TestStatement(this.executed);
+    }
+
+    @Override
+    public Publisher<Void> createSavepoint(String name) {
+        return empty();
+    }
+
+    @Override
+    public Statement createStatement(String sql) {
+        return new TestStatement(this.executed, sql);
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return this.autoCommit;
+    }
+
+    @Override
+    public Instant getLastSuccessfulIo() {
+        return this.lastSuccessfulIo;
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return this.isolationLevel;
+    }
+
+    @Override
+    public Publisher<Void> releaseSavepoint(String name) {
+        return empty();
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+        return empty();
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+        return empty();
+    }
+
+    @Override
+    public Publisher<Void> setAutoCommit(boolean autoCommit) {
+        return empty(() -> {
+            this.setAutoCommit.incrementAndGet();
+            this.autoCommit = autoCommit;
+        });
+    }
+
+    @Override
+    public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+        return empty();
+    }
+
+    @Override
+    public Publisher<Void> setStatementTimeout(Duration timeout) {
+        return empty(this.setStatementTimeout::incrementAndGet);
+    }
+
+    @Override
+    public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        return empty(() -> {
+            this.setTransactionIsolationLevel.incrementAndGet();
+            this.isolationLevel = isolationLevel;
+        });
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+        this.validate.incrementAndGet();
+        this.validationDepth = depth;
+        return just(this.valid);
+    }
+
+}
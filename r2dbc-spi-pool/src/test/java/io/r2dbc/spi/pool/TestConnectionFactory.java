@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ConnectionFactory} test fixture creating {@link TestConnection}s.
+ */
+final class TestConnectionFactory implements ConnectionFactory {
+
+    final List<TestConnection> created = new CopyOnWriteArrayList<>();
+
+    final List<Subscriber<? super Connection>> deferred = new CopyOnWriteArrayList<>();
+
+    final AtomicInteger cancelled = new AtomicInteger();
+
+    /**
+     * Whether {@link #create()} never emits a connection.  Deferred subscribers are tracked until they cancel.
+     */
+    volatile boolean defer;
+
+    @Override
+    public Publisher<Connection> create() {
+        return subscriber -> {
+
+            if (this.defer) {
+
+                this.deferred.add(subscriber);
+                subscriber.onSubscribe(new Subscription() {
+
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                        if (TestConnectionFactory.this.deferred.remove(subscriber)) {
+                            TestConnectionFactory.this.cancelled.incrementAndGet();
+                        }
+                    }
+                });
+                return;
+            }
+
+            TestConnection connection = new TestConnection();
+            this.created.add(connection);
+            TestConnection.<Connection>just(connection).subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return () -> "test";
+    }
+
+}
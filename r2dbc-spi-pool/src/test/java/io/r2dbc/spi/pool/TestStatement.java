@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@link Statement} and {@link Batch} test fixture recording executed SQL and emitting one empty {@link Result} per SQL command.
+ */
+final class TestStatement implements Statement, Batch {
+
+    private final List<String> executed;
+
+    private final List<String> sql = new ArrayList<>();
+
+    TestStatement(List<String> executed) {
+        this.executed = executed;
+    }
+
+    TestStatement(List<String> executed, String sql) {
+        this(executed);
+        this.sql.add(sql);
+    }
+
+    @Override
+    public TestStatement add(String sql) {
+        this.sql.add(sql);
+        return this;
+    }
+
+    @Override
+    public TestStatement add() {
+        return this;
+    }
+
+    @Override
+    public TestStatement bind(int index, Object value) {
+        return this;
+    }
+
+    @Override
+    public TestStatement bind(String name, Object value) {
+        return this;
+    }
+
+    @Override
+    public TestStatement bindNull(int index, Class<?> type) {
+        return this;
+    }
+
+    @Override
+    public TestStatement bindNull(String name, Class<?> type) {
+        return this;
+    }
+
+    @Override
+    public Publisher<Result> execute() {
+        return subscriber -> {
+
+            Iterator<String> iterator = new ArrayList<>(this.sql).iterator();
+
+            subscriber.onSubscribe(new Subscription() {
+
+                boolean done;
+
+                @Override
+                public void request(long n) {
+
+                    for (long i = 0; i < n && !this.done; i++) {
+
+                        if (!iterator.hasNext()) {
+                            this.done = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+
+                        TestStatement.this.executed.add(iterator.next());
+                        subscriber.onNext(EmptyResult.INSTANCE);
+                    }
+
+                    if (!this.done && !iterator.hasNext()) {
+                        this.done = true;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    this.done = true;
+                }
+            });
+        };
+    }
+
+    enum EmptyResult implements Result {
+
+        INSTANCE;
+
+        @Override
+        public Publisher<Long> getRowsUpdated() {
+            return TestConnection.just(0L);
+        }
+
+        @Override
+        public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+            return TestConnection.empty();
+        }
+
+        @Override
+        public Result filter(Predicate<Segment> filter) {
+            return this;
+        }
+
+        @Override
+        public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+            return map((row, metadata) -> null);
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.pool;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link WarmupPlan}.
+ */
+final class WarmupPlanUnitTests {
+
+    TestConnectionFactory factory = new TestConnectionFactory();
+
+    List<WarmupPlan.Report> reports = new CopyOnWriteArrayList<>();
+
+    WarmupPlan plan = WarmupPlan.builder()
+        .sessionSetup("SET a = 1")
+        .sessionSetup("SET b = 2")
+        .statement("SELECT 1")
+        .statement("SELECT ?", statement -> statement.bind(0, 1))
+        .onReport(this.reports::add)
+        .build();
+
+    @Test
+    void shouldExecutePlan() {
+
+        TestConnection connection = new TestConnection();
+
+        CollectingSubscriber<WarmupPlan.Report> report = CollectingSubscriber.subscribe(this.plan.execute(connection));
+
+        assertThat(connection.executed).containsExactly("SET a = 1", "SET b = 2", "SELECT 1", "SELECT ?");
+        assertThat(report.items).hasSize(1);
+        assertThat(report.items.get(0).getConnection()).isSameAs(connection);
+        assertThat(report.items.get(0).getSessionSetupCount()).isEqualTo(2);
+        assertThat(report.items.get(0).getStatementCount()).isEqualTo(2);
+        assertThat(this.reports).containsExactly(report.items.get(0));
+    }
+
+    @Test
+    void shouldWarmUpOnFirstAllocationOnly() {
+
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(this.plan.apply(this.factory)).build());
+
+        CollectingSubscriber.subscribe(acquire(pool).close());
+        CollectingSubscriber.subscribe(acquire(pool).close());
+
+        TestConnection connection = this.factory.created.get(0);
+
+        assertThat(connection.executed).hasSize(4);
+        assertThat(connection.postAllocate).hasValue(2);
+        assertThat(this.reports).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldUnwrapConnectionFactory() {
+
+        ConnectionFactory connectionFactory = this.plan.apply(this.factory);
+
+        assertThat(((Wrapped<ConnectionFactory>) connectionFactory).unwrap()).isSameAs(this.factory);
+    }
+
+    private static Connection acquire(ConnectionPool pool) {
+
+        CollectingSubscriber<Connection> subscriber = CollectingSubscriber.subscribe(pool.create());
+
+        assertThat(subscriber.items).hasSize(1);
+        return subscriber.items.get(0);
+    }
+
+}
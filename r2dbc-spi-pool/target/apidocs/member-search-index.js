@@ -0,0 +1 @@
+memberSearchIndex = [{"p":"io.r2dbc.spi.pool","c":"WarmupPlan","l":"apply(ConnectionFactory)","u":"apply(io.r2dbc.spi.ConnectionFactory)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"beginTransaction()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"beginTransaction(TransactionDefinition)","u":"beginTransaction(io.r2dbc.spi.TransactionDefinition)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"build()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory.Builder","l":"build()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"build()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Builder","l":"build()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan","l":"builder()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"builder(ConnectionFactory)","u":"builder(io.r2dbc.spi.ConnectionFactory)"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"builder(ConnectionFactory)","u":"builder(io.r2dbc.spi.ConnectionFactory)"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"builder(ConnectionFactory)","u":"builder(io.r2dbc.spi.ConnectionFactory)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"close()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"close()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"close()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"commitTransaction()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"ConnectionPool(ConnectionPoolConfiguration)","u":"%3Cinit%3E(io.r2dbc.spi.pool.ConnectionPoolConfiguration)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"create()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"create()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"create()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"create(String)","u":"create(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"createBatch()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"createSavepoint(String)","u":"createSavepoint(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"createStatement(String)","u":"createStatement(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"DEFAULT_INITIAL_LIMIT"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"DEFAULT_LEAK_DETECTION_SAMPLE_RATE"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"DEFAULT_MAX_IDLE_TIME"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"DEFAULT_MAX_LIMIT"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"DEFAULT_MAX_PARTITIONS"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"DEFAULT_MAX_QUEUE_SIZE"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"DEFAULT_MAX_SIZE"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"DEFAULT_MIN_LIMIT"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"DEFAULT_PARTITION"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"defaultWeight(int)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"evictionInterval(Duration)","u":"evictionInterval(java.time.Duration)"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan","l":"execute(Connection)","u":"execute(io.r2dbc.spi.Connection)"},{"p":"io.r2dbc.spi.pool","c":"PartitionMetrics","l":"getAcquireCount()"},{"p":"io.r2dbc.spi.pool","c":"PoolMetrics","l":"getAcquiredSize()"},{"p":"io.r2dbc.spi.pool","c":"PoolMetrics","l":"getAllocatedSize()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"getBaseline()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"getConfiguration()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Report","l":"getConnection()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getConnectionFactory()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"getConnectionMetrics()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Report","l":"getDuration()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getEvictionInterval()"},{"p":"io.r2dbc.spi.pool","c":"PoolMetrics","l":"getIdleSize()"},{"p":"io.r2dbc.spi.pool","c":"LimiterMetrics","l":"getInFlightSize()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getLeakDetectionSampleRate()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getLeakDetectionThreshold()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getLeakHandler()"},{"p":"io.r2dbc.spi.pool","c":"LimiterMetrics","l":"getLimit()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getMaxAcquireTime()"},{"p":"io.r2dbc.spi.pool","c":"PartitionMetrics","l":"getMaxAcquireTime()"},{"p":"io.r2dbc.spi.pool","c":"PoolMetrics","l":"getMaxAllocatedSize()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getMaxIdleTime()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getMaxLifeTime()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getMaxSize()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"getMetadata()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"getMetadata()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"getMetadata()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"getMetadata()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"getMetrics()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"getMetrics(String)","u":"getMetrics(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getMinIdle()"},{"p":"io.r2dbc.spi.pool","c":"PartitionMetrics","l":"getMinSize()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getName()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"getOverflowSize()"},{"p":"io.r2dbc.spi.pool","c":"PartitionMetrics","l":"getOverflowSize()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"getPartitions()"},{"p":"io.r2dbc.spi.pool","c":"PoolMetrics","l":"getPendingAcquireSize()"},{"p":"io.r2dbc.spi.pool","c":"LimiterMetrics","l":"getQueuedSize()"},{"p":"io.r2dbc.spi.pool","c":"LimiterMetrics","l":"getRejectedCount()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getScheduler()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Report","l":"getSessionSetupCount()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"getState()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Report","l":"getStatementCount()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"getStatementMetrics()"},{"p":"io.r2dbc.spi.pool","c":"PartitionMetrics","l":"getTotalAcquireTime()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"getTransactionIsolationLevel()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getValidationDepth()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"getValidationWindow()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory.Builder","l":"initialLimit(int)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"isAutoCommit()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"isDirty()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"isDisposed()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"isTrackState()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"leakDetection(Duration, Consumer<? super IllegalStateException>)","u":"leakDetection(java.time.Duration,java.util.function.Consumer)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"leakDetectionSampleRate(double)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"maxAcquireTime(Duration)","u":"maxAcquireTime(java.time.Duration)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"maxIdleTime(Duration)","u":"maxIdleTime(java.time.Duration)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"maxLifeTime(Duration)","u":"maxLifeTime(java.time.Duration)"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory.Builder","l":"maxLimit(int)"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"maxPartitions(int)"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory.Builder","l":"maxQueueSize(int)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"maxSize(int)"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"maxSize(int)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"minIdle(int)"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory.Builder","l":"minLimit(int)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"name(String)","u":"name(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"name(String)","u":"name(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Builder","l":"onReport(Consumer<WarmupPlan.Report>)","u":"onReport(java.util.function.Consumer)"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"partition(String, int, int)","u":"partition(java.lang.String,int,int)"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"partitionResolver(Function<? super Subscriber<?>, String>)","u":"partitionResolver(java.util.function.Function)"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"pool(Consumer<ConnectionPoolConfiguration.Builder>)","u":"pool(java.util.function.Consumer)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"postAllocate()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"preRelease()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"releaseSavepoint(String)","u":"releaseSavepoint(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"rollbackTransaction()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"rollbackTransactionToSavepoint(String)","u":"rollbackTransactionToSavepoint(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"scheduler(ScheduledExecutorService)","u":"scheduler(java.util.concurrent.ScheduledExecutorService)"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Builder","l":"sessionSetup(String)","u":"sessionSetup(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"setAutoCommit(boolean)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"setLockWaitTimeout(Duration)","u":"setLockWaitTimeout(java.time.Duration)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"setStatementTimeout(Duration)","u":"setStatementTimeout(java.time.Duration)"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"setTransactionIsolationLevel(IsolationLevel)","u":"setTransactionIsolationLevel(io.r2dbc.spi.IsolationLevel)"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Builder","l":"statement(String)","u":"statement(java.lang.String)"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Builder","l":"statement(String, Consumer<Statement>)","u":"statement(java.lang.String,java.util.function.Consumer)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory.Builder","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool.Builder","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Builder","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan.Report","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"WarmupPlan","l":"toString()"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"trackState(boolean)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"unwrap()"},{"p":"io.r2dbc.spi.pool","c":"LimitingConnectionFactory","l":"unwrap()"},{"p":"io.r2dbc.spi.pool","c":"PartitionedConnectionPool","l":"unwrap()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"unwrap()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"validate(ValidationDepth)","u":"validate(io.r2dbc.spi.ValidationDepth)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"validationDepth(ValidationDepth)","u":"validationDepth(io.r2dbc.spi.ValidationDepth)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPoolConfiguration.Builder","l":"validationWindow(Duration)","u":"validationWindow(java.time.Duration)"},{"p":"io.r2dbc.spi.pool","c":"ConnectionPool","l":"warmup()"},{"p":"io.r2dbc.spi.pool","c":"StateTrackingConnection","l":"wrap(Connection)","u":"wrap(io.r2dbc.spi.Connection)"}];updateSearchResults();
\ No newline at end of file
@@ -0,0 +1 @@
+typeSearchIndex = [{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"io.r2dbc.spi.pool","l":"ConnectionPoolConfiguration.Builder"},{"p":"io.r2dbc.spi.pool","l":"LimitingConnectionFactory.Builder"},{"p":"io.r2dbc.spi.pool","l":"PartitionedConnectionPool.Builder"},{"p":"io.r2dbc.spi.pool","l":"WarmupPlan.Builder"},{"p":"io.r2dbc.spi.pool","l":"ConnectionPool"},{"p":"io.r2dbc.spi.pool","l":"ConnectionPoolConfiguration"},{"p":"io.r2dbc.spi.pool","l":"LimiterMetrics"},{"p":"io.r2dbc.spi.pool","l":"LimitingConnectionFactory"},{"p":"io.r2dbc.spi.pool","l":"PartitionedConnectionPool"},{"p":"io.r2dbc.spi.pool","l":"PartitionMetrics"},{"p":"io.r2dbc.spi.pool","l":"PoolMetrics"},{"p":"io.r2dbc.spi.pool","l":"WarmupPlan.Report"},{"p":"io.r2dbc.spi.pool","l":"StateTrackingConnection"},{"p":"io.r2dbc.spi.pool","l":"WarmupPlan"}];updateSearchResults();
\ No newline at end of file
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.ConnectionState;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+
+/**
+ * Base class for {@link Connection} decorators forwarding all calls to {@link #getDelegate()}.
+ */
+abstract class DelegatingConnection implements Connection, Wrapped<Connection> {
+
+    /**
+     * Returns the connection to forward calls to.
+     *
+     * @return the connection to forward calls to
+     */
+    abstract Connection getDelegate();
+
+    @Override
+    public Publisher<Void> beginTransaction() {
+        return getDelegate().beginTransaction();
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+        return getDelegate().beginTransaction(definition);
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return getDelegate().close();
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+        return getDelegate().commitTransaction();
+    }
+
+    @Override
+    public Batch createBatch() {
+        return getDelegate().createBatch();
+    }
+
+    @Override
+    public Publisher<Void> createSavepoint(String name) {
+        return getDelegate().createSavepoint(name);
+    }
+
+    @Override
+    public Statement createStatement(String sql) {
+        return getDelegate().createStatement(sql);
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return getDelegate().isAutoCommit();
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+        return getDelegate().getMetadata();
+    }
+
+    @Override
+    public ConnectionState getState() {
+        return getDelegate().getState();
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return getDelegate().getTransactionIsolationLevel();
+    }
+
+    @Override
+    public Publisher<Void> releaseSavepoint(String name) {
+        return getDelegate().releaseSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+        return getDelegate().rollbackTransaction();
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+        return getDelegate().rollbackTransactionToSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> setAutoCommit(boolean autoCommit) {
+        return getDelegate().setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+        return getDelegate().setLockWaitTimeout(timeout);
+    }
+
+    @Override
+    public Publisher<Void> setStatementTimeout(Duration timeout) {
+        return getDelegate().setStatementTimeout(timeout);
+    }
+
+    @Override
+    public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        return getDelegate().setTransactionIsolationLevel(isolationLevel);
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+        return getDelegate().validate(depth);
+    }
+
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * {@link Subscription} racing the execution of a statement against a hedge execution on a second connection.
+ * <p>
+ * The primary execution starts once the downstream {@link Subscriber} signals demand.  If no {@link Result} arrived within the hedging delay and the hedging budget permits, a hedge connection is
+ * created and the statement is replayed on it.  The first execution to emit a {@link Result} or to complete wins and relays its signals downstream.  The other execution is cancelled.  A hedge
+ * execution that fails before the primary answers is discarded.
+ * <p>
+ * A winning hedge connection is released once the hedge execution has terminated and each of its {@link Result}s has been consumed.  Results that are never consumed keep the hedge connection
+ * until the {@link HedgingConnection} is closed.
+ */
+final class HedgedExecution implements Subscription {
+
+    private final HedgingConnectionFactory factory;
+
+    private final HedgingConnection connection;
+
+    private final Publisher<? extends Result> primary;
+
+    private final Function<Connection, Publisher<? extends Result>> replay;
+
+    private final Subscriber<? super Result> actual;
+
+    /**
+     * Number of unconsumed results of a winning hedge plus one for the hedge execution itself.
+     */
+    private final AtomicInteger hedgeLeases = new AtomicInteger(1);
+
+    private final AtomicBoolean hedgeTerminated = new AtomicBoolean();
+
+    // Guarded by this
+    private long pending;
+
+    private boolean started;
+
+    private boolean cancelled;
+
+    @Nullable
+    private Inner winner;
+
+    @Nullable
+    private Inner primaryInner;
+
+    @Nullable
+    private Inner hedgeInner;
+
+    @Nullable
+    private Connection hedgeConnection;
+
+    @Nullable
+    private ScheduledFuture<?> timer;
+
+    HedgedExecution(HedgingConnectionFactory factory, HedgingConnection connection, Publisher<? extends Result> primary, Function<Connection, Publisher<? extends Result>> replay,
+                    Subscriber<? super Result> actual) {
+        this.factory = factory;
+        this.connection = connection;
+        this.primary = primary;
+        this.replay = replay;
+        this.actual = actual;
+    }
+
+    @Override
+    public void request(long n) {
+
+        if (n <= 0) {
+            cancel();
+            this.actual.onError(new IllegalArgumentException(String.format("Requested demand must be greater than zero, was %d", n)));
+            return;
+        }
+
+        Inner winner;
+        boolean start = false;
+
+        synchronized (this) {
+
+            if (this.cancelled) {
+                return;
+            }
+
+            winner = this.winner;
+
+            if (winner == null) {
+
+                this.pending = this.pending + n < 0 ? Long.MAX_VALUE : this.pending + n;
+
+                if (!this.started) {
+                    this.started = true;
+                    start = true;
+                }
+            }
+        }
+
+        if (winner != null) {
+            winner.request(n);
+        } else if (start) {
+            start();
+        }
+    }
+
+    @Override
+    public void cancel() {
+
+        Inner primary;
+        Inner hedge;
+        Connection hedgeConnection;
+        boolean hedgeWon;
+
+        synchronized (this) {
+
+            if (this.cancelled) {
+                return;
+            }
+
+            this.cancelled = true;
+            cancelTimer();
+
+            primary = this.primaryInner;
+            hedge = this.hedgeInner;
+            hedgeWon = hedge != null && this.winner == hedge;
+            hedgeConnection = hedgeWon ? null : this.hedgeConnection;
+        }
+
+        if (hedgeWon) {
+            onHedgeTerminated();
+        }
+
+        if (primary != null) {
+            primary.cancel();
+        }
+
+        if (hedge != null) {
+            hedge.cancel();
+        }
+
+        if (hedgeConnection != null) {
+            Subscribers.subscribe(hedgeConnection.close());
+        }
+    }
+
+    private void start() {
+
+        long delay = this.factory.onExecute();
+        Inner primary = new Inner(false);
+
+        synchronized (this) {
+
+            this.primaryInner = primary;
+
+            if (delay != -1) {
+                this.timer = this.factory.getScheduler().schedule(this::hedge, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        this.primary.subscribe(primary);
+    }
+
+    private void hedge() {
+
+        synchronized (this) {
+            if (this.cancelled || this.winner != null) {
+                return;
+            }
+        }
+
+        if (!this.factory.tryHedge()) {
+            return;
+        }
+
+        Subscribers.first(this.factory.getDelegate().create(), this::onHedgeConnection, e -> {
+        });
+    }
+
+    private void onHedgeConnection(Connection connection) {
+
+        Inner hedge = new Inner(true);
+
+        synchronized (this) {
+
+            if (this.cancelled || this.winner != null) {
+                hedge = null;
+            } else {
+                this.hedgeConnection = connection;
+                this.hedgeInner = hedge;
+            }
+        }
+
+        if (hedge == null) {
+            Subscribers.subscribe(connection.close());
+            return;
+        }
+
+        Publisher<? extends Result> execution;
+
+        try {
+            execution = this.replay.apply(connection);
+        } catch (RuntimeException e) {
+            onTerminal(hedge, e);
+            return;
+        }
+
+        execution.subscribe(hedge);
+    }
+
+    /**
+     * Elect {@code inner} as winner if no winner was elected yet.
+     *
+     * @param inner the execution that answered
+     * @return the remaining demand to request from {@code inner} or {@code -1} if {@code inner} lost
+     */
+    private long elect(Inner inner) {
+
+        Inner loser;
+        Connection loserConnection = null;
+        long remaining;
+
+        synchronized (this) {
+
+            if (this.cancelled || this.winner != null) {
+                return -1;
+            }
+
+            this.winner = inner;
+            remaining = this.pending;
+            this.pending = 0;
+            cancelTimer();
+
+            if (inner.hedge) {
+                loser = this.primaryInner;
+                this.connection.retain(Assert.requireNonNull(this.hedgeConnection, "hedgeConnection must not be null"));
+            } else {
+                loser = this.hedgeInner;
+                loserConnection = this.hedgeConnection;
+            }
+        }
+
+        if (loser != null) {
+            loser.cancel();
+        }
+
+        if (loserConnection != null) {
+            Subscribers.subscribe(loserConnection.close());
+        }
+
+        return remaining;
+    }
+
+    private void onFirst(Inner inner, Result result) {
+
+        long remaining = elect(inner);
+
+        if (remaining == -1) {
+            return;
+        }
+
+        inner.won = true;
+        this.factory.record(System.nanoTime() - inner.startedAt);
+        this.actual.onNext(inner.hedge ? lease(result) : result);
+
+        if (remaining > 1) {
+            inner.request(remaining == Long.MAX_VALUE ? Long.MAX_VALUE : remaining - 1);
+        }
+    }
+
+    private void onTerminal(Inner inner, @Nullable Throwable error) {
+
+        if (!inner.won) {
+
+            if (inner.hedge && error != null) {
+
+                Connection hedgeConnection;
+
+                synchronized (this) {
+
+                    if (this.cancelled || this.winner != null || this.hedgeInner != inner) {
+                        return;
+                    }
+
+                    this.hedgeInner = null;
+                    hedgeConnection = this.hedgeConnection;
+                    this.hedgeConnection = null;
+                }
+
+                if (hedgeConnection != null) {
+                    Subscribers.subscribe(hedgeConnection.close());
+                }
+
+                return;
+            }
+
+            if (elect(inner) == -1) {
+                return;
+            }
+
+            inner.won = true;
+        }
+
+        if (error != null) {
+            this.actual.onError(error);
+        } else {
+            this.actual.onComplete();
+        }
+
+        if (inner.hedge) {
+            onHedgeTerminated();
+        }
+    }
+
+    /**
+     * Decorate a {@link Result} of the winning hedge to release the hedge connection once all results were consumed.
+     *
+     * @param result the result to decorate
+     * @return the decorated result
+     */
+    private Result lease(Result result) {
+        this.hedgeLeases.incrementAndGet();
+        return new HedgedResult(result, this::releaseHedge);
+    }
+
+    private void onHedgeTerminated() {
+
+        if (this.hedgeTerminated.compareAndSet(false, true)) {
+            releaseHedge();
+        }
+    }
+
+    private void releaseHedge() {
+
+        if (this.hedgeLeases.decrementAndGet() != 0) {
+            return;
+        }
+
+        Connection hedgeConnection;
+
+        synchronized (this) {
+            hedgeConnection = this.hedgeConnection;
+        }
+
+        if (hedgeConnection != null) {
+            this.connection.release(hedgeConnection);
+        }
+    }
+
+    private void cancelTimer() {
+
+        if (this.timer != null) {
+            this.timer.cancel(false);
+            this.timer = null;
+        }
+    }
+
+    /**
+     * Subscriber to a single execution.
+     */
+    final class Inner implements Subscriber<Result> {
+
+        final boolean hedge;
+
+        final long startedAt = System.nanoTime();
+
+        boolean won;
+
+        @Nullable
+        private volatile Subscription subscription;
+
+        private volatile boolean cancelled;
+
+        Inner(boolean hedge) {
+            this.hedge = hedge;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+
+            this.subscription = s;
+
+            if (this.cancelled) {
+                s.cancel();
+            } else {
+                s.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(Result result) {
+
+            if (this.won) {
+                HedgedExecution.this.actual.onNext(this.hedge ? lease(result) : result);
+            } else {
+                onFirst(this, result);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            onTerminal(this, t);
+        }
+
+        @Override
+        public void onComplete() {
+            onTerminal(this, null);
+        }
+
+        void request(long n) {
+
+            Subscription subscription = this.subscription;
+
+            if (subscription != null) {
+                subscription.request(n);
+            }
+        }
+
+        void cancel() {
+
+            this.cancelled = true;
+            Subscription subscription = this.subscription;
+
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+    }
+
+}
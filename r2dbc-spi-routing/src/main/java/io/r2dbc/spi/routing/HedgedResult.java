@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@link Result} emitted by a winning hedge execution.  Notifies its {@link HedgedExecution} once the result was consumed through {@link #getRowsUpdated()}, {@link #map(BiFunction)} or
+ * {@link #flatMap(Function)} so that the hedge connection can be closed.
+ */
+final class HedgedResult implements Result, Wrapped<Result> {
+
+    private final Result delegate;
+
+    private final AtomicBoolean consumed;
+
+    private final Runnable onConsumed;
+
+    HedgedResult(Result delegate, Runnable onConsumed) {
+        this(delegate, new AtomicBoolean(), onConsumed);
+    }
+
+    private HedgedResult(Result delegate, AtomicBoolean consumed, Runnable onConsumed) {
+        this.delegate = delegate;
+        this.consumed = consumed;
+        this.onConsumed = onConsumed;
+    }
+
+    @Override
+    public Publisher<Long> getRowsUpdated() {
+        return consume(this.delegate.getRowsUpdated());
+    }
+
+    @Override
+    public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+        return consume(this.delegate.map(mappingFunction));
+    }
+
+    @Override
+    public <T> Publisher<T> map(Function<? super Readable, ? extends T> mappingFunction) {
+        return consume(this.delegate.map(mappingFunction));
+    }
+
+    @Override
+    public Result filter(Predicate<Segment> filter) {
+        return new HedgedResult(this.delegate.filter(filter), this.consumed, this.onConsumed);
+    }
+
+    @Override
+    public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+        return consume(this.delegate.flatMap(mappingFunction));
+    }
+
+    @Override
+    public Result unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgedResult{" +
+            "delegate=" + this.delegate +
+            '}';
+    }
+
+    private <T> Publisher<T> consume(Publisher<T> source) {
+        return Publishers.doOnTerminate(source, () -> {
+
+            if (this.consumed.compareAndSet(false, true)) {
+                this.onConsumed.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link Statement} recording its configuration to replay it on a hedge connection.  Statements are executed through {@link HedgedExecution} if they are
+ * {@link HedgingConnectionFactory#isHedgeable(String) hedgeable} and the connection is in auto-commit mode.
+ */
+final class HedgedStatement implements Statement {
+
+    private final HedgingConnectionFactory factory;
+
+    private final HedgingConnection connection;
+
+    private final Statement delegate;
+
+    private final String sql;
+
+    private final List<Consumer<Statement>> operations = new ArrayList<>();
+
+    HedgedStatement(HedgingConnectionFactory factory, HedgingConnection connection, Statement delegate, String sql) {
+        this.factory = factory;
+        this.connection = connection;
+        this.delegate = delegate;
+        this.sql = sql;
+    }
+
+    @Override
+    public Statement add() {
+        return record(Statement::add);
+    }
+
+    @Override
+    public Statement bind(int index, Object value) {
+        return record(statement -> statement.bind(index, value));
+    }
+
+    @Override
+    public Statement bind(String name, Object value) {
+        return record(statement -> statement.bind(name, value));
+    }
+
+    @Override
+    public Statement bindNull(int index, Class<?> type) {
+        return record(statement -> statement.bindNull(index, type));
+    }
+
+    @Override
+    public Statement bindNull(String name, Class<?> type) {
+        return record(statement -> statement.bindNull(name, type));
+    }
+
+    @Override
+    public Statement returnGeneratedValues(String... columns) {
+        return record(statement -> statement.returnGeneratedValues(columns));
+    }
+
+    @Override
+    public Statement fetchSize(int rows) {
+        return record(statement -> statement.fetchSize(rows));
+    }
+
+    @Override
+    public Publisher<? extends Result> execute() {
+
+        Publisher<? extends Result> primary = this.delegate.execute();
+
+        if (!this.factory.isHedgeable(this.sql) || !this.connection.isAutoCommit()) {
+            return primary;
+        }
+
+        List<Consumer<Statement>> operations = new ArrayList<>(this.operations);
+
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+            subscriber.onSubscribe(new HedgedExecution(this.factory, this.connection, primary, connection -> replay(connection, operations), subscriber));
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "HedgedStatement{" +
+            "delegate=" + this.delegate +
+            ", sql='" + this.sql + '\'' +
+            '}';
+    }
+
+    private Statement record(Consumer<Statement> operation) {
+        operation.accept(this.delegate);
+        this.operations.add(operation);
+        return this;
+    }
+
+    private Publisher<? extends Result> replay(Connection connection, List<Consumer<Statement>> operations) {
+
+        Statement statement = connection.createStatement(this.sql);
+
+        for (Consumer<Statement> operation : operations) {
+            operation.accept(statement);
+        }
+
+        return statement.execute();
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link Connection} creating {@link HedgedStatement}s.  Retains connections of winning hedges until their results were consumed or until this connection is {@link #close() closed}.
+ */
+final class HedgingConnection extends DelegatingConnection {
+
+    private final HedgingConnectionFactory factory;
+
+    private final Connection delegate;
+
+    private final List<Connection> retained = new ArrayList<>();
+
+    HedgingConnection(HedgingConnectionFactory factory, Connection delegate) {
+        this.factory = factory;
+        this.delegate = delegate;
+    }
+
+    @Override
+    Connection getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return subscriber -> {
+
+            List<Connection> retained;
+
+            synchronized (this.retained) {
+                retained = new ArrayList<>(this.retained);
+                this.retained.clear();
+            }
+
+            for (Connection connection : retained) {
+                Subscribers.subscribe(connection.close());
+            }
+
+            this.delegate.close().subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public Statement createStatement(String sql) {
+        return new HedgedStatement(this.factory, this, this.delegate.createStatement(sql), sql);
+    }
+
+    @Override
+    public Connection unwrap() {
+        return this.delegate;
+    }
+
+    /**
+     * Retain the connection of a winning hedge until it is {@link #release(Connection) released} or this connection is closed.
+     *
+     * @param connection the connection to retain
+     */
+    void retain(Connection connection) {
+        synchronized (this.retained) {
+            this.retained.add(connection);
+        }
+    }
+
+    /**
+     * Close a retained hedge connection once its results were consumed.  Connections that were already closed along with this connection are ignored.
+     *
+     * @param connection the connection to release
+     */
+    void release(Connection connection) {
+
+        boolean removed;
+
+        synchronized (this.retained) {
+            removed = this.retained.remove(connection);
+        }
+
+        if (removed) {
+            Subscribers.subscribe(connection.close());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingConnection{" +
+            "delegate=" + this.delegate +
+            '}';
+    }
+
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * {@link ConnectionFactory} decorator hedging read-only statements.
+ * <p>
+ * Hedged statements may execute more than once, therefore statements are only hedged if they are declared {@link Builder#hedgeable(Predicate) hedgeable} or if the wrapped factory is declared
+ * {@link Builder#readOnly() read-only}.  Nothing is hedged by default.
+ * <p>
+ * Hedgeable statements executed in {@link Connection#isAutoCommit() auto-commit} mode on connections created by this factory are watched for their first {@link Result}.  If the first {@link Result} does
+ * not arrive within the {@link Builder#percentile(double) configured percentile} of recently observed first-result latencies, the statement is sent a second time on a new connection obtained from
+ * the wrapped factory, typically routed to a different replica by a load-balancing factory such as {@link MultiHostConnectionFactory}.  The execution that answers first wins and the other one is
+ * cancelled.  A losing hedge connection is closed immediately, a winning hedge connection is closed once its results were consumed or, at the latest, together with the connection the
+ * statement was created from.  Statements executed within a
+ * transaction are never hedged.
+ * <p>
+ * Hedging is limited to a {@link Builder#maxExtraLoad(double) budget} relative to the number of executed statements.  Hedging starts once enough latencies were observed.
+ * <p>
+ * Example usage:
+ * <pre class="code">
+ * HedgingConnectionFactory connectionFactory = HedgingConnectionFactory.builder(replicas)
+ *     .readOnly()
+ *     .percentile(0.95)
+ *     .maxExtraLoad(0.05)
+ *     .build();
+ * </pre>
+ */
+public final class HedgingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Closeable {
+
+    /**
+     * Default percentile of first-result latencies after which a statement is hedged.
+     */
+    public static final double DEFAULT_PERCENTILE = 0.95;
+
+    /**
+     * Default ratio of hedged statements to executed statements.
+     */
+    public static final double DEFAULT_MAX_EXTRA_LOAD = 0.05;
+
+    /**
+     * Maximum number of hedges that can be saved up by the budget.
+     */
+    private static final double MAX_BURST = 10;
+
+    private final ConnectionFactory delegate;
+
+    private final LatencyWindow latencies;
+
+    private final double maxExtraLoad;
+
+    private final Predicate<String> hedgeable;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final boolean ownsScheduler;
+
+    private final AtomicLong executions = new AtomicLong();
+
+    private final AtomicLong hedges = new AtomicLong();
+
+    private double budget;
+
+    private HedgingConnectionFactory(Builder builder) {
+
+        this.delegate = builder.delegate;
+        this.latencies = new LatencyWindow(builder.percentile);
+        this.maxExtraLoad = builder.maxExtraLoad;
+        this.hedgeable = builder.hedgeable;
+
+        if (builder.scheduler != null) {
+            this.scheduler = builder.scheduler;
+            this.ownsScheduler = false;
+        } else {
+            this.scheduler = Schedulers.newDaemonScheduler("r2dbc-hedging");
+            this.ownsScheduler = true;
+        }
+    }
+
+    /**
+     * Returns a new {@link Builder} hedging statements executed on connections from {@code delegate}.
+     *
+     * @param delegate the {@link ConnectionFactory} serving read-only workloads
+     * @return a new {@link Builder}
+     * @throws IllegalArgumentException if {@code delegate} is {@code null}
+     */
+    public static Builder builder(ConnectionFactory delegate) {
+        return new Builder(Assert.requireNonNull(delegate, "delegate must not be null"));
+    }
+
+    @Override
+    public Publisher<Connection> create() {
+        return Publishers.map(this.delegate.create(), connection -> new HedgingConnection(this, connection));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.delegate.getMetadata();
+    }
+
+    /**
+     * Shuts down the scheduler if it is owned by this factory.  Connections created by this factory remain open.
+     *
+     * @return a {@link Publisher} that completes once the scheduler has been shut down
+     */
+    @Override
+    public Publisher<Void> close() {
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+
+            if (this.ownsScheduler) {
+                this.scheduler.shutdown();
+            }
+
+            subscription.complete();
+        };
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns the current delay after which a statement is hedged.
+     *
+     * @return the current hedging delay or {@code null} if not enough latencies were observed yet
+     */
+    @Nullable
+    public Duration getHedgeDelay() {
+        long delay = this.latencies.getPercentile();
+        return delay == -1 ? null : Duration.ofNanos(delay);
+    }
+
+    /**
+     * Returns the number of hedgeable statements executed in auto-commit mode.
+     *
+     * @return the number of hedgeable statements executed in auto-commit mode
+     */
+    public long getExecutionCount() {
+        return this.executions.get();
+    }
+
+    /**
+     * Returns the number of statements that were hedged.
+     *
+     * @return the number of statements that were hedged
+     */
+    public long getHedgeCount() {
+        return this.hedges.get();
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingConnectionFactory{" +
+            "delegate=" + this.delegate +
+            ", maxExtraLoad=" + this.maxExtraLoad +
+            ", hedgeDelay=" + getHedgeDelay() +
+            '}';
+    }
+
+    ConnectionFactory getDelegate() {
+        return this.delegate;
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Returns whether a statement may be executed more than once.
+     *
+     * @param sql the SQL of the statement
+     * @return {@code true} if the statement may be hedged
+     */
+    boolean isHedgeable(String sql) {
+        return this.hedgeable.test(sql);
+    }
+
+    /**
+     * Register the execution of a statement and return the delay after which it should be hedged.
+     *
+     * @return the delay in nanoseconds or {@code -1} if the statement should not be hedged
+     */
+    long onExecute() {
+
+        this.executions.incrementAndGet();
+
+        synchronized (this) {
+            this.budget = Math.min(MAX_BURST, this.budget + this.maxExtraLoad);
+        }
+
+        return this.latencies.getPercentile();
+    }
+
+    /**
+     * Acquire budget to hedge a statement.
+     *
+     * @return {@code true} if the statement may be hedged
+     */
+    boolean tryHedge() {
+
+        synchronized (this) {
+
+            if (this.budget < 1) {
+                return false;
+            }
+
+            this.budget--;
+        }
+
+        this.hedges.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Record the latency until the first {@link Result} of a statement execution.
+     *
+     * @param latency the latency in nanoseconds
+     */
+    void record(long latency) {
+        this.latencies.record(latency);
+    }
+
+    /**
+     * A builder for {@link HedgingConnectionFactory} instances.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        private final ConnectionFactory delegate;
+
+        private double percentile = DEFAULT_PERCENTILE;
+
+        private double maxExtraLoad = DEFAULT_MAX_EXTRA_LOAD;
+
+        private Predicate<String> hedgeable = sql -> false;
+
+        @Nullable
+        private ScheduledExecutorService scheduler;
+
+        private Builder(ConnectionFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Returns a configured {@link HedgingConnectionFactory}.
+         *
+         * @return a configured {@link HedgingConnectionFactory}
+         */
+        public HedgingConnectionFactory build() {
+            return new HedgingConnectionFactory(this);
+        }
+
+        /**
+         * Configure the percentile of recently observed first-result latencies after which a {@link Statement} is hedged.
+         *
+         * @param percentile the percentile between {@code 0} and {@code 1} (exclusive)
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code percentile} is not between {@code 0} and {@code 1} (exclusive)
+         */
+        public Builder percentile(double percentile) {
+
+            if (!(percentile > 0 && percentile < 1)) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1 (exclusive)");
+            }
+
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Configure the maximum ratio of hedged statements to executed statements.
+         *
+         * @param maxExtraLoad the ratio between {@code 0} and {@code 1} (inclusive).  {@code 0} disables hedging.
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxExtraLoad} is not between {@code 0} and {@code 1} (inclusive)
+         */
+        public Builder maxExtraLoad(double maxExtraLoad) {
+
+            if (!(maxExtraLoad >= 0 && maxExtraLoad <= 1)) {
+                throw new IllegalArgumentException("maxExtraLoad must be between 0 and 1 (inclusive)");
+            }
+
+            this.maxExtraLoad = maxExtraLoad;
+            return this;
+        }
+
+        /**
+         * Configure which statements may be hedged.  Statements are hedged if {@code hedgeable} accepts their SQL.  Only statements that can safely execute more than once, such as queries
+         * without side effects, should be accepted.
+         *
+         * @param hedgeable the predicate accepting the SQL of statements that may be hedged
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code hedgeable} is {@code null}
+         */
+        public Builder hedgeable(Predicate<String> hedgeable) {
+            this.hedgeable = Assert.requireNonNull(hedgeable, "hedgeable must not be null");
+            return this;
+        }
+
+        /**
+         * Declare that the wrapped factory serves read-only connections, for example connections to read replicas using a read-only account, so that every statement may be hedged.
+         *
+         * @return this {@link Builder}
+         */
+        public Builder readOnly() {
+            this.hedgeable = sql -> true;
+            return this;
+        }
+
+        /**
+         * Configure the {@link ScheduledExecutorService} to trigger hedges.  A daemon scheduler owned by the factory is created if not configured.
+         *
+         * @param scheduler the scheduler
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code scheduler} is {@code null}
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = Assert.requireNonNull(scheduler, "scheduler must not be null");
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "delegate=" + this.delegate +
+                ", percentile=" + this.percentile +
+                ", maxExtraLoad=" + this.maxExtraLoad +
+                ", scheduler=" + this.scheduler +
+                '}';
+        }
+
+    }
+
+}
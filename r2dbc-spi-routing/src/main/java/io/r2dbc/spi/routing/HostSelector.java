@@ -0,0 +1,282 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Host selection engine scoring hosts by their latency and number of outstanding requests.
+ * <p>
+ * Each {@link Host} tracks an exponentially weighted moving average (EWMA) of observed latencies.  Older samples decay with the configured decay time so that the average follows latency changes
+ * quickly.  The score of a host is its average latency multiplied by its number of outstanding requests plus one.  {@link #select()} picks two random available hosts and returns the one with the
+ * lower score ("power of two choices").  Hosts that are {@link Host#eject() ejected} are not selected until they are {@link Host#restore() restored}.
+ * <p>
+ * Callers report the outcome of each request through {@link Host#start()}, {@link Host#record(long)} and {@link Host#end()}.
+ *
+ * @param <T> the type of the target associated with each host, for example a {@link io.r2dbc.spi.ConnectionFactory}
+ */
+public final class HostSelector<T> {
+
+    /**
+     * Default decay time of latency samples.
+     */
+    public static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+
+    private final List<Host<T>> hosts;
+
+    private HostSelector(Collection<? extends T> targets, long decayTime) {
+
+        List<Host<T>> hosts = new ArrayList<>(targets.size());
+        for (T target : targets) {
+            hosts.add(new Host<>(Assert.requireNonNull(target, "target must not be null"), decayTime));
+        }
+
+        this.hosts = Collections.unmodifiableList(hosts);
+    }
+
+    /**
+     * Creates a new {@link HostSelector} for {@code targets} using the {@link #DEFAULT_DECAY_TIME default decay time}.
+     *
+     * @param targets the targets to select from
+     * @param <T>     the target type
+     * @return the {@link HostSelector}
+     * @throws IllegalArgumentException if {@code targets} is {@code null} or contains {@code null}
+     */
+    public static <T> HostSelector<T> of(Collection<? extends T> targets) {
+        return of(targets, DEFAULT_DECAY_TIME);
+    }
+
+    /**
+     * Creates a new {@link HostSelector} for {@code targets}.
+     *
+     * @param targets   the targets to select from
+     * @param decayTime the time after which a latency sample has decayed to {@code 1/e} of its weight
+     * @param <T>       the target type
+     * @return the {@link HostSelector}
+     * @throws IllegalArgumentException if {@code targets} is {@code null} or contains {@code null}, or if {@code decayTime} is {@code null} or not positive
+     */
+    public static <T> HostSelector<T> of(Collection<? extends T> targets, Duration decayTime) {
+        Assert.requireNonNull(targets, "targets must not be null");
+        Assert.requireNonNull(decayTime, "decayTime must not be null");
+
+        if (decayTime.isNegative() || decayTime.isZero()) {
+            throw new IllegalArgumentException("decayTime must be greater than zero");
+        }
+
+        return new HostSelector<>(targets, decayTime.toNanos());
+    }
+
+    /**
+     * Returns all hosts in their configured order.
+     *
+     * @return all hosts
+     */
+    public List<Host<T>> getHosts() {
+        return this.hosts;
+    }
+
+    /**
+     * Select an available host.
+     *
+     * @return the selected host or {@code null} if no host is available
+     */
+    @Nullable
+    public Host<T> select() {
+        return select(Collections.emptySet());
+    }
+
+    /**
+     * Select an available host that is not contained in {@code excluded}.
+     *
+     * @param excluded hosts to exclude from the selection, typically hosts that were already tried
+     * @return the selected host or {@code null} if no host is available
+     * @throws IllegalArgumentException if {@code excluded} is {@code null}
+     */
+    @Nullable
+    public Host<T> select(Collection<Host<T>> excluded) {
+        Assert.requireNonNull(excluded, "excluded must not be null");
+
+        List<Host<T>> candidates = new ArrayList<>(this.hosts.size());
+
+        for (Host<T> host : this.hosts) {
+            if (!host.isEjected() && !excluded.contains(host)) {
+                candidates.add(host);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+
+        if (second >= first) {
+            second++;
+        }
+
+        Host<T> a = candidates.get(first);
+        Host<T> b = candidates.get(second);
+
+        return a.score() <= b.score() ? a : b;
+    }
+
+    @Override
+    public String toString() {
+        return "HostSelector{" +
+            "hosts=" + this.hosts +
+            '}';
+    }
+
+    /**
+     * A host tracked by {@link HostSelector}.
+     *
+     * @param <T> the target type
+     */
+    public static final class Host<T> {
+
+        private final T target;
+
+        private final long decayTime;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private double latency;
+
+        private long lastSample;
+
+        private volatile boolean ejected;
+
+        Host(T target, long decayTime) {
+            this.target = target;
+            this.decayTime = decayTime;
+        }
+
+        /**
+         * Returns the target associated with this host.
+         *
+         * @return the target
+         */
+        public T getTarget() {
+            return this.target;
+        }
+
+        /**
+         * Returns the moving average of observed latencies.
+         *
+         * @return the moving average of observed latencies.  {@link Duration#ZERO} if no latency was recorded yet.
+         */
+        public synchronized Duration getLatency() {
+            return Duration.ofNanos((long) this.latency);
+        }
+
+        /**
+         * Returns the number of outstanding requests.
+         *
+         * @return the number of outstanding requests
+         */
+        public int getOutstanding() {
+            return this.outstanding.get();
+        }
+
+        /**
+         * Returns whether this host is ejected from selection.
+         *
+         * @return {@code true} if this host is ejected
+         */
+        public boolean isEjected() {
+            return this.ejected;
+        }
+
+        /**
+         * Register the start of a request.
+         *
+         * @return the start time in {@link System#nanoTime() nanoseconds} to compute the latency passed to {@link #record(long)}
+         */
+        public long start() {
+            this.outstanding.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        /**
+         * Register the end of a request started with {@link #start()}.
+         */
+        public void end() {
+            this.outstanding.decrementAndGet();
+        }
+
+        /**
+         * Record a latency sample.
+         *
+         * @param latency the observed latency in nanoseconds
+         */
+        public synchronized void record(long latency) {
+
+            long now = System.nanoTime();
+
+            if (this.lastSample == 0) {
+                this.latency = latency;
+            } else {
+                double weight = Math.exp(-(double) (now - this.lastSample) / this.decayTime);
+                this.latency = this.latency * weight + latency * (1 - weight);
+            }
+
+            this.lastSample = now;
+        }
+
+        /**
+         * Eject this host from selection.
+         */
+        public void eject() {
+            this.ejected = true;
+        }
+
+        /**
+         * Make this host available for selection again.
+         */
+        public void restore() {
+            this.ejected = false;
+        }
+
+        synchronized double score() {
+            return (this.latency + 1) * (this.outstanding.get() + 1);
+        }
+
+        @Override
+        public String toString() {
+            return "Host{" +
+                "target=" + this.target +
+                ", latency=" + getLatency() +
+                ", outstanding=" + this.outstanding +
+                ", ejected=" + this.ejected +
+                '}';
+        }
+
+    }
+
+}
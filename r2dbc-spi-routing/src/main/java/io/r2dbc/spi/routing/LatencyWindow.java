@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recent latency samples to compute a latency percentile.  The percentile is recomputed lazily after a number of new samples were recorded.
+ */
+final class LatencyWindow {
+
+    /**
+     * Number of samples retained in the window.
+     */
+    static final int SIZE = 1000;
+
+    /**
+     * Minimum number of samples required to report a percentile.
+     */
+    static final int MIN_SAMPLES = 20;
+
+    private static final int RECOMPUTE_INTERVAL = 16;
+
+    private final double percentile;
+
+    private final long[] samples = new long[SIZE];
+
+    private int count;
+
+    private int next;
+
+    private int stale;
+
+    private long value = -1;
+
+    LatencyWindow(double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * Record a latency sample.
+     *
+     * @param latency the latency in nanoseconds
+     */
+    synchronized void record(long latency) {
+
+        this.samples[this.next] = latency;
+        this.next = (this.next + 1) % SIZE;
+        this.count = Math.min(this.count + 1, SIZE);
+        this.stale++;
+    }
+
+    /**
+     * Returns the configured percentile of the recorded samples.
+     *
+     * @return the percentile in nanoseconds or {@code -1} if less than {@link #MIN_SAMPLES} were recorded
+     */
+    synchronized long getPercentile() {
+
+        if (this.count < MIN_SAMPLES) {
+            return -1;
+        }
+
+        if (this.value == -1 || this.stale >= RECOMPUTE_INTERVAL) {
+
+            long[] sorted = Arrays.copyOf(this.samples, this.count);
+            Arrays.sort(sorted);
+
+            int index = (int) Math.ceil(this.percentile * sorted.length) - 1;
+            this.value = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+            this.stale = 0;
+        }
+
+        return this.value;
+    }
+
+}
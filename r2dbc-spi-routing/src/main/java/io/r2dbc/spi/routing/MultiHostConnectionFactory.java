@@ -0,0 +1,587 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * {@link ConnectionFactory} connecting to one of multiple hosts serving the same database.
+ * <p>
+ * Hosts are selected by {@link HostSelector} based on their connect latency and their number of open connections.  A host that fails to connect or that does not connect within the
+ * {@link Builder#connectTimeout(Duration) connect timeout} is ejected and the connection attempt fails over to the next host.  Ejected hosts are probed in the background every
+ * {@link Builder#probeInterval(Duration) probe interval} and become available again once a probe connects successfully.  If all hosts are ejected, connection attempts try ejected hosts as a last
+ * resort.
+ * <p>
+ * Example usage:
+ * <pre class="code">
+ * MultiHostConnectionFactory connectionFactory = MultiHostConnectionFactory.from(ConnectionFactoryOptions.parse("r2dbc:driver://host1:5432,host2:5432/database"));
+ * </pre>
+ */
+public final class MultiHostConnectionFactory implements ConnectionFactory, Closeable {
+
+    /**
+     * Default connect timeout.
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Default interval to probe ejected hosts.
+     */
+    public static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofSeconds(5);
+
+    private final HostSelector<ConnectionFactory> selector;
+
+    private final long connectTimeout;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final boolean ownsScheduler;
+
+    private final ScheduledFuture<?> probe;
+
+    private final Set<HostSelector.Host<ConnectionFactory>> probing = ConcurrentHashMap.newKeySet();
+
+    private MultiHostConnectionFactory(Builder builder) {
+
+        this.selector = HostSelector.of(builder.hosts);
+        this.connectTimeout = builder.connectTimeout.toNanos();
+
+        if (builder.scheduler != null) {
+            this.scheduler = builder.scheduler;
+            this.ownsScheduler = false;
+        } else {
+            this.scheduler = Schedulers.newDaemonScheduler("r2dbc-multi-host");
+            this.ownsScheduler = true;
+        }
+
+        long interval = builder.probeInterval.toNanos();
+        this.probe = this.scheduler.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     *
+     * @return a new {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a new {@link MultiHostConnectionFactory} from {@link ConnectionFactoryOptions} declaring {@link ConnectionFactoryOptions#HOSTS multiple hosts}.  A {@link ConnectionFactory} is
+     * discovered for each host through {@link ConnectionFactories#get(ConnectionFactoryOptions)} using {@code options} with {@link ConnectionFactoryOptions#HOST} and
+     * {@link ConnectionFactoryOptions#PORT} set to the address of the host.  Hosts without a port number are created without {@link ConnectionFactoryOptions#PORT} so that the driver applies its
+     * default port.  {@link ConnectionFactoryOptions#CONNECT_TIMEOUT} configures the connect timeout if present.
+     *
+     * @param options the options declaring the hosts
+     * @return the {@link MultiHostConnectionFactory}
+     * @throws IllegalArgumentException if {@code options} is {@code null} or does not declare {@link ConnectionFactoryOptions#HOSTS}
+     * @throws IllegalStateException    if no {@link ConnectionFactory} can be discovered for a host
+     */
+    public static MultiHostConnectionFactory from(ConnectionFactoryOptions options) {
+        Assert.requireNonNull(options, "options must not be null");
+
+        Object hosts = options.getValue(ConnectionFactoryOptions.HOSTS);
+
+        if (!(hosts instanceof List)) {
+            throw new IllegalArgumentException(String.format("Options must declare %s", ConnectionFactoryOptions.HOSTS));
+        }
+
+        Builder builder = builder();
+
+        for (Object host : (List<?>) hosts) {
+
+            InetSocketAddress address = (InetSocketAddress) host;
+            ConnectionFactoryOptions.Builder hostOptions = ConnectionFactoryOptions.builder()
+                .from(options, option -> !option.equals(ConnectionFactoryOptions.HOSTS) && !option.equals(ConnectionFactoryOptions.PORT))
+                .option(ConnectionFactoryOptions.HOST, address.getHostString());
+
+            if (address.getPort() != 0) {
+                hostOptions.option(ConnectionFactoryOptions.PORT, address.getPort());
+            }
+
+            builder.host(ConnectionFactories.get(hostOptions.build()));
+        }
+
+        Object connectTimeout = options.getValue(ConnectionFactoryOptions.CONNECT_TIMEOUT);
+
+        if (connectTimeout instanceof Duration) {
+            builder.connectTimeout((Duration) connectTimeout);
+        } else if (connectTimeout instanceof String) {
+            builder.connectTimeout(Duration.parse((String) connectTimeout));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Creates a connection to the host with the best score.  Fails over to the remaining hosts if the host does not connect within the connect timeout.
+     *
+     * @return a {@link Publisher} emitting a {@link Connection}.  Fails with {@link R2dbcTransientResourceException} if no host could be connected.
+     */
+    @Override
+    public Publisher<Connection> create() {
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+            subscriber.onSubscribe(new Connect(subscriber));
+        };
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.selector.getHosts().get(0).getTarget().getMetadata();
+    }
+
+    /**
+     * Stops probing ejected hosts.  Connections created by this factory remain open.
+     *
+     * @return a {@link Publisher} that completes once probing has been stopped
+     */
+    @Override
+    public Publisher<Void> close() {
+        return subscriber -> {
+            Assert.requireNonNull(subscriber, "Subscriber must not be null");
+
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+
+            this.probe.cancel(false);
+
+            if (this.ownsScheduler) {
+                this.scheduler.shutdown();
+            }
+
+            subscription.complete();
+        };
+    }
+
+    /**
+     * Returns the {@link HostSelector} tracking the hosts of this factory.
+     *
+     * @return the {@link HostSelector}
+     */
+    public HostSelector<ConnectionFactory> getHostSelector() {
+        return this.selector;
+    }
+
+    @Override
+    public String toString() {
+        return "MultiHostConnectionFactory{" +
+            "selector=" + this.selector +
+            ", connectTimeout=" + Duration.ofNanos(this.connectTimeout) +
+            '}';
+    }
+
+    /**
+     * Probe ejected hosts and restore hosts that connect successfully.
+     */
+    void probe() {
+
+        for (HostSelector.Host<ConnectionFactory> host : this.selector.getHosts()) {
+
+            if (!host.isEjected() || !this.probing.add(host)) {
+                continue;
+            }
+
+            new Attempt(host, connection -> {
+
+                Subscribers.subscribe(connection.close());
+                this.probing.remove(host);
+                host.restore();
+            }, e -> this.probing.remove(host)).start();
+        }
+    }
+
+    @Nullable
+    private HostSelector.Host<ConnectionFactory> select(Set<HostSelector.Host<ConnectionFactory>> tried) {
+
+        HostSelector.Host<ConnectionFactory> host = this.selector.select(tried);
+
+        if (host != null) {
+            return host;
+        }
+
+        for (HostSelector.Host<ConnectionFactory> candidate : this.selector.getHosts()) {
+            if (!tried.contains(candidate)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Connection attempt failing over across hosts until a connection is established or all hosts were tried.
+     */
+    final class Connect implements Subscription {
+
+        private final SingleSubscription<Connection> subscription;
+
+        private final Set<HostSelector.Host<ConnectionFactory>> tried = new HashSet<>();
+
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        @Nullable
+        private volatile Throwable error;
+
+        private volatile boolean cancelled;
+
+        Connect(Subscriber<? super Connection> subscriber) {
+            this.subscription = new SingleSubscription<>(subscriber);
+        }
+
+        @Override
+        public void request(long n) {
+
+            this.subscription.request(n);
+
+            if (n > 0 && this.started.compareAndSet(false, true)) {
+                connect();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            this.subscription.cancel();
+        }
+
+        private void connect() {
+
+            if (this.cancelled) {
+                return;
+            }
+
+            HostSelector.Host<ConnectionFactory> host;
+
+            synchronized (this.tried) {
+
+                host = select(this.tried);
+
+                if (host != null) {
+                    this.tried.add(host);
+                }
+            }
+
+            if (host == null) {
+                this.subscription.error(new R2dbcTransientResourceException("No host available to connect to", this.error));
+                return;
+            }
+
+            host.start();
+
+            new Attempt(host, connection -> {
+
+                if (this.cancelled) {
+                    host.end();
+                    Subscribers.subscribe(connection.close());
+                    return;
+                }
+
+                this.subscription.complete(new HostConnection(connection, host));
+            }, e -> {
+
+                host.end();
+                host.eject();
+                this.error = e;
+                connect();
+            }).start();
+        }
+
+    }
+
+    /**
+     * Single connection attempt to a host bounded by the connect timeout.  Connections emitted after the attempt timed out are closed.
+     */
+    final class Attempt implements Subscriber<Connection> {
+
+        private final HostSelector.Host<ConnectionFactory> host;
+
+        private final Consumer<Connection> onSuccess;
+
+        private final Consumer<Throwable> onFailure;
+
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private final long startedAt = System.nanoTime();
+
+        @Nullable
+        private volatile ScheduledFuture<?> timeout;
+
+        @Nullable
+        private volatile Subscription upstream;
+
+        Attempt(HostSelector.Host<ConnectionFactory> host, Consumer<Connection> onSuccess, Consumer<Throwable> onFailure) {
+            this.host = host;
+            this.onSuccess = onSuccess;
+            this.onFailure = onFailure;
+        }
+
+        void start() {
+
+            this.timeout = MultiHostConnectionFactory.this.scheduler.schedule(this::onTimeout, MultiHostConnectionFactory.this.connectTimeout, TimeUnit.NANOSECONDS);
+
+            try {
+                this.host.getTarget().create().subscribe(this);
+            } catch (RuntimeException e) {
+                onError(e);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+
+            this.upstream = s;
+
+            if (this.done.get()) {
+                s.cancel();
+            } else {
+                s.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(Connection connection) {
+
+            if (!this.done.compareAndSet(false, true)) {
+                Subscribers.subscribe(connection.close());
+                return;
+            }
+
+            cancelTimeout();
+            this.host.record(System.nanoTime() - this.startedAt);
+            this.onSuccess.accept(connection);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (this.done.compareAndSet(false, true)) {
+                cancelTimeout();
+                this.onFailure.accept(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            onError(new IllegalStateException(String.format("%s completed without emitting a connection", this.host.getTarget())));
+        }
+
+        private void onTimeout() {
+
+            if (!this.done.compareAndSet(false, true)) {
+                return;
+            }
+
+            Subscription upstream = this.upstream;
+
+            if (upstream != null) {
+                upstream.cancel();
+            }
+
+            this.onFailure.accept(new R2dbcTimeoutException(String.format("Connection to %s not established within %s", this.host.getTarget(),
+                Duration.ofNanos(MultiHostConnectionFactory.this.connectTimeout))));
+        }
+
+        private void cancelTimeout() {
+
+            ScheduledFuture<?> timeout = this.timeout;
+
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+
+    }
+
+    /**
+     * {@link Connection} to a host.  Releases the outstanding slot of the host on {@link #close()}.
+     */
+    static final class HostConnection extends DelegatingConnection {
+
+        private final Connection delegate;
+
+        private final HostSelector.Host<ConnectionFactory> host;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        HostConnection(Connection delegate, HostSelector.Host<ConnectionFactory> host) {
+            this.delegate = delegate;
+            this.host = host;
+        }
+
+        @Override
+        Connection getDelegate() {
+            return this.delegate;
+        }
+
+        @Override
+        public Publisher<Void> close() {
+            return subscriber -> {
+
+                if (this.released.compareAndSet(false, true)) {
+                    this.host.end();
+                }
+
+                this.delegate.close().subscribe(subscriber);
+            };
+        }
+
+        @Override
+        public Connection unwrap() {
+            return this.delegate;
+        }
+
+        @Override
+        public String toString() {
+            return "HostConnection{" +
+                "delegate=" + this.delegate +
+                ", host=" + this.host +
+                '}';
+        }
+
+    }
+
+    /**
+     * A builder for {@link MultiHostConnectionFactory} instances.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        private final List<ConnectionFactory> hosts = new ArrayList<>();
+
+        private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+        private Duration probeInterval = DEFAULT_PROBE_INTERVAL;
+
+        @Nullable
+        private ScheduledExecutorService scheduler;
+
+        private Builder() {
+        }
+
+        /**
+         * Returns a configured {@link MultiHostConnectionFactory}.
+         *
+         * @return a configured {@link MultiHostConnectionFactory}
+         * @throws IllegalStateException if no host was configured
+         */
+        public MultiHostConnectionFactory build() {
+
+            if (this.hosts.isEmpty()) {
+                throw new IllegalStateException("At least one host must be configured");
+            }
+
+            return new MultiHostConnectionFactory(this);
+        }
+
+        /**
+         * Add a host.
+         *
+         * @param host the {@link ConnectionFactory} connecting to the host
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code host} is {@code null}
+         */
+        public Builder host(ConnectionFactory host) {
+            this.hosts.add(Assert.requireNonNull(host, "host must not be null"));
+            return this;
+        }
+
+        /**
+         * Configure the time after which a connection attempt fails over to the next host.
+         *
+         * @param connectTimeout the connect timeout
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code connectTimeout} is {@code null} or not positive
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            Assert.requireNonNull(connectTimeout, "connectTimeout must not be null");
+
+            if (connectTimeout.isNegative() || connectTimeout.isZero()) {
+                throw new IllegalArgumentException("connectTimeout must be greater than zero");
+            }
+
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Configure the interval to probe ejected hosts.
+         *
+         * @param probeInterval the probe interval
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code probeInterval} is {@code null} or not positive
+         */
+        public Builder probeInterval(Duration probeInterval) {
+            Assert.requireNonNull(probeInterval, "probeInterval must not be null");
+
+            if (probeInterval.isNegative() || probeInterval.isZero()) {
+                throw new IllegalArgumentException("probeInterval must be greater than zero");
+            }
+
+            this.probeInterval = probeInterval;
+            return this;
+        }
+
+        /**
+         * Configure the {@link ScheduledExecutorService} for connect timeouts and probes.  A daemon scheduler owned by the factory is created if not configured.
+         *
+         * @param scheduler the scheduler
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code scheduler} is {@code null}
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = Assert.requireNonNull(scheduler, "scheduler must not be null");
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "hosts=" + this.hosts +
+                ", connectTimeout=" + this.connectTimeout +
+                ", probeInterval=" + this.probeInterval +
+                ", scheduler=" + this.scheduler +
+                '}';
+        }
+
+    }
+
+}
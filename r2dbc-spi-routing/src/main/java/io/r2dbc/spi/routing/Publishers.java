@@ -0,0 +1,188 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Non-public {@link Publisher} factories and operators.
+ */
+abstract class Publishers {
+
+    private Publishers() {
+    }
+
+    /**
+     * Returns a {@link Publisher} that invokes {@code onError} before signalling an error emitted by {@code source}.
+     *
+     * @param source  the source {@link Publisher}
+     * @param onError the callback invoked with the error
+     * @param <T>     the value type
+     * @return the observed {@link Publisher}
+     */
+    static <T> Publisher<T> onError(Publisher<? extends T> source, Consumer<Throwable> onError) {
+        return subscriber -> source.subscribe(new Subscriber<T>() {
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscriber.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(T value) {
+                subscriber.onNext(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                onError.accept(t);
+                subscriber.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        });
+    }
+
+    /**
+     * Returns a {@link Publisher} that invokes {@code onTerminate} once {@code source} completes, fails or is cancelled.
+     *
+     * @param source      the source {@link Publisher}
+     * @param onTerminate the action to invoke upon termination
+     * @param <T>         the value type
+     * @return the observed {@link Publisher}
+     */
+    static <T> Publisher<T> doOnTerminate(Publisher<T> source, Runnable onTerminate) {
+        return subscriber -> {
+
+            AtomicBoolean terminated = new AtomicBoolean();
+            Runnable terminate = () -> {
+                if (terminated.compareAndSet(false, true)) {
+                    onTerminate.run();
+                }
+            };
+
+            source.subscribe(new Subscriber<T>() {
+
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscriber.onSubscribe(new Subscription() {
+
+                        @Override
+                        public void request(long n) {
+                            s.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            terminate.run();
+                            s.cancel();
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(T value) {
+                    subscriber.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    terminate.run();
+                    subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    terminate.run();
+                    subscriber.onComplete();
+                }
+            });
+        };
+    }
+
+    /**
+     * Returns a {@link Publisher} that applies {@code mapper} to each value emitted by {@code source}.
+     *
+     * @param source the source {@link Publisher}
+     * @param mapper the mapping function
+     * @param <T>    the source value type
+     * @param <R>    the mapped value type
+     * @return the mapped {@link Publisher}
+     */
+    static <T, R> Publisher<R> map(Publisher<? extends T> source, Function<? super T, ? extends R> mapper) {
+        return subscriber -> source.subscribe(new Subscriber<T>() {
+
+            private Subscription subscription;
+
+            private boolean done;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.subscription = s;
+                subscriber.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(T value) {
+
+                if (this.done) {
+                    return;
+                }
+
+                R mapped;
+
+                try {
+                    mapped = mapper.apply(value);
+                } catch (RuntimeException e) {
+                    this.subscription.cancel();
+                    onError(e);
+                    return;
+                }
+
+                subscriber.onNext(mapped);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+
+                if (!this.done) {
+                    this.done = true;
+                    subscriber.onError(t);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+
+                if (!this.done) {
+                    this.done = true;
+                    subscriber.onComplete();
+                }
+            }
+        });
+    }
+
+}
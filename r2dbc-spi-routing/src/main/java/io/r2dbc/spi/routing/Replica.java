@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A read replica known to {@link RoutingConnectionFactory}.  Tracks the number of outstanding connections and ejects the replica for a period of time after consecutive failures.
+ */
+final class Replica {
+
+    private final ConnectionFactory connectionFactory;
+
+    private final int maxFailures;
+
+    private final long ejectionTime;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile long ejectedUntil;
+
+    private volatile boolean ejected;
+
+    Replica(ConnectionFactory connectionFactory, int maxFailures, long ejectionTime) {
+        this.connectionFactory = connectionFactory;
+        this.maxFailures = maxFailures;
+        this.ejectionTime = ejectionTime;
+    }
+
+    ConnectionFactory getConnectionFactory() {
+        return this.connectionFactory;
+    }
+
+    int getOutstanding() {
+        return this.outstanding.get();
+    }
+
+    /**
+     * Returns whether the replica accepts traffic.  An ejected replica becomes available again once its ejection time has passed.
+     */
+    boolean isAvailable(long now) {
+        return !this.ejected || now - this.ejectedUntil >= 0;
+    }
+
+    void onSuccess() {
+        this.failures.set(0);
+        this.ejected = false;
+    }
+
+    void onFailure() {
+
+        if (this.failures.incrementAndGet() >= this.maxFailures) {
+            this.failures.set(0);
+            this.ejectedUntil = System.nanoTime() + this.ejectionTime;
+            this.ejected = true;
+        }
+    }
+
+    /**
+     * Create a connection to this replica.  The connection counts as outstanding until it is closed or until the creation fails, is cancelled or completes without emitting a connection.
+     * A successful connection attempt resets the failure count, creation errors count as failure.
+     */
+    Publisher<Connection> create() {
+        return subscriber -> {
+
+            Lease lease = new Lease();
+            this.outstanding.incrementAndGet();
+
+            this.connectionFactory.create().subscribe(new Subscriber<Connection>() {
+
+                private volatile boolean emitted;
+
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscriber.onSubscribe(new Subscription() {
+
+                        @Override
+                        public void request(long n) {
+                            s.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            if (!emitted) {
+                                lease.release();
+                            }
+                            s.cancel();
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(Connection connection) {
+                    this.emitted = true;
+                    onSuccess();
+                    subscriber.onNext(new ReplicaConnection(connection, Replica.this, lease));
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    lease.release();
+                    onFailure();
+                    subscriber.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+
+                    if (!this.emitted) {
+                        lease.release();
+                    }
+
+                    subscriber.onComplete();
+                }
+            });
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "Replica{" +
+            "connectionFactory=" + this.connectionFactory +
+            ", outstanding=" + this.outstanding +
+            ", ejected=" + this.ejected +
+            '}';
+    }
+
+    /**
+     * Outstanding connection slot released exactly once.
+     */
+    final class Lease {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (this.released.compareAndSet(false, true)) {
+                Replica.this.outstanding.decrementAndGet();
+            }
+        }
+
+    }
+
+}
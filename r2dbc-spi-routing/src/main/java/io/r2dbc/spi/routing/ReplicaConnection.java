@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ValidationDepth;
+import org.reactivestreams.Publisher;
+
+/**
+ * {@link Connection} to a {@link Replica}.  Reports validation outcomes, including validation errors, to the replica and releases its outstanding slot on {@link #close()}.
+ */
+final class ReplicaConnection extends DelegatingConnection {
+
+    private final Connection delegate;
+
+    private final Replica replica;
+
+    private final Replica.Lease lease;
+
+    ReplicaConnection(Connection delegate, Replica replica, Replica.Lease lease) {
+        this.delegate = delegate;
+        this.replica = replica;
+        this.lease = lease;
+    }
+
+    @Override
+    Connection getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return subscriber -> {
+            this.lease.release();
+            this.delegate.close().subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+        return Publishers.map(Publishers.onError(this.delegate.validate(depth), e -> this.replica.onFailure()), valid -> {
+
+            if (valid) {
+                this.replica.onSuccess();
+            } else {
+                this.replica.onFailure();
+            }
+
+            return valid;
+        });
+    }
+
+    @Override
+    public Connection unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicaConnection{" +
+            "delegate=" + this.delegate +
+            ", replica=" + this.replica +
+            '}';
+    }
+
+}
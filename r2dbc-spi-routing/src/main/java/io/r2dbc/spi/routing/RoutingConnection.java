@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.TransactionDefinition;
+import org.reactivestreams.Publisher;
+
+import java.util.function.Function;
+
+/**
+ * {@link Connection} created by {@link RoutingConnectionFactory}.  Work runs on the primary connection unless a {@link TransactionDefinition#READ_ONLY read-only} transaction is active.  A
+ * read-only transaction runs on a dedicated replica connection that is closed once the transaction completes.
+ */
+final class RoutingConnection extends DelegatingConnection {
+
+    private final RoutingConnectionFactory connectionFactory;
+
+    private final Connection primary;
+
+    @Nullable
+    private volatile Connection readOnly;
+
+    RoutingConnection(RoutingConnectionFactory connectionFactory, Connection primary) {
+        this.connectionFactory = connectionFactory;
+        this.primary = primary;
+    }
+
+    @Override
+    Connection getDelegate() {
+        Connection readOnly = this.readOnly;
+        return readOnly != null ? readOnly : this.primary;
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+
+        Assert.requireNonNull(definition, "definition must not be null");
+
+        if (!Boolean.TRUE.equals(definition.getAttribute(TransactionDefinition.READ_ONLY)) || this.readOnly != null) {
+            return getDelegate().beginTransaction(definition);
+        }
+
+        return subscriber -> {
+
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+
+            Replica replica = this.connectionFactory.select();
+
+            if (replica == null) {
+                Subscribers.onTermination(this.primary.beginTransaction(definition), subscription::complete, subscription::error);
+                return;
+            }
+
+            Subscribers.first(replica.create(), connection -> Subscribers.onTermination(connection.beginTransaction(definition), () -> {
+                this.readOnly = connection;
+                subscription.complete();
+            }, e -> {
+                Subscribers.subscribe(connection.close());
+                subscription.error(e);
+            }), subscription::error);
+        };
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+        return completeTransaction(Connection::commitTransaction);
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+        return completeTransaction(Connection::rollbackTransaction);
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return subscriber -> {
+
+            Connection readOnly = this.readOnly;
+            this.readOnly = null;
+
+            if (readOnly != null) {
+                Subscribers.subscribe(readOnly.close());
+            }
+
+            this.primary.close().subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public Connection unwrap() {
+        return this.primary;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingConnection{" +
+            "primary=" + this.primary +
+            ", readOnly=" + this.readOnly +
+            '}';
+    }
+
+    /**
+     * Complete the active transaction.  A replica connection is closed afterwards regardless of the outcome.
+     */
+    private Publisher<Void> completeTransaction(Function<Connection, Publisher<Void>> action) {
+        return subscriber -> {
+
+            Connection readOnly = this.readOnly;
+
+            if (readOnly == null) {
+                action.apply(this.primary).subscribe(subscriber);
+                return;
+            }
+
+            SingleSubscription<Void> subscription = new SingleSubscription<>(subscriber);
+            subscriber.onSubscribe(subscription);
+
+            Subscribers.onTermination(action.apply(readOnly), () -> {
+                this.readOnly = null;
+                Subscribers.onTermination(readOnly.close(), subscription::complete, e -> subscription.complete());
+            }, e -> {
+                this.readOnly = null;
+                Subscribers.subscribe(readOnly.close());
+                subscription.error(e);
+            });
+        };
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ConnectionFactory} routing read-only work to replicas and all other work to a primary.
+ * <ul>
+ * <li>{@link #create()} creates a connection to the primary.  Transactions started with {@link TransactionDefinition#READ_ONLY} set to {@code true} run on a replica connection that is closed
+ * once the transaction is committed or rolled back.  The primary connection remains held for the duration of the read-only transaction.</li>
+ * <li>{@link #createReadOnly()} creates a connection to a replica for read-only sessions.</li>
+ * </ul>
+ * <p>
+ * Reads are balanced across replicas by the least number of outstanding connections.  A replica is ejected for {@link Builder#ejectionTime(Duration) a period of time} after
+ * {@link Builder#maxValidationFailures(int) consecutive} failed {@link Connection#validate(ValidationDepth) validations} or connection attempts.  If no replica is available, read-only work is
+ * routed to the primary.
+ * <p>
+ * Every read-only transaction and every {@link #createReadOnly()} call opens a new replica connection.  Replica {@link ConnectionFactory factories} are therefore expected to be connection
+ * pools, such as {@code ConnectionPool} of {@code r2dbc-spi-pool}; closing a replica connection then returns it into the replica's pool.  Balancing counts connections held from a replica, not
+ * requests in flight on them.
+ * <p>
+ * Example usage:
+ * <pre class="code">
+ * RoutingConnectionFactory connectionFactory = RoutingConnectionFactory.builder(primary)
+ *     .replica(replica1)
+ *     .replica(replica2)
+ *     .build();
+ * </pre>
+ */
+public final class RoutingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    /**
+     * Default number of consecutive failures after which a replica is ejected.
+     */
+    public static final int DEFAULT_MAX_VALIDATION_FAILURES = 3;
+
+    /**
+     * Default ejection time.
+     */
+    public static final Duration DEFAULT_EJECTION_TIME = Duration.ofSeconds(30);
+
+    private final ConnectionFactory primary;
+
+    private final List<Replica> replicas;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private RoutingConnectionFactory(Builder builder) {
+
+        List<Replica> replicas = new ArrayList<>(builder.replicas.size());
+        for (ConnectionFactory replica : builder.replicas) {
+            replicas.add(new Replica(replica, builder.maxValidationFailures, builder.ejectionTime.toNanos()));
+        }
+
+        this.primary = builder.primary;
+        this.replicas = Collections.unmodifiableList(replicas);
+    }
+
+    /**
+     * Returns a new {@link Builder} routing to {@code primary}.
+     *
+     * @param primary the primary {@link ConnectionFactory}
+     * @return a new {@link Builder}
+     * @throws IllegalArgumentException if {@code primary} is {@code null}
+     */
+    public static Builder builder(ConnectionFactory primary) {
+        return new Builder(Assert.requireNonNull(primary, "primary must not be null"));
+    }
+
+    /**
+     * Creates a connection to the primary.  Read-only transactions on the returned connection are routed to a replica.
+     *
+     * @return a {@link Publisher} emitting the routing {@link Connection}
+     */
+    @Override
+    public Publisher<Connection> create() {
+        return Publishers.map(this.primary.create(), connection -> new RoutingConnection(this, connection));
+    }
+
+    /**
+     * Creates a connection to the replica with the least outstanding connections.  Falls back to the primary if no replica is available.
+     *
+     * @return a {@link Publisher} emitting a read-only {@link Connection}
+     */
+    public Publisher<? extends Connection> createReadOnly() {
+        return subscriber -> {
+
+            Replica replica = select();
+            (replica != null ? replica.create() : this.primary.create()).subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.primary.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return this.primary;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingConnectionFactory{" +
+            "primary=" + this.primary +
+            ", replicas=" + this.replicas +
+            '}';
+    }
+
+    List<Replica> getReplicas() {
+        return this.replicas;
+    }
+
+    /**
+     * Select the available replica with the least outstanding connections.  Ties are broken round-robin.
+     *
+     * @return the selected replica or {@code null} if no replica is available
+     */
+    @Nullable
+    Replica select() {
+
+        int size = this.replicas.size();
+
+        if (size == 0) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        int offset = Math.floorMod(this.next.getAndIncrement(), size);
+        Replica selected = null;
+
+        for (int i = 0; i < size; i++) {
+
+            Replica candidate = this.replicas.get((offset + i) % size);
+
+            if (candidate.isAvailable(now) && (selected == null || candidate.getOutstanding() < selected.getOutstanding())) {
+                selected = candidate;
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * A builder for {@link RoutingConnectionFactory} instances.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        private final ConnectionFactory primary;
+
+        private final List<ConnectionFactory> replicas = new ArrayList<>();
+
+        private int maxValidationFailures = DEFAULT_MAX_VALIDATION_FAILURES;
+
+        private Duration ejectionTime = DEFAULT_EJECTION_TIME;
+
+        private Builder(ConnectionFactory primary) {
+            this.primary = primary;
+        }
+
+        /**
+         * Returns a configured {@link RoutingConnectionFactory}.
+         *
+         * @return a configured {@link RoutingConnectionFactory}
+         */
+        public RoutingConnectionFactory build() {
+            return new RoutingConnectionFactory(this);
+        }
+
+        /**
+         * Add a replica.  The replica {@link ConnectionFactory} should be a connection pool as a replica connection is created for every read-only transaction.
+         *
+         * @param replica the replica {@link ConnectionFactory}
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code replica} is {@code null}
+         */
+        public Builder replica(ConnectionFactory replica) {
+            this.replicas.add(Assert.requireNonNull(replica, "replica must not be null"));
+            return this;
+        }
+
+        /**
+         * Configure the number of consecutive failed validations or connection attempts after which a replica is ejected.
+         *
+         * @param maxValidationFailures the number of consecutive failures
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxValidationFailures} is less than one
+         */
+        public Builder maxValidationFailures(int maxValidationFailures) {
+
+            if (maxValidationFailures < 1) {
+                throw new IllegalArgumentException("maxValidationFailures must be greater than zero");
+            }
+
+            this.maxValidationFailures = maxValidationFailures;
+            return this;
+        }
+
+        /**
+         * Configure the time for which an ejected replica does not receive traffic.
+         *
+         * @param ejectionTime the ejection time
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code ejectionTime} is {@code null} or negative
+         */
+        public Builder ejectionTime(Duration ejectionTime) {
+            Assert.requireNonNull(ejectionTime, "ejectionTime must not be null");
+
+            if (ejectionTime.isNegative()) {
+                throw new IllegalArgumentException("ejectionTime must not be negative");
+            }
+
+            this.ejectionTime = ejectionTime;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "primary=" + this.primary +
+                ", replicas=" + this.replicas +
+                ", maxValidationFailures=" + this.maxValidationFailures +
+                ", ejectionTime=" + this.ejectionTime +
+                '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link HedgingConnectionFactory}.
+ */
+final class HedgingConnectionFactoryUnitTests {
+
+    LatencyConnectionFactory replicas = new LatencyConnectionFactory("replicas", Duration.ZERO);
+
+    HedgingConnectionFactory connectionFactory = HedgingConnectionFactory.builder(this.replicas).readOnly().maxExtraLoad(1).build();
+
+    @AfterEach
+    void tearDown() {
+        CollectingSubscriber.subscribe(this.connectionFactory.close());
+    }
+
+    @Test
+    void shouldNotHedgeBeforeLatenciesWereObserved() throws InterruptedException {
+
+        Connection connection = connect();
+
+        assertThat(await(connection.createStatement("SELECT 1").execute())).hasSize(1);
+        assertThat(this.connectionFactory.getHedgeDelay()).isNull();
+        assertThat(this.connectionFactory.getExecutionCount()).isEqualTo(1);
+        assertThat(this.connectionFactory.getHedgeCount()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldHedgeSlowStatement() throws InterruptedException {
+
+        Connection connection = warmup();
+        primary(connection).executeLatency = Duration.ofSeconds(5);
+
+        assertThat(await(connection.createStatement("SELECT 1").bind(0, "value").execute())).hasSize(1);
+
+        TestConnection hedge = this.replicas.created.get(1);
+
+        assertThat(this.connectionFactory.getHedgeCount()).isEqualTo(1);
+        assertThat(hedge.executed).containsExactly("SELECT 1");
+        assertThat(primary(connection).executed).doesNotContain("SELECT 1");
+        assertThat(hedge.closed).isFalse();
+
+        CollectingSubscriber.subscribe(connection.close());
+
+        assertThat(hedge.closed).isTrue();
+        assertThat(primary(connection).closed).isTrue();
+    }
+
+    @Test
+    void shouldCloseWinningHedgeOnceResultsWereConsumed() throws InterruptedException {
+
+        Connection connection = warmup();
+        primary(connection).executeLatency = Duration.ofSeconds(5);
+
+        List<Result> results = await(connection.createStatement("SELECT 1").execute());
+        TestConnection hedge = this.replicas.created.get(1);
+
+        assertThat(hedge.closed).isFalse();
+
+        assertThat(await(results.get(0).getRowsUpdated())).containsExactly(0L);
+        assertThat(hedge.closed).isTrue();
+        assertThat(primary(connection).closed).isFalse();
+    }
+
+    @Test
+    void shouldCloseLosingHedge() throws InterruptedException {
+
+        Connection connection = warmup();
+        primary(connection).executeLatency = Duration.ofMillis(200);
+        this.replicas.executeLatency = Duration.ofSeconds(5);
+
+        assertThat(await(connection.createStatement("SELECT 1").execute())).hasSize(1);
+
+        for (int i = 0; i < 500 && (this.replicas.created.size() < 2 || !this.replicas.created.get(1).closed); i++) {
+            Thread.sleep(10);
+        }
+
+        TestConnection hedge = this.replicas.created.get(1);
+
+        assertThat(this.connectionFactory.getHedgeCount()).isEqualTo(1);
+        assertThat(primary(connection).executed).contains("SELECT 1");
+        assertThat(hedge.executed).isEmpty();
+        assertThat(hedge.closed).isTrue();
+    }
+
+    @Test
+    void shouldNotHedgeWithinTransaction() throws InterruptedException {
+
+        Connection connection = warmup();
+        primary(connection).executeLatency = Duration.ofMillis(200);
+        primary(connection).autoCommit = false;
+
+        assertThat(await(connection.createStatement("SELECT 1").execute())).hasSize(1);
+        assertThat(this.connectionFactory.getHedgeCount()).isEqualTo(0);
+        assertThat(this.replicas.created).hasSize(1);
+    }
+
+    @Test
+    void shouldNotHedgeByDefault() throws InterruptedException {
+
+        this.connectionFactory = HedgingConnectionFactory.builder(this.replicas).maxExtraLoad(1).build();
+
+        this.replicas.executeLatency = Duration.ofMillis(1);
+        Connection connection = connect();
+
+        for (int i = 0; i < LatencyWindow.MIN_SAMPLES; i++) {
+            await(connection.createStatement("SELECT 0").execute());
+        }
+
+        primary(connection).executeLatency = Duration.ofMillis(200);
+
+        assertThat(await(connection.createStatement("SELECT 1").execute())).hasSize(1);
+        assertThat(this.connectionFactory.getHedgeDelay()).isNull();
+        assertThat(this.connectionFactory.getExecutionCount()).isEqualTo(0);
+        assertThat(this.replicas.created).hasSize(1);
+    }
+
+    @Test
+    void shouldHedgeHedgeableStatementsOnly() throws InterruptedException {
+
+        this.connectionFactory = HedgingConnectionFactory.builder(this.replicas).hedgeable(sql -> sql.startsWith("SELECT")).maxExtraLoad(1).build();
+
+        Connection connection = warmup();
+        primary(connection).executeLatency = Duration.ofMillis(200);
+
+        assertThat(await(connection.createStatement("INSERT INTO t VALUES(1)").execute())).hasSize(1);
+        assertThat(this.connectionFactory.getHedgeCount()).isEqualTo(0);
+        assertThat(this.replicas.created).hasSize(1);
+        assertThat(primary(connection).executed).contains("INSERT INTO t VALUES(1)");
+    }
+
+    @Test
+    void shouldNotHedgeWithoutBudget() throws InterruptedException {
+
+        this.connectionFactory = HedgingConnectionFactory.builder(this.replicas).readOnly().maxExtraLoad(0).build();
+
+        Connection connection = warmup();
+        primary(connection).executeLatency = Duration.ofMillis(200);
+
+        assertThat(await(connection.createStatement("SELECT 1").execute())).hasSize(1);
+        assertThat(this.connectionFactory.getHedgeCount()).isEqualTo(0);
+        assertThat(this.replicas.created).hasSize(1);
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+
+        assertThatThrownBy(() -> HedgingConnectionFactory.builder(this.replicas).percentile(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HedgingConnectionFactory.builder(this.replicas).maxExtraLoad(-0.1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Connection warmup() throws InterruptedException {
+
+        this.replicas.executeLatency = Duration.ofMillis(1);
+        Connection connection = connect();
+
+        for (int i = 0; i < LatencyWindow.MIN_SAMPLES; i++) {
+            await(connection.createStatement("SELECT 0").execute());
+        }
+
+        assertThat(this.connectionFactory.getHedgeDelay()).isNotNull();
+        assertThat(this.connectionFactory.getHedgeCount()).isEqualTo(0);
+        return connection;
+    }
+
+    private static TestConnection primary(Connection connection) {
+        return (TestConnection) ((HedgingConnection) connection).unwrap();
+    }
+
+    private static <T> List<T> await(Publisher<? extends T> publisher) throws InterruptedException {
+
+        CollectingSubscriber<T> subscriber = new CollectingSubscriber<>();
+        publisher.subscribe(subscriber);
+
+        for (int i = 0; i < 500 && !subscriber.completed && subscriber.error == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(subscriber.error).isNull();
+        assertThat(subscriber.completed).isTrue();
+        return subscriber.items;
+    }
+
+    private Connection connect() throws InterruptedException {
+        return await(this.connectionFactory.create()).get(0);
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link HostSelector}.
+ */
+final class HostSelectorUnitTests {
+
+    HostSelector<String> selector = HostSelector.of(Arrays.asList("a", "b"));
+
+    HostSelector.Host<String> a = this.selector.getHosts().get(0);
+
+    HostSelector.Host<String> b = this.selector.getHosts().get(1);
+
+    @Test
+    void shouldPreferLowerLatencyHost() {
+
+        this.a.record(Duration.ofMillis(100).toNanos());
+        this.b.record(Duration.ofMillis(1).toNanos());
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(this.selector.select()).isSameAs(this.b);
+        }
+    }
+
+    @Test
+    void shouldPreferHostWithFewerOutstandingRequests() {
+
+        this.a.record(Duration.ofMillis(1).toNanos());
+        this.b.record(Duration.ofMillis(1).toNanos());
+        this.a.start();
+
+        assertThat(this.selector.select()).isSameAs(this.b);
+
+        this.a.end();
+        this.b.start();
+        this.b.start();
+
+        assertThat(this.selector.select()).isSameAs(this.a);
+    }
+
+    @Test
+    void shouldSkipEjectedAndExcludedHosts() {
+
+        this.a.eject();
+
+        assertThat(this.selector.select()).isSameAs(this.b);
+        assertThat(this.selector.select(Collections.singleton(this.b))).isNull();
+
+        this.a.restore();
+
+        assertThat(this.selector.select(Collections.singleton(this.b))).isSameAs(this.a);
+    }
+
+    @Test
+    void shouldDecayLatency() {
+
+        HostSelector.Host<String> host = HostSelector.of(Collections.singletonList("a"), Duration.ofNanos(1)).getHosts().get(0);
+
+        host.record(Duration.ofSeconds(1).toNanos());
+        host.record(Duration.ofMillis(1).toNanos());
+
+        assertThat(host.getLatency()).isEqualTo(Duration.ofMillis(1));
+    }
+
+    @Test
+    void shouldRejectInvalidDecayTime() {
+        assertThatThrownBy(() -> HostSelector.of(Collections.singletonList("a"), Duration.ZERO)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ConnectionFactory} test fixture standing in for a remote host.  Creates {@link TestConnection}s after a configurable {@link #latency} executing statements after {@link #executeLatency}, fails when {@link #failing} and never responds
+ * when {@link #unreachable}.
+ */
+final class LatencyConnectionFactory implements ConnectionFactory {
+
+    static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "latency-connection-factory");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    final String name;
+
+    final List<TestConnection> created = new CopyOnWriteArrayList<>();
+
+    final AtomicInteger attempts = new AtomicInteger();
+
+    volatile Duration latency;
+
+    volatile Duration executeLatency;
+
+    volatile boolean failing;
+
+    volatile boolean unreachable;
+
+    LatencyConnectionFactory(String name, Duration latency) {
+        this.name = name;
+        this.latency = latency;
+    }
+
+    @Override
+    public Publisher<Connection> create() {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+
+            final AtomicBoolean requested = new AtomicBoolean();
+
+            volatile boolean cancelled;
+
+            @Override
+            public void request(long n) {
+
+                if (!this.requested.compareAndSet(false, true)) {
+                    return;
+                }
+
+                LatencyConnectionFactory.this.attempts.incrementAndGet();
+
+                if (LatencyConnectionFactory.this.unreachable) {
+                    return;
+                }
+
+                SCHEDULER.schedule(() -> {
+
+                    if (this.cancelled) {
+                        return;
+                    }
+
+                    if (LatencyConnectionFactory.this.failing) {
+                        subscriber.onError(new R2dbcNonTransientResourceException(LatencyConnectionFactory.this.name + " refused the connection"));
+                        return;
+                    }
+
+                    TestConnection connection = new TestConnection();
+                    connection.executeLatency = LatencyConnectionFactory.this.executeLatency;
+                    LatencyConnectionFactory.this.created.add(connection);
+                    subscriber.onNext(connection);
+                    subscriber.onComplete();
+                }, LatencyConnectionFactory.this.latency.toNanos(), TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void cancel() {
+                this.cancelled = true;
+            }
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return () -> "test";
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link MultiHostConnectionFactory}.
+ */
+final class MultiHostConnectionFactoryUnitTests {
+
+    LatencyConnectionFactory fast = new LatencyConnectionFactory("fast", Duration.ofMillis(1));
+
+    LatencyConnectionFactory slow = new LatencyConnectionFactory("slow", Duration.ofMillis(50));
+
+    MultiHostConnectionFactory connectionFactory = MultiHostConnectionFactory.builder()
+        .host(this.slow)
+        .host(this.fast)
+        .connectTimeout(Duration.ofMillis(200))
+        .probeInterval(Duration.ofMinutes(1))
+        .build();
+
+    HostSelector.Host<?> slowHost = this.connectionFactory.getHostSelector().getHosts().get(0);
+
+    HostSelector.Host<?> fastHost = this.connectionFactory.getHostSelector().getHosts().get(1);
+
+    @AfterEach
+    void tearDown() {
+        CollectingSubscriber.subscribe(this.connectionFactory.close());
+    }
+
+    @Test
+    void shouldPreferLowerLatencyHost() throws InterruptedException {
+
+        for (int i = 0; i < 10; i++) {
+            CollectingSubscriber.subscribe(await(this.connectionFactory.create()).close());
+        }
+
+        assertThat(this.slow.created).hasSize(1);
+        assertThat(this.fast.created).hasSize(9);
+        assertThat(this.fastHost.getOutstanding()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldFailOverOnConnectTimeout() throws InterruptedException {
+
+        this.slow.unreachable = true;
+        this.fastHost.record(Duration.ofSeconds(1).toNanos());
+
+        Connection connection = await(this.connectionFactory.create());
+
+        assertThat(((MultiHostConnectionFactory.HostConnection) connection).unwrap()).isSameAs(this.fast.created.get(0));
+        assertThat(this.slow.attempts).hasValue(1);
+        assertThat(this.slowHost.isEjected()).isTrue();
+        assertThat(this.fastHost.getOutstanding()).isEqualTo(1);
+
+        CollectingSubscriber.subscribe(connection.close());
+
+        assertThat(this.fastHost.getOutstanding()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldProbeEjectedHost() throws InterruptedException {
+
+        this.slow.failing = true;
+        this.fastHost.record(Duration.ofSeconds(1).toNanos());
+
+        await(this.connectionFactory.create());
+
+        assertThat(this.slowHost.isEjected()).isTrue();
+
+        this.slow.failing = false;
+        this.connectionFactory.probe();
+
+        for (int i = 0; i < 500 && this.slowHost.isEjected(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(this.slowHost.isEjected()).isFalse();
+        assertThat(this.slow.created).hasSize(1);
+        assertThat(this.slow.created.get(0).closed).isTrue();
+    }
+
+    @Test
+    void shouldFailIfNoHostConnects() throws InterruptedException {
+
+        this.slow.failing = true;
+        this.fast.unreachable = true;
+
+        CollectingSubscriber<Connection> subscriber = CollectingSubscriber.subscribe(this.connectionFactory.create());
+
+        for (int i = 0; i < 500 && subscriber.error == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(subscriber.error).isInstanceOf(R2dbcTransientResourceException.class);
+        assertThat(subscriber.error.getCause()).isNotNull();
+        assertThat(this.slowHost.isEjected()).isTrue();
+        assertThat(this.fastHost.isEjected()).isTrue();
+    }
+
+    private static Connection await(Publisher<Connection> publisher) throws InterruptedException {
+
+        CollectingSubscriber<Connection> subscriber = CollectingSubscriber.subscribe(publisher);
+
+        for (int i = 0; i < 500 && !subscriber.completed && subscriber.error == null; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(subscriber.error).isNull();
+        assertThat(subscriber.items).hasSize(1);
+        return subscriber.items.get(0);
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Option;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link RoutingConnectionFactory}.
+ */
+final class RoutingConnectionFactoryUnitTests {
+
+    static final TransactionDefinition READ_ONLY = new TransactionDefinition() {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getAttribute(Option<T> option) {
+            return option.equals(TransactionDefinition.READ_ONLY) ? (T) Boolean.TRUE : null;
+        }
+    };
+
+    TestConnectionFactory primary = new TestConnectionFactory();
+
+    TestConnectionFactory replica1 = new TestConnectionFactory();
+
+    TestConnectionFactory replica2 = new TestConnectionFactory();
+
+    RoutingConnectionFactory connectionFactory = RoutingConnectionFactory.builder(this.primary)
+        .replica(this.replica1)
+        .replica(this.replica2)
+        .maxValidationFailures(2)
+        .ejectionTime(Duration.ofMinutes(1))
+        .build();
+
+    @Test
+    void shouldRouteReadOnlyTransactionToReplica() {
+
+        Connection connection = single(this.connectionFactory.create());
+
+        assertThat(CollectingSubscriber.subscribe(connection.beginTransaction(READ_ONLY)).completed).isTrue();
+        CollectingSubscriber.subscribe(connection.createStatement("SELECT 1").execute());
+        assertThat(CollectingSubscriber.subscribe(connection.commitTransaction()).completed).isTrue();
+        CollectingSubscriber.subscribe(connection.createStatement("UPDATE t").execute());
+
+        TestConnection replica = replicaConnection();
+
+        assertThat(replica.executed).containsExactly("SELECT 1");
+        assertThat(replica.closed).isTrue();
+        assertThat(this.primary.created.get(0).executed).containsExactly("UPDATE t");
+        assertThat(this.connectionFactory.getReplicas().get(0).getOutstanding() + this.connectionFactory.getReplicas().get(1).getOutstanding()).isEqualTo(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldKeepReadWriteTransactionOnPrimary() {
+
+        Connection connection = single(this.connectionFactory.create());
+
+        CollectingSubscriber.subscribe(connection.beginTransaction());
+
+        assertThat(this.replica1.created).isEmpty();
+        assertThat(this.replica2.created).isEmpty();
+        assertThat(((Wrapped<Connection>) connection).unwrap()).isSameAs(this.primary.created.get(0));
+    }
+
+    @Test
+    void shouldBalanceByOutstandingConnections() {
+
+        Connection first = single(this.connectionFactory.createReadOnly());
+        single(this.connectionFactory.createReadOnly());
+
+        assertThat(this.replica1.created).hasSize(1);
+        assertThat(this.replica2.created).hasSize(1);
+
+        CollectingSubscriber.subscribe(first.close());
+        single(this.connectionFactory.createReadOnly());
+
+        assertThat(this.connectionFactory.getReplicas().get(0).getOutstanding()).isEqualTo(1);
+        assertThat(this.connectionFactory.getReplicas().get(1).getOutstanding()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEjectReplicaAfterValidationFailures() {
+
+        Replica ejected = this.connectionFactory.getReplicas().get(0);
+
+        for (int i = 0; i < 10 && ejected.isAvailable(System.nanoTime()); i++) {
+
+            Connection connection = single(this.connectionFactory.createReadOnly());
+            TestConnection replica = (TestConnection) ((ReplicaConnection) connection).unwrap();
+            replica.valid = !this.replica1.created.contains(replica);
+
+            CollectingSubscriber.subscribe(connection.validate(ValidationDepth.REMOTE));
+            CollectingSubscriber.subscribe(connection.validate(ValidationDepth.REMOTE));
+            CollectingSubscriber.subscribe(connection.close());
+        }
+
+        assertThat(ejected.isAvailable(System.nanoTime())).isFalse();
+        assertThat(this.replica1.created).hasSize(1);
+
+        for (int i = 0; i < 3; i++) {
+            CollectingSubscriber.subscribe(single(this.connectionFactory.createReadOnly()).close());
+        }
+
+        assertThat(this.replica1.created).hasSize(1);
+    }
+
+    @Test
+    void shouldCountValidationErrorsAsFailures() {
+
+        RoutingConnectionFactory connectionFactory = RoutingConnectionFactory.builder(this.primary).replica(this.replica1).maxValidationFailures(2).build();
+        Replica replica = connectionFactory.getReplicas().get(0);
+
+        Connection connection = single(connectionFactory.createReadOnly());
+        ((TestConnection) ((ReplicaConnection) connection).unwrap()).validationError = new IllegalStateException("connection lost");
+
+        assertThat(CollectingSubscriber.subscribe(connection.validate(ValidationDepth.REMOTE)).error).isInstanceOf(IllegalStateException.class);
+        assertThat(CollectingSubscriber.subscribe(connection.validate(ValidationDepth.REMOTE)).error).isInstanceOf(IllegalStateException.class);
+
+        assertThat(replica.isAvailable(System.nanoTime())).isFalse();
+    }
+
+    @Test
+    void shouldResetFailuresOnSuccessfulConnect() {
+
+        RoutingConnectionFactory connectionFactory = RoutingConnectionFactory.builder(this.primary).replica(this.replica1).maxValidationFailures(2).build();
+        Replica replica = connectionFactory.getReplicas().get(0);
+
+        Connection first = single(connectionFactory.createReadOnly());
+        ((TestConnection) ((ReplicaConnection) first).unwrap()).valid = false;
+        CollectingSubscriber.subscribe(first.validate(ValidationDepth.REMOTE));
+
+        Connection second = single(connectionFactory.createReadOnly());
+        ((TestConnection) ((ReplicaConnection) second).unwrap()).valid = false;
+        CollectingSubscriber.subscribe(second.validate(ValidationDepth.REMOTE));
+
+        assertThat(replica.isAvailable(System.nanoTime())).isTrue();
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWithoutReplicas() {
+
+        RoutingConnectionFactory connectionFactory = RoutingConnectionFactory.builder(this.primary).build();
+
+        Connection connection = single(connectionFactory.create());
+        CollectingSubscriber.subscribe(connection.beginTransaction(READ_ONLY));
+        CollectingSubscriber.subscribe(connection.createStatement("SELECT 1").execute());
+
+        single(connectionFactory.createReadOnly());
+
+        assertThat(this.primary.created).hasSize(2);
+        assertThat(this.primary.created.get(0).executed).containsExactly("SELECT 1");
+    }
+
+    @Test
+    void shouldReleaseReplicaIfCreationCompletesEmpty() {
+
+        Replica replica = new Replica(new ConnectionFactory() {
+
+            @Override
+            public Publisher<Connection> create() {
+                return TestConnection.empty();
+            }
+
+            @Override
+            public ConnectionFactoryMetadata getMetadata() {
+                return () -> "test";
+            }
+        }, 2, 0);
+
+        CollectingSubscriber<Connection> subscriber = CollectingSubscriber.subscribe(replica.create());
+
+        assertThat(subscriber.completed).isTrue();
+        assertThat(replica.getOutstanding()).isEqualTo(0);
+    }
+
+    private TestConnection replicaConnection() {
+        return this.replica1.created.isEmpty() ? this.replica2.created.get(0) : this.replica1.created.get(0);
+    }
+
+    private static Connection single(Publisher<? extends Connection> publisher) {
+
+        CollectingSubscriber<Connection> subscriber = new CollectingSubscriber<>();
+        publisher.subscribe(subscriber);
+
+        assertThat(subscriber.items).hasSize(1);
+        return subscriber.items.get(0);
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.reactivestreams.Publisher;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link ConnectionFactory} test fixture creating {@link TestConnection}s.
+ */
+final class TestConnectionFactory implements ConnectionFactory {
+
+    final List<TestConnection> created = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Publisher<Connection> create() {
+        return subscriber -> {
+            TestConnection connection = new TestConnection();
+            this.created.add(connection);
+            TestConnection.<Connection>just(connection).subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return () -> "test";
+    }
+
+}
@@ -0,0 +1 @@
+memberSearchIndex = [{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory.Builder","l":"build()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory.Builder","l":"build()"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory.Builder","l":"build()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"builder()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"builder(ConnectionFactory)","u":"builder(io.r2dbc.spi.ConnectionFactory)"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory","l":"builder(ConnectionFactory)","u":"builder(io.r2dbc.spi.ConnectionFactory)"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"close()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"close()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory.Builder","l":"connectTimeout(Duration)","u":"connectTimeout(java.time.Duration)"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"create()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"create()"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory","l":"create()"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory","l":"createReadOnly()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"DEFAULT_CONNECT_TIMEOUT"},{"p":"io.r2dbc.spi.routing","c":"HostSelector","l":"DEFAULT_DECAY_TIME"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory","l":"DEFAULT_EJECTION_TIME"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"DEFAULT_MAX_EXTRA_LOAD"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory","l":"DEFAULT_MAX_VALIDATION_FAILURES"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"DEFAULT_PERCENTILE"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"DEFAULT_PROBE_INTERVAL"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"eject()"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory.Builder","l":"ejectionTime(Duration)","u":"ejectionTime(java.time.Duration)"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"end()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"from(ConnectionFactoryOptions)","u":"from(io.r2dbc.spi.ConnectionFactoryOptions)"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"getExecutionCount()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"getHedgeCount()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"getHedgeDelay()"},{"p":"io.r2dbc.spi.routing","c":"HostSelector","l":"getHosts()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"getHostSelector()"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"getLatency()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"getMetadata()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"getMetadata()"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory","l":"getMetadata()"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"getOutstanding()"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"getTarget()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory.Builder","l":"hedgeable(Predicate<String>)","u":"hedgeable(java.util.function.Predicate)"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory.Builder","l":"host(ConnectionFactory)","u":"host(io.r2dbc.spi.ConnectionFactory)"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"isEjected()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory.Builder","l":"maxExtraLoad(double)"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory.Builder","l":"maxValidationFailures(int)"},{"p":"io.r2dbc.spi.routing","c":"HostSelector","l":"of(Collection<? extends T>)","u":"of(java.util.Collection)"},{"p":"io.r2dbc.spi.routing","c":"HostSelector","l":"of(Collection<? extends T>, Duration)","u":"of(java.util.Collection,java.time.Duration)"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory.Builder","l":"percentile(double)"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory.Builder","l":"probeInterval(Duration)","u":"probeInterval(java.time.Duration)"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory.Builder","l":"readOnly()"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"record(long)"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory.Builder","l":"replica(ConnectionFactory)","u":"replica(io.r2dbc.spi.ConnectionFactory)"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"restore()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory.Builder","l":"scheduler(ScheduledExecutorService)","u":"scheduler(java.util.concurrent.ScheduledExecutorService)"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory.Builder","l":"scheduler(ScheduledExecutorService)","u":"scheduler(java.util.concurrent.ScheduledExecutorService)"},{"p":"io.r2dbc.spi.routing","c":"HostSelector","l":"select()"},{"p":"io.r2dbc.spi.routing","c":"HostSelector","l":"select(Collection<HostSelector.Host<T>>)","u":"select(java.util.Collection)"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"start()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory.Builder","l":"toString()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"toString()"},{"p":"io.r2dbc.spi.routing","c":"HostSelector.Host","l":"toString()"},{"p":"io.r2dbc.spi.routing","c":"HostSelector","l":"toString()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory.Builder","l":"toString()"},{"p":"io.r2dbc.spi.routing","c":"MultiHostConnectionFactory","l":"toString()"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory.Builder","l":"toString()"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory","l":"toString()"},{"p":"io.r2dbc.spi.routing","c":"HedgingConnectionFactory","l":"unwrap()"},{"p":"io.r2dbc.spi.routing","c":"RoutingConnectionFactory","l":"unwrap()"}];updateSearchResults();
\ No newline at end of file
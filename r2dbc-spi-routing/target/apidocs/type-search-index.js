@@ -0,0 +1 @@
+typeSearchIndex = [{"l":"All Classes and Interfaces","u":"allclasses-index.html"},{"p":"io.r2dbc.spi.routing","l":"HedgingConnectionFactory.Builder"},{"p":"io.r2dbc.spi.routing","l":"MultiHostConnectionFactory.Builder"},{"p":"io.r2dbc.spi.routing","l":"RoutingConnectionFactory.Builder"},{"p":"io.r2dbc.spi.routing","l":"HedgingConnectionFactory"},{"p":"io.r2dbc.spi.routing","l":"HostSelector.Host"},{"p":"io.r2dbc.spi.routing","l":"HostSelector"},{"p":"io.r2dbc.spi.routing","l":"MultiHostConnectionFactory"},{"p":"io.r2dbc.spi.routing","l":"RoutingConnectionFactory"}];updateSearchResults();
\ No newline at end of file
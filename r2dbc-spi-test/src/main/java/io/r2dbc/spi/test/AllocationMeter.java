@@ -0,0 +1,197 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utility to measure heap allocations using {@link com.sun.management.ThreadMXBean thread allocation counters}.  Measurements sum up the bytes allocated by all live threads, so allocations on
+ * driver I/O threads are included.  Allocations of threads that terminate during a measurement are not included.  Measurements should not run concurrently with other tests.
+ *
+ * @since 1.0.1
+ */
+public abstract class AllocationMeter {
+
+    @Nullable
+    private static final com.sun.management.ThreadMXBean THREADS = getThreadMXBean();
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Returns whether the JVM supports measuring thread allocations.
+     *
+     * @return {@code true} if the JVM supports measuring thread allocations
+     */
+    public static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * Runs {@code action} once to warm up (class loading, lazy initialization) and measures the bytes allocated by a second run.
+     *
+     * @param name   the name of the measurement
+     * @param unit   the unit of the items processed by {@code action}, e.g. {@code rows}
+     * @param count  the number of items processed by {@code action}
+     * @param action the action to measure
+     * @return the {@link Measurement}
+     * @throws IllegalArgumentException if {@code name}, {@code unit} or {@code action} is {@code null}
+     * @throws UnsupportedOperationException if the JVM does not support measuring thread allocations
+     */
+    public static Measurement measure(String name, String unit, long count, Runnable action) {
+
+        Assert.requireNonNull(name, "name must not be null");
+        Assert.requireNonNull(unit, "unit must not be null");
+        Assert.requireNonNull(action, "action must not be null");
+
+        com.sun.management.ThreadMXBean threads = THREADS;
+
+        if (threads == null) {
+            throw new UnsupportedOperationException("Thread allocation measurement is not supported by this JVM");
+        }
+
+        action.run();
+
+        long[] ids = threads.getAllThreadIds();
+        long[] before = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> baseline = new HashMap<>(ids.length * 2);
+
+        for (int i = 0; i < ids.length; i++) {
+            baseline.put(ids[i], before[i]);
+        }
+
+        action.run();
+
+        ids = threads.getAllThreadIds();
+        long[] after = threads.getThreadAllocatedBytes(ids);
+        long allocated = 0;
+
+        for (int i = 0; i < ids.length; i++) {
+
+            if (after[i] < 0) {
+                continue;
+            }
+
+            Long previous = baseline.get(ids[i]);
+            allocated += after[i] - (previous == null || previous < 0 ? 0 : previous);
+        }
+
+        return new Measurement(name, unit, count, allocated);
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+
+        if (!allocations.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+
+        if (!allocations.isThreadAllocatedMemoryEnabled()) {
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        return allocations;
+    }
+
+    /**
+     * Bytes allocated while processing a number of items.
+     */
+    public static final class Measurement {
+
+        private final String name;
+
+        private final String unit;
+
+        private final long count;
+
+        private final long allocatedBytes;
+
+        Measurement(String name, String unit, long count, long allocatedBytes) {
+            this.name = name;
+            this.unit = unit;
+            this.count = count;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * Returns the name of the measurement.
+         *
+         * @return the name of the measurement
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the unit of the processed items.
+         *
+         * @return the unit of the processed items
+         */
+        public String getUnit() {
+            return this.unit;
+        }
+
+        /**
+         * Returns the number of processed items.
+         *
+         * @return the number of processed items
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Returns the total number of allocated bytes.
+         *
+         * @return the total number of allocated bytes
+         */
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        /**
+         * Returns the number of allocated bytes per processed item.
+         *
+         * @return the number of allocated bytes per processed item.  {@code 0} if no items were processed.
+         */
+        public double getBytesPerUnit() {
+            return this.count == 0 ? 0 : (double) this.allocatedBytes / this.count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d bytes for %d %s (%.1f bytes per %s)", this.name, this.allocatedBytes, this.count, this.unit, getBytesPerUnit(), singular(this.unit));
+        }
+
+        private static String singular(String unit) {
+            return unit.endsWith("s") ? unit.substring(0, unit.length() - 1) : unit;
+        }
+
+    }
+
+}
@@ -41,4 +41,20 @@ abstract class Assert {
         return t;
     }
 
+    /**
+     * Checks that a specified value is not negative and throws a customized {@link IllegalArgumentException} if it is.
+     *
+     * @param value   the value to check
+     * @param message the detail message to be used in the event that an {@link IllegalArgumentException} is thrown
+     * @return {@code value} if not negative
+     * @throws IllegalArgumentException if {@code value} is negative
+     */
+    static long requireNonNegative(long value, String message) {
+        if (value < 0) {
+            throw new IllegalArgumentException(message);
+        }
+
+        return value;
+    }
+
 }
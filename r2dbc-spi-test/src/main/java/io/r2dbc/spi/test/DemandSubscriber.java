@@ -0,0 +1,423 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.test;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link Subscriber} that exercises a {@link Publisher} with controlled demand and records violations of the Reactive Streams specification.  Recorded violations are:
+ *
+ * <ul>
+ *     <li>Rule 1.1: more {@code onNext} signals than requested.</li>
+ *     <li>Rule 1.3: signals that are not serialized.</li>
+ *     <li>Rule 1.7: signals after {@code onComplete} or {@code onError}.</li>
+ *     <li>Rule 1.9: signals before {@code onSubscribe} and more than one {@code onSubscribe} call.</li>
+ * </ul>
+ * <p>Demand is issued from the test thread through {@link #request(long)} and {@link #drain(int, Runnable)} while signals may arrive on any thread.
+ *
+ * @param <T> the type of element signaled
+ */
+final class DemandSubscriber<T> implements Subscriber<T> {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    static final Duration QUIET_PERIOD = Duration.ofMillis(100);
+
+    static final int BATCH_SIZE = 16;
+
+    private final boolean collect;
+
+    private final List<T> items = new CopyOnWriteArrayList<>();
+
+    private final List<String> violations = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final Object monitor = new Object();
+
+    @Nullable
+    private volatile Subscription subscription;
+
+    private volatile long requested;
+
+    private volatile long received;
+
+    private volatile long cancelAfter = Long.MAX_VALUE;
+
+    private volatile boolean completed;
+
+    @Nullable
+    private volatile Throwable error;
+
+    /**
+     * Creates a new {@link DemandSubscriber}.
+     *
+     * @param collect whether to retain received items.  Retaining items is not desirable when measuring heap usage.
+     */
+    DemandSubscriber(boolean collect) {
+        this.collect = collect;
+    }
+
+    /**
+     * Subscribes to {@code publisher} and requests one item after another until the publisher terminates or {@link #TIMEOUT} elapses.
+     *
+     * @param publisher the publisher to drain
+     * @param <T>       the type of element signaled
+     * @return the {@link DemandSubscriber} holding received items and recorded violations
+     */
+    static <T> DemandSubscriber<T> drain(Publisher<T> publisher) {
+        return drain(publisher, item -> {
+        });
+    }
+
+    /**
+     * Subscribes to {@code publisher} and requests one item after another until the publisher terminates or {@link #TIMEOUT} elapses.  Each item is passed to {@code consumer} before requesting
+     * the next item so that items such as {@link io.r2dbc.spi.Result}s can be consumed in order.
+     *
+     * @param publisher the publisher to drain
+     * @param consumer  consumer for each received item
+     * @param <T>       the type of element signaled
+     * @return the {@link DemandSubscriber} holding received items and recorded violations
+     */
+    static <T> DemandSubscriber<T> drain(Publisher<T> publisher, Consumer<? super T> consumer) {
+
+        DemandSubscriber<T> subscriber = new DemandSubscriber<>(true);
+        int[] consumed = new int[1];
+
+        publisher.subscribe(subscriber);
+        subscriber.drain(1, () -> {
+
+            while (consumed[0] < subscriber.items.size()) {
+                consumer.accept(subscriber.items.get(consumed[0]++));
+            }
+        });
+
+        return subscriber;
+    }
+
+    /**
+     * Drains {@code publisher} and asserts that it emits a single item.
+     *
+     * @param publisher   the publisher to drain
+     * @param description description of the publisher to use in assertion messages
+     * @param <T>         the type of element signaled
+     * @return the emitted item
+     */
+    static <T> T single(Publisher<T> publisher, String description) {
+
+        List<T> items = drain(publisher).verifyComplete(description);
+
+        assertEquals(1, items.size(), () -> String.format("%s should emit a single item", description));
+
+        return items.get(0);
+    }
+
+    /**
+     * Subscribes to {@code publisher} and issues tiny demand: one item, then two items and then {@value #BATCH_SIZE} items at a time.  Waits for {@link #QUIET_PERIOD} after the first two
+     * requests to give a publisher that ignores demand the opportunity to over-deliver.
+     *
+     * @param publisher   the publisher to verify
+     * @param description description of the publisher to use in assertion messages
+     * @param <T>         the type of element signaled
+     * @return the received items
+     */
+    static <T> List<T> verifyDemand(Publisher<T> publisher, String description) {
+
+        DemandSubscriber<T> subscriber = new DemandSubscriber<>(true);
+        publisher.subscribe(subscriber);
+
+        assertTrue(subscriber.awaitSubscription(TIMEOUT), () -> String.format("Rule 1.9: %s did not call onSubscribe", description));
+
+        long expected = 0;
+
+        for (int n = 1; n <= 2 && !subscriber.isTerminated(); n++) {
+
+            expected += n;
+            subscriber.request(n);
+            subscriber.awaitItems(expected, TIMEOUT);
+            subscriber.awaitItems(expected + 1, QUIET_PERIOD);
+
+            long received = subscriber.getReceived();
+            assertTrue(received <= expected, () -> String.format("Rule 1.1: %s emitted %d items after requesting only %d items", description, received, subscriber.requested));
+        }
+
+        subscriber.drain(BATCH_SIZE, () -> {
+        });
+
+        return subscriber.verifyComplete(description);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+
+        enter("onSubscribe");
+
+        if (this.subscription != null) {
+            this.violations.add("Rule 1.9: onSubscribe called more than once");
+            s.cancel();
+        } else {
+            this.subscription = s;
+        }
+
+        leave();
+        signalMonitor();
+    }
+
+    @Override
+    public void onNext(T t) {
+
+        enter("onNext");
+        checkSignal("onNext");
+
+        long received = this.received + 1;
+
+        if (received > this.requested) {
+            this.violations.add(String.format("Rule 1.1: onNext signaled %d items while only %d items were requested", received, this.requested));
+        }
+
+        if (this.collect) {
+            this.items.add(t);
+        }
+
+        this.received = received;
+
+        if (received == this.cancelAfter) {
+            getSubscription().cancel();
+        }
+
+        leave();
+        signalMonitor();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+
+        enter("onError");
+        checkSignal("onError");
+        this.error = t;
+        leave();
+        signalMonitor();
+    }
+
+    @Override
+    public void onComplete() {
+
+        enter("onComplete");
+        checkSignal("onComplete");
+        this.completed = true;
+        leave();
+        signalMonitor();
+    }
+
+    /**
+     * Requests {@code n} items from the upstream subscription.
+     *
+     * @param n the number of items to request
+     * @throws IllegalStateException if the publisher did not call {@link #onSubscribe(Subscription)}
+     */
+    void request(long n) {
+
+        synchronized (this.monitor) {
+            long requested = this.requested + n;
+            this.requested = requested < 0 ? Long.MAX_VALUE : requested;
+        }
+
+        getSubscription().request(n);
+    }
+
+    /**
+     * Cancels the upstream subscription.
+     *
+     * @throws IllegalStateException if the publisher did not call {@link #onSubscribe(Subscription)}
+     */
+    void cancel() {
+        getSubscription().cancel();
+    }
+
+    /**
+     * Cancels the upstream subscription from within {@link #onNext(Object)} once {@code count} items were received.
+     *
+     * @param count the number of items after which to cancel
+     */
+    void cancelAfter(long count) {
+        this.cancelAfter = count;
+    }
+
+    /**
+     * Requests {@code batchSize} items at a time and waits until the batch was received before requesting the next batch.  Draining stops when the publisher terminates or {@link #TIMEOUT}
+     * elapses.
+     *
+     * @param batchSize  the number of items to request at a time
+     * @param afterBatch callback invoked after each received batch
+     */
+    void drain(int batchSize, Runnable afterBatch) {
+
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+
+        if (!awaitSubscription(Duration.ofNanos(deadline - System.nanoTime()))) {
+            this.violations.add(String.format("Rule 1.9: Publisher did not call onSubscribe within %s", TIMEOUT));
+            return;
+        }
+
+        while (!isTerminated()) {
+
+            long expected = this.received + batchSize;
+            request(batchSize);
+
+            if (!awaitItems(expected, Duration.ofNanos(deadline - System.nanoTime()))) {
+                this.violations.add(String.format("Publisher did not terminate within %s", TIMEOUT));
+                cancel();
+                return;
+            }
+
+            afterBatch.run();
+        }
+    }
+
+    /**
+     * Waits until the publisher called {@link #onSubscribe(Subscription)}.
+     *
+     * @param timeout the maximum time to wait
+     * @return {@code true} if the publisher called {@link #onSubscribe(Subscription)}; {@code false} if the timeout elapsed
+     */
+    boolean awaitSubscription(Duration timeout) {
+        return await(() -> this.subscription != null, timeout);
+    }
+
+    /**
+     * Waits until at least {@code count} items were received or the publisher terminated.
+     *
+     * @param count   the number of items to wait for
+     * @param timeout the maximum time to wait
+     * @return {@code true} if {@code count} items were received or the publisher terminated; {@code false} if the timeout elapsed
+     */
+    boolean awaitItems(long count, Duration timeout) {
+        return await(() -> this.received >= count || isTerminated(), timeout);
+    }
+
+    /**
+     * Asserts that the publisher completed without violating the Reactive Streams specification.
+     *
+     * @param description description of the publisher to use in assertion messages, e.g. {@code Statement.execute()}
+     * @return the received items
+     */
+    List<T> verifyComplete(String description) {
+
+        Throwable error = this.error;
+
+        assertTrue(this.violations.isEmpty(), () -> String.format("%s violated the Reactive Streams specification: %s", description, this.violations));
+        assertTrue(error == null, () -> String.format("%s failed with %s", description, error));
+        assertTrue(this.completed, () -> String.format("%s did not complete", description));
+
+        return new ArrayList<>(this.items);
+    }
+
+    List<T> getItems() {
+        return this.items;
+    }
+
+    List<String> getViolations() {
+        return this.violations;
+    }
+
+    long getReceived() {
+        return this.received;
+    }
+
+    boolean isTerminated() {
+        return this.completed || this.error != null;
+    }
+
+    private Subscription getSubscription() {
+
+        Subscription subscription = this.subscription;
+
+        if (subscription == null) {
+            throw new IllegalStateException("Publisher did not call onSubscribe");
+        }
+
+        return subscription;
+    }
+
+    private void enter(String signal) {
+        if (this.wip.getAndIncrement() != 0) {
+            this.violations.add(String.format("Rule 1.3: %s signaled concurrently with another signal", signal));
+        }
+    }
+
+    private void leave() {
+        this.wip.decrementAndGet();
+    }
+
+    private void checkSignal(String signal) {
+
+        if (this.subscription == null) {
+            this.violations.add(String.format("Rule 1.9: %s signaled before onSubscribe", signal));
+        }
+
+        if (isTerminated()) {
+            this.violations.add(String.format("Rule 1.7: %s signaled after the publisher terminated", signal));
+        }
+    }
+
+    private boolean await(BooleanSupplier condition, Duration timeout) {
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        synchronized (this.monitor) {
+
+            while (!condition.getAsBoolean()) {
+
+                long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this.monitor, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void signalMonitor() {
+        synchronized (this.monitor) {
+            this.monitor.notifyAll();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Tracks the retained heap while consuming a stream.  The retained heap is the used heap after requesting a garbage collection so that the watermark reflects objects that are still referenced (e.g.
+ * buffered rows) rather than garbage.  The watermark is sampled each time {@link #record(long) recorded} items cross a multiple of the sample interval.  Recording is not thread-safe and is expected
+ * to happen from a single consumer.
+ */
+final class HeapWatermark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final long sampleInterval;
+
+    private final long baseline;
+
+    private long count;
+
+    private long nextSample;
+
+    private volatile long peak;
+
+    private HeapWatermark(long sampleInterval, long baseline) {
+        this.sampleInterval = sampleInterval;
+        this.baseline = baseline;
+        this.nextSample = sampleInterval;
+        this.peak = baseline;
+    }
+
+    /**
+     * Creates a new {@link HeapWatermark} using the current retained heap as baseline.
+     *
+     * @param sampleInterval number of recorded items between two samples
+     * @return the {@link HeapWatermark}
+     * @throws IllegalArgumentException if {@code sampleInterval} is less than {@code 1}
+     */
+    static HeapWatermark start(long sampleInterval) {
+
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("sampleInterval must be greater than zero");
+        }
+
+        return new HeapWatermark(sampleInterval, retained());
+    }
+
+    /**
+     * Records consumed items and samples the retained heap if the count crossed the next sample interval.
+     *
+     * @param amount the number of consumed items, e.g. one row or the number of bytes of a chunk
+     */
+    void record(long amount) {
+
+        this.count += amount;
+
+        if (this.count >= this.nextSample) {
+            this.nextSample = (this.count / this.sampleInterval + 1) * this.sampleInterval;
+            this.peak = Math.max(this.peak, retained());
+        }
+    }
+
+    /**
+     * Returns the number of recorded items.
+     *
+     * @return the number of recorded items
+     */
+    long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the maximum growth of the retained heap over the baseline across all samples.
+     *
+     * @return the retained heap growth in bytes
+     */
+    long getGrowth() {
+        return Math.max(0, this.peak - this.baseline);
+    }
+
+    private static long retained() {
+
+        MEMORY.gc();
+        MEMORY.gc();
+
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+}
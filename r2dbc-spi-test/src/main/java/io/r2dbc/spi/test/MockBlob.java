@@ -28,12 +28,15 @@ import java.util.stream.Stream;
 
 public final class MockBlob implements Blob {
 
+    private final List<ByteBuffer> items;
+
     private final Flux<ByteBuffer> stream;
 
     private boolean discardCalled = false;
 
-    private MockBlob(Flux<ByteBuffer> stream) {
-        this.stream = Assert.requireNonNull(stream, "stream must not be null");
+    private MockBlob(List<ByteBuffer> items) {
+        this.items = Assert.requireNonNull(items, "items must not be null");
+        this.stream = Flux.fromIterable(items);
     }
 
     public static MockBlob.Builder builder() {
@@ -54,11 +57,46 @@ public final class MockBlob implements Blob {
         return this.discardCalled;
     }
 
+    @Override
+    public Mono<Long> length() {
+        return Mono.fromSupplier(() -> this.items.stream().mapToLong(ByteBuffer::remaining).sum());
+    }
+
     @Override
     public Publisher<ByteBuffer> stream() {
         return this.stream;
     }
 
+    @Override
+    public Flux<ByteBuffer> stream(long offset, long length) {
+        Assert.requireNonNegative(offset, "offset must not be negative");
+        Assert.requireNonNegative(length, "length must not be negative");
+
+        return Flux.defer(() -> {
+
+            List<ByteBuffer> slices = new ArrayList<>();
+            long position = 0;
+            long end = length > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + length;
+
+            for (ByteBuffer item : this.items) {
+
+                long itemStart = position;
+                position += item.remaining();
+
+                if (position <= offset || itemStart >= end) {
+                    continue;
+                }
+
+                ByteBuffer slice = item.duplicate();
+                slice.limit(item.position() + (int) (Math.min(position, end) - itemStart));
+                slice.position(item.position() + (int) Math.max(0, offset - itemStart));
+                slices.add(slice.slice());
+            }
+
+            return Flux.fromIterable(slices);
+        });
+    }
+
     @Override
     public String toString() {
         return "MockBlob{" +
@@ -75,7 +113,7 @@ public final class MockBlob implements Blob {
         }
 
         public MockBlob build() {
-            return new MockBlob(Flux.fromIterable(this.items));
+            return new MockBlob(new ArrayList<>(this.items));
         }
 
         public MockBlob.Builder item(ByteBuffer... items) {
@@ -27,12 +27,15 @@ import java.util.stream.Stream;
 
 public final class MockClob implements Clob {
 
+    private final List<CharSequence> items;
+
     private final Flux<CharSequence> stream;
 
     private boolean discardCalled = false;
 
-    private MockClob(Flux<CharSequence> stream) {
-        this.stream = Assert.requireNonNull(stream, "stream must not be null");
+    private MockClob(List<CharSequence> items) {
+        this.items = Assert.requireNonNull(items, "items must not be null");
+        this.stream = Flux.fromIterable(items);
     }
 
     public static MockClob.Builder builder() {
@@ -53,11 +56,43 @@ public final class MockClob implements Clob {
         return this.discardCalled;
     }
 
+    @Override
+    public Mono<Long> length() {
+        return Mono.fromSupplier(() -> this.items.stream().mapToLong(CharSequence::length).sum());
+    }
+
     @Override
     public Publisher<CharSequence> stream() {
         return this.stream;
     }
 
+    @Override
+    public Flux<CharSequence> stream(long offset, long length) {
+        Assert.requireNonNegative(offset, "offset must not be negative");
+        Assert.requireNonNegative(length, "length must not be negative");
+
+        return Flux.defer(() -> {
+
+            List<CharSequence> slices = new ArrayList<>();
+            long position = 0;
+            long end = length > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + length;
+
+            for (CharSequence item : this.items) {
+
+                long itemStart = position;
+                position += item.length();
+
+                if (position <= offset || itemStart >= end) {
+                    continue;
+                }
+
+                slices.add(item.subSequence((int) Math.max(0, offset - itemStart), (int) (Math.min(position, end) - itemStart)));
+            }
+
+            return Flux.fromIterable(slices);
+        });
+    }
+
     @Override
     public String toString() {
         return "MockClob{" +
@@ -74,7 +109,7 @@ public final class MockClob implements Clob {
         }
 
         public MockClob build() {
-            return new MockClob(Flux.fromIterable(this.items));
+            return new MockClob(new ArrayList<>(this.items));
         }
 
         public Builder item(CharSequence... items) {
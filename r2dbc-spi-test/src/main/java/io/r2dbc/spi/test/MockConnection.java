@@ -18,6 +18,7 @@ package io.r2dbc.spi.test;
 
 import io.r2dbc.spi.Connection;
 import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.ConnectionState;
 import io.r2dbc.spi.IsolationLevel;
 import io.r2dbc.spi.TransactionDefinition;
 import io.r2dbc.spi.ValidationDepth;
@@ -34,6 +35,8 @@ public final class MockConnection implements Connection {
 
     private boolean autoCommit = true;
 
+    private boolean autoCommitDirty = false;
+
     private boolean beginTransactionCalled = false;
 
     private boolean closeCalled = false;
@@ -54,10 +57,16 @@ public final class MockConnection implements Connection {
 
     private Duration lockWaitTimeout;
 
+    private boolean lockWaitTimeoutDirty = false;
+
     private Duration statementTimeout = Duration.ZERO;
 
+    private boolean statementTimeoutDirty = false;
+
     private IsolationLevel setTransactionIsolationLevelIsolationLevel;
 
+    private boolean transactionIsolationLevelDirty = false;
+
     private boolean valid;
 
     private boolean validateCalled;
@@ -155,6 +164,16 @@ public final class MockConnection implements Connection {
         return MockConnectionMetadata.INSTANCE;
     }
 
+    @Override
+    public ConnectionState getState() {
+        return ConnectionState.builder()
+            .autoCommit(this.autoCommit)
+            .transactionIsolationLevel(this.setTransactionIsolationLevelIsolationLevel)
+            .statementTimeout(this.statementTimeout)
+            .lockWaitTimeout(this.lockWaitTimeout)
+            .build();
+    }
+
     public TransactionDefinition getBeginTransactionDefinition() {
         return this.beginTransactionDefinition;
     }
@@ -175,6 +194,10 @@ public final class MockConnection implements Connection {
         return this.autoCommit;
     }
 
+    public boolean isAutoCommitDirty() {
+        return this.autoCommitDirty;
+    }
+
     public boolean isBeginTransactionCalled() {
         return this.beginTransactionCalled;
     }
@@ -187,10 +210,22 @@ public final class MockConnection implements Connection {
         return this.commitTransactionCalled;
     }
 
+    public boolean isLockWaitTimeoutDirty() {
+        return this.lockWaitTimeoutDirty;
+    }
+
     public boolean isRollbackTransactionCalled() {
         return this.rollbackTransactionCalled;
     }
 
+    public boolean isStatementTimeoutDirty() {
+        return this.statementTimeoutDirty;
+    }
+
+    public boolean isTransactionIsolationLevelDirty() {
+        return this.transactionIsolationLevelDirty;
+    }
+
     public boolean isValidateCalled() {
         return this.validateCalled;
     }
@@ -216,6 +251,7 @@ public final class MockConnection implements Connection {
     @Override
     public Publisher<Void> setAutoCommit(boolean autoCommit) {
         this.autoCommit = autoCommit;
+        this.autoCommitDirty = true;
         return Mono.empty();
     }
 
@@ -227,6 +263,7 @@ public final class MockConnection implements Connection {
     @Override
     public Publisher<Void> setLockWaitTimeout(Duration timeout) {
         this.lockWaitTimeout = timeout;
+        this.lockWaitTimeoutDirty = true;
         return Mono.empty();
     }
 
@@ -237,12 +274,14 @@ public final class MockConnection implements Connection {
     @Override
     public Publisher<Void> setStatementTimeout(Duration timeout) {
         this.statementTimeout = timeout;
+        this.statementTimeoutDirty = true;
         return Mono.empty();
     }
 
     @Override
     public Mono<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
         this.setTransactionIsolationLevelIsolationLevel = Assert.requireNonNull(isolationLevel, "isolation level must not be null");
+        this.transactionIsolationLevelDirty = true;
         return Mono.empty();
     }
 
@@ -258,6 +297,8 @@ public final class MockConnection implements Connection {
         return "MockConnection{" +
             "batch=" + this.batch +
             ", statement=" + this.statement +
+            ", autoCommit=" + this.autoCommit +
+            ", autoCommitDirty=" + this.autoCommitDirty +
             ", beginTransactionCalled=" + this.beginTransactionCalled +
             ", closeCalled=" + this.closeCalled +
             ", commitTransactionCalled=" + this.commitTransactionCalled +
@@ -267,8 +308,11 @@ public final class MockConnection implements Connection {
             ", rollbackTransactionCalled=" + this.rollbackTransactionCalled +
             ", rollbackTransactionToSavepointName='" + this.rollbackTransactionToSavepointName + '\'' +
             ", setLockWaitTimeout=" + this.lockWaitTimeout +
+            ", lockWaitTimeoutDirty=" + this.lockWaitTimeoutDirty +
             ", setStatementTimeout=" + this.statementTimeout +
+            ", statementTimeoutDirty=" + this.statementTimeoutDirty +
             ", setTransactionIsolationLevelIsolationLevel=" + this.setTransactionIsolationLevelIsolationLevel +
+            ", transactionIsolationLevelDirty=" + this.transactionIsolationLevelDirty +
             ", valid=" + this.valid +
             ", validateCalled=" + this.validateCalled +
             ", validationDepth=" + this.validationDepth +
@@ -0,0 +1,560 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi.test;
+
+import io.r2dbc.spi.Blob;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.support.AbstractLobCreatingPreparedStatementCallback;
+import org.springframework.jdbc.support.lob.DefaultLobHandler;
+import org.springframework.jdbc.support.lob.LobCreator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.util.Loggers;
+
+import java.io.ByteArrayInputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * R2DBC performance conformance suite to evaluate a driver.  While {@link TestKit} verifies functional behavior, this suite verifies that a driver streams results and large objects without
+ * buffering them as a whole, honors {@link Statement#fetchSize(int)} when the subscriber is slow and reaches a minimal throughput for bulk inserts and pipelined statements.  The suite creates and
+ * removes its tables before and after each test using JUnit lifecycle hooks (see {@link #createPerformanceTables()} and {@link #dropPerformanceTables()}).
+ * <p>Each test {@link #report(Measurement) reports} a {@link Measurement} with throughput numbers.  Tests fail on pathological behavior only, such as a retained heap that grows with the size of the
+ * result, so the suite can run on shared build infrastructure.  Functionality that is not supported by a driver should exclude the individual tests by using {@link Disabled @Disabled}.
+ * Implementors need to provide the following methods:
+ *
+ * <ul>
+ *     <li>{@link #getConnectionFactory()}: Provide the {@link ConnectionFactory} under test.</li>
+ *     <li>{@link #getPlaceholder(int)}: Return an parameter placeholder for the {@code n}th argument. Arguments start at zero.</li>
+ *     <li>{@link #getIdentifier(int)}: Return an identifier for the {@code n}th argument. Arguments start at zero.</li>
+ *     <li>{@link #getJdbcOperations}: Return a handle to {@link JdbcOperations} configured to the same data source as {@link #getConnectionFactory()}. Used for test fixture setup/teardown.</li>
+ * </ul>
+ *
+ * <p>The following customization hooks can be overridden to adapt the suite to a specific database or environment:
+ * <ul>
+ *    <li>{@link #doGetSql(PerformanceStatement)}: Return the SQL statement for a specific {@link PerformanceStatement}.</li>
+ *    <li>{@link #largeResultRowCount()}, {@link #slowSubscriberRowCount()}, {@link #bulkInsertRowCount()}, {@link #pipelinedStatementCount()} and {@link #lobSize()}: Size of the workloads.</li>
+ *    <li>{@link #maxRetainedHeap()} and {@link #minBulkInsertThroughput()}: Thresholds for pathological behavior.</li>
+ *    <li>{@link #report(Measurement)}: Consume measurements, e.g. to collect them in a report.  Measurements are logged by default.</li>
+ * </ul>
+ * <p>Retained heap is measured by requesting garbage collections while consuming a stream.  Running the suite with a collector that ignores {@link System#gc()} disables heap assertions in effect.
+ *
+ * @param <T> type of parameter placeholder identifiers, see {@link #getIdentifier(int)}.
+ * @since 1.0.1
+ */
+public interface PerformanceTestKit<T> {
+
+    /**
+     * Customization hook: Returns the number of rows to stream in {@link #streamLargeResult()}.
+     *
+     * @return the number of rows to stream
+     */
+    default int largeResultRowCount() {
+        return 1_000_000;
+    }
+
+    /**
+     * Customization hook: Returns the number of rows to stream to a slow subscriber in {@link #fetchSizeWithSlowSubscriber()}.
+     *
+     * @return the number of rows to stream
+     */
+    default int slowSubscriberRowCount() {
+        return 100_000;
+    }
+
+    /**
+     * Customization hook: Returns the fetch size to apply to queries and the demand of subscribers.
+     *
+     * @return the fetch size
+     */
+    default int fetchSize() {
+        return 100;
+    }
+
+    /**
+     * Customization hook: Returns the number of rows to insert in {@link #bulkInsertThroughput()}.
+     *
+     * @return the number of rows to insert
+     */
+    default int bulkInsertRowCount() {
+        return 10_000;
+    }
+
+    /**
+     * Customization hook: Returns the number of parameter bindings per {@link Statement} in {@link #bulkInsertThroughput()}.
+     *
+     * @return the number of bindings per statement
+     */
+    default int bulkInsertBatchSize() {
+        return 1_000;
+    }
+
+    /**
+     * Customization hook: Returns the number of statements to run sequentially and pipelined in {@link #pipelinedStatementLatency()}.
+     *
+     * @return the number of statements
+     */
+    default int pipelinedStatementCount() {
+        return 500;
+    }
+
+    /**
+     * Customization hook: Returns the size of the large object in bytes to stream in {@link #lobStreamingWithoutBuffering()}.
+     *
+     * @return the size of the large object in bytes
+     */
+    default int lobSize() {
+        return 32 * 1024 * 1024;
+    }
+
+    /**
+     * Customization hook: Returns the maximum growth of the retained heap in bytes while streaming results.  Large objects are additionally bounded by half of their {@link #lobSize() size}.
+     *
+     * @return the maximum retained heap growth in bytes
+     */
+    default long maxRetainedHeap() {
+        return 16 * 1024 * 1024;
+    }
+
+    /**
+     * Customization hook: Returns the minimum number of rows per second that {@link #bulkInsertThroughput()} must reach.
+     *
+     * @return the minimum throughput in rows per second
+     */
+    default double minBulkInsertThroughput() {
+        return 100;
+    }
+
+    /**
+     * Customization hook: Consumes a {@link Measurement} taken by a test.  The default implementation logs the measurement at {@code INFO} level using the logger of {@link PerformanceTestKit}.
+     * Override this method to collect measurements in a different way, e.g. by publishing them through a JUnit {@code TestReporter}.
+     *
+     * @param measurement the measurement
+     */
+    default void report(Measurement measurement) {
+        Loggers.getLogger(PerformanceTestKit.class).info(measurement.toString());
+    }
+
+    /**
+     * Obtain and expand SQL text for a {@link PerformanceStatement}. SQL retrieval can be customized by using {@link #doGetSql(PerformanceStatement)}.
+     *
+     * @param statement the performance statement
+     * @param args      parameters for {@link String#format} replacement.
+     * @return the expanded SQL query.
+     */
+    default String expand(PerformanceStatement statement, Object... args) {
+        return String.format(doGetSql(statement), args);
+    }
+
+    /**
+     * Customization hook to obtain a SQL text for a {@link PerformanceStatement}.
+     *
+     * @param statement the performance statement
+     * @return the SQL query.
+     */
+    default String doGetSql(PerformanceStatement statement) {
+        return statement.getSql();
+    }
+
+    @BeforeEach
+    default void createPerformanceTables() {
+        getJdbcOperations().execute(expand(PerformanceStatement.CREATE_TABLE));
+        getJdbcOperations().execute(expand(PerformanceStatement.CREATE_BLOB_TABLE));
+    }
+
+    @AfterEach
+    default void dropPerformanceTables() {
+        getJdbcOperations().execute(expand(PerformanceStatement.DROP_TABLE));
+        getJdbcOperations().execute(expand(PerformanceStatement.DROP_BLOB_TABLE));
+    }
+
+    /**
+     * Returns a {@link ConnectionFactory} for the connected database.
+     *
+     * @return a {@link ConnectionFactory} for the connected database
+     */
+    ConnectionFactory getConnectionFactory();
+
+    /**
+     * Returns the database-specific placeholder for a given substitution.
+     *
+     * @param index the zero-index number of the substitution
+     * @return the database-specific placeholder for a given substitution
+     */
+    String getPlaceholder(int index);
+
+    /**
+     * Returns the bind identifier for a given substitution.
+     *
+     * @param index the zero-index number of the substitution
+     * @return the bind identifier for a given substitution
+     */
+    T getIdentifier(int index);
+
+    /**
+     * Returns a {@link JdbcOperations} for the connected database.
+     *
+     * @return a {@link JdbcOperations} for the connected database
+     */
+    JdbcOperations getJdbcOperations();
+
+    @Test
+    default void streamLargeResult() {
+
+        int rows = largeResultRowCount();
+        HeapWatermark heap = HeapWatermark.start(Math.max(1, rows / 10));
+        long started = System.nanoTime();
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> Flux.from(connection.createStatement(expand(PerformanceStatement.SELECT_GENERATED_ROWS, rows)).fetchSize(fetchSize()).execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get(0)))
+                    .publishOn(Schedulers.single(), fetchSize())
+                    .doOnNext(value -> heap.record(1)),
+                Connection::close)
+            .then()
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        Measurement measurement = new Measurement("streamLargeResult", "rows", heap.getCount(), Duration.ofNanos(System.nanoTime() - started), heap.getGrowth());
+        report(measurement);
+
+        assertEquals(rows, measurement.getCount(), "all rows should be streamed");
+        assertTrue(measurement.getRetainedHeap() <= maxRetainedHeap(),
+            () -> String.format("retained heap grew by %d bytes while streaming %d rows, the result seems to be buffered", measurement.getRetainedHeap(), rows));
+    }
+
+    @Test
+    default void fetchSizeWithSlowSubscriber() {
+
+        int rows = slowSubscriberRowCount();
+        int fetchSize = fetchSize();
+        HeapWatermark heap = HeapWatermark.start(Math.max(fetchSize, rows / 10));
+        long started = System.nanoTime();
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> Flux.from(connection.createStatement(expand(PerformanceStatement.SELECT_GENERATED_ROWS, rows)).fetchSize(fetchSize).execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get(0)))
+                    .publishOn(Schedulers.single(), fetchSize)
+                    .doOnNext(value -> {
+
+                        if (heap.getCount() % fetchSize == 0) {
+                            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                        }
+
+                        heap.record(1);
+                    }),
+                Connection::close)
+            .then()
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        Measurement measurement = new Measurement("fetchSizeWithSlowSubscriber", "rows", heap.getCount(), Duration.ofNanos(System.nanoTime() - started), heap.getGrowth());
+        report(measurement);
+
+        assertEquals(rows, measurement.getCount(), "all rows should be streamed");
+        assertTrue(measurement.getRetainedHeap() <= maxRetainedHeap(),
+            () -> String.format("retained heap grew by %d bytes while a slow subscriber consumed %d rows with fetch size %d, the driver seems to read ahead of demand", measurement.getRetainedHeap(),
+                rows, fetchSize));
+    }
+
+    @Test
+    default void bulkInsertThroughput() {
+
+        int rows = bulkInsertRowCount();
+        int batchSize = Math.max(1, Math.min(rows, bulkInsertBatchSize()));
+        long started = System.nanoTime();
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> Flux.range(0, (rows + batchSize - 1) / batchSize)
+                    .concatMap(batch -> {
+
+                        Statement statement = connection.createStatement(expand(PerformanceStatement.INSERT_VALUES_PLACEHOLDER, getPlaceholder(0), getPlaceholder(1)));
+                        int from = batch * batchSize;
+                        int to = Math.min(rows, from + batchSize);
+
+                        for (int value = from; value < to; value++) {
+
+                            if (value != from) {
+                                statement.add();
+                            }
+
+                            TestKit.bind(statement, getIdentifier(0), value);
+                            TestKit.bind(statement, getIdentifier(1), "row-" + value);
+                        }
+
+                        return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+                    }),
+                Connection::close)
+            .then()
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        Measurement measurement = new Measurement("bulkInsertThroughput", "rows", rows, Duration.ofNanos(System.nanoTime() - started), -1);
+        report(measurement);
+
+        assertEquals(rows, (int) getJdbcOperations().queryForObject(expand(PerformanceStatement.COUNT_VALUES), Integer.class), "all rows should be inserted");
+        assertTrue(measurement.getThroughput() >= minBulkInsertThroughput(),
+            () -> String.format("bulk insert reached %.1f rows/s, expected at least %.1f rows/s", measurement.getThroughput(), minBulkInsertThroughput()));
+    }
+
+    @Test
+    default void pipelinedStatementLatency() {
+
+        int statements = pipelinedStatementCount();
+        long[] elapsed = new long[2];
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> Mono.fromRunnable(() -> elapsed[0] = System.nanoTime())
+                    .thenMany(Flux.range(0, statements).concatMap(value -> insertRow(connection, value)))
+                    .then(Mono.fromRunnable(() -> elapsed[0] = System.nanoTime() - elapsed[0]))
+                    .then(Mono.fromRunnable(() -> elapsed[1] = System.nanoTime()))
+                    .thenMany(Flux.range(statements, statements).flatMap(value -> insertRow(connection, value), statements))
+                    .then(Mono.fromRunnable(() -> elapsed[1] = System.nanoTime() - elapsed[1])),
+                Connection::close)
+            .then()
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        Measurement sequential = new Measurement("sequentialStatementLatency", "statements", statements, Duration.ofNanos(elapsed[0]), -1);
+        Measurement pipelined = new Measurement("pipelinedStatementLatency", "statements", statements, Duration.ofNanos(elapsed[1]), -1);
+        report(sequential);
+        report(pipelined);
+
+        assertEquals(statements * 2, (int) getJdbcOperations().queryForObject(expand(PerformanceStatement.COUNT_VALUES), Integer.class), "all statements should be executed");
+        assertTrue(pipelined.getElapsed().compareTo(sequential.getElapsed().multipliedBy(2).plusMillis(100)) <= 0,
+            () -> String.format("pipelined statements took %s compared to %s when run sequentially", pipelined.getElapsed(), sequential.getElapsed()));
+    }
+
+    @Test
+    default void lobStreamingWithoutBuffering() {
+
+        int size = lobSize();
+
+        getJdbcOperations().execute(expand(PerformanceStatement.INSERT_BLOB_VALUE_PLACEHOLDER, "?"), new AbstractLobCreatingPreparedStatementCallback(new DefaultLobHandler()) {
+
+            @Override
+            protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+                lobCreator.setBlobAsBinaryStream(ps, 1, new ByteArrayInputStream(new byte[size]), size);
+            }
+
+        });
+
+        HeapWatermark heap = HeapWatermark.start(Math.max(1, size / 8));
+        long started = System.nanoTime();
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> Flux.from(connection.createStatement(expand(PerformanceStatement.SELECT_BLOB_VALUE)).execute())
+                    .concatMap(result -> Flux.usingWhen(result.map((row, metadata) -> row.get(0, Blob.class)),
+                        blob -> Flux.from(blob.stream())
+                            .publishOn(Schedulers.single(), 4)
+                            .doOnNext(buffer -> heap.record(buffer.remaining())),
+                        Blob::discard)),
+                Connection::close)
+            .then()
+            .as(StepVerifier::create)
+            .verifyComplete();
+
+        Measurement measurement = new Measurement("lobStreamingWithoutBuffering", "bytes", heap.getCount(), Duration.ofNanos(System.nanoTime() - started), heap.getGrowth());
+        report(measurement);
+
+        long limit = Math.min(maxRetainedHeap(), size / 2);
+
+        assertEquals(size, measurement.getCount(), "all bytes should be streamed");
+        assertTrue(measurement.getRetainedHeap() <= limit,
+            () -> String.format("retained heap grew by %d bytes while streaming a %d bytes large object, the large object seems to be buffered", measurement.getRetainedHeap(), size));
+    }
+
+    /**
+     * Inserts a single row using a parametrized {@link PerformanceStatement#INSERT_VALUES_PLACEHOLDER} statement.
+     *
+     * @param connection the connection to use
+     * @param value      the value to insert
+     * @return publisher emitting the update count
+     */
+    default Publisher<Long> insertRow(Connection connection, int value) {
+
+        Statement statement = connection.createStatement(expand(PerformanceStatement.INSERT_VALUES_PLACEHOLDER, getPlaceholder(0), getPlaceholder(1)));
+        TestKit.bind(statement, getIdentifier(0), value);
+        TestKit.bind(statement, getIdentifier(1), "row-" + value);
+
+        return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+    }
+
+    /**
+     * A measurement taken by a {@link PerformanceTestKit} test.
+     */
+    final class Measurement {
+
+        private final String name;
+
+        private final String unit;
+
+        private final long count;
+
+        private final Duration elapsed;
+
+        private final long retainedHeap;
+
+        /**
+         * Creates a new {@link Measurement}.
+         *
+         * @param name         the name of the test
+         * @param unit         the unit of the counted items, e.g. {@code rows}
+         * @param count        the number of processed items
+         * @param elapsed      the elapsed time
+         * @param retainedHeap the retained heap growth in bytes.  {@code -1} if not measured.
+         * @throws IllegalArgumentException if {@code name}, {@code unit} or {@code elapsed} is {@code null}
+         */
+        public Measurement(String name, String unit, long count, Duration elapsed, long retainedHeap) {
+            this.name = Assert.requireNonNull(name, "name must not be null");
+            this.unit = Assert.requireNonNull(unit, "unit must not be null");
+            this.count = count;
+            this.elapsed = Assert.requireNonNull(elapsed, "elapsed must not be null");
+            this.retainedHeap = retainedHeap;
+        }
+
+        /**
+         * Returns the name of the test.
+         *
+         * @return the name of the test
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the unit of the counted items.
+         *
+         * @return the unit of the counted items
+         */
+        public String getUnit() {
+            return this.unit;
+        }
+
+        /**
+         * Returns the number of processed items.
+         *
+         * @return the number of processed items
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Returns the elapsed time.
+         *
+         * @return the elapsed time
+         */
+        public Duration getElapsed() {
+            return this.elapsed;
+        }
+
+        /**
+         * Returns the retained heap growth in bytes.
+         *
+         * @return the retained heap growth in bytes.  {@code -1} if not measured.
+         */
+        public long getRetainedHeap() {
+            return this.retainedHeap;
+        }
+
+        /**
+         * Returns the number of processed items per second.
+         *
+         * @return the number of processed items per second
+         */
+        public double getThroughput() {
+            long nanos = Math.max(1, this.elapsed.toNanos());
+            return this.count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+        }
+
+        /**
+         * Returns the mean time per processed item.
+         *
+         * @return the mean time per processed item
+         */
+        public Duration getMeanLatency() {
+            return this.count == 0 ? Duration.ZERO : this.elapsed.dividedBy(this.count);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d %s in %d ms (%.1f %s/s, mean %d us)%s", this.name, this.count, this.unit, this.elapsed.toMillis(), getThroughput(), this.unit,
+                TimeUnit.NANOSECONDS.toMicros(getMeanLatency().toNanos()), this.retainedHeap < 0 ? "" : String.format(", retained heap %d KiB", this.retainedHeap / 1024));
+        }
+
+    }
+
+    /**
+     * Enumeration of performance statements. Can be customized by overriding {@link #doGetSql(PerformanceStatement)}.
+     */
+    enum PerformanceStatement {
+
+        //-------------------------------------------------------------------------
+        // Methods dealing with a two-column table.
+        //-------------------------------------------------------------------------
+
+        CREATE_TABLE("CREATE TABLE perf_test ( test_value INTEGER, test_name VARCHAR(100) )"),
+        DROP_TABLE("DROP TABLE perf_test"),
+        INSERT_VALUES_PLACEHOLDER("INSERT INTO perf_test VALUES (%s, %s)"),
+        COUNT_VALUES("SELECT COUNT(*) FROM perf_test"),
+
+        //-------------------------------------------------------------------------
+        // Methods generating rows without a table. Expanded with the number of rows.
+        //-------------------------------------------------------------------------
+
+        SELECT_GENERATED_ROWS("WITH RECURSIVE numbers(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM numbers WHERE n < %d) SELECT n AS test_value FROM numbers"),
+
+        //-------------------------------------------------------------------------
+        // Methods dealing with a single-column BLOB table.
+        //-------------------------------------------------------------------------
+
+        CREATE_BLOB_TABLE("CREATE TABLE perf_blob_test ( test_value BLOB )"),
+        DROP_BLOB_TABLE("DROP TABLE perf_blob_test"),
+        INSERT_BLOB_VALUE_PLACEHOLDER("INSERT INTO perf_blob_test VALUES (%s)"),
+        SELECT_BLOB_VALUE("SELECT test_value FROM perf_blob_test");
+
+        private final String sql;
+
+        PerformanceStatement(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return this.sql;
+        }
+
+    }
+
+}
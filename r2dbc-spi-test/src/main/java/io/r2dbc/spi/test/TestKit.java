@@ -29,6 +29,7 @@ import io.r2dbc.spi.ValidationDepth;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.support.AbstractLobCreatingPreparedStatementCallback;
@@ -37,21 +38,29 @@ import org.springframework.jdbc.support.lob.LobCreator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.Loggers;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * R2DBC TCK implementation to verify a driver. The TCK creates and removes tables after each test using JUnit lifecycle hooks (see {@link #createTable()} and {@link #dropTable()}).
@@ -71,7 +80,18 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
  *    <li>{@link #expand(TestStatement, Object...)}: Return the SQL statement for a specific {@link TestStatement}.</li>
  *    <li>{@link #blobType()}: Returns the SQL type for a {@link Blob} column.</li>
  *    <li>{@link #clobType()}: Returns the SQL type for a {@link Clob} column.</li>
+ *    <li>{@link #backpressureRowCount()} and {@link #flatHeapRowCount()}: Returns the number of rows used to verify demand and heap usage when streaming results.</li>
+ *    <li>{@link #flatHeapEnabled()}: Returns whether to verify heap usage when streaming results.  Disabled by default.</li>
+ *    <li>{@link #maxRetainedBytesPerRow()}: Returns the heap budget per row when streaming results.</li>
+ *    <li>{@link #allocationRowCount()}, {@link #allocationParameterCount()}, {@link #maxAllocatedBytesPerRow()} and {@link #maxAllocatedBytesPerParameter()}: Returns workload sizes and allocation
+ *    budgets for {@link #rowAllocationWithinBudget()} and {@link #parameterAllocationWithinBudget()}.</li>
+ *    <li>{@link #report(AllocationMeter.Measurement)}: Consumes allocation measurements.  Measurements are logged by default.</li>
  * </ul>
+ * <p>Tests verifying demand subscribe to publishers returned by the SPI with tiny, controlled demand and assert compliance with the Reactive Streams rules for publishers (signals are serialized,
+ * {@code onSubscribe} is signaled first and exactly once, no signals after termination and never more {@code onNext} signals than requested).  Cancellation is verified by requesting all rows and
+ * cancelling from within {@code onNext} after the first rows: delivery must stop well before the requested number of rows.
+ * <p>Allocation tests measure allocated bytes per row and per bound parameter using {@link AllocationMeter} and report them next to the allocations of the mock implementations as baseline.  They
+ * are skipped if the JVM does not support measuring thread allocations.
  *
  * @param <T> type of parameter placeholder identifiers, see {@link #getIdentifier(int)}.
  */
@@ -201,6 +221,110 @@ public interface TestKit<T> {
         return "CLOB";
     }
 
+    /**
+     * Customization hook: Returns the number of rows to insert for tests verifying demand and cancellation.
+     *
+     * @return the number of rows for tests verifying demand.
+     */
+    default int backpressureRowCount() {
+        return 100;
+    }
+
+    /**
+     * Customization hook: Returns whether to run {@link #resultStreamsWithFlatHeap()}.  The test inserts {@link #flatHeapRowCount() many rows} and requests garbage collections, therefore it is
+     * skipped unless enabled.  The test is also tagged with {@code performance} to select it from the build.
+     *
+     * @return {@code true} to run {@link #resultStreamsWithFlatHeap()}.
+     */
+    default boolean flatHeapEnabled() {
+        return false;
+    }
+
+    /**
+     * Customization hook: Returns the number of rows to insert for {@link #resultStreamsWithFlatHeap()}.
+     *
+     * @return the number of rows to stream.
+     */
+    default int flatHeapRowCount() {
+        return 50_000;
+    }
+
+    /**
+     * Customization hook: Returns the maximum growth of the retained heap per row while streaming a result in {@link #resultStreamsWithFlatHeap()}.  A driver that buffers the whole result
+     * retains more than that.
+     *
+     * @return the maximum retained heap growth per row in bytes.
+     */
+    default long maxRetainedBytesPerRow() {
+        return 64;
+    }
+
+    /**
+     * Customization hook: Returns the number of rows to map in {@link #rowAllocationWithinBudget()}.
+     *
+     * @return the number of rows to map.
+     */
+    default int allocationRowCount() {
+        return 1_000;
+    }
+
+    /**
+     * Customization hook: Returns the number of parameters to bind in {@link #parameterAllocationWithinBudget()}.
+     *
+     * @return the number of parameters to bind.
+     */
+    default int allocationParameterCount() {
+        return 1_000;
+    }
+
+    /**
+     * Customization hook: Returns the maximum number of bytes allocated per row when executing a query and mapping its rows.
+     *
+     * @return the allocation budget per row in bytes.
+     */
+    default long maxAllocatedBytesPerRow() {
+        return 4096;
+    }
+
+    /**
+     * Customization hook: Returns the maximum number of bytes allocated per parameter when binding parameters and executing a statement.
+     *
+     * @return the allocation budget per bound parameter in bytes.
+     */
+    default long maxAllocatedBytesPerParameter() {
+        return 2048;
+    }
+
+    /**
+     * Customization hook: Consumes an allocation measurement.  The default implementation logs the measurement at {@code INFO} level using the logger of {@link TestKit}.
+     *
+     * @param measurement the measurement
+     */
+    default void report(AllocationMeter.Measurement measurement) {
+        Loggers.getLogger(TestKit.class).info(measurement.toString());
+    }
+
+    /**
+     * Customization hook: Inserts {@code count} rows with the values {@code 0} to {@code count - 1} into the {@code test} table using {@link #getJdbcOperations()}.
+     *
+     * @param count the number of rows to insert
+     */
+    default void insertTestValues(int count) {
+
+        String sql = expand(TestStatement.INSERT_VALUE_PLACEHOLDER, "?");
+        List<Object[]> batch = new ArrayList<>();
+
+        for (int value = 0; value < count; value++) {
+
+            batch.add(new Object[]{value});
+
+            if (batch.size() == 1000 || value == count - 1) {
+                getJdbcOperations().batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+    }
+
     @BeforeEach
     default void createTable() {
         getJdbcOperations().execute(expand(TestStatement.CREATE_TABLE));
@@ -467,6 +591,76 @@ public interface TestKit<T> {
             .verifyComplete();
     }
 
+    @Test
+    default void blobSelectRange() {
+        getJdbcOperations().execute(expand(TestStatement.INSERT_BLOB_VALUE_PLACEHOLDER, "?"), new AbstractLobCreatingPreparedStatementCallback(new DefaultLobHandler()) {
+
+            @Override
+            protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+                lobCreator.setBlobAsBytes(ps, 1, "test-value".getBytes(StandardCharsets.UTF_8));
+            }
+
+        });
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> Flux.from(connection
+
+                        .createStatement(expand(TestStatement.SELECT_BLOB_VALUE))
+                        .execute())
+                    .flatMap(result -> Flux.usingWhen(result
+                            .map((row, rowMetadata) -> extractColumn(row, Blob.class)),
+                        blob -> Flux.from(blob.stream(5, 3))
+                            .reduce(new StringBuilder(), (builder, buffer) -> builder.append(StandardCharsets.UTF_8.decode(buffer)))
+                            .map(StringBuilder::toString),
+                        Blob::discard)),
+                Connection::close)
+            .as(StepVerifier::create)
+            .expectNext("val").as("range of test_value from select")
+            .verifyComplete();
+    }
+
+    @Test
+    default void blobSelectReleasable() {
+        getJdbcOperations().execute(expand(TestStatement.INSERT_BLOB_VALUE_PLACEHOLDER, "?"), new AbstractLobCreatingPreparedStatementCallback(new DefaultLobHandler()) {
+
+            @Override
+            protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+                lobCreator.setBlobAsBytes(ps, 1, "test-value".getBytes(StandardCharsets.UTF_8));
+            }
+
+        });
+
+        AtomicInteger leased = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> Flux.from(connection
+
+                        .createStatement(expand(TestStatement.SELECT_BLOB_VALUE))
+                        .execute())
+                    .flatMap(result -> Flux.usingWhen(result
+                            .map((row, rowMetadata) -> extractColumn(row, Blob.class)),
+                        blob -> Flux.from(blob.streamReleasable())
+                            .doOnNext(chunk -> leased.incrementAndGet())
+                            .reduce(new StringBuilder(), (builder, chunk) -> {
+                                builder.append(StandardCharsets.UTF_8.decode(chunk.buffer()));
+                                if (chunk.release()) {
+                                    released.incrementAndGet();
+                                }
+                                assertFalse(chunk.release(), "releasing an already released chunk should have no effect");
+                                return builder;
+                            })
+                            .map(StringBuilder::toString),
+                        Blob::discard)),
+                Connection::close)
+            .as(StepVerifier::create)
+            .expectNext("test-value").as("blob_value from select")
+            .verifyComplete();
+
+        assertTrue(leased.get() > 0, "blob_value should be streamed as leased chunks");
+        assertEquals(leased.get(), released.get(), "every leased chunk should be released exactly once by its consumer");
+    }
+
     @Test
     default void clobInsert() {
         Flux.usingWhen(getConnectionFactory().create(),
@@ -524,6 +718,34 @@ public interface TestKit<T> {
             .verifyComplete();
     }
 
+    @Test
+    default void clobSelectRange() {
+        getJdbcOperations().execute(expand(TestStatement.INSERT_CLOB_VALUE_PLACEHOLDER, "?"), new AbstractLobCreatingPreparedStatementCallback(new DefaultLobHandler()) {
+
+            @Override
+            protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+                lobCreator.setClobAsString(ps, 1, "test-value");
+            }
+
+        });
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> Flux.from(connection
+
+                        .createStatement(expand(TestStatement.SELECT_CLOB_VALUE))
+                        .execute())
+                    .flatMap(result -> Flux.usingWhen(result
+                            .map((row, rowMetadata) -> extractColumn(row, Clob.class)),
+                        clob -> Flux.from(clob.stream(5, 100))
+                            .reduce(new StringBuilder(), StringBuilder::append)
+                            .map(StringBuilder::toString),
+                        Clob::discard)),
+                Connection::close)
+            .as(StepVerifier::create)
+            .expectNext("value").as("range of test_value from select")
+            .verifyComplete();
+    }
+
     @Test
     default void columnMetadata() {
         getJdbcOperations().execute(expand(TestStatement.INSERT_TWO_COLUMNS));
@@ -643,6 +865,82 @@ public interface TestKit<T> {
             .verifyComplete();
     }
 
+    @Test
+    default void parameterAllocationWithinBudget() {
+        assumeTrue(AllocationMeter.isSupported(), "thread allocation measurement is not supported");
+
+        int parameters = allocationParameterCount();
+
+        report(AllocationMeter.measure("MockStatement.bind (baseline)", "parameters", parameters, () -> {
+
+            MockStatement statement = MockStatement.empty();
+
+            for (int value = 0; value < parameters; value++) {
+
+                if (value != 0) {
+                    statement.add();
+                }
+
+                statement.bind(0, value);
+            }
+
+            Flux.from(statement.execute()).blockLast();
+        }));
+
+        Connection connection = DemandSubscriber.single(getConnectionFactory().create(), "ConnectionFactory.create()");
+
+        try {
+            AllocationMeter.Measurement measurement = AllocationMeter.measure("Statement.bind", "parameters", parameters, () -> {
+
+                Statement statement = connection.createStatement(expand(TestStatement.INSERT_VALUE_PLACEHOLDER, getPlaceholder(0)));
+
+                for (int value = 0; value < parameters; value++) {
+
+                    if (value != 0) {
+                        statement.add();
+                    }
+
+                    bind(statement, getIdentifier(0), value);
+                }
+
+                Flux.from(statement.execute()).flatMap(Result::getRowsUpdated).blockLast();
+            });
+            report(measurement);
+
+            assertTrue(measurement.getBytesPerUnit() <= maxAllocatedBytesPerParameter(), () -> String.format("%.1f bytes allocated per bound parameter exceed the budget of %d bytes",
+                measurement.getBytesPerUnit(), maxAllocatedBytesPerParameter()));
+        } finally {
+            DemandSubscriber.drain(connection.close()).verifyComplete("Connection.close()");
+        }
+    }
+
+    @Test
+    default void rowAllocationWithinBudget() {
+        assumeTrue(AllocationMeter.isSupported(), "thread allocation measurement is not supported");
+
+        int rows = allocationRowCount();
+        insertTestValues(rows);
+
+        MockResult mock = MockResult.builder()
+            .row(IntStream.range(0, rows).mapToObj(value -> MockRow.builder().identified("test_value", Integer.class, value).build()).toArray(Row[]::new))
+            .build();
+
+        report(AllocationMeter.measure("MockResult.map (baseline)", "rows", rows, () -> Flux.from(mock.map((row, metadata) -> extractColumn(row))).blockLast()));
+
+        Connection connection = DemandSubscriber.single(getConnectionFactory().create(), "ConnectionFactory.create()");
+
+        try {
+            AllocationMeter.Measurement measurement = AllocationMeter.measure("Result.map", "rows", rows,
+                () -> Flux.from(connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute()).flatMap(result -> result.map((row, metadata) -> extractColumn(row))).blockLast());
+            report(measurement);
+
+            assertTrue(measurement.getBytesPerUnit() <= maxAllocatedBytesPerRow(), () -> String.format("%.1f bytes allocated per row exceed the budget of %d bytes", measurement.getBytesPerUnit(),
+                maxAllocatedBytesPerRow()));
+        } finally {
+            DemandSubscriber.drain(connection.close()).verifyComplete("Connection.close()");
+        }
+    }
+
     @Test
     default void prepareStatement() {
         Flux.usingWhen(getConnectionFactory().create(),
@@ -717,6 +1015,149 @@ public interface TestKit<T> {
             .verifyComplete();
     }
 
+    @Test
+    default void publishersComplyWithReactiveStreamsRules() {
+        insertTestValues(3);
+
+        Connection connection = DemandSubscriber.single(getConnectionFactory().create(), "ConnectionFactory.create()");
+
+        try {
+            assertThrows(NullPointerException.class, () -> connection.validate(ValidationDepth.LOCAL).subscribe(null), "Rule 1.9: subscribe(null) should throw NullPointerException");
+
+            DemandSubscriber.drain(connection.validate(ValidationDepth.LOCAL)).verifyComplete("Connection.validate(LOCAL)");
+            DemandSubscriber.drain(connection.validate(ValidationDepth.REMOTE)).verifyComplete("Connection.validate(REMOTE)");
+            DemandSubscriber.drain(connection.beginTransaction()).verifyComplete("Connection.beginTransaction()");
+            DemandSubscriber.drain(connection.createStatement(expand(TestStatement.INSERT_VALUE200)).execute(),
+                result -> DemandSubscriber.drain(result.getRowsUpdated()).verifyComplete("Result.getRowsUpdated()")).verifyComplete("Statement.execute()");
+            DemandSubscriber.drain(connection.rollbackTransaction()).verifyComplete("Connection.rollbackTransaction()");
+            DemandSubscriber.drain(connection.beginTransaction()).verifyComplete("Connection.beginTransaction()");
+            DemandSubscriber.drain(connection.commitTransaction()).verifyComplete("Connection.commitTransaction()");
+
+            List<Object> values = new ArrayList<>();
+
+            DemandSubscriber.drain(connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute(),
+                result -> values.addAll(DemandSubscriber.drain(result.map((row, metadata) -> extractColumn(row))).verifyComplete("Result.map(BiFunction)"))).verifyComplete("Statement.execute()");
+            DemandSubscriber.drain(connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute(),
+                result -> values.addAll(DemandSubscriber.drain(result.map(readable -> readable.get("test_value"))).verifyComplete("Result.map(Function)"))).verifyComplete("Statement.execute()");
+            DemandSubscriber.drain(connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute(),
+                result -> values.addAll(DemandSubscriber.drain(result.filter(Result.RowSegment.class::isInstance)
+                    .flatMap(segment -> Mono.justOrEmpty(extractColumn(((Result.RowSegment) segment).row())))).verifyComplete("Result.filter(Predicate).flatMap(Function)"))).verifyComplete("Statement.execute()");
+            DemandSubscriber.drain(connection.createBatch().add(expand(TestStatement.SELECT_VALUE)).add(expand(TestStatement.SELECT_VALUE)).execute(),
+                result -> values.addAll(DemandSubscriber.drain(result.map((row, metadata) -> extractColumn(row))).verifyComplete("Result.map(BiFunction)"))).verifyComplete("Batch.execute()");
+
+            assertEquals(15, values.size(), "every query should return all rows");
+        } finally {
+            DemandSubscriber.drain(connection.close()).verifyComplete("Connection.close()");
+        }
+    }
+
+    @Test
+    default void resultMapHonorsDemand() {
+        int rows = backpressureRowCount();
+        insertTestValues(rows);
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute(),
+                Connection::close)
+            .as(results -> DemandSubscriber.drain(results, result -> assertEquals(rows, DemandSubscriber.verifyDemand(result.map((row, metadata) -> extractColumn(row)), "Result.map(BiFunction)").size(),
+                "all rows should be emitted")))
+            .verifyComplete("Statement.execute()");
+    }
+
+    @Test
+    default void resultFlatMapHonorsDemand() {
+        int rows = backpressureRowCount();
+        insertTestValues(rows);
+
+        Flux.usingWhen(getConnectionFactory().create(),
+                connection -> connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute(),
+                Connection::close)
+            .as(results -> DemandSubscriber.drain(results, result -> assertEquals(rows, DemandSubscriber.verifyDemand(result.flatMap(segment -> {
+
+                if (segment instanceof Result.RowSegment) {
+                    return Mono.justOrEmpty(extractColumn(((Result.RowSegment) segment).row()));
+                }
+
+                return Mono.empty();
+            }), "Result.flatMap(Function)").size(), "all rows should be emitted")))
+            .verifyComplete("Statement.execute()");
+    }
+
+    @Test
+    default void resultCancellationStopsDelivery() {
+        int rows = backpressureRowCount();
+        insertTestValues(rows);
+
+        Connection connection = DemandSubscriber.single(getConnectionFactory().create(), "ConnectionFactory.create()");
+
+        try {
+            DemandSubscriber.drain(connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute(), result -> {
+
+                DemandSubscriber<Object> subscriber = new DemandSubscriber<>(false);
+                subscriber.cancelAfter(3);
+                result.map((row, metadata) -> extractColumn(row)).subscribe(subscriber);
+
+                assertTrue(subscriber.awaitSubscription(DemandSubscriber.TIMEOUT), "Rule 1.9: Result.map(BiFunction) did not call onSubscribe");
+
+                subscriber.request(rows);
+                subscriber.awaitItems(3, DemandSubscriber.TIMEOUT);
+                subscriber.awaitItems(rows, DemandSubscriber.QUIET_PERIOD);
+
+                long received = subscriber.getReceived();
+
+                assertTrue(received >= 3, () -> String.format("Result.map(BiFunction) should emit the first rows, received %d", received));
+                assertTrue(received <= rows / 2, () -> String.format("Result.map(BiFunction) should stop delivery after cancellation, received %d of %d requested rows", received, rows));
+                assertTrue(subscriber.getViolations().isEmpty(), () -> String.format("Result.map(BiFunction) violated the Reactive Streams specification: %s", subscriber.getViolations()));
+            }).verifyComplete("Statement.execute()");
+
+            List<Object> values = new ArrayList<>();
+
+            DemandSubscriber.drain(connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute(),
+                result -> values.addAll(DemandSubscriber.drain(result.map((row, metadata) -> extractColumn(row))).verifyComplete("Result.map(BiFunction)"))).verifyComplete("Statement.execute()");
+
+            assertEquals(rows, values.size(), "connection should be usable after cancelling a result and not emit rows of the cancelled result");
+        } finally {
+            DemandSubscriber.drain(connection.close()).verifyComplete("Connection.close()");
+        }
+    }
+
+    @Test
+    @Tag("performance")
+    default void resultStreamsWithFlatHeap() {
+        assumeTrue(flatHeapEnabled(), "flat heap verification is not enabled");
+
+        int rows = flatHeapRowCount();
+        insertTestValues(rows);
+
+        Connection connection = DemandSubscriber.single(getConnectionFactory().create(), "ConnectionFactory.create()");
+
+        try {
+            HeapWatermark heap = HeapWatermark.start(Math.max(1, rows / 10));
+
+            DemandSubscriber.drain(connection.createStatement(expand(TestStatement.SELECT_VALUE)).execute(), result -> {
+
+                DemandSubscriber<Object> subscriber = new DemandSubscriber<>(false);
+                long[] recorded = new long[1];
+
+                result.map((row, metadata) -> extractColumn(row)).subscribe(subscriber);
+                subscriber.drain(DemandSubscriber.BATCH_SIZE, () -> {
+                    long received = subscriber.getReceived();
+                    heap.record(received - recorded[0]);
+                    recorded[0] = received;
+                });
+                subscriber.verifyComplete("Result.map(BiFunction)");
+            }).verifyComplete("Statement.execute()");
+
+            long budget = rows * maxRetainedBytesPerRow();
+
+            assertEquals(rows, heap.getCount(), "all rows should be emitted");
+            assertTrue(heap.getGrowth() <= budget, () -> String.format("retained heap grew by %d bytes while streaming %d rows (budget %d bytes), the result seems to be buffered", heap.getGrowth(),
+                rows, budget));
+        } finally {
+            DemandSubscriber.drain(connection.close()).verifyComplete("Connection.close()");
+        }
+    }
+
     @Test
     default void returnGeneratedValues() {
 
@@ -21,6 +21,8 @@ import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Represents a handle to a large binary object.
@@ -37,7 +39,7 @@ public interface Blob {
     static Blob from(Publisher<ByteBuffer> p) {
         Assert.requireNonNull(p, "Publisher must not be null");
 
-        DefaultLob<ByteBuffer> lob = new DefaultLob<>(p);
+        DefaultLob<ByteBuffer> lob = new DefaultLob<>(p, LobSlice.BYTES);
 
         return new Blob() {
 
@@ -46,6 +48,12 @@ public interface Blob {
                 return lob.stream();
             }
 
+            @Override
+            public Publisher<ByteBuffer> stream(long offset, long length) {
+                LobSlice.validate(offset, length);
+                return lob.stream(offset, length);
+            }
+
             @Override
             public Publisher<Void> discard() {
                 return lob.discard();
@@ -53,6 +61,25 @@ public interface Blob {
         };
     }
 
+    /**
+     * Creates a new {@link Blob} decorator that caches the content stream of {@code blob} so that it can be consumed multiple times, also concurrently.  Content is cached as it is consumed from
+     * {@code blob} the first time.  Up to {@link CachePolicy#getMaxInMemorySize()} bytes are kept in memory, the remaining content is spilled to a temporary file.  Emitted chunks are read-only.
+     * <p>
+     * {@link #discard()} releases the memory and deletes the temporary file.  It discards {@code blob} if its content stream was not consumed yet.
+     *
+     * @param blob   the {@link Blob} to cache
+     * @param policy the {@link CachePolicy} to apply
+     * @return the caching {@link Blob} decorator
+     * @throws IllegalArgumentException if {@code blob} or {@code policy} is {@code null}
+     * @since 1.0.1
+     */
+    static Blob cached(Blob blob, CachePolicy policy) {
+        Assert.requireNonNull(blob, "Blob must not be null");
+        Assert.requireNonNull(policy, "CachePolicy must not be null");
+
+        return new CachedBlob(blob, policy);
+    }
+
     /**
      * Returns the content stream as a {@link Publisher} emitting {@link ByteBuffer} chunks.
      * <p>
@@ -64,6 +91,93 @@ public interface Blob {
      */
     Publisher<ByteBuffer> stream();
 
+    /**
+     * Returns the content stream as a {@link Publisher} emitting {@link ReleasableBuffer} chunks.  Each emitted chunk must be {@link ReleasableBuffer#release() released} by the consumer once it has
+     * been consumed.  Chunks that were not emitted because of a {@link Subscription#cancel() cancellation} or an error are released by the driver.
+     * <p>
+     * Drivers may emit chunks backed by pooled memory to avoid copying data into a {@link ByteBuffer} that is owned by the consumer.  Drivers that implement this method using pooled memory
+     * typically implement {@link #stream()} using {@link ReleasableBuffer#copy(Publisher)}.  The default implementation wraps the chunks of the {@link #stream() content stream}.
+     * <p>
+     * The content stream can be consumed ("subscribed to") only once.  Subsequent consumptions result in a {@link IllegalStateException}.
+     *
+     * @return a {@link Publisher} emitting {@link ReleasableBuffer} chunks.
+     * @since 1.0.1
+     */
+    default Publisher<ReleasableBuffer> streamReleasable() {
+        return LobCodec.wrap(stream());
+    }
+
+    /**
+     * Returns a range of the content stream as a {@link Publisher} emitting {@link ByteBuffer} chunks.  The range starts at the zero-based byte {@code offset} and spans up to {@code length} bytes.
+     * The emitted range is shorter than {@code length} if the content ends before the end of the range.
+     * <p>
+     * Drivers may read the range using server-side functionality such as substring or locator reads to avoid transferring the entire content.  The default implementation drops and slices chunks of
+     * the {@link #stream() content stream} and cancels the content stream once the range has been emitted.
+     * <p>
+     * Consuming a range consumes the content stream.  The content stream can be consumed ("subscribed to") only once.  Subsequent consumptions result in a {@link IllegalStateException}.
+     *
+     * @param offset zero-based byte offset of the range
+     * @param length number of bytes to emit
+     * @return a {@link Publisher} emitting {@link ByteBuffer} chunks.
+     * @throws IllegalArgumentException if {@code offset} or {@code length} is negative
+     * @since 1.0.1
+     */
+    default Publisher<ByteBuffer> stream(long offset, long length) {
+        LobSlice.validate(offset, length);
+        return new LobSlice<>(stream(), offset, length, LobSlice.BYTES);
+    }
+
+    /**
+     * Returns the length of the content in bytes.
+     * <p>
+     * Emits the length if it can be determined without consuming the {@link #stream() content stream} (for example, from a locator or from a fully materialized object).  Completes without emitting
+     * a value if the length is not known.  Obtaining the length does not consume the content stream.
+     *
+     * @return a {@link Publisher} emitting the length in bytes or completing empty if the length is not known
+     * @since 1.0.1
+     */
+    default Publisher<Long> length() {
+        return Publishers.empty();
+    }
+
+    /**
+     * Transfers the {@link #stream() content stream} into a {@link WritableByteChannel} and emits the number of bytes written.
+     * <p>
+     * Chunks are requested one at a time and the next chunk is requested only after the previous chunk has been written so that the content is not buffered in memory.  The channel is expected to
+     * operate in blocking mode and is not closed after the transfer.  Transferring the content consumes the content stream.
+     *
+     * @param channel the channel to write to
+     * @return a {@link Publisher} emitting the number of bytes written
+     * @throws IllegalArgumentException if {@code channel} is {@code null}
+     * @since 1.0.1
+     */
+    default Publisher<Long> transferTo(WritableByteChannel channel) {
+        Assert.requireNonNull(channel, "channel must not be null");
+        return LobTransfer.to(streamReleasable(), channel);
+    }
+
+    /**
+     * Transfers the {@link #stream() content stream} into a {@link AsynchronousFileChannel} starting at {@code position} and emits the number of bytes written.
+     * <p>
+     * Chunks are requested one at a time and the next chunk is requested only after the previous chunk has been written so that the content is not buffered in memory.  The channel is not closed
+     * after the transfer.  Transferring the content consumes the content stream.
+     *
+     * @param channel  the channel to write to
+     * @param position the file position at which the transfer is to begin
+     * @return a {@link Publisher} emitting the number of bytes written
+     * @throws IllegalArgumentException if {@code channel} is {@code null} or {@code position} is negative
+     * @since 1.0.1
+     */
+    default Publisher<Long> transferTo(AsynchronousFileChannel channel, long position) {
+        Assert.requireNonNull(channel, "channel must not be null");
+
+        if (position < 0) {
+            throw new IllegalArgumentException("position must not be negative");
+        }
+
+        return LobTransfer.to(streamReleasable(), channel, position);
+    }
+
     /**
      * Release any resources held by the {@link Clob} when not subscribing to the {@link #stream() stream content}.
      *
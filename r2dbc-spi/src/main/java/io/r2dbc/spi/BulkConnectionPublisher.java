@@ -0,0 +1,328 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * {@link Publisher} creating a number of {@link Connection}s by calling {@link ConnectionFactory#create()} repeatedly with bounded concurrency.
+ * <p>
+ * Creations are started according to downstream demand, with at most {@code concurrency} creations in flight.  Created connections are emitted before further creations are started.  Once a
+ * creation fails, no further creations are started.  Connections that were created successfully are emitted as far as demand permits before the publisher terminates with the first error and
+ * later errors are added as suppressed exceptions.  Connections that cannot be emitted because of cancellation or an error are closed, including connections that complete after cancellation.
+ */
+final class BulkConnectionPublisher implements Publisher<Connection> {
+
+    private static final AtomicIntegerFieldUpdater<Coordinator> WIP = AtomicIntegerFieldUpdater.newUpdater(Coordinator.class, "wip");
+
+    private static final AtomicIntegerFieldUpdater<Coordinator> IN_FLIGHT = AtomicIntegerFieldUpdater.newUpdater(Coordinator.class, "inFlight");
+
+    private static final AtomicLongFieldUpdater<Coordinator> REQUESTED = AtomicLongFieldUpdater.newUpdater(Coordinator.class, "requested");
+
+    /**
+     * Default number of concurrent creations.
+     */
+    static final int DEFAULT_CONCURRENCY = 8;
+
+    private final ConnectionFactory connectionFactory;
+
+    private final int count;
+
+    private final int concurrency;
+
+    BulkConnectionPublisher(ConnectionFactory connectionFactory, int count, int concurrency) {
+        this.connectionFactory = connectionFactory;
+        this.count = count;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Connection> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must not be null");
+
+        Coordinator coordinator = new Coordinator(subscriber);
+        subscriber.onSubscribe(coordinator);
+        coordinator.drain();
+    }
+
+    /**
+     * Subscription coordinating creations and emission.  Created connections are queued and emitted from a serialized drain loop that is the only place starting creations.
+     */
+    final class Coordinator implements Subscription {
+
+        private final Subscriber<? super Connection> actual;
+
+        private final Queue<Connection> ready = new ConcurrentLinkedQueue<>();
+
+        private int started;
+
+        private long emitted;
+
+        private boolean terminated;
+
+        @Nullable
+        private Throwable error;
+
+        @Nullable
+        private volatile Throwable requestError;
+
+        volatile int wip;
+
+        volatile int inFlight;
+
+        volatile long requested;
+
+        private volatile boolean cancelled;
+
+        Coordinator(Subscriber<? super Connection> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                this.requestError = new IllegalArgumentException(String.format("Requested demand must be greater than zero, was %d", n));
+                drain();
+                return;
+            }
+
+            for (; ; ) {
+                long current = this.requested;
+                long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                if (REQUESTED.compareAndSet(this, current, next)) {
+                    break;
+                }
+            }
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            drain();
+        }
+
+        void drain() {
+
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            for (; ; ) {
+
+                if (this.cancelled || this.terminated) {
+                    closeReady();
+                } else {
+                    drainLoop();
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drainLoop() {
+
+            Throwable requestError = this.requestError;
+
+            if (requestError != null) {
+                terminate(requestError);
+                return;
+            }
+
+            for (; ; ) {
+
+                long requested = this.requested;
+                Connection connection;
+
+                while (this.emitted < requested && (connection = this.ready.poll()) != null) {
+
+                    this.emitted++;
+                    this.actual.onNext(connection);
+
+                    if (this.cancelled) {
+                        closeReady();
+                        return;
+                    }
+                }
+
+                if (this.emitted == BulkConnectionPublisher.this.count) {
+                    this.terminated = true;
+                    this.actual.onComplete();
+                    return;
+                }
+
+                Throwable error;
+
+                synchronized (this) {
+                    error = this.error;
+                }
+
+                if (error != null) {
+
+                    if (this.inFlight == 0) {
+                        terminate(error);
+                    }
+
+                    return;
+                }
+
+                if (!this.ready.isEmpty() || this.started == BulkConnectionPublisher.this.count || this.started >= requested || this.inFlight >= BulkConnectionPublisher.this.concurrency) {
+                    return;
+                }
+
+                this.started++;
+                IN_FLIGHT.incrementAndGet(this);
+                subscribeCreate();
+
+                if (this.cancelled) {
+                    closeReady();
+                    return;
+                }
+            }
+        }
+
+        private void terminate(Throwable error) {
+            this.terminated = true;
+            closeReady();
+            this.actual.onError(error);
+        }
+
+        private void subscribeCreate() {
+
+            Publisher<? extends Connection> create;
+
+            try {
+                create = BulkConnectionPublisher.this.connectionFactory.create();
+            } catch (RuntimeException e) {
+                onCreated(null, e);
+                return;
+            }
+
+            create.subscribe(new Subscriber<Connection>() {
+
+                private Subscription subscription;
+
+                private boolean done;
+
+                @Override
+                public void onSubscribe(Subscription s) {
+                    this.subscription = s;
+                    s.request(1);
+                }
+
+                @Override
+                public void onNext(Connection connection) {
+
+                    if (this.done) {
+                        return;
+                    }
+
+                    this.done = true;
+                    this.subscription.cancel();
+                    onCreated(connection, null);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+
+                    if (!this.done) {
+                        this.done = true;
+                        onCreated(null, t);
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+
+                    if (!this.done) {
+                        this.done = true;
+                        onCreated(null, new NoSuchElementException("ConnectionFactory.create() completed without emitting a connection"));
+                    }
+                }
+            });
+        }
+
+        private void onCreated(@Nullable Connection connection, @Nullable Throwable e) {
+
+            if (connection != null) {
+                this.ready.offer(connection);
+            } else if (e != null) {
+                onError(e);
+            }
+
+            IN_FLIGHT.decrementAndGet(this);
+            drain();
+        }
+
+        private void onError(Throwable e) {
+
+            synchronized (this) {
+
+                if (this.error == null) {
+                    this.error = e;
+                } else if (this.error != e) {
+                    this.error.addSuppressed(e);
+                }
+            }
+        }
+
+        private void closeReady() {
+
+            Connection connection;
+
+            while ((connection = this.ready.poll()) != null) {
+                connection.close().subscribe(new Subscriber<Void>() {
+
+                    @Override
+                    public void onSubscribe(Subscription s) {
+                        s.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(Void unused) {
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onComplete() {
+                    }
+                });
+            }
+        }
+
+    }
+
+}
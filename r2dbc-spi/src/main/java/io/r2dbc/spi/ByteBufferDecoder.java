@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Stateful decoder for a stream of {@link ByteBuffer} chunks.  Bytes that cannot be decoded in isolation (such as an incomplete multi-byte sequence at the end of a chunk) are retained until the
+ * next chunk arrives.  Malformed input and unmappable characters are replaced.
+ * <p>
+ * <i>This class is not threadsafe</i>
+ */
+final class ByteBufferDecoder {
+
+    private final CharsetDecoder decoder;
+
+    @Nullable
+    private ByteBuffer remainder;
+
+    ByteBufferDecoder(Charset charset) {
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Decode the next chunk.
+     *
+     * @param chunk the chunk to decode
+     * @return the decoded characters, can be empty
+     */
+    CharBuffer decode(ByteBuffer chunk) {
+        return decode(chunk, false);
+    }
+
+    /**
+     * Decode retained bytes and flush the decoder state after the last chunk.
+     *
+     * @return the decoded characters, can be empty
+     */
+    CharBuffer flush() {
+        return decode(ByteBuffer.allocate(0), true);
+    }
+
+    private CharBuffer decode(ByteBuffer chunk, boolean endOfInput) {
+
+        ByteBuffer in;
+        if (this.remainder != null) {
+            in = ByteBuffer.allocate(this.remainder.remaining() + chunk.remaining());
+            in.put(this.remainder).put(chunk).flip();
+            this.remainder = null;
+        } else {
+            in = chunk;
+        }
+
+        CharBuffer out = CharBuffer.allocate((int) Math.ceil(in.remaining() * this.decoder.averageCharsPerByte()) + 2);
+
+        try {
+            for (; ; ) {
+
+                CoderResult result = this.decoder.decode(in, out, endOfInput);
+
+                if (result.isUnderflow()) {
+                    break;
+                }
+
+                if (result.isOverflow()) {
+                    out = grow(out);
+                    continue;
+                }
+
+                result.throwException();
+            }
+
+            if (endOfInput) {
+                while (this.decoder.flush(out).isOverflow()) {
+                    out = grow(out);
+                }
+                this.decoder.reset();
+            }
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException("Cannot decode character data", e);
+        }
+
+        if (in.hasRemaining()) {
+            this.remainder = ByteBuffer.allocate(in.remaining()).put(in);
+            this.remainder.flip();
+        }
+
+        out.flip();
+        return out;
+    }
+
+    private static CharBuffer grow(CharBuffer buffer) {
+        CharBuffer grown = CharBuffer.allocate(buffer.capacity() * 2 + 2);
+        buffer.flip();
+        return grown.put(buffer);
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.nio.file.Path;
+
+/**
+ * Policy for caching the content of a large object so that it can be consumed multiple times.  Content up to {@link #getMaxInMemorySize() maxInMemorySize} bytes is kept in memory, the remaining
+ * content is spilled to a temporary file within {@link #getDirectory() directory}.
+ *
+ * <p>Usage:
+ * <pre class="code">
+ * CachePolicy policy = CachePolicy.builder()
+ *     .maxInMemorySize(64 * 1024)
+ *     .build();
+ * </pre>
+ *
+ * @see Blob#cached(Blob, CachePolicy)
+ * @since 1.0.1
+ */
+public final class CachePolicy {
+
+    /**
+     * Default number of bytes kept in memory.
+     */
+    public static final int DEFAULT_MAX_IN_MEMORY_SIZE = 256 * 1024;
+
+    private final int maxInMemorySize;
+
+    @Nullable
+    private final Path directory;
+
+    private CachePolicy(int maxInMemorySize, @Nullable Path directory) {
+        this.maxInMemorySize = maxInMemorySize;
+        this.directory = directory;
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     *
+     * @return a new {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the default {@link CachePolicy} keeping up to {@link #DEFAULT_MAX_IN_MEMORY_SIZE} bytes in memory and spilling to the default temporary-file directory.
+     *
+     * @return the default {@link CachePolicy}
+     */
+    public static CachePolicy defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Returns the maximum number of bytes kept in memory.
+     *
+     * @return the maximum number of bytes kept in memory
+     */
+    public int getMaxInMemorySize() {
+        return this.maxInMemorySize;
+    }
+
+    /**
+     * Returns the directory for temporary files.  {@code null} indicates the default temporary-file directory.
+     *
+     * @return the directory for temporary files.  Can be {@code null}.
+     */
+    @Nullable
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    @Override
+    public String toString() {
+        return "CachePolicy{" +
+            "maxInMemorySize=" + this.maxInMemorySize +
+            ", directory=" + this.directory +
+            '}';
+    }
+
+    /**
+     * A builder for {@link CachePolicy} instances.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        private int maxInMemorySize = DEFAULT_MAX_IN_MEMORY_SIZE;
+
+        @Nullable
+        private Path directory;
+
+        private Builder() {
+        }
+
+        /**
+         * Returns a configured {@link CachePolicy}.
+         *
+         * @return a configured {@link CachePolicy}
+         */
+        public CachePolicy build() {
+            return new CachePolicy(this.maxInMemorySize, this.directory);
+        }
+
+        /**
+         * Configure the maximum number of bytes kept in memory.  Content exceeding this size is spilled to a temporary file.  {@code 0} spills the entire content.
+         *
+         * @param maxInMemorySize the maximum number of bytes kept in memory
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxInMemorySize} is negative
+         */
+        public Builder maxInMemorySize(int maxInMemorySize) {
+
+            if (maxInMemorySize < 0) {
+                throw new IllegalArgumentException("maxInMemorySize must not be negative");
+            }
+
+            this.maxInMemorySize = maxInMemorySize;
+            return this;
+        }
+
+        /**
+         * Configure the directory for temporary files.
+         *
+         * @param directory the directory for temporary files
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code directory} is {@code null}
+         */
+        public Builder directory(Path directory) {
+            this.directory = Assert.requireNonNull(directory, "directory must not be null");
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "maxInMemorySize=" + this.maxInMemorySize +
+                ", directory=" + this.directory +
+                '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,472 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * {@link Blob} decorator caching the content stream of a {@link Blob} so that it can be consumed multiple times, also concurrently.
+ * <p>
+ * The source content stream is subscribed to once upon the first consumption and cached as it arrives.  Content up to {@link CachePolicy#getMaxInMemorySize()} bytes is kept in memory, the remaining
+ * content is spilled to a temporary file that is deleted on {@link #discard()}.  Each consumption replays the cached content at its own pace and follows the source content stream as it makes
+ * progress.  Emitted chunks are read-only and shared across consumptions.
+ */
+final class CachedBlob implements Blob {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final AtomicIntegerFieldUpdater<CachedBlob> STARTED = AtomicIntegerFieldUpdater.newUpdater(CachedBlob.class, "started");
+
+    private static final AtomicIntegerFieldUpdater<Replay> WIP = AtomicIntegerFieldUpdater.newUpdater(Replay.class, "wip");
+
+    private static final AtomicLongFieldUpdater<Replay> REQUESTED = AtomicLongFieldUpdater.newUpdater(Replay.class, "requested");
+
+    private final Blob source;
+
+    private final CachePolicy policy;
+
+    private final List<Replay> replays = new CopyOnWriteArrayList<>();
+
+    @Nullable
+    private volatile byte[] memory = new byte[0];
+
+    @Nullable
+    private volatile FileChannel file;
+
+    @Nullable
+    private volatile Subscription upstream;
+
+    private volatile long available;
+
+    @Nullable
+    private volatile Throwable error;
+
+    private volatile boolean done;
+
+    private volatile boolean discarded;
+
+    private volatile int started;
+
+    CachedBlob(Blob source, CachePolicy policy) {
+        this.source = source;
+        this.policy = policy;
+    }
+
+    @Override
+    public Publisher<ByteBuffer> stream() {
+        return replay(0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public Publisher<ByteBuffer> stream(long offset, long length) {
+        LobSlice.validate(offset, length);
+        return replay(offset, length > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + length);
+    }
+
+    @Override
+    public Publisher<Long> length() {
+        return subscriber -> {
+
+            if (this.done && this.error == null) {
+                Publishers.just(this.available).subscribe(subscriber);
+                return;
+            }
+
+            this.source.length().subscribe(subscriber);
+        };
+    }
+
+    @Override
+    public Publisher<Void> discard() {
+        return subscriber -> {
+
+            boolean consumed = !STARTED.compareAndSet(this, 0, 1);
+
+            release();
+
+            if (consumed) {
+                Publishers.<Void>empty().subscribe(subscriber);
+            } else {
+                this.source.discard().subscribe(subscriber);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "CachedBlob{" +
+            "source=" + this.source +
+            ", policy=" + this.policy +
+            ", available=" + this.available +
+            ", done=" + this.done +
+            '}';
+    }
+
+    private Publisher<ByteBuffer> replay(long start, long end) {
+        return subscriber -> {
+
+            Objects.requireNonNull(subscriber, "Subscriber must not be null");
+
+            if (this.discarded) {
+                Publishers.<ByteBuffer>error(new IllegalStateException("Blob was discarded")).subscribe(subscriber);
+                return;
+            }
+
+            Replay replay = new Replay(subscriber, start, end);
+
+            this.replays.add(replay);
+            subscriber.onSubscribe(replay);
+
+            if (STARTED.compareAndSet(this, 0, 1)) {
+                this.source.stream().subscribe(new Fill());
+            }
+
+            replay.drain();
+        };
+    }
+
+    private void release() {
+
+        this.discarded = true;
+        this.memory = null;
+
+        Subscription upstream = this.upstream;
+        if (upstream != null && !this.done) {
+            upstream.cancel();
+        }
+
+        close();
+        signal();
+    }
+
+    private void close() {
+
+        FileChannel file = this.file;
+
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // ignore, the file is deleted on a best-effort basis
+            }
+        }
+    }
+
+    private void signal() {
+        for (Replay replay : this.replays) {
+            replay.drain();
+        }
+    }
+
+    /**
+     * Append a chunk of the source content stream to the cache.  Only invoked from {@link Fill} so that appends are serialized.
+     */
+    private void append(ByteBuffer chunk) throws IOException {
+
+        int maxInMemorySize = this.policy.getMaxInMemorySize();
+        long available = this.available;
+        int count = chunk.remaining();
+
+        if (available < maxInMemorySize) {
+
+            byte[] memory = this.memory;
+            if (memory == null) {
+                return;
+            }
+
+            int position = (int) available;
+            int length = Math.min(count, maxInMemorySize - position);
+
+            if (position + length > memory.length) {
+                memory = Arrays.copyOf(memory, Math.min(maxInMemorySize, Math.max(position + length, memory.length * 2)));
+                this.memory = memory;
+            }
+
+            chunk.get(memory, position, length);
+        }
+
+        if (chunk.hasRemaining()) {
+
+            long position = Math.max(0, available - maxInMemorySize);
+            FileChannel file = this.file != null ? this.file : open();
+
+            while (chunk.hasRemaining()) {
+                position += file.write(chunk, position);
+            }
+        }
+
+        this.available = available + count;
+    }
+
+    private FileChannel open() throws IOException {
+
+        Path directory = this.policy.getDirectory();
+        Path path = directory != null ? Files.createTempFile(directory, "r2dbc-blob-", ".tmp") : Files.createTempFile("r2dbc-blob-", ".tmp");
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+
+        this.file = file;
+
+        if (this.discarded) {
+            close();
+            throw new IllegalStateException("Blob was discarded");
+        }
+
+        return file;
+    }
+
+    /**
+     * Read a chunk of cached content starting at {@code position} up to {@code limit}.
+     */
+    private ByteBuffer read(long position, long limit) throws IOException {
+
+        int maxInMemorySize = this.policy.getMaxInMemorySize();
+
+        if (position < maxInMemorySize) {
+
+            byte[] memory = this.memory;
+            if (memory == null) {
+                throw new IllegalStateException("Blob was discarded");
+            }
+
+            int from = (int) position;
+            int to = (int) Math.min(limit, maxInMemorySize);
+
+            return ByteBuffer.wrap(memory, from, to - from).slice().asReadOnlyBuffer();
+        }
+
+        FileChannel file = Assert.requireNonNull(this.file, "file must not be null");
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, limit - position));
+        long offset = position - maxInMemorySize;
+
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of cached content");
+            }
+        }
+
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Subscriber to the source content stream filling the cache.
+     */
+    final class Fill implements Subscriber<ByteBuffer> {
+
+        @Override
+        public void onSubscribe(Subscription s) {
+
+            CachedBlob.this.upstream = s;
+
+            if (CachedBlob.this.discarded) {
+                s.cancel();
+                return;
+            }
+
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ByteBuffer chunk) {
+
+            if (CachedBlob.this.done || CachedBlob.this.discarded) {
+                return;
+            }
+
+            try {
+                append(chunk);
+            } catch (IOException | RuntimeException e) {
+                Assert.requireNonNull(CachedBlob.this.upstream, "upstream must not be null").cancel();
+                onError(e);
+                return;
+            }
+
+            signal();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+
+            if (CachedBlob.this.done) {
+                return;
+            }
+
+            CachedBlob.this.error = t;
+            CachedBlob.this.done = true;
+            signal();
+        }
+
+        @Override
+        public void onComplete() {
+            CachedBlob.this.done = true;
+            signal();
+        }
+
+    }
+
+    /**
+     * {@link Subscription} replaying the cached content from {@code position} up to {@code end}.
+     */
+    final class Replay implements Subscription {
+
+        private final Subscriber<? super ByteBuffer> actual;
+
+        private final long end;
+
+        private long position;
+
+        @Nullable
+        private volatile Throwable requestError;
+
+        private volatile boolean cancelled;
+
+        volatile int wip;
+
+        volatile long requested;
+
+        Replay(Subscriber<? super ByteBuffer> actual, long position, long end) {
+            this.actual = actual;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                this.requestError = new IllegalArgumentException(String.format("Requested demand must be greater than zero, was %d", n));
+            } else {
+                for (; ; ) {
+                    long current = this.requested;
+                    long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                    if (REQUESTED.compareAndSet(this, current, next)) {
+                        break;
+                    }
+                }
+            }
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            CachedBlob.this.replays.remove(this);
+        }
+
+        void drain() {
+
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            for (; ; ) {
+
+                long requested = this.requested;
+                long emitted = 0;
+
+                for (; ; ) {
+
+                    if (this.cancelled) {
+                        return;
+                    }
+
+                    Throwable requestError = this.requestError;
+                    if (requestError != null) {
+                        terminate(requestError);
+                        return;
+                    }
+
+                    if (CachedBlob.this.discarded) {
+                        terminate(new IllegalStateException("Blob was discarded"));
+                        return;
+                    }
+
+                    boolean done = CachedBlob.this.done;
+                    long limit = Math.min(this.end, CachedBlob.this.available);
+
+                    if (this.position >= limit) {
+
+                        if (this.position >= this.end || done) {
+                            terminate(this.position >= this.end ? null : CachedBlob.this.error);
+                            return;
+                        }
+
+                        break;
+                    }
+
+                    if (emitted == requested) {
+                        break;
+                    }
+
+                    ByteBuffer chunk;
+
+                    try {
+                        chunk = read(this.position, limit);
+                    } catch (IOException | RuntimeException e) {
+                        terminate(CachedBlob.this.discarded ? new IllegalStateException("Blob was discarded") : e);
+                        return;
+                    }
+
+                    this.position += chunk.remaining();
+                    emitted++;
+                    this.actual.onNext(chunk);
+                }
+
+                if (emitted != 0 && requested != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -emitted);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void terminate(@Nullable Throwable error) {
+
+            cancel();
+
+            if (error != null) {
+                this.actual.onError(error);
+            } else {
+                this.actual.onComplete();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Stateful encoder for a stream of {@link CharSequence} chunks.  Characters that cannot be encoded in isolation (such as a high surrogate at the end of a chunk) are retained until the next chunk
+ * arrives.  Malformed input and unmappable characters are replaced.
+ * <p>
+ * <i>This class is not threadsafe</i>
+ */
+final class CharSequenceEncoder {
+
+    private final CharsetEncoder encoder;
+
+    @Nullable
+    private CharBuffer remainder;
+
+    CharSequenceEncoder(Charset charset) {
+        this.encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Encode the next chunk.
+     *
+     * @param chunk the chunk to encode
+     * @return the encoded bytes, can be empty
+     */
+    ByteBuffer encode(CharSequence chunk) {
+        return encode(chunk, false);
+    }
+
+    /**
+     * Encode retained characters and flush the encoder state after the last chunk.
+     *
+     * @return the encoded bytes, can be empty
+     */
+    ByteBuffer flush() {
+        return encode("", true);
+    }
+
+    private ByteBuffer encode(CharSequence chunk, boolean endOfInput) {
+
+        CharBuffer in;
+        if (this.remainder != null) {
+            in = CharBuffer.allocate(this.remainder.remaining() + chunk.length());
+            in.put(this.remainder).append(chunk).flip();
+            this.remainder = null;
+        } else {
+            in = CharBuffer.wrap(chunk);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) Math.ceil(in.remaining() * this.encoder.averageBytesPerChar()) + 4);
+
+        try {
+            for (; ; ) {
+
+                CoderResult result = this.encoder.encode(in, out, endOfInput);
+
+                if (result.isUnderflow()) {
+                    break;
+                }
+
+                if (result.isOverflow()) {
+                    out = grow(out);
+                    continue;
+                }
+
+                result.throwException();
+            }
+
+            if (endOfInput) {
+                while (this.encoder.flush(out).isOverflow()) {
+                    out = grow(out);
+                }
+                this.encoder.reset();
+            }
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException("Cannot encode character data", e);
+        }
+
+        if (in.hasRemaining()) {
+            this.remainder = CharBuffer.allocate(in.remaining()).put(in);
+            this.remainder.flip();
+        }
+
+        out.flip();
+        return out;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2 + 4);
+        buffer.flip();
+        return grown.put(buffer);
+    }
+
+}
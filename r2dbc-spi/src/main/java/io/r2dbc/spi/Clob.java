@@ -20,6 +20,10 @@ import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
 /**
  * Represents a handle to a large character object.
  */
@@ -36,7 +40,7 @@ public interface Clob {
     static Clob from(Publisher<? extends CharSequence> p) {
         Assert.requireNonNull(p, "Publisher must not be null");
 
-        DefaultLob<CharSequence> lob = new DefaultLob(p);
+        DefaultLob<CharSequence> lob = new DefaultLob(p, LobSlice.CHARACTERS);
 
         return new Clob() {
 
@@ -45,6 +49,54 @@ public interface Clob {
                 return lob.stream();
             }
 
+            @Override
+            public Publisher<CharSequence> stream(long offset, long length) {
+                LobSlice.validate(offset, length);
+                return lob.stream(offset, length);
+            }
+
+            @Override
+            public Publisher<Void> discard() {
+                return lob.discard();
+            }
+        };
+    }
+
+    /**
+     * Creates a new {@link Clob} wrapper that is backed by a {@link Publisher} of {@link ByteBuffer} containing characters encoded with {@link Charset}.
+     * The wrapper subscribes and cancels the subscription immediately on {@link #discard()}.
+     * <p>
+     * {@link #stream()} decodes the content.  {@link #streamBytes(Charset)} emits the content as-is if the requested {@link Charset} matches {@code charset} and transcodes the content otherwise.
+     *
+     * @param p       the backing {@link Publisher} of {@link ByteBuffer}.
+     * @param charset the {@link Charset} used to encode the content
+     * @return the {@link Clob} wrapper
+     * @since 1.0.1
+     */
+    static Clob from(Publisher<ByteBuffer> p, Charset charset) {
+        Assert.requireNonNull(p, "Publisher must not be null");
+        Assert.requireNonNull(charset, "Charset must not be null");
+
+        DefaultLob<ByteBuffer> lob = new DefaultLob<>(p, LobSlice.BYTES);
+
+        return new Clob() {
+
+            @Override
+            public Publisher<CharSequence> stream() {
+                return LobCodec.decode(lob.stream(), charset);
+            }
+
+            @Override
+            public Publisher<ByteBuffer> streamBytes(Charset target) {
+                Assert.requireNonNull(target, "Charset must not be null");
+
+                if (charset.equals(target)) {
+                    return lob.stream();
+                }
+
+                return LobCodec.encode(stream(), target);
+            }
+
             @Override
             public Publisher<Void> discard() {
                 return lob.discard();
@@ -63,6 +115,94 @@ public interface Clob {
      */
     Publisher<CharSequence> stream();
 
+    /**
+     * Returns the content stream as a {@link Publisher} emitting {@link ByteBuffer} chunks containing characters encoded with the given {@link Charset}.
+     * <p>
+     * Drivers may emit bytes received from the server without decoding them if the server encoding matches {@code charset}.  The default implementation encodes the {@link #stream() content
+     * stream}.  Characters that cannot be encoded are replaced with the replacement sequence of the {@link Charset}.
+     * <p>
+     * The content stream can be consumed ("subscribed to") only once.  Subsequent consumptions result in a {@link IllegalStateException}.
+     *
+     * @param charset the {@link Charset} to encode characters
+     * @return a {@link Publisher} emitting {@link ByteBuffer} chunks.
+     * @throws IllegalArgumentException if {@code charset} is {@code null}
+     * @since 1.0.1
+     */
+    default Publisher<ByteBuffer> streamBytes(Charset charset) {
+        Assert.requireNonNull(charset, "Charset must not be null");
+        return LobCodec.encode(stream(), charset);
+    }
+
+    /**
+     * Returns a range of the content stream as a {@link Publisher} emitting {@link CharSequence} chunks.  The range starts at the zero-based character {@code offset} and spans up to {@code length}
+     * characters.  The emitted range is shorter than {@code length} if the content ends before the end of the range.
+     * <p>
+     * Like {@link CharSequence#length()} and {@link #length()}, offset and length count UTF-16 code units ({@code char} values), not code points.  A range boundary can therefore split a
+     * surrogate pair, in which case the emitted range starts or ends with an unpaired surrogate.
+     * <p>
+     * Drivers may read the range using server-side functionality such as substring or locator reads to avoid transferring the entire content.  The default implementation drops and slices chunks of
+     * the {@link #stream() content stream} and cancels the content stream once the range has been emitted.
+     * <p>
+     * Consuming a range consumes the content stream.  The content stream can be consumed ("subscribed to") only once.  Subsequent consumptions result in a {@link IllegalStateException}.
+     *
+     * @param offset zero-based character offset of the range
+     * @param length number of characters to emit
+     * @return a {@link Publisher} emitting {@link CharSequence} chunks.
+     * @throws IllegalArgumentException if {@code offset} or {@code length} is negative
+     * @since 1.0.1
+     */
+    default Publisher<CharSequence> stream(long offset, long length) {
+        LobSlice.validate(offset, length);
+        return new LobSlice<>(stream(), offset, length, LobSlice.CHARACTERS);
+    }
+
+    /**
+     * Returns the length of the content in characters, counted as UTF-16 code units ({@code char} values).
+     * <p>
+     * Emits the length if it can be determined without consuming the {@link #stream() content stream} (for example, from a locator or from a fully materialized object).  Completes without emitting
+     * a value if the length is not known.  Obtaining the length does not consume the content stream.
+     *
+     * @return a {@link Publisher} emitting the length in characters or completing empty if the length is not known
+     * @since 1.0.1
+     */
+    default Publisher<Long> length() {
+        return Publishers.empty();
+    }
+
+    /**
+     * Transfers the {@link #stream() content stream} into an {@link Appendable} (such as a {@link java.io.Writer} or {@link StringBuilder}) and emits the number of characters written.
+     * <p>
+     * Chunks are requested one at a time and the next chunk is requested only after the previous chunk has been appended so that the content is not buffered in memory.  The target is neither
+     * flushed nor closed after the transfer.  Transferring the content consumes the content stream.
+     *
+     * @param appendable the target to append characters to
+     * @return a {@link Publisher} emitting the number of characters written
+     * @throws IllegalArgumentException if {@code appendable} is {@code null}
+     * @since 1.0.1
+     */
+    default Publisher<Long> transferTo(Appendable appendable) {
+        Assert.requireNonNull(appendable, "appendable must not be null");
+        return LobTransfer.to(stream(), appendable);
+    }
+
+    /**
+     * Transfers the {@link #streamBytes(Charset) encoded content stream} into a {@link WritableByteChannel} and emits the number of bytes written.
+     * <p>
+     * Chunks are requested one at a time and the next chunk is requested only after the previous chunk has been written so that the content is not buffered in memory.  The channel is expected to
+     * operate in blocking mode and is not closed after the transfer.  Transferring the content consumes the content stream.
+     *
+     * @param channel the channel to write to
+     * @param charset the charset to encode characters
+     * @return a {@link Publisher} emitting the number of bytes written
+     * @throws IllegalArgumentException if {@code channel} or {@code charset} is {@code null}
+     * @since 1.0.1
+     */
+    default Publisher<Long> transferTo(WritableByteChannel channel, Charset charset) {
+        Assert.requireNonNull(channel, "channel must not be null");
+        Assert.requireNonNull(charset, "charset must not be null");
+        return LobTransfer.to(LobCodec.wrap(streamBytes(charset)), channel);
+    }
+
     /**
      * Release any resources held by the {@link Clob} when not subscribing to the {@link #stream() stream content}.
      *
@@ -112,6 +112,22 @@ public interface Connection extends Closeable {
      */
     ConnectionMetadata getMetadata();
 
+    /**
+     * Returns a snapshot of the session state known to this connection without a round trip to the database.  Attributes that are not known are reported as {@code null}.  Drivers should report
+     * values that were applied by previous calls to the corresponding setters or that are known from the connection handshake.
+     * <p>
+     * The default implementation reports {@link #isAutoCommit() auto-commit} and the {@link #getTransactionIsolationLevel() transaction isolation level}.
+     *
+     * @return a snapshot of the known session state
+     * @since 1.0.1
+     */
+    default ConnectionState getState() {
+        return ConnectionState.builder()
+            .autoCommit(isAutoCommit())
+            .transactionIsolationLevel(getTransactionIsolationLevel())
+            .build();
+    }
+
     /**
      * Returns the {@link IsolationLevel} for this connection.
      * <p>Isolation level is typically one of the following constants:
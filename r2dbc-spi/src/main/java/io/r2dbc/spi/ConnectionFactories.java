@@ -95,7 +95,8 @@ public final class ConnectionFactories {
     }
 
     /**
-     * Returns a {@link ConnectionFactory} if an available implementation can be created from a collection of {@link ConnectionFactoryOptions}.
+     * Returns a {@link ConnectionFactory} if an available implementation can be created from a collection of {@link ConnectionFactoryOptions}.  The created {@link ConnectionFactory} is
+     * {@link #observe(ConnectionFactory, ExecutionListener) observed} if {@link ConnectionFactoryOptions#EXECUTION_LISTENER} is configured.
      *
      * @param connectionFactoryOptions a collection of {@link ConnectionFactoryOptions}
      * @return the created {@link ConnectionFactory} if one can be created, otherwise {@code null}
@@ -107,7 +108,11 @@ public final class ConnectionFactories {
 
         for (ConnectionFactoryProvider provider : loadProviders()) {
             if (provider.supports(connectionFactoryOptions)) {
-                return provider.create(connectionFactoryOptions);
+
+                ConnectionFactory connectionFactory = provider.create(connectionFactoryOptions);
+                ExecutionListener listener = (ExecutionListener) connectionFactoryOptions.getValue(ConnectionFactoryOptions.EXECUTION_LISTENER);
+
+                return listener != null ? observe(connectionFactory, listener) : connectionFactory;
             }
         }
 
@@ -146,6 +151,23 @@ public final class ConnectionFactories {
         return connectionFactory;
     }
 
+    /**
+     * Returns a {@link ConnectionFactory} that notifies {@code listener} about connection and statement execution events of connections created by {@code connectionFactory}.  Connections,
+     * statements, batches and results are decorated and implement {@link Wrapped} to expose the underlying object.
+     *
+     * @param connectionFactory the {@link ConnectionFactory} to observe
+     * @param listener          the {@link ExecutionListener} to notify
+     * @return the observed {@link ConnectionFactory}
+     * @throws IllegalArgumentException if {@code connectionFactory} or {@code listener} is {@code null}
+     * @since 1.0.1
+     */
+    public static ConnectionFactory observe(ConnectionFactory connectionFactory, ExecutionListener listener) {
+        Assert.requireNonNull(connectionFactory, "connectionFactory must not be null");
+        Assert.requireNonNull(listener, "listener must not be null");
+
+        return new ObservedConnectionFactory(connectionFactory, listener);
+    }
+
     /**
      * Returns whether a {@link ConnectionFactory} can be created from a collection of {@link ConnectionFactoryOptions}.
      *
@@ -32,6 +32,28 @@ public interface ConnectionFactory {
      */
     Publisher<? extends Connection> create();
 
+    /**
+     * Creates {@code count} new {@link Connection}s.  Drivers can override this method to establish connections in parallel across event loops, to reuse TLS sessions and name resolution
+     * results, or to report partial failures in a vendor-specific way.
+     * <p>
+     * The default implementation calls {@link #create()} repeatedly according to demand with at most eight creations in flight.  If a creation fails, no further creations are started.
+     * Connections that were created successfully are emitted as far as demand permits before the returned {@link Publisher} terminates with the first error.  Later errors are added as
+     * {@link Throwable#addSuppressed(Throwable) suppressed} exceptions.  Connections that cannot be emitted because of cancellation or an error are closed.
+     *
+     * @param count the number of connections to create
+     * @return a {@link Publisher} emitting up to {@code count} newly created {@link Connection}s
+     * @throws IllegalArgumentException if {@code count} is less than one
+     * @since 1.0.1
+     */
+    default Publisher<? extends Connection> create(int count) {
+
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be greater than zero");
+        }
+
+        return new BulkConnectionPublisher(this, count, Math.min(count, BulkConnectionPublisher.DEFAULT_CONCURRENCY));
+    }
+
     /**
      * Returns the {@link ConnectionFactoryMetadata} about the product this {@link ConnectionFactory} is applicable to.
      *
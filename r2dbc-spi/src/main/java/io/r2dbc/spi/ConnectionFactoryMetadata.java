@@ -28,4 +28,15 @@ public interface ConnectionFactoryMetadata {
      */
     String getName();
 
+    /**
+     * Returns the {@link ConnectionFactoryStatistics} of the {@link ConnectionFactory}, if the {@link ConnectionFactory} records statistics.
+     *
+     * @return the {@link ConnectionFactoryStatistics} or {@code null} if the {@link ConnectionFactory} does not record statistics
+     * @since 1.0.1
+     */
+    @Nullable
+    default ConnectionFactoryStatistics getStatistics() {
+        return null;
+    }
+
 }
@@ -16,6 +16,7 @@
 
 package io.r2dbc.spi;
 
+import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -67,11 +68,27 @@ public final class ConnectionFactoryOptions {
      */
     public static final Option<String> DRIVER = Option.valueOf("driver");
 
+    /**
+     * {@link ExecutionListener} notified about connection and statement execution events.  Applied by {@link ConnectionFactories} to the created {@link ConnectionFactory}.
+     *
+     * @since 1.0.1
+     */
+    public static final Option<ExecutionListener> EXECUTION_LISTENER = Option.valueOf("executionListener");
+
     /**
      * Endpoint host name.
      */
     public static final Option<String> HOST = Option.valueOf("host");
 
+    /**
+     * Endpoint hosts of a multi-host configuration in the order of preference.  Hosts are represented as {@link InetSocketAddress#createUnresolved(String, int) unresolved} addresses.  A port
+     * number of {@code 0} indicates that no port was specified for the host.  Populated when parsing a R2DBC Connection URL that declares multiple comma-separated hosts, either in the authority
+     * or through a {@code hosts} query string option.  URL parsing sets {@link #HOST} and {@link #PORT} to the first host of a multi-host authority.
+     *
+     * @since 1.0.1
+     */
+    public static final Option<List<InetSocketAddress>> HOSTS = Option.valueOf("hosts");
+
     /**
      * Lock timeout.
      *
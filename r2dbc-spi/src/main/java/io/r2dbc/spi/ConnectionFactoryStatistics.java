@@ -0,0 +1,563 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free statistics of a {@link ConnectionFactory}.  Statistics consist of counters and fixed-bucket latency histograms that do not depend on a metrics library:
+ * <ul>
+ *     <li>acquire: time to obtain a {@link Connection}</li>
+ *     <li>execute: time from the start of an execution until its first {@link Result} is emitted</li>
+ *     <li>first row: time from the start of an execution until its first row is consumed</li>
+ *     <li>total: time from the start of an execution until it terminates</li>
+ *     <li>hold: time a {@link Connection} is held between its acquisition and {@link Connection#close()}</li>
+ *     <li>idle in transaction: time within a transaction between the end of one statement and the start of the next one</li>
+ *     <li>bytes received from and sent to the database</li>
+ *     <li>active and idle connections</li>
+ * </ul>
+ * Drivers and pools record statistics through the {@code record} and {@code connection} methods.  All recording methods are lock-free and can be called concurrently.  Alternatively, this class
+ * can be registered as {@link ExecutionListener} through {@link ConnectionFactoryOptions#EXECUTION_LISTENER} or {@link ConnectionFactories#observe(ConnectionFactory, ExecutionListener)} to
+ * record connection and execution statistics of the observed {@link ConnectionFactory} that then exposes the statistics through {@link ConnectionFactoryMetadata#getStatistics()}.  Each
+ * connection created through the observed factory counts as created and acquired, each closed connection as released and closed.
+ * <p>
+ * Active connections are connections that were {@link #connectionAcquired() acquired} and not yet {@link #connectionReleased() released}, idle connections are the remaining
+ * {@link #connectionCreated() open} connections.  Acquisitions and releases are recorded by a pool or by an observed {@link ConnectionFactory}.  If only a driver records opened and closed
+ * connections, all open connections are reported as idle.
+ * <p>
+ * {@link #snapshot()} returns an immutable {@link Snapshot} that is cheap enough to be taken periodically, for example to export statistics to a monitoring system every second.
+ *
+ * @see ConnectionFactoryMetadata#getStatistics()
+ * @since 1.0.1
+ */
+public final class ConnectionFactoryStatistics implements ExecutionListener {
+
+    private final LatencyHistogram acquireTime = new LatencyHistogram();
+
+    private final LatencyHistogram executeTime = new LatencyHistogram();
+
+    private final LatencyHistogram firstRowTime = new LatencyHistogram();
+
+    private final LatencyHistogram totalTime = new LatencyHistogram();
+
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+
+    private final LatencyHistogram idleInTransactionTime = new LatencyHistogram();
+
+    private final LongAdder bytesIn = new LongAdder();
+
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final LongAdder created = new LongAdder();
+
+    private final LongAdder closed = new LongAdder();
+
+    private final LongAdder acquired = new LongAdder();
+
+    private final LongAdder released = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder cancellations = new LongAdder();
+
+    /**
+     * Record the time it took to acquire a {@link Connection}.
+     *
+     * @param nanos the acquisition time in nanoseconds
+     */
+    public void recordAcquire(long nanos) {
+        this.acquireTime.record(nanos);
+    }
+
+    /**
+     * Record the time from the start of an execution until its first {@link Result} was emitted.
+     *
+     * @param nanos the execution time in nanoseconds
+     */
+    public void recordExecute(long nanos) {
+        this.executeTime.record(nanos);
+    }
+
+    /**
+     * Record the time from the start of an execution until its first row was consumed.
+     *
+     * @param nanos the first-row latency in nanoseconds
+     */
+    public void recordFirstRow(long nanos) {
+        this.firstRowTime.record(nanos);
+    }
+
+    /**
+     * Record the time from the start of an execution until it terminated.
+     *
+     * @param nanos the total execution time in nanoseconds
+     */
+    public void recordTotal(long nanos) {
+        this.totalTime.record(nanos);
+    }
+
+    /**
+     * Record the time a {@link Connection} was held between its acquisition and {@link Connection#close()}.
+     *
+     * @param nanos the hold time in nanoseconds
+     */
+    public void recordHoldTime(long nanos) {
+        this.holdTime.record(nanos);
+    }
+
+    /**
+     * Record the time a {@link Connection} was idle within a transaction between the end of one statement and the start of the next one or the end of the transaction.
+     *
+     * @param nanos the idle time in nanoseconds
+     */
+    public void recordIdleInTransaction(long nanos) {
+        this.idleInTransactionTime.record(nanos);
+    }
+
+    /**
+     * Record the number of bytes received from the database.
+     *
+     * @param bytes the number of received bytes
+     */
+    public void recordBytesIn(long bytes) {
+        this.bytesIn.add(bytes);
+    }
+
+    /**
+     * Record the number of bytes sent to the database.
+     *
+     * @param bytes the number of sent bytes
+     */
+    public void recordBytesOut(long bytes) {
+        this.bytesOut.add(bytes);
+    }
+
+    /**
+     * Record a failed execution.
+     */
+    public void recordError() {
+        this.errors.increment();
+    }
+
+    /**
+     * Record a cancelled execution.
+     */
+    public void recordCancellation() {
+        this.cancellations.increment();
+    }
+
+    /**
+     * Record that a physical connection was opened.
+     */
+    public void connectionCreated() {
+        this.created.increment();
+    }
+
+    /**
+     * Record that a physical connection was closed.
+     */
+    public void connectionClosed() {
+        this.closed.increment();
+    }
+
+    /**
+     * Record that a connection was handed out for use.
+     */
+    public void connectionAcquired() {
+        this.acquired.increment();
+    }
+
+    /**
+     * Record that a connection was returned after use.
+     */
+    public void connectionReleased() {
+        this.released.increment();
+    }
+
+    /**
+     * Returns an immutable snapshot of the statistics.  Counters are read one by one without locking so that values recorded while the snapshot is taken may be reflected partially.
+     *
+     * @return an immutable {@link Snapshot}
+     */
+    public Snapshot snapshot() {
+
+        long active = this.acquired.sum() - this.released.sum();
+        long open = this.created.sum() - this.closed.sum();
+
+        return new Snapshot(this.acquireTime.snapshot(), this.executeTime.snapshot(), this.firstRowTime.snapshot(), this.totalTime.snapshot(), this.holdTime.snapshot(),
+            this.idleInTransactionTime.snapshot(), this.bytesIn.sum(), this.bytesOut.sum(),
+            Math.max(0, active), Math.max(0, open - active), this.errors.sum(), this.cancellations.sum());
+    }
+
+    @Override
+    public void onConnectionCreate(Connection connection, long startTime, long endTime) {
+        connectionCreated();
+        connectionAcquired();
+        recordAcquire(endTime - startTime);
+    }
+
+    @Override
+    public void onConnectionClose(Connection connection, long startTime, long endTime) {
+        connectionReleased();
+        connectionClosed();
+    }
+
+    @Override
+    public void onFirstResult(Execution execution, long time) {
+        recordExecute(time - execution.getStartTime());
+    }
+
+    @Override
+    public void onFirstRow(Execution execution, long time) {
+        recordFirstRow(time - execution.getStartTime());
+    }
+
+    @Override
+    public void onExecuteComplete(Execution execution, long time) {
+        recordTotal(time - execution.getStartTime());
+    }
+
+    @Override
+    public void onExecuteCancel(Execution execution, long time) {
+        recordCancellation();
+        recordTotal(time - execution.getStartTime());
+    }
+
+    @Override
+    public void onExecuteError(Execution execution, Throwable error, long time) {
+        recordError();
+        recordTotal(time - execution.getStartTime());
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionFactoryStatistics{" +
+            "snapshot=" + snapshot() +
+            '}';
+    }
+
+    /**
+     * Immutable snapshot of {@link ConnectionFactoryStatistics}.
+     */
+    public static final class Snapshot {
+
+        private final Histogram acquireTime;
+
+        private final Histogram executeTime;
+
+        private final Histogram firstRowTime;
+
+        private final Histogram totalTime;
+
+        private final Histogram holdTime;
+
+        private final Histogram idleInTransactionTime;
+
+        private final long bytesIn;
+
+        private final long bytesOut;
+
+        private final long activeConnections;
+
+        private final long idleConnections;
+
+        private final long errorCount;
+
+        private final long cancelCount;
+
+        Snapshot(Histogram acquireTime, Histogram executeTime, Histogram firstRowTime, Histogram totalTime, Histogram holdTime, Histogram idleInTransactionTime, long bytesIn, long bytesOut,
+                 long activeConnections, long idleConnections, long errorCount, long cancelCount) {
+            this.acquireTime = acquireTime;
+            this.executeTime = executeTime;
+            this.firstRowTime = firstRowTime;
+            this.totalTime = totalTime;
+            this.holdTime = holdTime;
+            this.idleInTransactionTime = idleInTransactionTime;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.errorCount = errorCount;
+            this.cancelCount = cancelCount;
+        }
+
+        /**
+         * Returns the connection acquisition times.
+         *
+         * @return the connection acquisition times
+         */
+        public Histogram getAcquireTime() {
+            return this.acquireTime;
+        }
+
+        /**
+         * Returns the times from the start of executions until their first {@link Result} was emitted.
+         *
+         * @return the execution times
+         */
+        public Histogram getExecuteTime() {
+            return this.executeTime;
+        }
+
+        /**
+         * Returns the times from the start of executions until their first row was consumed.
+         *
+         * @return the first-row latencies
+         */
+        public Histogram getFirstRowTime() {
+            return this.firstRowTime;
+        }
+
+        /**
+         * Returns the times from the start of executions until they terminated.
+         *
+         * @return the total execution times
+         */
+        public Histogram getTotalTime() {
+            return this.totalTime;
+        }
+
+        /**
+         * Returns the times connections were held between their acquisition and {@link Connection#close()}.
+         *
+         * @return the connection hold times
+         */
+        public Histogram getHoldTime() {
+            return this.holdTime;
+        }
+
+        /**
+         * Returns the times connections were idle within a transaction.
+         *
+         * @return the idle-in-transaction times
+         */
+        public Histogram getIdleInTransactionTime() {
+            return this.idleInTransactionTime;
+        }
+
+        /**
+         * Returns the number of bytes received from the database.
+         *
+         * @return the number of bytes received from the database
+         */
+        public long getBytesIn() {
+            return this.bytesIn;
+        }
+
+        /**
+         * Returns the number of bytes sent to the database.
+         *
+         * @return the number of bytes sent to the database
+         */
+        public long getBytesOut() {
+            return this.bytesOut;
+        }
+
+        /**
+         * Returns the number of connections that are in use.  Requires acquisitions and releases to be recorded, typically by a pool.
+         *
+         * @return the number of connections that are in use
+         */
+        public long getActiveConnections() {
+            return this.activeConnections;
+        }
+
+        /**
+         * Returns the number of open connections that are not in use.  Includes all open connections if acquisitions are not recorded.
+         *
+         * @return the number of open connections that are not in use
+         */
+        public long getIdleConnections() {
+            return this.idleConnections;
+        }
+
+        /**
+         * Returns the number of failed executions.
+         *
+         * @return the number of failed executions
+         */
+        public long getErrorCount() {
+            return this.errorCount;
+        }
+
+        /**
+         * Returns the number of cancelled executions.
+         *
+         * @return the number of cancelled executions
+         */
+        public long getCancelCount() {
+            return this.cancelCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                "acquireTime=" + this.acquireTime +
+                ", executeTime=" + this.executeTime +
+                ", firstRowTime=" + this.firstRowTime +
+                ", totalTime=" + this.totalTime +
+                ", holdTime=" + this.holdTime +
+                ", idleInTransactionTime=" + this.idleInTransactionTime +
+                ", bytesIn=" + this.bytesIn +
+                ", bytesOut=" + this.bytesOut +
+                ", activeConnections=" + this.activeConnections +
+                ", idleConnections=" + this.idleConnections +
+                ", errorCount=" + this.errorCount +
+                ", cancelCount=" + this.cancelCount +
+                '}';
+        }
+
+    }
+
+    /**
+     * Immutable latency histogram with fixed bucket bounds ranging from 100 microseconds to 10 seconds.  Each bucket counts latencies up to and including its upper bound, the last bucket
+     * counts latencies exceeding the largest bound.
+     */
+    public static final class Histogram {
+
+        private static final List<Duration> BUCKET_BOUNDS;
+
+        static {
+
+            List<Duration> bounds = new ArrayList<>(LatencyHistogram.BOUNDS.length);
+
+            for (long bound : LatencyHistogram.BOUNDS) {
+                bounds.add(Duration.ofNanos(bound));
+            }
+
+            BUCKET_BOUNDS = Collections.unmodifiableList(bounds);
+        }
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long total;
+
+        private final long max;
+
+        Histogram(long[] counts, long total, long max) {
+            this.counts = counts;
+            this.count = Arrays.stream(counts).sum();
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * Returns the upper bounds of all buckets but the last one.
+         *
+         * @return the upper bounds of all buckets but the last one
+         */
+        public List<Duration> getBucketBounds() {
+            return BUCKET_BOUNDS;
+        }
+
+        /**
+         * Returns the number of latencies counted by each bucket.  The returned array has one element more than {@link #getBucketBounds()}.
+         *
+         * @return the number of latencies counted by each bucket
+         */
+        public long[] getBucketCounts() {
+            return this.counts.clone();
+        }
+
+        /**
+         * Returns the number of recorded latencies.
+         *
+         * @return the number of recorded latencies
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Returns the sum of all recorded latencies.
+         *
+         * @return the sum of all recorded latencies
+         */
+        public Duration getTotalTime() {
+            return Duration.ofNanos(this.total);
+        }
+
+        /**
+         * Returns the largest recorded latency.
+         *
+         * @return the largest recorded latency.  {@link Duration#ZERO} if no latency was recorded.
+         */
+        public Duration getMax() {
+            return Duration.ofNanos(this.max);
+        }
+
+        /**
+         * Returns the mean of all recorded latencies.
+         *
+         * @return the mean of all recorded latencies.  {@link Duration#ZERO} if no latency was recorded.
+         */
+        public Duration getMean() {
+            return this.count == 0 ? Duration.ZERO : Duration.ofNanos(this.total / this.count);
+        }
+
+        /**
+         * Returns an upper estimate of the latency at {@code percentile}, the upper bound of the bucket that contains the percentile.  Returns {@link #getMax()} if the percentile falls into
+         * the last bucket or if the maximum is smaller than the bucket bound.
+         *
+         * @param percentile the percentile between {@code 0} and {@code 1}, for example {@code 0.99}
+         * @return the estimated latency at {@code percentile}.  {@link Duration#ZERO} if no latency was recorded.
+         * @throws IllegalArgumentException if {@code percentile} is not between {@code 0} and {@code 1}
+         */
+        public Duration getPercentile(double percentile) {
+
+            if (percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1");
+            }
+
+            if (this.count == 0) {
+                return Duration.ZERO;
+            }
+
+            long rank = (long) Math.ceil(percentile * this.count);
+            long cumulative = 0;
+
+            for (int i = 0; i < LatencyHistogram.BOUNDS.length; i++) {
+
+                cumulative += this.counts[i];
+
+                if (cumulative >= rank && cumulative > 0) {
+                    return Duration.ofNanos(Math.min(LatencyHistogram.BOUNDS[i], this.max));
+                }
+            }
+
+            return getMax();
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{" +
+                "count=" + this.count +
+                ", mean=" + getMean() +
+                ", max=" + getMax() +
+                '}';
+        }
+
+    }
+
+}
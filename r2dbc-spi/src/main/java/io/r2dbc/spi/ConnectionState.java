@@ -0,0 +1,246 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the session state of a {@link Connection} as known to the driver.  Each attribute is {@code null} if its value is not known without a round trip to the database.
+ * <p>
+ * Callers can compare a snapshot against a desired value to skip setting an attribute to the value that is already in place and compare two snapshots to determine which attributes have changed,
+ * e.g. to reset only changed attributes in {@link Lifecycle#preRelease()}.
+ *
+ * @see Connection#getState()
+ * @since 1.0.1
+ */
+public final class ConnectionState {
+
+    private static final ConnectionState UNKNOWN = new ConnectionState(null, null, null, null);
+
+    @Nullable
+    private final Boolean autoCommit;
+
+    @Nullable
+    private final IsolationLevel transactionIsolationLevel;
+
+    @Nullable
+    private final Duration statementTimeout;
+
+    @Nullable
+    private final Duration lockWaitTimeout;
+
+    private ConnectionState(@Nullable Boolean autoCommit, @Nullable IsolationLevel transactionIsolationLevel, @Nullable Duration statementTimeout, @Nullable Duration lockWaitTimeout) {
+        this.autoCommit = autoCommit;
+        this.transactionIsolationLevel = transactionIsolationLevel;
+        this.statementTimeout = statementTimeout;
+        this.lockWaitTimeout = lockWaitTimeout;
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     *
+     * @return a new {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a {@link ConnectionState} without any known attribute.
+     *
+     * @return a {@link ConnectionState} without any known attribute
+     */
+    public static ConnectionState unknown() {
+        return UNKNOWN;
+    }
+
+    /**
+     * Returns a new {@link Builder} initialized with the attributes of this snapshot.
+     *
+     * @return a new {@link Builder}
+     */
+    public Builder mutate() {
+        return new Builder()
+            .autoCommit(this.autoCommit)
+            .transactionIsolationLevel(this.transactionIsolationLevel)
+            .statementTimeout(this.statementTimeout)
+            .lockWaitTimeout(this.lockWaitTimeout);
+    }
+
+    /**
+     * Returns the auto-commit mode or {@code null} if unknown.
+     *
+     * @return the auto-commit mode.  Can be {@code null}.
+     * @see Connection#isAutoCommit()
+     */
+    @Nullable
+    public Boolean getAutoCommit() {
+        return this.autoCommit;
+    }
+
+    /**
+     * Returns the transaction isolation level or {@code null} if unknown.
+     *
+     * @return the transaction isolation level.  Can be {@code null}.
+     * @see Connection#getTransactionIsolationLevel()
+     */
+    @Nullable
+    public IsolationLevel getTransactionIsolationLevel() {
+        return this.transactionIsolationLevel;
+    }
+
+    /**
+     * Returns the statement timeout or {@code null} if unknown.  {@link Duration#ZERO} indicates no timeout.
+     *
+     * @return the statement timeout.  Can be {@code null}.
+     * @see Connection#setStatementTimeout(Duration)
+     */
+    @Nullable
+    public Duration getStatementTimeout() {
+        return this.statementTimeout;
+    }
+
+    /**
+     * Returns the lock wait timeout or {@code null} if unknown.  {@link Duration#ZERO} indicates no-wait.
+     *
+     * @return the lock wait timeout.  Can be {@code null}.
+     * @see Connection#setLockWaitTimeout(Duration)
+     */
+    @Nullable
+    public Duration getLockWaitTimeout() {
+        return this.lockWaitTimeout;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConnectionState)) {
+            return false;
+        }
+        ConnectionState that = (ConnectionState) o;
+        return Objects.equals(this.autoCommit, that.autoCommit) &&
+            Objects.equals(this.transactionIsolationLevel, that.transactionIsolationLevel) &&
+            Objects.equals(this.statementTimeout, that.statementTimeout) &&
+            Objects.equals(this.lockWaitTimeout, that.lockWaitTimeout);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.autoCommit, this.transactionIsolationLevel, this.statementTimeout, this.lockWaitTimeout);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionState{" +
+            "autoCommit=" + this.autoCommit +
+            ", transactionIsolationLevel=" + this.transactionIsolationLevel +
+            ", statementTimeout=" + this.statementTimeout +
+            ", lockWaitTimeout=" + this.lockWaitTimeout +
+            '}';
+    }
+
+    /**
+     * A builder for {@link ConnectionState} instances.  Attributes that are not configured or configured with {@code null} are unknown.
+     * <p>
+     * <i>This class is not threadsafe</i>
+     */
+    public static final class Builder {
+
+        @Nullable
+        private Boolean autoCommit;
+
+        @Nullable
+        private IsolationLevel transactionIsolationLevel;
+
+        @Nullable
+        private Duration statementTimeout;
+
+        @Nullable
+        private Duration lockWaitTimeout;
+
+        private Builder() {
+        }
+
+        /**
+         * Returns a configured {@link ConnectionState}.
+         *
+         * @return a configured {@link ConnectionState}
+         */
+        public ConnectionState build() {
+            return new ConnectionState(this.autoCommit, this.transactionIsolationLevel, this.statementTimeout, this.lockWaitTimeout);
+        }
+
+        /**
+         * Configure the auto-commit mode.
+         *
+         * @param autoCommit the auto-commit mode, {@code null} if unknown
+         * @return this {@link Builder}
+         */
+        public Builder autoCommit(@Nullable Boolean autoCommit) {
+            this.autoCommit = autoCommit;
+            return this;
+        }
+
+        /**
+         * Configure the transaction isolation level.
+         *
+         * @param transactionIsolationLevel the transaction isolation level, {@code null} if unknown
+         * @return this {@link Builder}
+         */
+        public Builder transactionIsolationLevel(@Nullable IsolationLevel transactionIsolationLevel) {
+            this.transactionIsolationLevel = transactionIsolationLevel;
+            return this;
+        }
+
+        /**
+         * Configure the statement timeout.
+         *
+         * @param statementTimeout the statement timeout, {@code null} if unknown
+         * @return this {@link Builder}
+         */
+        public Builder statementTimeout(@Nullable Duration statementTimeout) {
+            this.statementTimeout = statementTimeout;
+            return this;
+        }
+
+        /**
+         * Configure the lock wait timeout.
+         *
+         * @param lockWaitTimeout the lock wait timeout, {@code null} if unknown
+         * @return this {@link Builder}
+         */
+        public Builder lockWaitTimeout(@Nullable Duration lockWaitTimeout) {
+            this.lockWaitTimeout = lockWaitTimeout;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Builder{" +
+                "autoCommit=" + this.autoCommit +
+                ", transactionIsolationLevel=" + this.transactionIsolationLevel +
+                ", statementTimeout=" + this.statementTimeout +
+                ", lockWaitTimeout=" + this.lockWaitTimeout +
+                '}';
+        }
+
+    }
+
+}
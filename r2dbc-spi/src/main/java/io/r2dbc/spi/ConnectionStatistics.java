@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Activity statistics of a {@link Connection} that are available without a round trip to the database.
+ *
+ * <p>Can be implemented by connections.  Components validating connections can use the time of the last successful network I/O to answer a {@link ValidationDepth#REMOTE remote} validation
+ * locally if the connection has recently exchanged data with the database.
+ *
+ * @see Connection#validate(ValidationDepth)
+ * @since 1.0.1
+ */
+public interface ConnectionStatistics {
+
+    /**
+     * Returns the time at which the connection last completed a successful network exchange with the database, such as receiving a response.
+     *
+     * @return the time of the last successful network I/O.  {@code null} if the connection did not yet complete any network I/O.
+     */
+    @Nullable
+    Instant getLastSuccessfulIo();
+
+    /**
+     * Returns whether the connection completed a successful network exchange within the given {@code window} counted back from now.
+     *
+     * @param window the time window to check
+     * @return {@code true} if the last successful network I/O happened within {@code window}
+     * @throws IllegalArgumentException if {@code window} is {@code null}
+     */
+    default boolean hasSuccessfulIoWithin(Duration window) {
+        Assert.requireNonNull(window, "window must not be null");
+
+        Instant lastSuccessfulIo = getLastSuccessfulIo();
+
+        return lastSuccessfulIo != null && !lastSuccessfulIo.plus(window).isBefore(Instant.now());
+    }
+
+}
@@ -16,11 +16,15 @@
 
 package io.r2dbc.spi;
 
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
@@ -32,7 +36,7 @@ import java.util.stream.Stream;
 abstract class ConnectionUrlParser {
 
     private static final Set<String> PROHIBITED_QUERY_OPTIONS = Stream.of(ConnectionFactoryOptions.DATABASE,
-        ConnectionFactoryOptions.DRIVER, ConnectionFactoryOptions.HOST, ConnectionFactoryOptions.PASSWORD,
+        ConnectionFactoryOptions.DRIVER, ConnectionFactoryOptions.EXECUTION_LISTENER, ConnectionFactoryOptions.HOST, ConnectionFactoryOptions.PASSWORD,
         ConnectionFactoryOptions.PORT, ConnectionFactoryOptions.PROTOCOL, ConnectionFactoryOptions.USER).map(Option::name)
         .collect(Collectors.toSet());
 
@@ -109,6 +113,8 @@ abstract class ConnectionUrlParser {
             }
         }
 
+        boolean multipleHosts = false;
+
         if (hasText(uri.getHost())) {
             builder.option(ConnectionFactoryOptions.HOST, decode(uri.getHost().trim()).toString());
 
@@ -131,7 +137,12 @@ abstract class ConnectionUrlParser {
                 }
             }
 
-            builder.option(ConnectionFactoryOptions.HOST, decode(authorityToUse.trim()).toString());
+            if (authorityToUse.indexOf(',') != -1) {
+                multipleHosts = true;
+                hosts(parseHosts(authorityToUse), builder);
+            } else {
+                builder.option(ConnectionFactoryOptions.HOST, decode(authorityToUse.trim()).toString());
+            }
         }
 
         if (uri.getPort() != -1) {
@@ -146,6 +157,9 @@ abstract class ConnectionUrlParser {
         }
 
         if (hasText(uri.getRawQuery())) {
+
+            boolean authorityHosts = multipleHosts;
+
             parseQuery(uri.getRawQuery().trim(), (k, v) -> {
 
                 if (PROHIBITED_QUERY_OPTIONS.contains(k)) {
@@ -153,6 +167,16 @@ abstract class ConnectionUrlParser {
                         String.format("URL %s must not declare option %s in the query string", url, k));
                 }
 
+                if (k.equals(ConnectionFactoryOptions.HOSTS.name())) {
+
+                    if (authorityHosts) {
+                        throw new IllegalArgumentException(String.format("URL %s must not declare option %s in the query string when declaring multiple hosts", url, k));
+                    }
+
+                    builder.option(ConnectionFactoryOptions.HOSTS, parseHosts(v));
+                    return;
+                }
+
                 builder.option(Option.valueOf(k), v);
             });
         }
@@ -184,6 +208,83 @@ abstract class ConnectionUrlParser {
         }
     }
 
+    /**
+     * Parse a comma-separated list of hosts with optional port numbers such as {@code host1:1234,host2,[::1]:5678}.
+     *
+     * @param s input text
+     * @return the list of {@link InetSocketAddress#createUnresolved(String, int) unresolved} addresses.  Hosts without a port number use port {@code 0}.
+     * @throws IllegalArgumentException if a host is empty or declares an invalid port number
+     */
+    static List<InetSocketAddress> parseHosts(String s) {
+
+        List<InetSocketAddress> hosts = new ArrayList<>();
+
+        for (String hostAndPort : s.split(",")) {
+
+            String candidate = hostAndPort.trim();
+            String host = candidate;
+            String port = null;
+
+            if (candidate.startsWith("[")) {
+
+                int end = candidate.indexOf(']');
+                if (end == -1) {
+                    throw new IllegalArgumentException(String.format("Invalid host: %s", candidate));
+                }
+
+                host = candidate.substring(1, end);
+                if (candidate.length() > end + 1) {
+
+                    if (candidate.charAt(end + 1) != ':') {
+                        throw new IllegalArgumentException(String.format("Invalid host: %s", candidate));
+                    }
+
+                    port = candidate.substring(end + 2);
+                }
+            } else if (candidate.indexOf(':') != -1) {
+                host = candidate.substring(0, candidate.indexOf(':'));
+                port = candidate.substring(candidate.indexOf(':') + 1);
+            }
+
+            host = decode(host).toString();
+
+            if (host.isEmpty()) {
+                throw new IllegalArgumentException(String.format("Empty host in %s", s));
+            }
+
+            hosts.add(InetSocketAddress.createUnresolved(host, port != null ? parsePort(port, candidate) : 0));
+        }
+
+        return Collections.unmodifiableList(hosts);
+    }
+
+    private static void hosts(List<InetSocketAddress> hosts, ConnectionFactoryOptions.Builder builder) {
+
+        InetSocketAddress first = hosts.get(0);
+
+        builder.option(ConnectionFactoryOptions.HOSTS, hosts);
+        builder.option(ConnectionFactoryOptions.HOST, first.getHostString());
+
+        if (first.getPort() != 0) {
+            builder.option(ConnectionFactoryOptions.PORT, first.getPort());
+        }
+    }
+
+    private static int parsePort(String port, String hostAndPort) {
+
+        try {
+            int value = Integer.parseInt(port);
+
+            if (value < 0 || value > 65535) {
+                throw new IllegalArgumentException(String.format("Invalid port in host: %s", hostAndPort));
+            }
+
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid port in host: %s", hostAndPort), e);
+        }
+    }
+
     private static void parseUserinfo(String s, ConnectionFactoryOptions.Builder builder) {
 
         if (!s.contains(":")) {
@@ -44,6 +44,8 @@ class DefaultLob<T> {
 
     private final Publisher<T> p;
 
+    private final LobSlice.Slicer<T> slicer;
+
     private volatile int discarded = NOT_DISCARDED;
 
     private volatile int consumed = NOT_CONSUMED;
@@ -51,10 +53,12 @@ class DefaultLob<T> {
     /**
      * Creates a new {@link DefaultLob} instance.
      *
-     * @param p
+     * @param p      the content stream
+     * @param slicer the {@link LobSlice.Slicer} to obtain ranges of the content stream
      */
-    DefaultLob(Publisher<T> p) {
+    DefaultLob(Publisher<T> p, LobSlice.Slicer<T> slicer) {
         this.p = p;
+        this.slicer = slicer;
     }
 
     /**
@@ -66,12 +70,12 @@ class DefaultLob<T> {
         return subscriber -> {
 
             if (ATOMIC_DISCARD.get(this) == DISCARDED) {
-                subscriber.onError(new IllegalStateException("Source stream was already released"));
+                Publishers.<T>error(new IllegalStateException("Source stream was already released")).subscribe(subscriber);
                 return;
             }
 
             if (!ATOMIC_CONSUMED.compareAndSet(this, NOT_CONSUMED, CONSUMED)) {
-                subscriber.onError(new IllegalStateException("Source stream was already consumed"));
+                Publishers.<T>error(new IllegalStateException("Source stream was already consumed")).subscribe(subscriber);
                 return;
             }
 
@@ -79,6 +83,17 @@ class DefaultLob<T> {
         };
     }
 
+    /**
+     * Returns a range of the content stream.
+     *
+     * @param offset zero-based offset of the range
+     * @param length length of the range
+     * @return the content stream range.
+     */
+    Publisher<T> stream(long offset, long length) {
+        return new LobSlice<>(stream(), offset, length, this.slicer);
+    }
+
     /**
      * Discard the content stream.
      *
@@ -89,6 +104,17 @@ class DefaultLob<T> {
 
             AtomicBoolean completed = new AtomicBoolean();
 
+            outer.onSubscribe(new Subscription() {
+
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+
             if (!ATOMIC_DISCARD.compareAndSet(this, NOT_DISCARDED, DISCARDED)) {
                 outer.onError(new IllegalStateException("Source stream was already released"));
                 return;
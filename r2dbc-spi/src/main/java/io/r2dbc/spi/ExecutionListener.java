@@ -0,0 +1,200 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+
+import java.util.Map;
+
+/**
+ * Listener notified about connection and statement execution events of a {@link ConnectionFactory}.  A listener is registered through
+ * {@link ConnectionFactoryOptions#EXECUTION_LISTENER} or {@link ConnectionFactories#observe(ConnectionFactory, ExecutionListener)}.
+ *
+ * <p>Each callback receives the {@link System#nanoTime()} timestamp at which the event occurred.  Callbacks are invoked on the thread that signals the event and must neither block nor throw
+ * exceptions.  All methods have empty default implementations so that listeners implement only the callbacks they are interested in.  Connection factories without a registered listener are
+ * not decorated and therefore do not dispatch any events.
+ *
+ * <p>An execution starts when the {@link Publisher} returned by {@link Statement#execute()} or {@link Batch#execute()} is subscribed to.  It completes once that {@link Publisher} and the
+ * consumption of all emitted {@link Result}s have completed.  An execution terminates with exactly one of {@link #onExecuteComplete(Execution, long)},
+ * {@link #onExecuteCancel(Execution, long)} or {@link #onExecuteError(Execution, Throwable, long)}.
+ *
+ * @since 1.0.1
+ */
+public interface ExecutionListener {
+
+    /**
+     * Callback invoked after a {@link Connection} was created.
+     *
+     * @param connection the created {@link Connection}
+     * @param startTime  the time at which the creation was requested
+     * @param endTime    the time at which the {@link Connection} was created
+     */
+    default void onConnectionCreate(Connection connection, long startTime, long endTime) {
+    }
+
+    /**
+     * Callback invoked after a {@link Connection} was closed.
+     *
+     * @param connection the closed {@link Connection}
+     * @param startTime  the time at which closing the connection was requested
+     * @param endTime    the time at which the {@link Connection} was closed
+     */
+    default void onConnectionClose(Connection connection, long startTime, long endTime) {
+    }
+
+    /**
+     * Callback invoked when an execution starts.
+     *
+     * @param execution the started {@link Execution}
+     */
+    default void onExecuteStart(Execution execution) {
+    }
+
+    /**
+     * Callback invoked when an execution emits its first {@link Result}.  Subtracting {@link Execution#getStartTime()} from {@code time} yields the execution latency.
+     *
+     * @param execution the {@link Execution}
+     * @param time      the time at which the first {@link Result} was emitted
+     */
+    default void onFirstResult(Execution execution, long time) {
+    }
+
+    /**
+     * Callback invoked when the first row of an execution is consumed.  Subtracting {@link Execution#getStartTime()} from {@code time} yields the first-row latency.
+     *
+     * @param execution the {@link Execution}
+     * @param time      the time at which the first row was consumed
+     */
+    default void onFirstRow(Execution execution, long time) {
+    }
+
+    /**
+     * Callback invoked when an update count of an execution is consumed.
+     *
+     * @param execution   the {@link Execution}
+     * @param rowsUpdated the number of rows updated
+     * @param time        the time at which the update count was consumed
+     */
+    default void onRowsUpdated(Execution execution, long rowsUpdated, long time) {
+    }
+
+    /**
+     * Callback invoked when an execution and the consumption of its results complete.
+     *
+     * @param execution the completed {@link Execution}
+     * @param time      the time at which the execution completed
+     */
+    default void onExecuteComplete(Execution execution, long time) {
+    }
+
+    /**
+     * Callback invoked when an execution or the consumption of one of its results is cancelled.
+     *
+     * @param execution the cancelled {@link Execution}
+     * @param time      the time at which the execution was cancelled
+     */
+    default void onExecuteCancel(Execution execution, long time) {
+    }
+
+    /**
+     * Callback invoked when an execution or the consumption of one of its results fails.
+     *
+     * @param execution the failed {@link Execution}
+     * @param error     the error
+     * @param time      the time at which the execution failed
+     */
+    default void onExecuteError(Execution execution, Throwable error, long time) {
+    }
+
+    /**
+     * Returns the maximum number of binding values of the first binding set that a {@link Statement} retains for {@link Execution#getBindings()}.  Sampling is disabled by default so that
+     * executions do not retain references to binding values.
+     *
+     * @return the maximum number of sampled binding values.  {@code 0} to disable sampling.
+     */
+    default int getBindingSampleSize() {
+        return 0;
+    }
+
+    /**
+     * A single execution of a {@link Statement} or {@link Batch}.
+     */
+    interface Execution {
+
+        /**
+         * Returns the {@link Connection} that runs the execution.
+         *
+         * @return the {@link Connection} that runs the execution
+         */
+        Connection getConnection();
+
+        /**
+         * Returns the SQL of the execution.  Batches report their statements separated by {@code ;}.
+         *
+         * @return the SQL of the execution
+         */
+        String getSql();
+
+        /**
+         * Returns the {@link SqlFingerprint} of {@link #getSql()} to key per-query metrics.
+         *
+         * @return the {@link SqlFingerprint} of the execution
+         */
+        default SqlFingerprint getFingerprint() {
+            return SqlFingerprint.of(getSql());
+        }
+
+        /**
+         * Returns the time at which the execution started.
+         *
+         * @return the {@link System#nanoTime()} at which the execution started
+         */
+        long getStartTime();
+
+        /**
+         * Returns the number of parameter binding sets of the execution.  A {@link Statement} executed with bindings reports one binding set plus one for each call to
+         * {@link Statement#add()} that completed a binding set.
+         *
+         * @return the number of parameter binding sets.  {@code 0} for executions without bindings.
+         */
+        int getBindingCount();
+
+        /**
+         * Returns a sample of the binding values of the first binding set keyed by the parameter name or, for bindings by index, the index.  {@code null} values represent
+         * {@link Statement#bindNull(int, Class) null bindings}.  The sample is limited to {@link ExecutionListener#getBindingSampleSize()} values.
+         *
+         * @return the sampled binding values.  Empty if sampling is disabled, for batches and for executions without bindings.
+         */
+        Map<String, Object> getBindings();
+
+        /**
+         * Returns the time at which the first row was consumed.  Only meaningful if {@link #getRowCount()} is greater than zero.
+         *
+         * @return the {@link System#nanoTime()} at which the first row was consumed
+         */
+        long getFirstRowTime();
+
+        /**
+         * Returns the number of rows consumed so far.
+         *
+         * @return the number of rows consumed so far
+         */
+        long getRowCount();
+
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed bucket bounds.  Each bucket counts latencies up to and including its upper bound, the last bucket counts latencies exceeding the largest bound.
+ */
+final class LatencyHistogram {
+
+    /**
+     * Upper bounds of the buckets in nanoseconds.
+     */
+    static final long[] BOUNDS = Arrays.stream(new Duration[]{
+        Duration.ofNanos(100_000), Duration.ofNanos(250_000), Duration.ofNanos(500_000),
+        Duration.ofMillis(1), Duration.ofNanos(2_500_000), Duration.ofMillis(5),
+        Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+        Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+        Duration.ofSeconds(1), Duration.ofMillis(2_500), Duration.ofSeconds(5), Duration.ofSeconds(10)
+    }).mapToLong(Duration::toNanos).toArray();
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a latency.  Negative latencies are recorded as zero.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+
+        long latency = Math.max(0, nanos);
+        int index = Arrays.binarySearch(BOUNDS, latency);
+
+        this.buckets[index < 0 ? -index - 1 : index].increment();
+        this.total.add(latency);
+        this.max.accumulate(latency);
+    }
+
+    /**
+     * Returns an immutable snapshot of the histogram.  Buckets are summed one by one so that a snapshot taken during concurrent recording may not reflect all latencies that are recorded
+     * while the snapshot is taken.
+     *
+     * @return an immutable snapshot of the histogram
+     */
+    ConnectionFactoryStatistics.Histogram snapshot() {
+
+        long[] counts = new long[this.buckets.length];
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.buckets[i].sum();
+        }
+
+        return new ConnectionFactoryStatistics.Histogram(counts, this.total.sum(), this.max.get());
+    }
+
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * {@link Publisher} converting a large object content stream chunk by chunk using a stateful {@link Codec}.  Each chunk results in at most one converted chunk, empty conversion results are dropped,
+ * and state retained by the codec is emitted as last chunk once the content stream completes.  Chunks that were not requested yet are not converted so that conversion never buffers content.
+ *
+ * @param <T> the source chunk type
+ * @param <R> the converted chunk type
+ */
+final class LobCodec<T, R> implements Publisher<R> {
+
+    private final Publisher<? extends T> source;
+
+    private final Supplier<Codec<T, R>> codecSupplier;
+
+    private LobCodec(Publisher<? extends T> source, Supplier<Codec<T, R>> codecSupplier) {
+        this.source = source;
+        this.codecSupplier = codecSupplier;
+    }
+
+    /**
+     * Creates a {@link Publisher} encoding characters into bytes using {@code charset}.
+     *
+     * @param source  the character stream
+     * @param charset the charset to encode characters
+     * @return the byte stream
+     */
+    static Publisher<ByteBuffer> encode(Publisher<? extends CharSequence> source, Charset charset) {
+        return new LobCodec<CharSequence, ByteBuffer>(source, () -> {
+
+            CharSequenceEncoder encoder = new CharSequenceEncoder(charset);
+
+            return new Codec<CharSequence, ByteBuffer>() {
+
+                @Override
+                public ByteBuffer next(CharSequence chunk) {
+                    return encoder.encode(chunk);
+                }
+
+                @Override
+                public ByteBuffer last() {
+                    return encoder.flush();
+                }
+
+                @Override
+                public boolean isEmpty(ByteBuffer chunk) {
+                    return !chunk.hasRemaining();
+                }
+            };
+        });
+    }
+
+    /**
+     * Creates a {@link Publisher} decoding bytes into characters using {@code charset}.
+     *
+     * @param source  the byte stream
+     * @param charset the charset to decode bytes
+     * @return the character stream
+     */
+    static Publisher<CharSequence> decode(Publisher<ByteBuffer> source, Charset charset) {
+        return new LobCodec<ByteBuffer, CharSequence>(source, () -> {
+
+            ByteBufferDecoder decoder = new ByteBufferDecoder(charset);
+
+            return new Codec<ByteBuffer, CharSequence>() {
+
+                @Override
+                public CharSequence next(ByteBuffer chunk) {
+                    return decoder.decode(chunk);
+                }
+
+                @Override
+                public CharSequence last() {
+                    return decoder.flush();
+                }
+
+                @Override
+                public boolean isEmpty(CharSequence chunk) {
+                    return chunk.length() == 0;
+                }
+            };
+        });
+    }
+
+    /**
+     * Creates a {@link Publisher} wrapping {@link ByteBuffer} chunks into {@link ReleasableBuffer}.
+     *
+     * @param source the byte stream
+     * @return the {@link ReleasableBuffer} stream
+     */
+    static Publisher<ReleasableBuffer> wrap(Publisher<ByteBuffer> source) {
+        return new LobCodec<ByteBuffer, ReleasableBuffer>(source, () -> ReleasableBuffer::wrap);
+    }
+
+    /**
+     * Creates a {@link Publisher} copying {@link ReleasableBuffer} chunks into heap buffers.  Chunks are released after copying.
+     *
+     * @param source the {@link ReleasableBuffer} stream
+     * @return the byte stream
+     */
+    static Publisher<ByteBuffer> copy(Publisher<? extends ReleasableBuffer> source) {
+        return new LobCodec<ReleasableBuffer, ByteBuffer>(source, () -> chunk -> {
+
+            try {
+                ByteBuffer copy = ByteBuffer.allocate(chunk.buffer().remaining());
+                copy.put(chunk.buffer().duplicate()).flip();
+                return copy;
+            } finally {
+                chunk.release();
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must not be null");
+        this.source.subscribe(new CodecSubscriber<>(subscriber, this.codecSupplier.get()));
+    }
+
+    /**
+     * Stateful chunk conversion.
+     *
+     * @param <T> the source chunk type
+     * @param <R> the converted chunk type
+     */
+    interface Codec<T, R> {
+
+        R next(T chunk);
+
+        @Nullable
+        default R last() {
+            return null;
+        }
+
+        default boolean isEmpty(R chunk) {
+            return false;
+        }
+
+    }
+
+    static final class CodecSubscriber<T, R> implements Subscriber<T>, Subscription {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<CodecSubscriber> REQUESTED = AtomicLongFieldUpdater.newUpdater(CodecSubscriber.class, "requested");
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<CodecSubscriber> LAST_EMITTED = AtomicIntegerFieldUpdater.newUpdater(CodecSubscriber.class, "lastEmitted");
+
+        private final Subscriber<? super R> actual;
+
+        private final Codec<T, R> codec;
+
+        private Subscription upstream;
+
+        private boolean done;
+
+        @Nullable
+        private volatile R last;
+
+        private volatile long requested;
+
+        private volatile int lastEmitted;
+
+        CodecSubscriber(Subscriber<? super R> actual, Codec<T, R> codec) {
+            this.actual = actual;
+            this.codec = codec;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            this.actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T chunk) {
+
+            if (this.done) {
+                return;
+            }
+
+            R converted;
+            try {
+                converted = this.codec.next(chunk);
+            } catch (RuntimeException e) {
+                this.upstream.cancel();
+                onError(e);
+                return;
+            }
+
+            if (this.codec.isEmpty(converted)) {
+                this.upstream.request(1);
+                return;
+            }
+
+            produced();
+            this.actual.onNext(converted);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+
+            if (this.done) {
+                return;
+            }
+
+            this.done = true;
+            this.actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+
+            if (this.done) {
+                return;
+            }
+
+            this.done = true;
+
+            R converted;
+            try {
+                converted = this.codec.last();
+            } catch (RuntimeException e) {
+                this.actual.onError(e);
+                return;
+            }
+
+            if (converted == null || this.codec.isEmpty(converted)) {
+                this.actual.onComplete();
+                return;
+            }
+
+            this.last = converted;
+            emitLast();
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n > 0) {
+                for (; ; ) {
+                    long current = this.requested;
+                    long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                    if (REQUESTED.compareAndSet(this, current, next)) {
+                        break;
+                    }
+                }
+            }
+
+            if (this.last != null) {
+                emitLast();
+                return;
+            }
+
+            this.upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            LAST_EMITTED.set(this, 1);
+            this.upstream.cancel();
+        }
+
+        private void produced() {
+            for (; ; ) {
+                long current = this.requested;
+                if (current == Long.MAX_VALUE || REQUESTED.compareAndSet(this, current, current - 1)) {
+                    return;
+                }
+            }
+        }
+
+        private void emitLast() {
+
+            R converted = this.last;
+
+            if (converted != null && this.requested > 0 && LAST_EMITTED.compareAndSet(this, 0, 1)) {
+                this.last = null;
+                this.actual.onNext(converted);
+                this.actual.onComplete();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * {@link Publisher} emitting a range of a large object content stream.  Chunks before the range are dropped, chunks overlapping the range boundaries are sliced and the content stream is canceled
+ * once the range has been emitted.
+ *
+ * @param <T> the chunk type
+ */
+final class LobSlice<T> implements Publisher<T> {
+
+    /**
+     * {@link Slicer} for binary chunks measured in bytes.
+     */
+    static final Slicer<ByteBuffer> BYTES = new Slicer<ByteBuffer>() {
+
+        @Override
+        public long size(ByteBuffer chunk) {
+            return chunk.remaining();
+        }
+
+        @Override
+        public ByteBuffer slice(ByteBuffer chunk, int from, int to) {
+            ByteBuffer slice = chunk.duplicate();
+            slice.limit(chunk.position() + to);
+            slice.position(chunk.position() + from);
+            return slice.slice();
+        }
+    };
+
+    /**
+     * {@link Slicer} for character chunks measured in UTF-16 code units as returned by {@link CharSequence#length()}.  Slices may split surrogate pairs, see {@link Clob#stream(long, long)}.
+     */
+    static final Slicer<CharSequence> CHARACTERS = new Slicer<CharSequence>() {
+
+        @Override
+        public long size(CharSequence chunk) {
+            return chunk.length();
+        }
+
+        @Override
+        public CharSequence slice(CharSequence chunk, int from, int to) {
+            return chunk.subSequence(from, to);
+        }
+    };
+
+    private final Publisher<? extends T> source;
+
+    private final long offset;
+
+    private final long length;
+
+    private final Slicer<T> slicer;
+
+    LobSlice(Publisher<? extends T> source, long offset, long length, Slicer<T> slicer) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.slicer = slicer;
+    }
+
+    /**
+     * Validates range arguments.
+     *
+     * @param offset zero-based offset of the range
+     * @param length length of the range
+     * @throws IllegalArgumentException if {@code offset} or {@code length} is negative
+     */
+    static void validate(long offset, long length) {
+
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative");
+        }
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must not be null");
+        this.source.subscribe(new SliceSubscriber<>(subscriber, this.offset, this.length, this.slicer));
+    }
+
+    /**
+     * Strategy to measure and slice chunks.
+     *
+     * @param <T> the chunk type
+     */
+    interface Slicer<T> {
+
+        long size(T chunk);
+
+        T slice(T chunk, int from, int to);
+
+    }
+
+    static final class SliceSubscriber<T> implements Subscriber<T>, Subscription {
+
+        private final Subscriber<? super T> actual;
+
+        private final long start;
+
+        private final long end;
+
+        private final Slicer<T> slicer;
+
+        private Subscription upstream;
+
+        private long position;
+
+        private boolean done;
+
+        SliceSubscriber(Subscriber<? super T> actual, long offset, long length, Slicer<T> slicer) {
+            this.actual = actual;
+            this.start = offset;
+            this.end = length > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + length;
+            this.slicer = slicer;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+
+            this.upstream = s;
+
+            if (this.start == this.end) {
+                this.done = true;
+                s.cancel();
+                this.actual.onSubscribe(this);
+                this.actual.onComplete();
+                return;
+            }
+
+            this.actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T chunk) {
+
+            if (this.done) {
+                return;
+            }
+
+            long chunkStart = this.position;
+            long size = this.slicer.size(chunk);
+            this.position += size;
+
+            if (this.position <= this.start) {
+                this.upstream.request(1);
+                return;
+            }
+
+            int from = (int) Math.max(0, this.start - chunkStart);
+            int to = (int) Math.min(size, this.end - chunkStart);
+
+            this.actual.onNext(from == 0 && to == size ? chunk : this.slicer.slice(chunk, from, to));
+
+            if (this.position >= this.end) {
+                this.done = true;
+                this.upstream.cancel();
+                this.actual.onComplete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+
+            if (this.done) {
+                return;
+            }
+
+            this.done = true;
+            this.actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+
+            if (this.done) {
+                return;
+            }
+
+            this.done = true;
+            this.actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (!this.done) {
+                this.upstream.request(n);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            this.upstream.cancel();
+        }
+
+    }
+
+}
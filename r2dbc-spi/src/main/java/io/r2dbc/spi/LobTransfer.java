@@ -0,0 +1,345 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * {@link Publisher} that drains a large object content stream into a target one chunk at a time and emits the number of transferred units (bytes or characters) once the content stream completes.
+ * <p>
+ * The content stream is requested one chunk at a time and the next chunk is requested only after the previous chunk was written.  At most one chunk is held in memory at any time and chunks are not
+ * retained after being written so that drivers can release the associated resources early.  Binary chunks are consumed as {@link ReleasableBuffer} and released as soon as they are written.
+ *
+ * @param <T> the chunk type
+ */
+final class LobTransfer<T> implements Publisher<Long> {
+
+    private final Publisher<? extends T> source;
+
+    private final Supplier<Sink<T>> sinkSupplier;
+
+    private LobTransfer(Publisher<? extends T> source, Supplier<Sink<T>> sinkSupplier) {
+        this.source = source;
+        this.sinkSupplier = sinkSupplier;
+    }
+
+    /**
+     * Creates a transfer into a {@link WritableByteChannel}.  The channel is expected to operate in blocking mode.
+     *
+     * @param source  the content stream
+     * @param channel the target channel
+     * @return the transfer {@link Publisher}
+     */
+    static Publisher<Long> to(Publisher<? extends ReleasableBuffer> source, WritableByteChannel channel) {
+        return new LobTransfer<>(source, () -> new ChannelSink(channel));
+    }
+
+    /**
+     * Creates a transfer into a {@link AsynchronousFileChannel} starting at {@code position}.
+     *
+     * @param source   the content stream
+     * @param channel  the target channel
+     * @param position the file position at which the transfer is to begin
+     * @return the transfer {@link Publisher}
+     */
+    static Publisher<Long> to(Publisher<? extends ReleasableBuffer> source, AsynchronousFileChannel channel, long position) {
+        return new LobTransfer<>(source, () -> new AsynchronousFileChannelSink(channel, position));
+    }
+
+    /**
+     * Creates a transfer into an {@link Appendable}.
+     *
+     * @param source     the content stream
+     * @param appendable the target
+     * @return the transfer {@link Publisher}
+     */
+    static Publisher<Long> to(Publisher<? extends CharSequence> source, Appendable appendable) {
+        return new LobTransfer<CharSequence>(source, () -> (chunk, callback) -> {
+
+            try {
+                appendable.append(chunk);
+            } catch (IOException e) {
+                callback.onError(e);
+                return;
+            }
+
+            callback.onWritten(chunk.length());
+        });
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Long> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must not be null");
+        this.source.subscribe(new TransferSubscriber<>(subscriber, this.sinkSupplier.get()));
+    }
+
+    /**
+     * Target of a transfer.  Implementations must invoke the {@link Callback} exactly once per {@link #write(Object, Callback)} call.
+     *
+     * @param <T> the chunk type
+     */
+    interface Sink<T> {
+
+        /**
+         * Write a single chunk.
+         *
+         * @param chunk    the chunk to write
+         * @param callback callback to notify about the outcome
+         */
+        void write(T chunk, Callback callback);
+
+        /**
+         * Discard a chunk that is not going to be written.
+         *
+         * @param chunk the chunk to discard
+         */
+        default void discard(T chunk) {
+        }
+
+    }
+
+    /**
+     * Completion callback for {@link Sink} operations.
+     */
+    interface Callback {
+
+        void onWritten(long count);
+
+        void onError(Throwable e);
+
+    }
+
+    static final class ChannelSink implements Sink<ReleasableBuffer> {
+
+        private final WritableByteChannel channel;
+
+        ChannelSink(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(ReleasableBuffer chunk, Callback callback) {
+
+            ByteBuffer buffer = chunk.buffer();
+            long written = 0;
+
+            try {
+                while (buffer.hasRemaining()) {
+                    written += this.channel.write(buffer);
+                }
+            } catch (IOException e) {
+                callback.onError(e);
+                return;
+            } finally {
+                chunk.release();
+            }
+
+            callback.onWritten(written);
+        }
+
+        @Override
+        public void discard(ReleasableBuffer chunk) {
+            chunk.release();
+        }
+
+    }
+
+    static final class AsynchronousFileChannelSink implements Sink<ReleasableBuffer> {
+
+        private final AsynchronousFileChannel channel;
+
+        private long position;
+
+        AsynchronousFileChannelSink(AsynchronousFileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public void write(ReleasableBuffer chunk, Callback callback) {
+
+            long start = this.position;
+
+            this.channel.write(chunk.buffer(), this.position, chunk.buffer(), new CompletionHandler<Integer, ByteBuffer>() {
+
+                @Override
+                public void completed(Integer result, ByteBuffer buffer) {
+
+                    AsynchronousFileChannelSink.this.position += result;
+
+                    if (buffer.hasRemaining()) {
+                        AsynchronousFileChannelSink.this.channel.write(buffer, AsynchronousFileChannelSink.this.position, buffer, this);
+                        return;
+                    }
+
+                    chunk.release();
+                    callback.onWritten(AsynchronousFileChannelSink.this.position - start);
+                }
+
+                @Override
+                public void failed(Throwable e, ByteBuffer buffer) {
+                    chunk.release();
+                    callback.onError(e);
+                }
+            });
+        }
+
+        @Override
+        public void discard(ReleasableBuffer chunk) {
+            chunk.release();
+        }
+
+    }
+
+    /**
+     * Subscriber to the content stream acting as {@link Subscription} for the downstream {@link Subscriber}.
+     *
+     * @param <T> the chunk type
+     */
+    static final class TransferSubscriber<T> implements Subscriber<T>, Subscription, Callback {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<TransferSubscriber> STARTED = AtomicIntegerFieldUpdater.newUpdater(TransferSubscriber.class, "started");
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<TransferSubscriber> TERMINATED = AtomicIntegerFieldUpdater.newUpdater(TransferSubscriber.class, "terminated");
+
+        private final Subscriber<? super Long> actual;
+
+        private final Sink<T> sink;
+
+        private Subscription upstream;
+
+        private long transferred;
+
+        private volatile boolean done;
+
+        private volatile boolean writing;
+
+        private volatile boolean cancelled;
+
+        private volatile int started;
+
+        private volatile int terminated;
+
+        TransferSubscriber(Subscriber<? super Long> actual, Sink<T> sink) {
+            this.actual = actual;
+            this.sink = sink;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            this.actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T chunk) {
+
+            if (this.done || this.cancelled) {
+                this.sink.discard(chunk);
+                return;
+            }
+
+            this.writing = true;
+
+            try {
+                this.sink.write(chunk, this);
+            } catch (RuntimeException e) {
+                onError(e);
+            }
+        }
+
+        @Override
+        public void onWritten(long count) {
+
+            this.transferred += count;
+            this.writing = false;
+
+            if (this.done) {
+                complete();
+                return;
+            }
+
+            if (!this.cancelled) {
+                this.upstream.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+
+            if (TERMINATED.compareAndSet(this, 0, 1)) {
+                this.done = true;
+                if (this.upstream != null) {
+                    this.upstream.cancel();
+                }
+                this.actual.onError(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+
+            this.done = true;
+
+            if (!this.writing) {
+                complete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                onError(new IllegalArgumentException(String.format("Requested demand must be greater than zero, was %d", n)));
+                return;
+            }
+
+            if (STARTED.compareAndSet(this, 0, 1)) {
+                this.upstream.request(1);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            this.upstream.cancel();
+        }
+
+        private void complete() {
+
+            if (!this.cancelled && TERMINATED.compareAndSet(this, 0, 1)) {
+                this.actual.onNext(this.transferred);
+                this.actual.onComplete();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+
+import java.util.Collections;
+
+/**
+ * {@link Batch} decorator observing its executions.  The SQL of the execution joins the batched statements with {@code ;}.
+ */
+final class ObservedBatch implements Batch, Wrapped<Batch> {
+
+    private final Batch delegate;
+
+    private final ObservedConnection connection;
+
+    private final ExecutionListener listener;
+
+    private final StringBuilder sql = new StringBuilder();
+
+    ObservedBatch(Batch delegate, ObservedConnection connection, ExecutionListener listener) {
+        this.delegate = delegate;
+        this.connection = connection;
+        this.listener = listener;
+    }
+
+    @Override
+    public Batch add(String sql) {
+        this.delegate.add(sql);
+
+        if (this.sql.length() != 0) {
+            this.sql.append("; ");
+        }
+
+        this.sql.append(sql);
+        return this;
+    }
+
+    @Override
+    public Publisher<? extends Result> execute() {
+        return ObservedExecution.execute(this.listener, this.connection, this.sql.toString(), 0, Collections.emptyMap(), this.delegate.execute());
+    }
+
+    @Override
+    public Batch unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "ObservedBatch{" +
+            "delegate=" + this.delegate +
+            ", sql='" + this.sql + '\'' +
+            '}';
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * {@link Connection} decorator observing statement and batch executions and notifying an {@link ExecutionListener} about closing the connection.  {@link Lifecycle} callbacks are forwarded to
+ * the underlying connection.
+ */
+final class ObservedConnection implements Connection, Lifecycle, Wrapped<Connection> {
+
+    private final Connection delegate;
+
+    private final ExecutionListener listener;
+
+    ObservedConnection(Connection delegate, ExecutionListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public Publisher<Void> postAllocate() {
+        return this.delegate instanceof Lifecycle ? ((Lifecycle) this.delegate).postAllocate() : Publishers.empty();
+    }
+
+    @Override
+    public Publisher<Void> preRelease() {
+        return this.delegate instanceof Lifecycle ? ((Lifecycle) this.delegate).preRelease() : Publishers.empty();
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction() {
+        return this.delegate.beginTransaction();
+    }
+
+    @Override
+    public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+        return this.delegate.beginTransaction(definition);
+    }
+
+    @Override
+    public Publisher<Void> close() {
+
+        Publisher<Void> close = this.delegate.close();
+
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "Subscriber must not be null");
+
+            long startTime = System.nanoTime();
+            Runnable onClose = () -> this.listener.onConnectionClose(this, startTime, System.nanoTime());
+
+            close.subscribe(new ObservingSubscriber<Void, Void>(subscriber, it -> it, onClose, e -> onClose.run(), () -> {
+            }));
+        };
+    }
+
+    @Override
+    public Publisher<Void> commitTransaction() {
+        return this.delegate.commitTransaction();
+    }
+
+    @Override
+    public Batch createBatch() {
+        return new ObservedBatch(this.delegate.createBatch(), this, this.listener);
+    }
+
+    @Override
+    public Publisher<Void> createSavepoint(String name) {
+        return this.delegate.createSavepoint(name);
+    }
+
+    @Override
+    public Statement createStatement(String sql) {
+        return new ObservedStatement(this.delegate.createStatement(sql), this, sql, this.listener);
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return this.delegate.isAutoCommit();
+    }
+
+    @Override
+    public ConnectionMetadata getMetadata() {
+        return this.delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionState getState() {
+        return this.delegate.getState();
+    }
+
+    @Override
+    public IsolationLevel getTransactionIsolationLevel() {
+        return this.delegate.getTransactionIsolationLevel();
+    }
+
+    @Override
+    public Publisher<Void> releaseSavepoint(String name) {
+        return this.delegate.releaseSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransaction() {
+        return this.delegate.rollbackTransaction();
+    }
+
+    @Override
+    public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+        return this.delegate.rollbackTransactionToSavepoint(name);
+    }
+
+    @Override
+    public Publisher<Void> setAutoCommit(boolean autoCommit) {
+        return this.delegate.setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+        return this.delegate.setLockWaitTimeout(timeout);
+    }
+
+    @Override
+    public Publisher<Void> setStatementTimeout(Duration timeout) {
+        return this.delegate.setStatementTimeout(timeout);
+    }
+
+    @Override
+    public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+        return this.delegate.setTransactionIsolationLevel(isolationLevel);
+    }
+
+    @Override
+    public Publisher<Boolean> validate(ValidationDepth depth) {
+        return this.delegate.validate(depth);
+    }
+
+    @Override
+    public Connection unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "ObservedConnection{" +
+            "delegate=" + this.delegate +
+            '}';
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+
+import java.util.Objects;
+
+/**
+ * {@link ConnectionFactory} decorator notifying an {@link ExecutionListener} about created connections and decorating them with {@link ObservedConnection}.  Exposes the listener through
+ * {@link ConnectionFactoryMetadata#getStatistics()} if it is a {@link ConnectionFactoryStatistics}.
+ */
+final class ObservedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private final ConnectionFactory delegate;
+
+    private final ExecutionListener listener;
+
+    @Nullable
+    private final ConnectionFactoryMetadata metadata;
+
+    ObservedConnectionFactory(ConnectionFactory delegate, ExecutionListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+        this.metadata = listener instanceof ConnectionFactoryStatistics ? new StatisticsMetadata() : null;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return observe(this.delegate.create());
+    }
+
+    @Override
+    public Publisher<? extends Connection> create(int count) {
+        return observe(this.delegate.create(count));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.metadata != null ? this.metadata : this.delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "ObservedConnectionFactory{" +
+            "delegate=" + this.delegate +
+            ", listener=" + this.listener +
+            '}';
+    }
+
+    private Publisher<Connection> observe(Publisher<? extends Connection> connections) {
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "Subscriber must not be null");
+
+            long startTime = System.nanoTime();
+
+            connections.subscribe(new ObservingSubscriber<Connection, Connection>(subscriber, connection -> {
+
+                ObservedConnection observed = new ObservedConnection(connection, this.listener);
+                this.listener.onConnectionCreate(observed, startTime, System.nanoTime());
+
+                return observed;
+            }, () -> {
+            }, e -> {
+            }, () -> {
+            }));
+        };
+    }
+
+    /**
+     * {@link ConnectionFactoryMetadata} exposing the {@link ConnectionFactoryStatistics} registered as listener.
+     */
+    final class StatisticsMetadata implements ConnectionFactoryMetadata {
+
+        @Override
+        public String getName() {
+            return ObservedConnectionFactory.this.delegate.getMetadata().getName();
+        }
+
+        @Override
+        public ConnectionFactoryStatistics getStatistics() {
+            return (ConnectionFactoryStatistics) ObservedConnectionFactory.this.listener;
+        }
+
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * {@link ExecutionListener.Execution} tracking the consumption of the results of a single execution and dispatching events to an {@link ExecutionListener}.
+ * <p>
+ * The execution counts the {@link Publisher} returned by {@link Statement#execute()} and each emitted {@link Result} as outstanding and completes once all of them completed.  The first terminal
+ * event wins, later terminal events are not dispatched.  Cancelling the {@link Statement#execute()} or {@link Result#getRowsUpdated()} publisher after it emitted an item (as
+ * {@code Mono.from(...)} does) does not cancel the execution, the consumption of emitted results decides its outcome.
+ */
+final class ObservedExecution implements ExecutionListener.Execution {
+
+    private static final AtomicLongFieldUpdater<ObservedExecution> ROW_COUNT = AtomicLongFieldUpdater.newUpdater(ObservedExecution.class, "rowCount");
+
+    private static final AtomicIntegerFieldUpdater<ObservedExecution> RESULT_COUNT = AtomicIntegerFieldUpdater.newUpdater(ObservedExecution.class, "resultCount");
+
+    private static final AtomicIntegerFieldUpdater<ObservedExecution> OUTSTANDING = AtomicIntegerFieldUpdater.newUpdater(ObservedExecution.class, "outstanding");
+
+    private static final AtomicIntegerFieldUpdater<ObservedExecution> TERMINATED = AtomicIntegerFieldUpdater.newUpdater(ObservedExecution.class, "terminated");
+
+    private final ExecutionListener listener;
+
+    private final Connection connection;
+
+    private final String sql;
+
+    private final int bindingCount;
+
+    private final Map<String, Object> bindings;
+
+    private final long startTime;
+
+    private volatile long firstRowTime;
+
+    private volatile long rowCount;
+
+    private volatile int resultCount;
+
+    private volatile int outstanding = 1;
+
+    private volatile int terminated;
+
+    private ObservedExecution(ExecutionListener listener, Connection connection, String sql, int bindingCount, Map<String, Object> bindings) {
+        this.listener = listener;
+        this.connection = connection;
+        this.sql = sql;
+        this.bindingCount = bindingCount;
+        this.bindings = bindings;
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Returns a {@link Publisher} that starts a new execution for each subscription to {@code results}.
+     *
+     * @param listener     the {@link ExecutionListener} to notify
+     * @param connection   the {@link Connection} that runs the execution
+     * @param sql          the SQL of the execution
+     * @param bindingCount the number of parameter binding sets
+     * @param bindings     the sampled binding values
+     * @param results      the results of the underlying execution
+     * @return a {@link Publisher} emitting observed results
+     */
+    static Publisher<Result> execute(ExecutionListener listener, Connection connection, String sql, int bindingCount, Map<String, Object> bindings, Publisher<? extends Result> results) {
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "Subscriber must not be null");
+
+            ObservedExecution execution = new ObservedExecution(listener, connection, sql, bindingCount, bindings);
+            listener.onExecuteStart(execution);
+
+            results.subscribe(new ObservingSubscriber<Result, Result>(subscriber, execution::emit, execution::done, execution::error, execution::cancel, true));
+        };
+    }
+
+    @Override
+    public Connection getConnection() {
+        return this.connection;
+    }
+
+    @Override
+    public String getSql() {
+        return this.sql;
+    }
+
+    @Override
+    public long getStartTime() {
+        return this.startTime;
+    }
+
+    @Override
+    public int getBindingCount() {
+        return this.bindingCount;
+    }
+
+    @Override
+    public Map<String, Object> getBindings() {
+        return this.bindings;
+    }
+
+    @Override
+    public long getFirstRowTime() {
+        return this.firstRowTime;
+    }
+
+    @Override
+    public long getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns a {@link Publisher} that completes, cancels or fails this execution when the consumption of a result terminates.
+     *
+     * @param source the {@link Publisher} consuming a result
+     * @param <T>    the item type
+     * @return the observed {@link Publisher}
+     */
+    <T> Publisher<T> consume(Publisher<T> source) {
+        return subscriber -> source.subscribe(new ObservingSubscriber<T, T>(subscriber, Function.identity(), this::done, this::error, this::cancel));
+    }
+
+    /**
+     * Returns a {@link Publisher} dispatching consumed update counts.
+     *
+     * @param source the update counts
+     * @return the observed {@link Publisher}
+     */
+    Publisher<Long> consumeRowsUpdated(Publisher<Long> source) {
+        return subscriber -> source.subscribe(new ObservingSubscriber<Long, Long>(subscriber, this::rowsUpdated, this::done, this::error, this::cancel, true));
+    }
+
+    /**
+     * Record a consumed row.
+     */
+    void row() {
+
+        if (ROW_COUNT.getAndIncrement(this) == 0) {
+            long time = System.nanoTime();
+            this.firstRowTime = time;
+            this.listener.onFirstRow(this, time);
+        }
+    }
+
+    /**
+     * Record a consumed update count.
+     *
+     * @param rowsUpdated the number of rows updated
+     * @return {@code rowsUpdated}
+     */
+    Long rowsUpdated(Long rowsUpdated) {
+        this.listener.onRowsUpdated(this, rowsUpdated, System.nanoTime());
+        return rowsUpdated;
+    }
+
+    @Override
+    public String toString() {
+        return "ObservedExecution{" +
+            "sql='" + this.sql + '\'' +
+            ", startTime=" + this.startTime +
+            ", rowCount=" + this.rowCount +
+            ", outstanding=" + this.outstanding +
+            '}';
+    }
+
+    private Result emit(Result result) {
+        OUTSTANDING.incrementAndGet(this);
+
+        if (RESULT_COUNT.getAndIncrement(this) == 0) {
+            this.listener.onFirstResult(this, System.nanoTime());
+        }
+
+        return new ObservedResult(result, this);
+    }
+
+    private void done() {
+
+        if (OUTSTANDING.decrementAndGet(this) == 0 && TERMINATED.compareAndSet(this, 0, 1)) {
+            this.listener.onExecuteComplete(this, System.nanoTime());
+        }
+    }
+
+    private void error(Throwable error) {
+
+        if (TERMINATED.compareAndSet(this, 0, 1)) {
+            this.listener.onExecuteError(this, error, System.nanoTime());
+        }
+    }
+
+    private void cancel() {
+
+        if (TERMINATED.compareAndSet(this, 0, 1)) {
+            this.listener.onExecuteCancel(this, System.nanoTime());
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@link Result} decorator reporting consumed rows and update counts to its {@link ObservedExecution}.
+ */
+final class ObservedResult implements Result, Wrapped<Result> {
+
+    private final Result delegate;
+
+    private final ObservedExecution execution;
+
+    ObservedResult(Result delegate, ObservedExecution execution) {
+        this.delegate = delegate;
+        this.execution = execution;
+    }
+
+    @Override
+    public Publisher<Long> getRowsUpdated() {
+        return this.execution.consumeRowsUpdated(this.delegate.getRowsUpdated());
+    }
+
+    @Override
+    public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+        Assert.requireNonNull(mappingFunction, "mappingFunction must not be null");
+
+        return this.execution.consume(this.delegate.map((row, metadata) -> {
+            this.execution.row();
+            return mappingFunction.apply(row, metadata);
+        }));
+    }
+
+    @Override
+    public <T> Publisher<T> map(Function<? super Readable, ? extends T> mappingFunction) {
+        Assert.requireNonNull(mappingFunction, "mappingFunction must not be null");
+
+        return this.execution.consume(this.delegate.map(readable -> {
+            this.execution.row();
+            return mappingFunction.apply(readable);
+        }));
+    }
+
+    @Override
+    public Result filter(Predicate<Segment> filter) {
+        return new ObservedResult(this.delegate.filter(filter), this.execution);
+    }
+
+    @Override
+    public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+        Assert.requireNonNull(mappingFunction, "mappingFunction must not be null");
+
+        return this.execution.consume(this.delegate.flatMap(segment -> {
+
+            if (segment instanceof RowSegment) {
+                this.execution.row();
+            } else if (segment instanceof UpdateCount) {
+                this.execution.rowsUpdated(((UpdateCount) segment).value());
+            }
+
+            return mappingFunction.apply(segment);
+        }));
+    }
+
+    @Override
+    public Result unwrap() {
+        return this.delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "ObservedResult{" +
+            "delegate=" + this.delegate +
+            ", execution=" + this.execution +
+            '}';
+    }
+
+}
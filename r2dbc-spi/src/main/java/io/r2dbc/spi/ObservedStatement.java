@@ -0,0 +1,256 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link Statement} decorator observing its executions.  Samples the binding values of the first binding set if the listener requests a {@link ExecutionListener#getBindingSampleSize() binding
+ * sample}.  The sample is kept in arrays that are handed to the execution without copying and exposed as {@link Map} only when the listener reads {@link ExecutionListener.Execution#getBindings()
+ * the bindings}.  Binding after an execution copies the sample before modifying it.
+ */
+final class ObservedStatement implements Statement, Wrapped<Statement> {
+
+    private final Statement delegate;
+
+    private final ObservedConnection connection;
+
+    private final String sql;
+
+    private final ExecutionListener listener;
+
+    private final int bindingSampleSize;
+
+    @Nullable
+    private String[] sampleKeys;
+
+    @Nullable
+    private Object[] sampleValues;
+
+    private int sampleSize;
+
+    private boolean sampleShared;
+
+    private int bindingCount;
+
+    private boolean bound;
+
+    ObservedStatement(Statement delegate, ObservedConnection connection, String sql, ExecutionListener listener) {
+        this.delegate = delegate;
+        this.connection = connection;
+        this.sql = sql;
+        this.listener = listener;
+        this.bindingSampleSize = listener.getBindingSampleSize();
+    }
+
+    @Override
+    public Statement add() {
+        this.delegate.add();
+
+        if (this.bound) {
+            this.bindingCount++;
+            this.bound = false;
+        }
+
+        return this;
+    }
+
+    @Override
+    public Statement bind(int index, Object value) {
+        this.delegate.bind(index, value);
+        this.bound = true;
+
+        if (this.bindingSampleSize > 0) {
+            sample(Integer.toString(index), value);
+        }
+
+        return this;
+    }
+
+    @Override
+    public Statement bind(String name, Object value) {
+        this.delegate.bind(name, value);
+        this.bound = true;
+
+        if (this.bindingSampleSize > 0) {
+            sample(name, value);
+        }
+
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(int index, Class<?> type) {
+        this.delegate.bindNull(index, type);
+        this.bound = true;
+
+        if (this.bindingSampleSize > 0) {
+            sample(Integer.toString(index), null);
+        }
+
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(String name, Class<?> type) {
+        this.delegate.bindNull(name, type);
+        this.bound = true;
+
+        if (this.bindingSampleSize > 0) {
+            sample(name, null);
+        }
+
+        return this;
+    }
+
+    @Override
+    public Publisher<? extends Result> execute() {
+
+        Map<String, Object> bindings = Collections.emptyMap();
+
+        if (this.sampleSize != 0) {
+            bindings = new BindingSample(this.sampleKeys, this.sampleValues, this.sampleSize);
+            this.sampleShared = true;
+        }
+
+        return ObservedExecution.execute(this.listener, this.connection, this.sql, this.bindingCount + (this.bound ? 1 : 0), bindings, this.delegate.execute());
+    }
+
+    @Override
+    public Statement returnGeneratedValues(String... columns) {
+        this.delegate.returnGeneratedValues(columns);
+        return this;
+    }
+
+    @Override
+    public Statement fetchSize(int rows) {
+        this.delegate.fetchSize(rows);
+        return this;
+    }
+
+    @Override
+    public Statement unwrap() {
+        return this.delegate;
+    }
+
+    private void sample(String key, @Nullable Object value) {
+
+        if (this.bindingCount != 0) {
+            return;
+        }
+
+        String[] keys = this.sampleKeys;
+        Object[] values = this.sampleValues;
+
+        if (keys == null || values == null) {
+            keys = this.sampleKeys = new String[this.bindingSampleSize];
+            values = this.sampleValues = new Object[this.bindingSampleSize];
+        } else if (this.sampleShared) {
+            keys = this.sampleKeys = keys.clone();
+            values = this.sampleValues = values.clone();
+            this.sampleShared = false;
+        }
+
+        for (int i = 0; i < this.sampleSize; i++) {
+            if (keys[i].equals(key)) {
+                values[i] = value;
+                return;
+            }
+        }
+
+        if (this.sampleSize < keys.length) {
+            keys[this.sampleSize] = key;
+            values[this.sampleSize++] = value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ObservedStatement{" +
+            "delegate=" + this.delegate +
+            ", sql='" + this.sql + '\'' +
+            '}';
+    }
+
+    /**
+     * Read-only {@link Map} view over sampled binding keys and values in binding order.
+     */
+    static final class BindingSample extends AbstractMap<String, Object> {
+
+        private final String[] keys;
+
+        private final Object[] values;
+
+        private final int size;
+
+        BindingSample(String[] keys, Object[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.index < BindingSample.this.size;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            int index = this.index++;
+                            return new SimpleImmutableEntry<>(BindingSample.this.keys[index], BindingSample.this.values[index]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return BindingSample.this.size;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link Subscriber} relaying signals to a downstream {@link Subscriber} while notifying callbacks about emitted items, termination and cancellation.  Only the first of the completion, error and
+ * cancellation callbacks is invoked.
+ *
+ * @param <T> the upstream item type
+ * @param <R> the downstream item type
+ */
+final class ObservingSubscriber<T, R> implements Subscriber<T>, Subscription {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ObservingSubscriber> TERMINATED = AtomicIntegerFieldUpdater.newUpdater(ObservingSubscriber.class, "terminated");
+
+    private final Subscriber<? super R> actual;
+
+    private final Function<? super T, ? extends R> onNext;
+
+    private final Runnable onComplete;
+
+    private final Consumer<? super Throwable> onError;
+
+    private final Runnable onCancel;
+
+    private final boolean completeOnCancelAfterNext;
+
+    private Subscription subscription;
+
+    private volatile boolean received;
+
+    private volatile int terminated;
+
+    /**
+     * Create a new {@link ObservingSubscriber}.
+     *
+     * @param actual     the downstream {@link Subscriber}
+     * @param onNext     callback mapping upstream items to downstream items
+     * @param onComplete callback invoked before signalling completion
+     * @param onError    callback invoked before signalling an error
+     * @param onCancel   callback invoked before cancelling the upstream subscription
+     */
+    ObservingSubscriber(Subscriber<? super R> actual, Function<? super T, ? extends R> onNext, Runnable onComplete, Consumer<? super Throwable> onError, Runnable onCancel) {
+        this(actual, onNext, onComplete, onError, onCancel, false);
+    }
+
+    /**
+     * Create a new {@link ObservingSubscriber}.
+     *
+     * @param actual                    the downstream {@link Subscriber}
+     * @param onNext                    callback mapping upstream items to downstream items
+     * @param onComplete                callback invoked before signalling completion
+     * @param onError                   callback invoked before signalling an error
+     * @param onCancel                  callback invoked before cancelling the upstream subscription
+     * @param completeOnCancelAfterNext whether to invoke {@code onComplete} instead of {@code onCancel} if the subscription is cancelled after an item was emitted.  Used for publishers whose
+     *                                  subscribers typically cancel after the first item, e.g. {@code Mono.from(statement.execute())}.
+     */
+    ObservingSubscriber(Subscriber<? super R> actual, Function<? super T, ? extends R> onNext, Runnable onComplete, Consumer<? super Throwable> onError, Runnable onCancel,
+                        boolean completeOnCancelAfterNext) {
+        this.actual = actual;
+        this.onNext = onNext;
+        this.onComplete = onComplete;
+        this.onError = onError;
+        this.onCancel = onCancel;
+        this.completeOnCancelAfterNext = completeOnCancelAfterNext;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        this.subscription = s;
+        this.actual.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t) {
+        this.received = true;
+        this.actual.onNext(this.onNext.apply(t));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+
+        if (TERMINATED.compareAndSet(this, 0, 1)) {
+            this.onError.accept(t);
+        }
+
+        this.actual.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+
+        if (TERMINATED.compareAndSet(this, 0, 1)) {
+            this.onComplete.run();
+        }
+
+        this.actual.onComplete();
+    }
+
+    @Override
+    public void request(long n) {
+        this.subscription.request(n);
+    }
+
+    @Override
+    public void cancel() {
+
+        if (TERMINATED.compareAndSet(this, 0, 1)) {
+
+            if (this.completeOnCancelAfterNext && this.received) {
+                this.onComplete.run();
+            } else {
+                this.onCancel.run();
+            }
+        }
+
+        this.subscription.cancel();
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Non-public {@link Publisher} factories for SPI default methods.
+ */
+abstract class Publishers {
+
+    private Publishers() {
+    }
+
+    /**
+     * Returns a {@link Publisher} that completes without emitting a value.
+     *
+     * @param <T> the value type
+     * @return a {@link Publisher} that completes without emitting a value
+     */
+    static <T> Publisher<T> empty() {
+        return subscriber -> {
+            subscriber.onSubscribe(new Subscription() {
+
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onComplete();
+        };
+    }
+
+    /**
+     * Returns a {@link Publisher} that emits {@code value} upon request and completes.
+     *
+     * @param value the value to emit
+     * @param <T>   the value type
+     * @return a {@link Publisher} that emits {@code value}
+     */
+    static <T> Publisher<T> just(T value) {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+
+            boolean done;
+
+            @Override
+            public void request(long n) {
+
+                if (this.done) {
+                    return;
+                }
+
+                this.done = true;
+
+                if (n <= 0) {
+                    subscriber.onError(new IllegalArgumentException(String.format("Requested demand must be greater than zero, was %d", n)));
+                    return;
+                }
+
+                subscriber.onNext(value);
+                subscriber.onComplete();
+            }
+
+            @Override
+            public void cancel() {
+                this.done = true;
+            }
+        });
+    }
+
+    /**
+     * Returns a {@link Publisher} that signals {@code error} without emitting a value.
+     *
+     * @param error the error to signal
+     * @param <T>   the value type
+     * @return a {@link Publisher} that signals {@code error}
+     */
+    static <T> Publisher<T> error(Throwable error) {
+        return subscriber -> {
+            subscriber.onSubscribe(new Subscription() {
+
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(error);
+        };
+    }
+
+}
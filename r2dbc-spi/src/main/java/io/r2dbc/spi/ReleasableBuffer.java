@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Represents a chunk of binary data whose backing memory is owned by the driver, typically a buffer obtained from a buffer pool.  The consumer of a {@link ReleasableBuffer} takes ownership and must
+ * {@link #release() release} the buffer exactly once after consuming it.  The {@link #buffer() buffer} must not be accessed after its release.
+ * <p>
+ * Consumers that do not want to manage buffer ownership can use {@link #copy(Publisher)} to obtain heap copies of the chunks that are released immediately.
+ *
+ * @see Blob#streamReleasable()
+ * @since 1.0.1
+ */
+public interface ReleasableBuffer {
+
+    /**
+     * Creates a new {@link ReleasableBuffer} wrapper for a {@link ByteBuffer} that is not associated with a buffer pool.  Releasing the wrapper only updates its release state.
+     *
+     * @param buffer the buffer to wrap
+     * @return the {@link ReleasableBuffer} wrapper
+     * @throws IllegalArgumentException if {@code buffer} is {@code null}
+     */
+    static ReleasableBuffer wrap(ByteBuffer buffer) {
+        Assert.requireNonNull(buffer, "buffer must not be null");
+
+        AtomicBoolean released = new AtomicBoolean();
+
+        return new ReleasableBuffer() {
+
+            @Override
+            public ByteBuffer buffer() {
+                return buffer;
+            }
+
+            @Override
+            public boolean release() {
+                return released.compareAndSet(false, true);
+            }
+
+            @Override
+            public String toString() {
+                return "ReleasableBuffer{" +
+                    "buffer=" + buffer +
+                    ", released=" + released +
+                    '}';
+            }
+        };
+    }
+
+    /**
+     * Adapts a {@link Publisher} of {@link ReleasableBuffer} into a {@link Publisher} of {@link ByteBuffer} for consumers that do not manage buffer ownership.  Each chunk is copied into a heap
+     * buffer and released before the copy is emitted.
+     *
+     * @param source the {@link Publisher} of {@link ReleasableBuffer}
+     * @return a {@link Publisher} emitting heap copies of the chunks
+     * @throws IllegalArgumentException if {@code source} is {@code null}
+     */
+    static Publisher<ByteBuffer> copy(Publisher<? extends ReleasableBuffer> source) {
+        Assert.requireNonNull(source, "source must not be null");
+        return LobCodec.copy(source);
+    }
+
+    /**
+     * Returns the {@link ByteBuffer} holding the data of this chunk.  The buffer is valid until this chunk is {@link #release() released}.
+     *
+     * @return the {@link ByteBuffer} holding the data of this chunk
+     */
+    ByteBuffer buffer();
+
+    /**
+     * Releases the memory backing this chunk.  Calling this method on an already released chunk has no effect.
+     *
+     * @return {@code true} if this call released the chunk; {@code false} if the chunk was already released
+     */
+    boolean release();
+
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link ExecutionListener} capturing executions that exceed a threshold into a fixed-size ring buffer.  Each captured {@link SlowQuery} holds the {@link SqlFingerprint}, the number of
+ * consumed rows, the time to the first row and the total execution time and, if {@link Builder#maxBindings(int) enabled}, a sample of the binding values of the first binding set.  Once the
+ * buffer is full, new captures overwrite the oldest ones.  Executions below the threshold are not captured and cost a single comparison.
+ * <p>
+ * Binding sampling is disabled by default so that statements do not retain binding values.  Sampled binding values are reported as {@value #REDACTED}, similar to
+ * {@link Option#sensitiveValueOf(String) sensitive options}, unless the binding is {@link Builder#reveal(String...) revealed}.  Revealed values are rendered as {@link String} and truncated to
+ * {@link Builder#maxValueLength(int) maxValueLength}.  Large objects and binary values are reported by their type only.
+ *
+ * <p>Usage:
+ * <pre class="code">
+ * SlowQueryLog log = SlowQueryLog.builder()
+ *     .threshold(Duration.ofMillis(500))
+ *     .maxBindings(8)
+ *     .reveal("id", "status")
+ *     .build();
+ *
+ * ConnectionFactory connectionFactory = ConnectionFactories.observe(ConnectionFactories.get(url), log);
+ *
+ * List&lt;SlowQueryLog.SlowQuery&gt; slowQueries = log.drain();
+ * </pre>
+ *
+ * @since 1.0.1
+ */
+public final class SlowQueryLog implements ExecutionListener {
+
+    /**
+     * Replacement of binding values that are not {@link Builder#reveal(String...) revealed}.
+     */
+    public static final String REDACTED = "REDACTED";
+
+    private final long thresholdNanos;
+
+    private final int maxBindings;
+
+    private final int maxValueLength;
+
+    private final Set<String> revealed;
+
+    private final AtomicReferenceArray<SlowQuery> buffer;
+
+    private final int mask;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private SlowQueryLog(Duration threshold, int capacity, int maxBindings, int maxValueLength, Set<String> revealed) {
+        this.thresholdNanos = threshold.toNanos();
+        this.maxBindings = maxBindings;
+        this.maxValueLength = maxValueLength;
+        this.revealed = revealed;
+
+        int size = Integer.highestOneBit(capacity);
+        size = size < capacity ? size << 1 : size;
+
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     *
+     * @return a new {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Remove and return all captured {@link SlowQuery slow queries} ordered by their capture.
+     *
+     * @return the captured {@link SlowQuery slow queries}
+     */
+    public List<SlowQuery> drain() {
+
+        List<SlowQuery> slowQueries = new ArrayList<>();
+
+        for (int i = 0; i < this.buffer.length(); i++) {
+
+            SlowQuery slowQuery = this.buffer.getAndSet(i, null);
+
+            if (slowQuery != null) {
+                slowQueries.add(slowQuery);
+            }
+        }
+
+        slowQueries.sort(Comparator.comparingLong(SlowQuery::getSequence));
+        return slowQueries;
+    }
+
+    /**
+     * Returns the number of executions captured since this log was created, including captures that were overwritten or drained.
+     *
+     * @return the number of captured executions
+     */
+    public long getCaptureCount() {
+        return this.sequence.get();
+    }
+
+    /**
+     * Returns the number of slow queries the ring buffer retains.
+     *
+     * @return the number of slow queries the ring buffer retains
+     */
+    public int getCapacity() {
+        return this.buffer.length();
+    }
+
+    @Override
+    public void onExecuteComplete(Execution execution, long time) {
+        capture(execution, time);
+    }
+
+    @Override
+    public void onExecuteCancel(Execution execution, long time) {
+        capture(execution, time);
+    }
+
+    @Override
+    public void onExecuteError(Execution execution, Throwable error, long time) {
+        capture(execution, time);
+    }
+
+    @Override
+    public int getBindingSampleSize() {
+        return this.maxBindings;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowQueryLog{" +
+            "threshold=" + Duration.ofNanos(this.thresholdNanos) +
+            ", capacity=" + this.buffer.length() +
+            ", captureCount=" + this.sequence.get() +
+            '}';
+    }
+
+    private void capture(Execution execution, long time) {
+
+        long elapsed = time - execution.getStartTime();
+
+        if (elapsed < this.thresholdNanos) {
+            return;
+        }
+
+        long rowCount = execution.getRowCount();
+        Duration firstRowTime = rowCount > 0 ? Duration.ofNanos(execution.getFirstRowTime() - execution.getStartTime()) : null;
+        long sequence = this.sequence.getAndIncrement();
+
+        this.buffer.set((int) (sequence & this.mask), new SlowQuery(sequence, Instant.now(), execution.getFingerprint(), render(execution.getBindings()), rowCount, firstRowTime,
+            Duration.ofNanos(elapsed)));
+    }
+
+    private Map<String, String> render(Map<String, Object> bindings) {
+
+        if (bindings.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> rendered = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Object> entry : bindings.entrySet()) {
+            rendered.put(entry.getKey(), this.revealed.contains(entry.getKey()) ? render(entry.getValue()) : REDACTED);
+        }
+
+        return Collections.unmodifiableMap(rendered);
+    }
+
+    private String render(@Nullable Object value) {
+
+        Object actual = value instanceof Parameter ? ((Parameter) value).getValue() : value;
+
+        if (actual == null) {
+            return "null";
+        }
+
+        if (actual instanceof Blob || actual instanceof Clob || actual instanceof ByteBuffer || actual instanceof byte[]) {
+            return actual.getClass().getSimpleName();
+        }
+
+        String rendered = actual.toString();
+
+        return rendered.length() > this.maxValueLength ? rendered.substring(0, this.maxValueLength) + "..." : rendered;
+    }
+
+    /**
+     * Builder for {@link SlowQueryLog}.
+     */
+    public static final class Builder {
+
+        private Duration threshold = Duration.ofSeconds(1);
+
+        private int capacity = 256;
+
+        private int maxBindings;
+
+        private int maxValueLength = 64;
+
+        private final Set<String> revealed = new HashSet<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Configure the minimum execution time of captured executions.  Defaults to one second.
+         *
+         * @param threshold the minimum execution time
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code threshold} is {@code null} or negative
+         */
+        public Builder threshold(Duration threshold) {
+            Assert.requireNonNull(threshold, "threshold must not be null");
+
+            if (threshold.isNegative()) {
+                throw new IllegalArgumentException("threshold must not be negative");
+            }
+
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Configure the number of retained slow queries.  The capacity is rounded up to the next power of two.  Defaults to {@code 256}.
+         *
+         * @param capacity the number of retained slow queries
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code capacity} is not between {@code 1} and {@code 2^30}
+         */
+        public Builder capacity(int capacity) {
+
+            if (capacity < 1 || capacity > 1 << 30) {
+                throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+            }
+
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Configure the maximum number of sampled binding values.  Defaults to {@code 0}, which disables sampling.
+         *
+         * @param maxBindings the maximum number of sampled binding values, {@code 0} to disable sampling
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxBindings} is negative
+         */
+        public Builder maxBindings(int maxBindings) {
+
+            if (maxBindings < 0) {
+                throw new IllegalArgumentException("maxBindings must not be negative");
+            }
+
+            this.maxBindings = maxBindings;
+            return this;
+        }
+
+        /**
+         * Configure the maximum length of rendered binding values.  Defaults to {@code 64}.
+         *
+         * @param maxValueLength the maximum length of rendered binding values
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code maxValueLength} is less than {@code 1}
+         */
+        public Builder maxValueLength(int maxValueLength) {
+
+            if (maxValueLength < 1) {
+                throw new IllegalArgumentException("maxValueLength must be greater than zero");
+            }
+
+            this.maxValueLength = maxValueLength;
+            return this;
+        }
+
+        /**
+         * Configure bindings whose sampled values are reported in plain text.  Values of all other bindings are reported as {@value SlowQueryLog#REDACTED}.  Bindings are identified by their
+         * parameter name or, for bindings by index, their index.
+         *
+         * @param bindings the names or indexes of bindings to reveal
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if {@code bindings} is {@code null}
+         */
+        public Builder reveal(String... bindings) {
+            Assert.requireNonNull(bindings, "bindings must not be null");
+
+            for (String binding : bindings) {
+                this.revealed.add(Assert.requireNonNull(binding, "binding must not be null"));
+            }
+
+            return this;
+        }
+
+        /**
+         * Returns a configured {@link SlowQueryLog}.
+         *
+         * @return a configured {@link SlowQueryLog}
+         */
+        public SlowQueryLog build() {
+            return new SlowQueryLog(this.threshold, this.capacity, this.maxBindings, this.maxValueLength, Collections.unmodifiableSet(new HashSet<>(this.revealed)));
+        }
+
+    }
+
+    /**
+     * A captured slow execution.
+     */
+    public static final class SlowQuery {
+
+        private final long sequence;
+
+        private final Instant timestamp;
+
+        private final SqlFingerprint fingerprint;
+
+        private final Map<String, String> bindings;
+
+        private final long rowCount;
+
+        @Nullable
+        private final Duration firstRowTime;
+
+        private final Duration totalTime;
+
+        SlowQuery(long sequence, Instant timestamp, SqlFingerprint fingerprint, Map<String, String> bindings, long rowCount, @Nullable Duration firstRowTime, Duration totalTime) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.fingerprint = fingerprint;
+            this.bindings = bindings;
+            this.rowCount = rowCount;
+            this.firstRowTime = firstRowTime;
+            this.totalTime = totalTime;
+        }
+
+        /**
+         * Returns the capture sequence number.
+         *
+         * @return the capture sequence number
+         */
+        public long getSequence() {
+            return this.sequence;
+        }
+
+        /**
+         * Returns the time at which the execution was captured.
+         *
+         * @return the time at which the execution was captured
+         */
+        public Instant getTimestamp() {
+            return this.timestamp;
+        }
+
+        /**
+         * Returns the {@link SqlFingerprint} of the execution.
+         *
+         * @return the {@link SqlFingerprint} of the execution
+         */
+        public SqlFingerprint getFingerprint() {
+            return this.fingerprint;
+        }
+
+        /**
+         * Returns the rendered sample of binding values keyed by the parameter name or index.  Empty if binding sampling is disabled.
+         *
+         * @return the rendered sample of binding values
+         */
+        public Map<String, String> getBindings() {
+            return this.bindings;
+        }
+
+        /**
+         * Returns the number of consumed rows.
+         *
+         * @return the number of consumed rows
+         */
+        public long getRowCount() {
+            return this.rowCount;
+        }
+
+        /**
+         * Returns the time from the start of the execution until its first row was consumed.
+         *
+         * @return the time to the first row.  {@code null} if no row was consumed.
+         */
+        @Nullable
+        public Duration getFirstRowTime() {
+            return this.firstRowTime;
+        }
+
+        /**
+         * Returns the time from the start of the execution until it terminated.
+         *
+         * @return the total execution time
+         */
+        public Duration getTotalTime() {
+            return this.totalTime;
+        }
+
+        @Override
+        public String toString() {
+            return "SlowQuery{" +
+                "timestamp=" + this.timestamp +
+                ", sql='" + this.fingerprint.getNormalizedSql() + '\'' +
+                ", bindings=" + this.bindings +
+                ", rowCount=" + this.rowCount +
+                ", firstRowTime=" + this.firstRowTime +
+                ", totalTime=" + this.totalTime +
+                '}';
+        }
+
+    }
+
+}
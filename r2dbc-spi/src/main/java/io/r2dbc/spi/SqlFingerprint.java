@@ -0,0 +1,434 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Normalized form and fingerprint of a SQL string to key per-query metrics.  Normalization runs in a single pass over the SQL and:
+ * <ul>
+ *     <li>replaces string, numeric and dollar-quoted literals as well as bind markers ({@code ?}, {@code $1}, {@code :name}, {@code @name}) with {@code ?}</li>
+ *     <li>removes comments and collapses whitespace into a single space</li>
+ *     <li>folds {@code IN} lists such as {@code IN (?, ?, ?)} into {@code IN (?)} and repeated row constructors such as {@code VALUES (?, ?), (?, ?)} into {@code VALUES (?, ?)}</li>
+ *     <li>removes a trailing {@code ;}</li>
+ * </ul>
+ * Quoted identifiers and the case of keywords and identifiers are retained.  The fingerprint is a 64-bit FNV-1a hash of the normalized SQL.
+ * <p>
+ * {@link #of(String)} caches fingerprints per distinct SQL string.  The cache is bounded to {@value #MAX_CACHE_SIZE} entries and cleared once it is full so that applications generating
+ * unique SQL strings do not grow memory unboundedly.
+ *
+ * <p>Usage:
+ * <pre class="code">
+ * SqlFingerprint fingerprint = SqlFingerprint.of("SELECT * FROM person WHERE id IN (1, 2, 3)");
+ *
+ * fingerprint.getNormalizedSql(); // SELECT * FROM person WHERE id IN (?)
+ * </pre>
+ *
+ * @see ExecutionListener.Execution#getFingerprint()
+ * @since 1.0.1
+ */
+public final class SqlFingerprint {
+
+    /**
+     * Maximum number of cached fingerprints.
+     */
+    public static final int MAX_CACHE_SIZE = 2048;
+
+    private static final ConcurrentMap<String, SqlFingerprint> CACHE = new ConcurrentHashMap<>();
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String normalizedSql;
+
+    private final long hash;
+
+    private SqlFingerprint(String normalizedSql) {
+        this.normalizedSql = normalizedSql;
+        this.hash = hash(normalizedSql);
+    }
+
+    /**
+     * Returns the cached or newly computed {@link SqlFingerprint} of {@code sql}.
+     *
+     * @param sql the SQL to fingerprint
+     * @return the {@link SqlFingerprint} of {@code sql}
+     * @throws IllegalArgumentException if {@code sql} is {@code null}
+     */
+    public static SqlFingerprint of(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        SqlFingerprint fingerprint = CACHE.get(sql);
+
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+
+        fingerprint = new SqlFingerprint(normalize(sql));
+
+        if (CACHE.size() >= MAX_CACHE_SIZE) {
+            CACHE.clear();
+        }
+
+        CACHE.putIfAbsent(sql, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * Normalize {@code sql} without caching the result.
+     *
+     * @param sql the SQL to normalize
+     * @return the normalized SQL
+     * @throws IllegalArgumentException if {@code sql} is {@code null}
+     */
+    public static String normalize(String sql) {
+        Assert.requireNonNull(sql, "sql must not be null");
+
+        int length = sql.length();
+        StringBuilder out = new StringBuilder(length + 16);
+        boolean space = false;
+        int i = 0;
+
+        while (i < length) {
+
+            char c = sql.charAt(i);
+
+            if (c <= ' ') {
+                space = true;
+                i++;
+                continue;
+            }
+
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipLineComment(sql, i + 2);
+                space = true;
+                continue;
+            }
+
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = skipBlockComment(sql, i + 2);
+                space = true;
+                continue;
+            }
+
+            if (c == ',' || c == ')') {
+
+                if (c == ')' && foldRow(out)) {
+                    space = false;
+                    i++;
+                    continue;
+                }
+
+                out.append(c);
+                space = c == ',';
+                i++;
+                continue;
+            }
+
+            if (space && out.length() != 0 && out.charAt(out.length() - 1) != '(') {
+                out.append(' ');
+            }
+            space = false;
+
+            if (c == '\'') {
+                i = skipQuoted(sql, i + 1, '\'');
+                appendBindMarker(out);
+            } else if (c == '"' || c == '`') {
+                int end = skipQuoted(sql, i + 1, c);
+                out.append(sql, i, end);
+                i = end;
+            } else if (isDigit(c) || (c == '.' && i + 1 < length && isDigit(sql.charAt(i + 1)))) {
+                i = skipNumber(sql, i);
+                appendBindMarker(out);
+            } else if (c == '?') {
+                i++;
+                appendBindMarker(out);
+            } else if (c == '$' && i + 1 < length && isDigit(sql.charAt(i + 1))) {
+                i = skipDigits(sql, i + 1);
+                appendBindMarker(out);
+            } else if (c == '$' && i + 1 < length && sql.charAt(i + 1) == '$') {
+                int end = sql.indexOf("$$", i + 2);
+                i = end == -1 ? length : end + 2;
+                appendBindMarker(out);
+            } else if ((c == ':' || c == '@') && i + 1 < length && isIdentifierStart(sql.charAt(i + 1)) && (i == 0 || sql.charAt(i - 1) != c)) {
+                i = skipIdentifier(sql, i + 1);
+                appendBindMarker(out);
+            } else if (isIdentifierStart(c)) {
+                int end = skipIdentifier(sql, i);
+                out.append(sql, i, end);
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+
+        int end = out.length();
+
+        while (end > 0 && (out.charAt(end - 1) == ';' || out.charAt(end - 1) == ' ')) {
+            end--;
+        }
+
+        out.setLength(end);
+        return out.toString();
+    }
+
+    /**
+     * Returns the number of cached fingerprints.
+     *
+     * @return the number of cached fingerprints
+     */
+    static int cacheSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * Returns the normalized SQL.
+     *
+     * @return the normalized SQL
+     */
+    public String getNormalizedSql() {
+        return this.normalizedSql;
+    }
+
+    /**
+     * Returns the 64-bit fingerprint of the normalized SQL.
+     *
+     * @return the 64-bit fingerprint of the normalized SQL
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SqlFingerprint that = (SqlFingerprint) o;
+        return this.hash == that.hash && this.normalizedSql.equals(that.normalizedSql);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.hash);
+    }
+
+    /**
+     * Returns the fingerprint as 16-digit hexadecimal string.
+     *
+     * @return the fingerprint as 16-digit hexadecimal string
+     */
+    @Override
+    public String toString() {
+
+        String hex = Long.toHexString(this.hash);
+
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    private static void appendBindMarker(StringBuilder out) {
+
+        int length = out.length();
+
+        // fold "IN (?, ?" into "IN (?"
+        if (length >= 4 && out.charAt(length - 1) == ' ' && out.charAt(length - 2) == ',' && out.charAt(length - 3) == '?' && out.charAt(length - 4) == '('
+            && endsWithKeyword(out, length - 4, "IN")) {
+            out.setLength(length - 2);
+            return;
+        }
+
+        out.append('?');
+    }
+
+    /**
+     * Fold a row constructor consisting of bind markers that repeats the previous row constructor of a {@code VALUES} clause, for example {@code VALUES (?, ?), (?, ?}.
+     */
+    private static boolean foldRow(StringBuilder out) {
+
+        int end = out.length();
+        int start = end - 1;
+
+        while (start >= 0 && out.charAt(start) != '(') {
+
+            char c = out.charAt(start);
+
+            if (c != '?' && c != ',' && c != ' ') {
+                return false;
+            }
+
+            start--;
+        }
+
+        int rowLength = end - start;
+        int previous = start - 2 - (rowLength + 1);
+
+        if (previous < 0 || out.charAt(start - 1) != ' ' || out.charAt(start - 2) != ',' || out.charAt(start - 3) != ')' || !endsWithKeyword(out, previous, "VALUES")) {
+            return false;
+        }
+
+        for (int i = 0; i < rowLength; i++) {
+            if (out.charAt(previous + i) != out.charAt(start + i)) {
+                return false;
+            }
+        }
+
+        out.setLength(start - 2);
+        return true;
+    }
+
+    /**
+     * Returns whether {@code out} contains {@code keyword} (case-insensitive) followed by an optional space before {@code index}.
+     */
+    private static boolean endsWithKeyword(StringBuilder out, int index, String keyword) {
+
+        int end = index > 0 && out.charAt(index - 1) == ' ' ? index - 1 : index;
+        int start = end - keyword.length();
+
+        if (start < 0 || (start > 0 && isIdentifierPart(out.charAt(start - 1)))) {
+            return false;
+        }
+
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(out.charAt(start + i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long hash(String value) {
+
+        long hash = FNV_OFFSET_BASIS;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || (c > 127 && Character.isLetter(c));
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || isDigit(c) || c == '$';
+    }
+
+    private static int skipDigits(String sql, int index) {
+
+        while (index < sql.length() && isDigit(sql.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int skipIdentifier(String sql, int index) {
+
+        while (index < sql.length() && isIdentifierPart(sql.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int skipNumber(String sql, int index) {
+
+        int length = sql.length();
+
+        if (sql.startsWith("0x", index) || sql.startsWith("0X", index)) {
+
+            index += 2;
+
+            while (index < length && Character.digit(sql.charAt(index), 16) != -1) {
+                index++;
+            }
+
+            return index;
+        }
+
+        index = skipDigits(sql, index);
+
+        if (index < length && sql.charAt(index) == '.') {
+            index = skipDigits(sql, index + 1);
+        }
+
+        if (index + 1 < length && (sql.charAt(index) == 'e' || sql.charAt(index) == 'E')) {
+
+            int exponent = index + 1;
+
+            if (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-') {
+                exponent++;
+            }
+
+            if (exponent < length && isDigit(sql.charAt(exponent))) {
+                index = skipDigits(sql, exponent);
+            }
+        }
+
+        return index;
+    }
+
+    private static int skipQuoted(String sql, int index, char quote) {
+
+        int length = sql.length();
+
+        while (index < length) {
+
+            if (sql.charAt(index++) == quote) {
+
+                // doubled quote escapes the quote character
+                if (index < length && sql.charAt(index) == quote) {
+                    index++;
+                    continue;
+                }
+
+                return index;
+            }
+        }
+
+        return length;
+    }
+
+    private static int skipLineComment(String sql, int index) {
+
+        int end = sql.indexOf('\n', index);
+
+        return end == -1 ? sql.length() : end + 1;
+    }
+
+    private static int skipBlockComment(String sql, int index) {
+
+        int end = sql.indexOf("*/", index);
+
+        return end == -1 ? sql.length() : end + 2;
+    }
+
+}
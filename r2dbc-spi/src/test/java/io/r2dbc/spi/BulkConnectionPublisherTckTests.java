@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.PublisherVerification;
+import org.reactivestreams.tck.TestEnvironment;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Reactive Streams TCK verification of {@link BulkConnectionPublisher}.  Connections are created on demand only, so there is no failed publisher that signals an error without demand.
+ */
+public final class BulkConnectionPublisherTckTests extends PublisherVerification<Connection> {
+
+    private final ConnectionFactory connectionFactory = new ConnectionFactory() {
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Publishers.just(newConnection());
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return () -> "test";
+        }
+    };
+
+    public BulkConnectionPublisherTckTests() {
+        super(new TestEnvironment());
+    }
+
+    @Override
+    public Publisher<Connection> createPublisher(long elements) {
+        return new BulkConnectionPublisher(this.connectionFactory, Math.toIntExact(elements), 2);
+    }
+
+    @Override
+    public Publisher<Connection> createFailedPublisher() {
+        return null;
+    }
+
+    /**
+     * {@link BulkConnectionPublisher} creates an {@code int} number of connections.
+     */
+    @Override
+    public long maxElementsFromPublisher() {
+        return Integer.MAX_VALUE;
+    }
+
+    private static Connection newConnection() {
+        return (Connection) Proxy.newProxyInstance(BulkConnectionPublisherTckTests.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+
+            if (method.getName().equals("close")) {
+                return Publishers.empty();
+            }
+
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+
+            if (method.getName().equals("toString")) {
+                return "Connection@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+}
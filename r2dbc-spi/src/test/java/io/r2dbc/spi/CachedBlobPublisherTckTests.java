@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.PublisherVerification;
+import org.reactivestreams.tck.TestEnvironment;
+import org.testng.annotations.AfterClass;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Reactive Streams TCK verification of {@link CachedBlob} replays.  Content is spilled to a temporary file entirely so that each emitted chunk has the replay chunk size and the number of
+ * emitted chunks is predictable.
+ */
+public final class CachedBlobPublisherTckTests extends PublisherVerification<ByteBuffer> {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final CachePolicy POLICY = CachePolicy.builder().maxInMemorySize(0).build();
+
+    private final List<Blob> blobs = new CopyOnWriteArrayList<>();
+
+    public CachedBlobPublisherTckTests() {
+        super(new TestEnvironment());
+    }
+
+    @Override
+    public Publisher<ByteBuffer> createPublisher(long elements) {
+        return cache(new ChunkPublisher(elements, CHUNK_SIZE)).stream();
+    }
+
+    @Override
+    public Publisher<ByteBuffer> createFailedPublisher() {
+        return cache(Publishers.error(new IllegalStateException("stream failed"))).stream();
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return 256;
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void discard() {
+
+        for (Blob blob : this.blobs) {
+            CollectingSubscriber.subscribe(blob.discard());
+        }
+    }
+
+    private Blob cache(Publisher<ByteBuffer> source) {
+
+        Blob blob = Blob.cached(Blob.from(source), POLICY);
+        this.blobs.add(blob);
+
+        return blob;
+    }
+
+}
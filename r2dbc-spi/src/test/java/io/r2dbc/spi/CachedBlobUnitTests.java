@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CachedBlob}.
+ */
+final class CachedBlobUnitTests {
+
+    @Test
+    void shouldReplayContent() {
+
+        Blob blob = Blob.cached(Blob.from(IterablePublisher.of(encode("foo"), encode("bar"))), CachePolicy.defaults());
+
+        CollectingSubscriber<ByteBuffer> first = CollectingSubscriber.subscribe(blob.stream());
+        CollectingSubscriber<ByteBuffer> second = CollectingSubscriber.subscribe(blob.stream());
+
+        assertThat(decode(first.items)).isEqualTo("foobar");
+        assertThat(first.completed).isTrue();
+        assertThat(decode(second.items)).isEqualTo("foobar");
+        assertThat(second.completed).isTrue();
+    }
+
+    @Test
+    void shouldFollowSourceProgress() {
+
+        AtomicReference<Subscriber<? super ByteBuffer>> source = new AtomicReference<>();
+        Blob blob = Blob.cached(Blob.from(subscriber -> {
+            source.set(subscriber);
+            subscriber.onSubscribe(new Subscription() {
+
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        }), CachePolicy.builder().maxInMemorySize(4).build());
+
+        CollectingSubscriber<ByteBuffer> first = CollectingSubscriber.subscribe(blob.stream());
+        source.get().onNext(encode("foo"));
+
+        CollectingSubscriber<ByteBuffer> second = CollectingSubscriber.subscribe(blob.stream());
+        source.get().onNext(encode("bar"));
+
+        assertThat(decode(first.items)).isEqualTo("foobar");
+        assertThat(decode(second.items)).isEqualTo("foobar");
+        assertThat(first.completed).isFalse();
+
+        source.get().onComplete();
+
+        assertThat(first.completed).isTrue();
+        assertThat(second.completed).isTrue();
+    }
+
+    @Test
+    void shouldSpillToDiskAndReleaseOnDiscard() throws IOException {
+
+        Path directory = Files.createTempDirectory("r2dbc-cached-blob");
+        CachePolicy policy = CachePolicy.builder().maxInMemorySize(4).directory(directory).build();
+        Blob blob = Blob.cached(Blob.from(IterablePublisher.of(encode("foo"), encode("bar"), encode("baz"))), policy);
+
+        CollectingSubscriber<ByteBuffer> first = CollectingSubscriber.subscribe(blob.stream());
+        CollectingSubscriber<ByteBuffer> range = CollectingSubscriber.subscribe(blob.stream(2, 5));
+        CollectingSubscriber<Long> length = CollectingSubscriber.subscribe(blob.length());
+
+        assertThat(decode(first.items)).isEqualTo("foobarbaz");
+        assertThat(decode(range.items)).isEqualTo("obarb");
+        assertThat(length.items).containsExactly(9L);
+
+        CollectingSubscriber.subscribe(blob.discard());
+
+        assertThat(directory.toFile().list()).isEmpty();
+        assertThat(CollectingSubscriber.subscribe(blob.stream()).error).isInstanceOf(IllegalStateException.class);
+
+        Files.delete(directory);
+    }
+
+    @Test
+    void shouldDiscardUnconsumedSource() {
+
+        boolean[] discarded = new boolean[1];
+        Blob source = new Blob() {
+
+            @Override
+            public Publisher<ByteBuffer> stream() {
+                return IterablePublisher.of(encode("foo"));
+            }
+
+            @Override
+            public Publisher<Void> discard() {
+                discarded[0] = true;
+                return Publishers.empty();
+            }
+        };
+
+        CollectingSubscriber<Void> subscriber = CollectingSubscriber.subscribe(Blob.cached(source, CachePolicy.defaults()).discard());
+
+        assertThat(discarded[0]).isTrue();
+        assertThat(subscriber.completed).isTrue();
+    }
+
+    private static ByteBuffer encode(String value) {
+        return StandardCharsets.US_ASCII.encode(value);
+    }
+
+    private static String decode(List<ByteBuffer> chunks) {
+
+        StringBuilder builder = new StringBuilder();
+
+        for (ByteBuffer chunk : chunks) {
+            builder.append(StandardCharsets.US_ASCII.decode(chunk));
+        }
+
+        return builder.toString();
+    }
+
+}
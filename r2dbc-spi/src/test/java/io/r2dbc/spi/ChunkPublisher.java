@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Publisher} emitting a number of chunks of a fixed size according to the Reactive Streams specification.  Chunks are created on demand so that large counts do not allocate upfront.
+ * Serves as compliant source for the publisher verifications of decorating publishers.
+ */
+final class ChunkPublisher implements Publisher<ByteBuffer> {
+
+    private final long count;
+
+    private final int size;
+
+    ChunkPublisher(long count, int size) {
+        this.count = count;
+        this.size = size;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must not be null");
+
+        ChunkSubscription subscription = new ChunkSubscription(subscriber);
+
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    final class ChunkSubscription implements Subscription {
+
+        private final Subscriber<? super ByteBuffer> actual;
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private long emitted;
+
+        private volatile boolean cancelled;
+
+        private volatile boolean invalidRequest;
+
+        ChunkSubscription(Subscriber<? super ByteBuffer> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                this.invalidRequest = true;
+            } else {
+                this.requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        private void drain() {
+
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            for (; ; ) {
+
+                long requested = this.requested.get();
+
+                while (!this.cancelled && !this.invalidRequest && this.emitted < ChunkPublisher.this.count && this.emitted < requested) {
+                    this.emitted++;
+                    this.actual.onNext(ByteBuffer.allocate(ChunkPublisher.this.size));
+                }
+
+                if (!this.cancelled && this.invalidRequest) {
+                    this.cancelled = true;
+                    this.actual.onError(new IllegalArgumentException("Requested demand must be greater than zero"));
+                } else if (!this.cancelled && this.emitted == ChunkPublisher.this.count) {
+                    this.cancelled = true;
+                    this.actual.onComplete();
+                }
+
+                missed = this.wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synchronous {@link Subscriber} collecting all items with unbounded demand.
+ */
+final class CollectingSubscriber<T> implements Subscriber<T> {
+
+    final List<T> items = new ArrayList<>();
+
+    Throwable error;
+
+    boolean completed;
+
+    static <T> CollectingSubscriber<T> subscribe(Publisher<T> publisher) {
+        CollectingSubscriber<T> subscriber = new CollectingSubscriber<>();
+        publisher.subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        s.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(T t) {
+        this.items.add(t);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        this.error = t;
+    }
+
+    @Override
+    public void onComplete() {
+        this.completed = true;
+    }
+
+}
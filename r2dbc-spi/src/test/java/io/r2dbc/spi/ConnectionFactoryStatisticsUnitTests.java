@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ConnectionFactoryStatistics}.
+ */
+final class ConnectionFactoryStatisticsUnitTests {
+
+    final ConnectionFactoryStatistics statistics = new ConnectionFactoryStatistics();
+
+    @Test
+    void shouldRecordLatenciesIntoBuckets() {
+
+        this.statistics.recordTotal(Duration.ofMillis(1).toNanos());
+        this.statistics.recordTotal(Duration.ofMillis(3).toNanos());
+        this.statistics.recordTotal(Duration.ofSeconds(20).toNanos());
+        this.statistics.recordTotal(-1);
+
+        ConnectionFactoryStatistics.Histogram total = this.statistics.snapshot().getTotalTime();
+        long[] counts = total.getBucketCounts();
+
+        assertThat(counts.length).isEqualTo(total.getBucketBounds().size() + 1);
+        assertThat(counts[0]).isEqualTo(1L);
+        assertThat(counts[total.getBucketBounds().indexOf(Duration.ofMillis(1))]).isEqualTo(1L);
+        assertThat(counts[total.getBucketBounds().indexOf(Duration.ofMillis(5))]).isEqualTo(1L);
+        assertThat(counts[counts.length - 1]).isEqualTo(1L);
+        assertThat(total.getCount()).isEqualTo(4L);
+        assertThat(total.getMax()).isEqualTo(Duration.ofSeconds(20));
+        assertThat(total.getTotalTime()).isEqualTo(Duration.ofMillis(20_004));
+    }
+
+    @Test
+    void shouldEstimatePercentiles() {
+
+        for (int i = 0; i < 99; i++) {
+            this.statistics.recordExecute(Duration.ofMillis(2).toNanos());
+        }
+        this.statistics.recordExecute(Duration.ofMillis(700).toNanos());
+
+        ConnectionFactoryStatistics.Histogram execute = this.statistics.snapshot().getExecuteTime();
+
+        assertThat(execute.getPercentile(0.5)).isEqualTo(Duration.ofNanos(2_500_000));
+        assertThat(execute.getPercentile(0.99)).isEqualTo(Duration.ofNanos(2_500_000));
+        assertThat(execute.getPercentile(1)).isEqualTo(Duration.ofMillis(700));
+        assertThat(new ConnectionFactoryStatistics().snapshot().getExecuteTime().getPercentile(0.5)).isEqualTo(Duration.ZERO);
+        assertThatThrownBy(() -> execute.getPercentile(1.5)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldDeriveActiveAndIdleConnections() {
+
+        this.statistics.connectionCreated();
+        this.statistics.connectionCreated();
+        this.statistics.connectionAcquired();
+        this.statistics.recordBytesIn(100);
+        this.statistics.recordBytesOut(20);
+
+        ConnectionFactoryStatistics.Snapshot snapshot = this.statistics.snapshot();
+
+        assertThat(snapshot.getActiveConnections()).isEqualTo(1L);
+        assertThat(snapshot.getIdleConnections()).isEqualTo(1L);
+        assertThat(snapshot.getBytesIn()).isEqualTo(100L);
+        assertThat(snapshot.getBytesOut()).isEqualTo(20L);
+
+        this.statistics.connectionReleased();
+
+        assertThat(this.statistics.snapshot().getActiveConnections()).isEqualTo(0L);
+        assertThat(this.statistics.snapshot().getIdleConnections()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldCountOpenConnectionsAsIdleWithoutAcquisitions() {
+
+        this.statistics.connectionCreated();
+        this.statistics.connectionCreated();
+        this.statistics.connectionClosed();
+
+        ConnectionFactoryStatistics.Snapshot snapshot = this.statistics.snapshot();
+
+        assertThat(snapshot.getActiveConnections()).isEqualTo(0L);
+        assertThat(snapshot.getIdleConnections()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldExposeStatisticsThroughObservedConnectionFactory() {
+
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+
+            if (method.getName().equals("close")) {
+                return IterablePublisher.<Void>of();
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+
+        ConnectionFactory connectionFactory = ConnectionFactories.observe(new ConnectionFactory() {
+
+            @Override
+            public Publisher<? extends Connection> create() {
+                return IterablePublisher.of(connection);
+            }
+
+            @Override
+            public ConnectionFactoryMetadata getMetadata() {
+                return () -> "test";
+            }
+        }, this.statistics);
+
+        assertThat(connectionFactory.getMetadata().getName()).isEqualTo("test");
+        assertThat(connectionFactory.getMetadata().getStatistics()).isSameAs(this.statistics);
+        assertThat(connectionFactory.getMetadata()).isSameAs(connectionFactory.getMetadata());
+
+        CollectingSubscriber<? extends Connection> created = CollectingSubscriber.subscribe(connectionFactory.create());
+
+        assertThat(this.statistics.snapshot().getActiveConnections()).isEqualTo(1L);
+        assertThat(this.statistics.snapshot().getAcquireTime().getCount()).isEqualTo(1L);
+
+        CollectingSubscriber.subscribe(created.items.get(0).close());
+
+        assertThat(this.statistics.snapshot().getActiveConnections()).isEqualTo(0L);
+        assertThat(this.statistics.snapshot().getIdleConnections()).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldNotExposeStatisticsByDefault() {
+        assertThat(((ConnectionFactoryMetadata) () -> "test").getStatistics()).isNull();
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ConnectionFactory}.
+ */
+final class ConnectionFactoryUnitTests {
+
+    final List<Subscriber<? super Connection>> pending = new ArrayList<>();
+
+    final Set<Connection> closed = ConcurrentHashMap.newKeySet();
+
+    final ConnectionFactory connectionFactory = new ConnectionFactory() {
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return subscriber -> {
+                subscriber.onSubscribe(new Subscription() {
+
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                ConnectionFactoryUnitTests.this.pending.add(subscriber);
+            };
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return () -> "test";
+        }
+    };
+
+    @Test
+    void shouldCreateConnectionsWithBoundedConcurrency() {
+
+        CollectingSubscriber<? extends Connection> subscriber = CollectingSubscriber.subscribe(this.connectionFactory.create(10));
+
+        assertThat(this.pending).hasSize(8);
+
+        for (int i = 0; i < 10; i++) {
+            complete(i);
+        }
+
+        assertThat(this.pending).hasSize(10);
+        assertThat(subscriber.items).hasSize(10);
+        assertThat(subscriber.completed).isTrue();
+    }
+
+    @Test
+    void shouldEmitCreatedConnectionsBeforeError() {
+
+        CollectingSubscriber<? extends Connection> subscriber = CollectingSubscriber.subscribe(this.connectionFactory.create(3));
+        IllegalStateException first = new IllegalStateException("first");
+        IllegalStateException second = new IllegalStateException("second");
+
+        this.pending.get(1).onError(first);
+        complete(0);
+
+        assertThat(subscriber.items).hasSize(1);
+        assertThat(subscriber.error).isNull();
+
+        this.pending.get(2).onError(second);
+
+        assertThat(subscriber.error).isSameAs(first);
+        assertThat(first.getSuppressed()).containsExactly(second);
+    }
+
+    @Test
+    void shouldNotStartCreationsAfterError() {
+
+        CollectingSubscriber<? extends Connection> subscriber = CollectingSubscriber.subscribe(this.connectionFactory.create(10));
+
+        this.pending.get(0).onError(new IllegalStateException());
+
+        for (int i = 1; i < 8; i++) {
+            complete(i);
+        }
+
+        assertThat(this.pending).hasSize(8);
+        assertThat(subscriber.items).hasSize(7);
+        assertThat(subscriber.error).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldCloseConnectionsCreatedAfterCancellation() {
+
+        CapturingSubscriber subscription = new CapturingSubscriber();
+        this.connectionFactory.create(2).subscribe(subscription);
+
+        subscription.get().request(2);
+        subscription.get().cancel();
+
+        Connection connection = complete(0);
+
+        assertThat(this.closed).containsExactly(connection);
+    }
+
+    @Test
+    void shouldEmitSynchronouslyCreatedConnectionsOneByOne() {
+
+        AtomicInteger created = new AtomicInteger();
+        ConnectionFactory connectionFactory = new ConnectionFactory() {
+
+            @Override
+            public Publisher<? extends Connection> create() {
+                created.incrementAndGet();
+                return IterablePublisher.of(newConnection());
+            }
+
+            @Override
+            public ConnectionFactoryMetadata getMetadata() {
+                return () -> "test";
+            }
+        };
+
+        List<Connection> received = new ArrayList<>();
+        connectionFactory.create(100).subscribe(new CapturingSubscriber() {
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                super.onSubscribe(s);
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Connection connection) {
+                received.add(connection);
+                if (received.size() == 3) {
+                    get().cancel();
+                }
+            }
+        });
+
+        assertThat(received).hasSize(3);
+        assertThat(created).hasValue(3);
+        assertThat(this.closed).isEmpty();
+    }
+
+    @Test
+    void shouldRejectInvalidCount() {
+        assertThatThrownBy(() -> this.connectionFactory.create(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Connection complete(int index) {
+
+        Connection connection = newConnection();
+        this.pending.get(index).onNext(connection);
+        return connection;
+    }
+
+    private Connection newConnection() {
+
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+
+            if (method.getName().equals("close")) {
+                this.closed.add((Connection) proxy);
+                return IterablePublisher.<Void>of();
+            }
+
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    static class CapturingSubscriber implements Subscriber<Connection> {
+
+        private Subscription subscription;
+
+        Subscription get() {
+            return this.subscription;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+        }
+
+        @Override
+        public void onNext(Connection connection) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.PublisherVerification;
+import org.reactivestreams.tck.TestEnvironment;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reactive Streams TCK verification of {@link Blob#stream()} of a {@link Blob} created through {@link Blob#from(Publisher)}.
+ */
+public final class DefaultLobPublisherTckTests extends PublisherVerification<ByteBuffer> {
+
+    public DefaultLobPublisherTckTests() {
+        super(new TestEnvironment());
+    }
+
+    @Override
+    public Publisher<ByteBuffer> createPublisher(long elements) {
+        return subscriber -> Blob.from(new ChunkPublisher(elements, 1)).stream().subscribe(subscriber);
+    }
+
+    @Override
+    public Publisher<ByteBuffer> createFailedPublisher() {
+
+        Blob blob = Blob.from(new ChunkPublisher(1, 1));
+        CollectingSubscriber.subscribe(blob.stream());
+
+        return blob.stream();
+    }
+
+}
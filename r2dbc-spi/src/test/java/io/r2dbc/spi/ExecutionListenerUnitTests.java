@@ -0,0 +1,319 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ExecutionListener}.
+ */
+final class ExecutionListenerUnitTests {
+
+    final RecordingListener listener = new RecordingListener();
+
+    final Connection connection = proxy(Connection.class, (method, args) -> {
+
+        switch (method) {
+            case "close":
+                return IterablePublisher.<Void>of();
+            case "createStatement":
+                return statement((String) args[0]);
+            default:
+                throw new UnsupportedOperationException(method);
+        }
+    });
+
+    final ConnectionFactory connectionFactory = ConnectionFactories.observe(new ConnectionFactory() {
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return IterablePublisher.of(ExecutionListenerUnitTests.this.connection);
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return () -> "test";
+        }
+    }, this.listener);
+
+    @Test
+    void shouldNotifyConnectionCreateAndClose() {
+
+        Connection observed = create();
+
+        assertThat(((Wrapped<?>) observed).unwrap()).isSameAs(this.connection);
+
+        assertThat(CollectingSubscriber.subscribe(observed.close()).completed).isTrue();
+        assertThat(this.listener.events).containsExactly("create", "close");
+    }
+
+    @Test
+    void shouldNotifyExecutionWithRows() {
+
+        Result result = execute("SELECT rows");
+
+        assertThat(this.listener.events).containsExactly("create", "start:SELECT rows");
+
+        CollectingSubscriber<Object> rows = CollectingSubscriber.subscribe(result.map((row, metadata) -> "row"));
+
+        assertThat(rows.items).hasSize(3);
+        assertThat(this.listener.events).containsExactly("create", "start:SELECT rows", "firstRow", "complete:3");
+        assertThat(this.listener.firstRowTime).isGreaterThanOrEqualTo(this.listener.startTime);
+    }
+
+    @Test
+    void shouldNotifyRowsUpdated() {
+
+        CollectingSubscriber<Long> rowsUpdated = CollectingSubscriber.subscribe(execute("UPDATE rows").getRowsUpdated());
+
+        assertThat(rowsUpdated.items).containsExactly(5L);
+        assertThat(this.listener.events).containsExactly("create", "start:UPDATE rows", "rowsUpdated:5", "complete:0");
+    }
+
+    @Test
+    void shouldReportBindingCount() {
+
+        Statement statement = create().createStatement("INSERT rows").bind(0, "a").add().bind(0, "b").add();
+
+        CollectingSubscriber.subscribe(statement.execute());
+
+        assertThat(this.listener.bindingCount).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotifyCancellation() {
+
+        Result result = execute("SELECT rows");
+
+        result.map((row, metadata) -> "row").subscribe(new Subscriber<Object>() {
+
+            Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(Object o) {
+                this.subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertThat(this.listener.events).containsExactly("create", "start:SELECT rows", "firstRow", "cancel:1");
+    }
+
+    @Test
+    void shouldNotTreatMonoFromAsCancellation() {
+
+        Result result = first(create().createStatement("UPDATE rows").execute());
+
+        assertThat(this.listener.events).containsExactly("create", "start:UPDATE rows");
+        assertThat(first(result.getRowsUpdated())).isEqualTo(5L);
+        assertThat(this.listener.events).containsExactly("create", "start:UPDATE rows", "rowsUpdated:5", "complete:0");
+    }
+
+    @Test
+    void shouldNotifyError() {
+
+        CollectingSubscriber<? extends Result> results = CollectingSubscriber.subscribe(create().createStatement("FAIL").execute());
+
+        assertThat(results.error).isInstanceOf(R2dbcBadGrammarException.class);
+        assertThat(this.listener.events).containsExactly("create", "start:FAIL", "error:R2dbcBadGrammarException");
+    }
+
+    @Test
+    void shouldRejectNullArguments() {
+        assertThatThrownBy(() -> ConnectionFactories.observe(null, this.listener)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConnectionFactories.observe(this.connectionFactory, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Connection create() {
+
+        CollectingSubscriber<? extends Connection> subscriber = CollectingSubscriber.subscribe(this.connectionFactory.create());
+
+        assertThat(subscriber.items).hasSize(1);
+        return subscriber.items.get(0);
+    }
+
+    private Result execute(String sql) {
+
+        CollectingSubscriber<? extends Result> subscriber = CollectingSubscriber.subscribe(create().createStatement(sql).execute());
+
+        assertThat(subscriber.items).hasSize(1);
+        return subscriber.items.get(0);
+    }
+
+    /**
+     * Subscribe like {@code Mono.from(publisher)}: request all items and cancel after the first one.
+     */
+    private static <T> T first(Publisher<T> publisher) {
+
+        List<T> items = new ArrayList<>();
+
+        publisher.subscribe(new Subscriber<T>() {
+
+            Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.subscription = s;
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T t) {
+
+                if (items.isEmpty()) {
+                    items.add(t);
+                    this.subscription.cancel();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertThat(items).hasSize(1);
+        return items.get(0);
+    }
+
+    private static Statement statement(String sql) {
+
+        Result result = proxy(Result.class, (method, args) -> {
+
+            switch (method) {
+                case "getRowsUpdated":
+                    return IterablePublisher.of(5L);
+                case "map":
+                    @SuppressWarnings("unchecked")
+                    BiFunction<Row, RowMetadata, ?> mappingFunction = (BiFunction<Row, RowMetadata, ?>) args[0];
+                    return (Publisher<Object>) subscriber -> IterablePublisher.of(1, 2, 3).subscribe(new ObservingSubscriber<Integer, Object>(subscriber, it -> mappingFunction.apply(null, null), () -> {
+                    }, e -> {
+                    }, () -> {
+                    }));
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+
+        return proxy(Statement.class, (method, args) -> {
+
+            if (method.equals("bind") || method.equals("add")) {
+                return null;
+            }
+
+            if (method.equals("execute")) {
+                return sql.equals("FAIL") ? Publishers.error(new R2dbcBadGrammarException()) : IterablePublisher.of(result);
+            }
+
+            throw new UnsupportedOperationException(method);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(ExecutionListenerUnitTests.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> handler.invoke(method.getName(), args));
+    }
+
+    interface Handler {
+
+        Object invoke(String method, Object[] args);
+
+    }
+
+    static final class RecordingListener implements ExecutionListener {
+
+        final List<String> events = new ArrayList<>();
+
+        long startTime;
+
+        long firstRowTime;
+
+        int bindingCount;
+
+        @Override
+        public void onConnectionCreate(Connection connection, long startTime, long endTime) {
+            this.events.add("create");
+        }
+
+        @Override
+        public void onConnectionClose(Connection connection, long startTime, long endTime) {
+            this.events.add("close");
+        }
+
+        @Override
+        public void onExecuteStart(Execution execution) {
+            this.startTime = execution.getStartTime();
+            this.bindingCount = execution.getBindingCount();
+            this.events.add("start:" + execution.getSql());
+        }
+
+        @Override
+        public void onFirstRow(Execution execution, long time) {
+            this.firstRowTime = time;
+            this.events.add("firstRow");
+        }
+
+        @Override
+        public void onRowsUpdated(Execution execution, long rowsUpdated, long time) {
+            this.events.add("rowsUpdated:" + rowsUpdated);
+        }
+
+        @Override
+        public void onExecuteComplete(Execution execution, long time) {
+            this.events.add("complete:" + execution.getRowCount());
+        }
+
+        @Override
+        public void onExecuteCancel(Execution execution, long time) {
+            this.events.add("cancel:" + execution.getRowCount());
+        }
+
+        @Override
+        public void onExecuteError(Execution execution, Throwable error, long time) {
+            this.events.add("error:" + error.getClass().getSimpleName());
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Synchronous {@link Publisher} emitting items from a {@link List} honoring demand.  Records the number of emitted items and whether the subscription was canceled.
+ */
+final class IterablePublisher<T> implements Publisher<T> {
+
+    private final List<T> items;
+
+    int emitted;
+
+    long maxOutstanding;
+
+    boolean cancelled;
+
+    private IterablePublisher(List<T> items) {
+        this.items = items;
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <T> IterablePublisher<T> of(T... items) {
+        return new IterablePublisher<>(Arrays.asList(items));
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+
+        Iterator<T> iterator = this.items.iterator();
+
+        subscriber.onSubscribe(new Subscription() {
+
+            long requested;
+
+            boolean emitting;
+
+            boolean done;
+
+            @Override
+            public void request(long n) {
+
+                this.requested += n;
+                IterablePublisher.this.maxOutstanding = Math.max(IterablePublisher.this.maxOutstanding, this.requested);
+
+                if (this.emitting) {
+                    return;
+                }
+
+                this.emitting = true;
+
+                while (this.requested > 0 && !this.done && !IterablePublisher.this.cancelled && iterator.hasNext()) {
+                    this.requested--;
+                    IterablePublisher.this.emitted++;
+                    subscriber.onNext(iterator.next());
+                }
+
+                if (!this.done && !IterablePublisher.this.cancelled && !iterator.hasNext()) {
+                    this.done = true;
+                    subscriber.onComplete();
+                }
+
+                this.emitting = false;
+            }
+
+            @Override
+            public void cancel() {
+                IterablePublisher.this.cancelled = true;
+            }
+        });
+    }
+
+}
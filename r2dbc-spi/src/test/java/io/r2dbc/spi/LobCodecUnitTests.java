@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link LobCodec}.
+ */
+final class LobCodecUnitTests {
+
+    @Test
+    void shouldDecodeMultiByteSequenceSplitAcrossChunks() {
+
+        byte[] bytes = "a\u00E4b".getBytes(StandardCharsets.UTF_8);
+
+        Clob clob = Clob.from(IterablePublisher.of(ByteBuffer.wrap(bytes, 0, 2), ByteBuffer.wrap(bytes, 2, 2)), StandardCharsets.UTF_8);
+        CollectingSubscriber<CharSequence> subscriber = CollectingSubscriber.subscribe(clob.stream());
+
+        assertThat(String.join("", subscriber.items)).isEqualTo("a\u00E4b");
+        assertThat(subscriber.completed).isTrue();
+    }
+
+    @Test
+    void shouldPassThroughMatchingCharset() {
+
+        ByteBuffer chunk = StandardCharsets.UTF_8.encode("foo");
+
+        Clob clob = Clob.from(IterablePublisher.of(chunk), StandardCharsets.UTF_8);
+        CollectingSubscriber<ByteBuffer> subscriber = CollectingSubscriber.subscribe(clob.streamBytes(StandardCharsets.UTF_8));
+
+        assertThat(subscriber.items).hasSize(1);
+        assertThat(subscriber.items.get(0)).isSameAs(chunk);
+    }
+
+    @Test
+    void shouldTranscodeDifferentCharset() {
+
+        Clob clob = Clob.from(IterablePublisher.of(StandardCharsets.UTF_8.encode("f\u00F6o")), StandardCharsets.UTF_8);
+        CollectingSubscriber<ByteBuffer> subscriber = CollectingSubscriber.subscribe(clob.streamBytes(StandardCharsets.ISO_8859_1));
+
+        assertThat(subscriber.items).hasSize(1);
+        assertThat(StandardCharsets.ISO_8859_1.decode(subscriber.items.get(0)).toString()).isEqualTo("f\u00F6o");
+    }
+
+    @Test
+    void shouldEmitRetainedCharactersOnCompletion() {
+
+        Clob clob = Clob.from(IterablePublisher.of("a\uD83D"));
+        CollectingSubscriber<ByteBuffer> subscriber = CollectingSubscriber.subscribe(clob.streamBytes(StandardCharsets.UTF_8));
+
+        assertThat(subscriber.items).hasSize(2);
+        assertThat(StandardCharsets.UTF_8.decode(subscriber.items.get(0)).toString()).isEqualTo("a");
+        assertThat(StandardCharsets.UTF_8.decode(subscriber.items.get(1)).toString()).isEqualTo("?");
+        assertThat(subscriber.completed).isTrue();
+    }
+
+}
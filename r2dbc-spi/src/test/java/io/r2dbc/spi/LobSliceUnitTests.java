@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link LobSlice}.
+ */
+final class LobSliceUnitTests {
+
+    @Test
+    void shouldEmitRangeAcrossChunks() {
+
+        IterablePublisher<CharSequence> source = IterablePublisher.of("foo", "bar", "baz", "qux");
+
+        CollectingSubscriber<CharSequence> subscriber = CollectingSubscriber.subscribe(Clob.from(source).stream(2, 5));
+
+        assertThat(subscriber.items).containsExactly("o", "bar", "b");
+        assertThat(subscriber.completed).isTrue();
+        assertThat(source.emitted).isEqualTo(3);
+        assertThat(source.cancelled).isTrue();
+    }
+
+    @Test
+    void shouldEmitShortRangeAtEndOfContent() {
+
+        CollectingSubscriber<ByteBuffer> subscriber = CollectingSubscriber.subscribe(Blob.from(IterablePublisher.of(StandardCharsets.UTF_8.encode("foo"),
+            StandardCharsets.UTF_8.encode("bar"))).stream(4, Long.MAX_VALUE));
+
+        assertThat(subscriber.items).hasSize(1);
+        assertThat(StandardCharsets.UTF_8.decode(subscriber.items.get(0)).toString()).isEqualTo("ar");
+        assertThat(subscriber.completed).isTrue();
+    }
+
+    @Test
+    void shouldCompleteEmptyRange() {
+
+        IterablePublisher<CharSequence> source = IterablePublisher.of("foo");
+
+        CollectingSubscriber<CharSequence> subscriber = CollectingSubscriber.subscribe(Clob.from(source).stream(1, 0));
+
+        assertThat(subscriber.items).isEmpty();
+        assertThat(subscriber.completed).isTrue();
+        assertThat(source.emitted).isEqualTo(0);
+    }
+
+    @Test
+    void shouldRejectNegativeRange() {
+
+        Blob blob = Blob.from(IterablePublisher.of(ByteBuffer.allocate(1)));
+
+        assertThatThrownBy(() -> blob.stream(-1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> blob.stream(0, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldReportUnknownLength() {
+
+        CollectingSubscriber<Long> subscriber = CollectingSubscriber.subscribe(Blob.from(IterablePublisher.of(ByteBuffer.allocate(1))).length());
+
+        assertThat(subscriber.items).isEmpty();
+        assertThat(subscriber.completed).isTrue();
+    }
+
+}
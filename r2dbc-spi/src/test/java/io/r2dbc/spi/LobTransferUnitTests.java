@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link LobTransfer}.
+ */
+final class LobTransferUnitTests {
+
+    @Test
+    void shouldTransferBlobToChannel() {
+
+        IterablePublisher<ByteBuffer> source = IterablePublisher.of(StandardCharsets.UTF_8.encode("foo"), StandardCharsets.UTF_8.encode("bar"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CollectingSubscriber<Long> subscriber = CollectingSubscriber.subscribe(Blob.from(source).transferTo(Channels.newChannel(out)));
+
+        assertThat(subscriber.items).containsExactly(6L);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("foobar");
+        assertThat(source.maxOutstanding).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTransferClobToAppendable() {
+
+        StringBuilder out = new StringBuilder();
+
+        CollectingSubscriber<Long> subscriber = CollectingSubscriber.subscribe(Clob.from(IterablePublisher.of("foo", "bar")).transferTo(out));
+
+        assertThat(subscriber.items).containsExactly(6L);
+        assertThat(out.toString()).isEqualTo("foobar");
+    }
+
+    @Test
+    void shouldEncodeSurrogatePairsSplitAcrossChunks() {
+
+        String text = "a\uD83D\uDE00b";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CollectingSubscriber<Long> subscriber = CollectingSubscriber.subscribe(Clob.from(IterablePublisher.of(text.substring(0, 2), text.substring(2))).transferTo(Channels.newChannel(out),
+            StandardCharsets.UTF_8));
+
+        assertThat(subscriber.items).containsExactly(6L);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(text);
+    }
+
+    @Test
+    void shouldRejectSecondTransfer() {
+
+        Blob blob = Blob.from(IterablePublisher.of(ByteBuffer.allocate(1)));
+
+        CollectingSubscriber.subscribe(blob.transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+        CollectingSubscriber<Long> subscriber = CollectingSubscriber.subscribe(blob.transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+
+        assertThat(subscriber.error).isInstanceOf(IllegalStateException.class);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ReleasableBuffer}.
+ */
+final class ReleasableBufferUnitTests {
+
+    @Test
+    void shouldReleaseOnce() {
+
+        ReleasableBuffer buffer = ReleasableBuffer.wrap(ByteBuffer.allocate(1));
+
+        assertThat(buffer.release()).isTrue();
+        assertThat(buffer.release()).isFalse();
+    }
+
+    @Test
+    void wrapShouldRejectNull() {
+        assertThatThrownBy(() -> ReleasableBuffer.wrap(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ReleasableBuffer.copy(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void copyShouldReleaseChunks() {
+
+        ByteBuffer data = StandardCharsets.US_ASCII.encode("foo");
+        ReleasableBuffer chunk = ReleasableBuffer.wrap(data);
+
+        CollectingSubscriber<ByteBuffer> subscriber = CollectingSubscriber.subscribe(ReleasableBuffer.copy(IterablePublisher.of(chunk)));
+
+        assertThat(subscriber.items).hasSize(1);
+        assertThat(subscriber.items.get(0)).isNotSameAs(data);
+        assertThat(StandardCharsets.US_ASCII.decode(subscriber.items.get(0)).toString()).isEqualTo("foo");
+        assertThat(data.remaining()).isEqualTo(3);
+        assertThat(chunk.release()).isFalse();
+    }
+
+    @Test
+    void transferShouldReleaseChunks() {
+
+        ReleasableBuffer first = ReleasableBuffer.wrap(StandardCharsets.US_ASCII.encode("foo"));
+        ReleasableBuffer second = ReleasableBuffer.wrap(StandardCharsets.US_ASCII.encode("bar"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Blob blob = new Blob() {
+
+            @Override
+            public Publisher<ByteBuffer> stream() {
+                return ReleasableBuffer.copy(streamReleasable());
+            }
+
+            @Override
+            public Publisher<ReleasableBuffer> streamReleasable() {
+                return IterablePublisher.of(first, second);
+            }
+
+            @Override
+            public Publisher<Void> discard() {
+                return Publishers.empty();
+            }
+        };
+
+        CollectingSubscriber<Long> subscriber = CollectingSubscriber.subscribe(blob.transferTo(Channels.newChannel(out)));
+
+        assertThat(subscriber.items).containsExactly(6L);
+        assertThat(out.toString()).isEqualTo("foobar");
+        assertThat(first.release()).isFalse();
+        assertThat(second.release()).isFalse();
+    }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link SlowQueryLog}.
+ */
+final class SlowQueryLogUnitTests {
+
+    @Test
+    void shouldCaptureExecutionsExceedingThreshold() {
+
+        SlowQueryLog log = SlowQueryLog.builder().threshold(Duration.ofMillis(10)).build();
+
+        log.onExecuteComplete(new TestExecution("SELECT 1", Collections.emptyMap(), 0), Duration.ofMillis(5).toNanos());
+        log.onExecuteComplete(new TestExecution("SELECT 2", Collections.emptyMap(), 3), Duration.ofMillis(20).toNanos());
+
+        List<SlowQueryLog.SlowQuery> slowQueries = log.drain();
+
+        assertThat(slowQueries).hasSize(1);
+
+        SlowQueryLog.SlowQuery slowQuery = slowQueries.get(0);
+        assertThat(slowQuery.getFingerprint().getNormalizedSql()).isEqualTo("SELECT ?");
+        assertThat(slowQuery.getRowCount()).isEqualTo(3L);
+        assertThat(slowQuery.getFirstRowTime()).isEqualTo(Duration.ofNanos(TestExecution.FIRST_ROW_TIME));
+        assertThat(slowQuery.getTotalTime()).isEqualTo(Duration.ofMillis(20));
+        assertThat(log.drain()).isEmpty();
+        assertThat(log.getCaptureCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldOverwriteOldestCaptures() {
+
+        SlowQueryLog log = SlowQueryLog.builder().threshold(Duration.ZERO).capacity(3).build();
+
+        assertThat(log.getCapacity()).isEqualTo(4);
+
+        for (int i = 0; i < 6; i++) {
+            log.onExecuteError(new TestExecution("SELECT * FROM t" + i, Collections.emptyMap(), 0), new IllegalStateException(), 1);
+        }
+
+        List<SlowQueryLog.SlowQuery> slowQueries = log.drain();
+
+        assertThat(slowQueries).hasSize(4);
+        assertThat(slowQueries.get(0).getFingerprint().getNormalizedSql()).isEqualTo("SELECT * FROM t2");
+        assertThat(slowQueries.get(3).getFingerprint().getNormalizedSql()).isEqualTo("SELECT * FROM t5");
+        assertThat(slowQueries.get(0).getFirstRowTime()).isNull();
+    }
+
+    @Test
+    void shouldRenderAndRedactBindings() {
+
+        SlowQueryLog log = SlowQueryLog.builder().threshold(Duration.ZERO).maxValueLength(4).reveal("0", "data", "age", "email").build();
+
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        bindings.put("0", "Walter White");
+        bindings.put("password", "secret");
+        bindings.put("data", new byte[10]);
+        bindings.put("age", Parameters.in(R2dbcType.INTEGER, 50));
+        bindings.put("email", null);
+
+        log.onExecuteCancel(new TestExecution("UPDATE person", bindings, 0), 1);
+
+        assertThat(log.drain().get(0).getBindings()).containsExactly(entry("0", "Walt..."), entry("password", SlowQueryLog.REDACTED), entry("data", "byte[]"), entry("age", "50"),
+            entry("email", "null"));
+    }
+
+    @Test
+    void shouldSampleBindingsOfObservedStatement() {
+
+        SlowQueryLog log = SlowQueryLog.builder().threshold(Duration.ZERO).maxBindings(2).reveal("0", "1").build();
+
+        Statement statement = observe(log).createStatement("INSERT INTO person VALUES($1, $2, $3)").bind(0, "a").bindNull(1, String.class).bind(2, "c").bind(0, "b").add().bind(0, "d");
+
+        CollectingSubscriber.subscribe(statement.execute());
+
+        List<SlowQueryLog.SlowQuery> slowQueries = log.drain();
+
+        assertThat(slowQueries).hasSize(1);
+        assertThat(slowQueries.get(0).getBindings()).containsExactly(entry("0", "b"), entry("1", "null"));
+    }
+
+    @Test
+    void shouldNotModifySampleOfPreviousExecution() {
+
+        List<ExecutionListener.Execution> executions = new ArrayList<>();
+        ExecutionListener listener = new ExecutionListener() {
+
+            @Override
+            public void onExecuteStart(Execution execution) {
+                executions.add(execution);
+            }
+
+            @Override
+            public int getBindingSampleSize() {
+                return 2;
+            }
+        };
+
+        Statement statement = observe(listener).createStatement("SELECT * FROM person WHERE id = $1").bind(0, "a");
+
+        CollectingSubscriber.subscribe(statement.execute());
+        statement.bind(0, "b");
+        CollectingSubscriber.subscribe(statement.execute());
+
+        assertThat(executions).hasSize(2);
+        assertThat(executions.get(0).getBindings()).containsExactly(entry("0", "a"));
+        assertThat(executions.get(1).getBindings()).containsExactly(entry("0", "b"));
+    }
+
+    @Test
+    void shouldRedactBindingsByDefault() {
+
+        SlowQueryLog log = SlowQueryLog.builder().threshold(Duration.ZERO).maxBindings(1).build();
+
+        CollectingSubscriber.subscribe(observe(log).createStatement("SELECT * FROM person WHERE name = :name").bind("name", "Walter").execute());
+
+        assertThat(log.drain().get(0).getBindings()).containsExactly(entry("name", SlowQueryLog.REDACTED));
+    }
+
+    @Test
+    void shouldNotSampleBindingsOfSlowQueryLogByDefault() {
+
+        SlowQueryLog log = SlowQueryLog.builder().threshold(Duration.ZERO).build();
+
+        CollectingSubscriber.subscribe(observe(log).createStatement("SELECT * FROM person WHERE name = :name").bind("name", "Walter").execute());
+
+        assertThat(log.getBindingSampleSize()).isEqualTo(0);
+        assertThat(log.drain().get(0).getBindings()).isEmpty();
+    }
+
+    @Test
+    void shouldNotSampleBindingsByDefault() {
+        assertThat(new ExecutionListener() {
+
+        }.getBindingSampleSize()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        assertThatThrownBy(() -> SlowQueryLog.builder().threshold(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SlowQueryLog.builder().threshold(Duration.ofMillis(-1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SlowQueryLog.builder().capacity(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SlowQueryLog.builder().maxBindings(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SlowQueryLog.builder().reveal((String) null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Map.Entry<String, String> entry(String key, String value) {
+        return Collections.singletonMap(key, value).entrySet().iterator().next();
+    }
+
+    private static Connection observe(ExecutionListener listener) {
+
+        Statement statement = proxy(Statement.class, (method, args) -> {
+
+            if (method.equals("execute")) {
+                return IterablePublisher.of();
+            }
+
+            return null;
+        });
+
+        Connection connection = proxy(Connection.class, (method, args) -> statement);
+
+        CollectingSubscriber<? extends Connection> subscriber = CollectingSubscriber.subscribe(ConnectionFactories.observe(new ConnectionFactory() {
+
+            @Override
+            public Publisher<? extends Connection> create() {
+                return IterablePublisher.of(connection);
+            }
+
+            @Override
+            public ConnectionFactoryMetadata getMetadata() {
+                return () -> "test";
+            }
+        }, listener).create());
+
+        return subscriber.items.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(SlowQueryLogUnitTests.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> handler.invoke(method.getName(), args));
+    }
+
+    interface Handler {
+
+        Object invoke(String method, Object[] args);
+
+    }
+
+    static final class TestExecution implements ExecutionListener.Execution {
+
+        static final long FIRST_ROW_TIME = 2_000;
+
+        final String sql;
+
+        final Map<String, Object> bindings;
+
+        final long rowCount;
+
+        TestExecution(String sql, Map<String, Object> bindings, long rowCount) {
+            this.sql = sql;
+            this.bindings = bindings;
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public Connection getConnection() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getSql() {
+            return this.sql;
+        }
+
+        @Override
+        public long getStartTime() {
+            return 0;
+        }
+
+        @Override
+        public int getBindingCount() {
+            return this.bindings.isEmpty() ? 0 : 1;
+        }
+
+        @Override
+        public Map<String, Object> getBindings() {
+            return this.bindings;
+        }
+
+        @Override
+        public long getFirstRowTime() {
+            return FIRST_ROW_TIME;
+        }
+
+        @Override
+        public long getRowCount() {
+            return this.rowCount;
+        }
+
+    }
+
+}
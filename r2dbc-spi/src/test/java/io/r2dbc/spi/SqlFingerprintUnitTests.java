@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.r2dbc.spi;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link SqlFingerprint}.
+ */
+final class SqlFingerprintUnitTests {
+
+    @Test
+    void shouldReplaceLiteralsAndBindMarkers() {
+        assertThat(SqlFingerprint.normalize("SELECT * FROM person WHERE name = 'O''Brien' AND age > 42.5e3")).isEqualTo("SELECT * FROM person WHERE name = ? AND age > ?");
+        assertThat(SqlFingerprint.normalize("UPDATE person SET a = $1, b = :name, c = @p1, d = ?, e = 0xFF WHERE id = $$text$$")).isEqualTo("UPDATE person SET a = ?, b = ?, c = ?, d = ?, e = ? WHERE id = ?");
+    }
+
+    @Test
+    void shouldRetainIdentifiersAndCasts() {
+        assertThat(SqlFingerprint.normalize("SELECT \"col 1\", t2.c3, x::int, @@version FROM `t 1`")).isEqualTo("SELECT \"col 1\", t2.c3, x::int, @@version FROM `t 1`");
+    }
+
+    @Test
+    void shouldCollapseWhitespaceAndRemoveComments() {
+        assertThat(SqlFingerprint.normalize("  SELECT /* hint */ a ,b\n\t-- comment\nFROM  person ( x ) ;")).isEqualTo("SELECT a, b FROM person (x)");
+    }
+
+    @Test
+    void shouldFoldInLists() {
+        assertThat(SqlFingerprint.normalize("SELECT * FROM person WHERE id IN (1, 2, 3) AND name in('a','b')")).isEqualTo("SELECT * FROM person WHERE id IN (?) AND name in(?)");
+        assertThat(SqlFingerprint.normalize("SELECT coalesce(?, ?) FROM person")).isEqualTo("SELECT coalesce(?, ?) FROM person");
+    }
+
+    @Test
+    void shouldFoldRepeatedRows() {
+        assertThat(SqlFingerprint.normalize("INSERT INTO person VALUES (1, 'a'), (2, 'b'),(3, 'c')")).isEqualTo("INSERT INTO person VALUES (?, ?)");
+        assertThat(SqlFingerprint.normalize("INSERT INTO person VALUES (1, 'a'), (2, now())")).isEqualTo("INSERT INTO person VALUES (?, ?), (?, now())");
+    }
+
+    @Test
+    void shouldFingerprintNormalizedSql() {
+
+        SqlFingerprint fingerprint = SqlFingerprint.of("SELECT * FROM person WHERE id = 1");
+
+        assertThat(SqlFingerprint.of("SELECT * FROM person WHERE id = 1")).isSameAs(fingerprint);
+        assertThat(SqlFingerprint.of("SELECT *  FROM person WHERE id = $1")).isEqualTo(fingerprint);
+        assertThat(SqlFingerprint.of("SELECT * FROM person WHERE id = $1").getHash()).isEqualTo(fingerprint.getHash());
+        assertThat(SqlFingerprint.of("SELECT * FROM person WHERE name = $1").getHash()).isNotEqualTo(fingerprint.getHash());
+        assertThat(fingerprint.toString()).hasSize(16);
+    }
+
+    @Test
+    void shouldBoundCache() {
+
+        for (int i = 0; i < SqlFingerprint.MAX_CACHE_SIZE * 2; i++) {
+            SqlFingerprint.of("SELECT " + i + " AS c" + i);
+        }
+
+        assertThat(SqlFingerprint.cacheSize()).isLessThanOrEqualTo(SqlFingerprint.MAX_CACHE_SIZE);
+    }
+
+    @Test
+    void shouldRejectNullSql() {
+        assertThatThrownBy(() -> SqlFingerprint.of(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SqlFingerprint.normalize(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}